@@ -29,7 +29,9 @@
  */
 package com.norcane.lysense.cli;
 
+import com.norcane.lysense.cli.command.DaemonCommand;
 import com.norcane.lysense.cli.command.RunCommand;
+import com.norcane.lysense.cli.command.WatchCommand;
 import com.norcane.lysense.cli.command.setup.SetupCommand;
 import com.norcane.lysense.meta.ProductInfo;
 
@@ -43,7 +45,7 @@ import picocli.CommandLine;
     version = ProductInfo.VERSION_STRING,
     mixinStandardHelpOptions = true,
     usageHelpAutoWidth = true,
-    subcommands = {RunCommand.class, SetupCommand.class},
+    subcommands = {DaemonCommand.class, RunCommand.class, SetupCommand.class, WatchCommand.class},
     headerHeading = "@|bold,underline Usage|@:%n%n",
     descriptionHeading = "%n@|bold,underline Description|@:%n%n",
     parameterListHeading = "%n@|bold,underline Parameters|@:%n",
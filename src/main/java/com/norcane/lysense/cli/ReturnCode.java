@@ -42,7 +42,12 @@ public enum ReturnCode {
     /**
      * Error during execution.
      */
-    ERROR(1);
+    ERROR(1),
+
+    /**
+     * Source code files without up-to-date license headers found in check mode.
+     */
+    NOT_COMPLIANT(2);
 
     private final int code;
 
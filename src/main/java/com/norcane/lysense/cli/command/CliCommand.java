@@ -30,6 +30,7 @@
 package com.norcane.lysense.cli.command;
 
 import com.norcane.lysense.cli.ReturnCode;
+import com.norcane.lysense.cli.command.exception.InvalidOptionException;
 import com.norcane.lysense.exception.ApplicationException;
 import com.norcane.lysense.exception.UnexpectedBehaviorException;
 import com.norcane.lysense.meta.ProductInfo;
@@ -80,12 +81,28 @@ public abstract class CliCommand implements Callable<Integer> {
         }
     }
 
+    /**
+     * Resolves number of source code files processed in parallel from the value of the {@code --jobs} option, where {@code 0} means number of available
+     * processors.
+     *
+     * @param jobs value of the {@code --jobs} option
+     * @return number of source code files processed in parallel
+     * @throws InvalidOptionException if the value is negative
+     */
+    protected static int parallelism(int jobs) {
+        if (jobs < 0) {
+            throw new InvalidOptionException("--jobs", "number of jobs must not be negative, but was " + jobs);
+        }
+
+        return jobs > 0 ? jobs : Runtime.getRuntime().availableProcessors();
+    }
+
     void printProductHeader() {
         console.emptyLine();
         console.printLn(ProductInfo.productHeader());
     }
 
-    private void handleApplicationException(ApplicationException e) {
+    protected void handleApplicationException(ApplicationException e) {
         final String errorCode = "%s-%05d".formatted(ProductInfo.ERROR_CODE_PREFIX, e.errorCode().code());
 
         Log.error(e);
@@ -0,0 +1,87 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.cli.command;
+
+import com.norcane.lysense.cli.ReturnCode;
+import com.norcane.lysense.daemon.DaemonClient;
+import com.norcane.lysense.daemon.DaemonProtocol;
+import com.norcane.lysense.daemon.DaemonServer;
+import com.norcane.lysense.ui.console.Console;
+
+import java.nio.file.Path;
+
+import jakarta.inject.Inject;
+import picocli.CommandLine;
+
+@CommandLine.Command(
+    name = "daemon",
+    description = "keep configuration, templates and source code supports loaded and process requests sent by the client over Unix domain socket",
+    footerHeading = "%n@|bold,underline Client|@:%n%n",
+    footer = "Requests are sent using the thin client, which starts without booting the whole application:%n"
+             + "  java -cp <lysense.jar> " + DaemonClient.CLASS_NAME + " run [-m MODE] [FILE...]%n"
+             + "  java -cp <lysense.jar> " + DaemonClient.CLASS_NAME + " stop",
+    usageHelpAutoWidth = true,
+    headerHeading = "@|bold,underline Usage|@:%n%n",
+    descriptionHeading = "%n@|bold,underline Description|@:%n%n",
+    parameterListHeading = "%n@|bold,underline Parameters|@:%n",
+    optionListHeading = "%n@|bold,underline Options|@:%n"
+)
+public class DaemonCommand extends CliCommand {
+
+    private final DaemonServer daemonServer;
+
+    @CommandLine.Option(
+        names = {"-j", "--jobs"},
+        description = "number of source code files processed in parallel, 0 means number of available processors (default: ${DEFAULT-VALUE})",
+        paramLabel = "N",
+        defaultValue = "1"
+    )
+    int jobs;
+
+    @CommandLine.Option(
+        names = {"--socket"},
+        description = "path of the Unix domain socket to listen on (default: ${DEFAULT-VALUE})",
+        paramLabel = "PATH",
+        defaultValue = DaemonProtocol.DEFAULT_SOCKET
+    )
+    Path socket;
+
+    @Inject
+    public DaemonCommand(Console console, DaemonServer daemonServer) {
+        super(console);
+        this.daemonServer = daemonServer;
+    }
+
+    @Override
+    protected ReturnCode execute() {
+        daemonServer.serve(socket, parallelism(jobs), console::printLn);
+        return ReturnCode.SUCCESS;
+    }
+}
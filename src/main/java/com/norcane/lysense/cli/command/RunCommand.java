@@ -32,36 +32,32 @@ package com.norcane.lysense.cli.command;
 import com.google.common.base.Stopwatch;
 
 import com.norcane.lysense.cli.ReturnCode;
+import com.norcane.lysense.cli.command.exception.InvalidOptionException;
 import com.norcane.lysense.configuration.ConfigurationManager;
 import com.norcane.lysense.configuration.api.Configuration;
 import com.norcane.lysense.configuration.api.RunMode;
-import com.norcane.lysense.resource.Resource;
-import com.norcane.lysense.resource.loader.ResourceLoader;
-import com.norcane.lysense.source.SourceCode;
-import com.norcane.lysense.source.SourceCodeProcessor;
-import com.norcane.lysense.template.TemplateManager;
-import com.norcane.lysense.template.source.UserLicenseTemplateSource;
+import com.norcane.lysense.resource.util.GitChanges;
+import com.norcane.lysense.source.batch.Batch;
+import com.norcane.lysense.source.batch.BatchProcessor;
+import com.norcane.lysense.source.batch.ProcessedSource;
+import com.norcane.lysense.source.cache.IncrementalCache;
+import com.norcane.lysense.source.cache.SharedResultCache;
 import com.norcane.lysense.ui.console.Console;
 import com.norcane.lysense.ui.progressbar.ProgressBar;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
-import java.util.function.Function;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 import jakarta.inject.Inject;
 import picocli.CommandLine;
 
-import static com.norcane.toolkit.Prelude.when;
-
 @CommandLine.Command(
     name = "run",
-    description = "add, drop or update license headers",
+    description = "add, drop, update or check license headers",
     usageHelpAutoWidth = true,
     headerHeading = "@|bold,underline Usage|@:%n%n",
     descriptionHeading = "%n@|bold,underline Description|@:%n%n",
@@ -70,11 +66,11 @@ import static com.norcane.toolkit.Prelude.when;
 )
 public class RunCommand extends CliCommand {
 
+    private final BatchProcessor batchProcessor;
     private final Configuration configuration;
     private final ConfigurationManager configurationManager;
-    private final ResourceLoader resourceLoader;
-    private final SourceCodeProcessor sourceCodeProcessor;
-    private final TemplateManager templateManager;
+    private final IncrementalCache incrementalCache;
+    private final SharedResultCache sharedResultCache;
 
     @CommandLine.Option(
         names = {"-m", "--mode"},
@@ -83,20 +79,48 @@ public class RunCommand extends CliCommand {
     )
     RunMode cliRunMode;
 
+    @CommandLine.Option(
+        names = {"-j", "--jobs"},
+        description = "number of source code files processed in parallel, 0 means number of available processors; with more than one job, files are reported "
+                      + "in the order they complete rather than the order they are found (default: ${DEFAULT-VALUE})",
+        paramLabel = "N",
+        defaultValue = "1"
+    )
+    int jobs;
+
+    @CommandLine.Option(
+        names = {"--fail-fast"},
+        description = "stop at the first source code file without up-to-date license header, supported only in check mode"
+    )
+    boolean failFast;
+
+    @CommandLine.Option(
+        names = {"--since"},
+        description = "process only source code files changed since given Git revision, including uncommitted and untracked files",
+        paramLabel = "REV"
+    )
+    String since;
+
+    @CommandLine.Parameters(
+        description = "process only given source code files (if matching configured sources), instead of all configured sources",
+        paramLabel = "FILE"
+    )
+    List<Path> files;
+
     @Inject
     public RunCommand(Console console,
+                      BatchProcessor batchProcessor,
                       Configuration configuration,
                       ConfigurationManager configurationManager,
-                      ResourceLoader resourceLoader,
-                      SourceCodeProcessor sourceCodeProcessor,
-                      TemplateManager templateManager) {
+                      IncrementalCache incrementalCache,
+                      SharedResultCache sharedResultCache) {
 
         super(console);
+        this.batchProcessor = batchProcessor;
         this.configuration = configuration;
         this.configurationManager = configurationManager;
-        this.resourceLoader = resourceLoader;
-        this.sourceCodeProcessor = sourceCodeProcessor;
-        this.templateManager = templateManager;
+        this.incrementalCache = incrementalCache;
+        this.sharedResultCache = sharedResultCache;
     }
 
     @Override
@@ -104,93 +128,96 @@ public class RunCommand extends CliCommand {
         final Stopwatch stopwatch = Stopwatch.createStarted();
 
         final RunMode runMode = cliRunMode != null ? cliRunMode : configuration.runMode();
+        if (failFast && runMode != RunMode.CHECK) {
+            throw new InvalidOptionException("--fail-fast", "supported only in check mode, current run mode is " + runMode);
+        }
 
-        console.printLn("Loaded configuration from " + configurationManager.configurationRef().resource().uri());
+        final int parallelism = parallelism(jobs);
 
-        final List<SourceCode> sourceCodes = loadSourceCodes();
-        console.printLn("Found @|bold %s|@ source code files from @|bold %s|@".formatted(sourceCodes.size(), configuration.sources()));
+        console.printLn("Loaded configuration from " + configurationManager.configurationRef().resource().uri());
 
-        final RunResult runResult = switch (runMode) {
-            case ADD -> addHeaders(sourceCodes);
-            case DROP -> dropHeaders(sourceCodes);
-            case UPDATE -> updateHeaders(sourceCodes);
-        };
+        final Optional<Set<Path>> selectedFiles = selectedFiles();
+        final RunResult runResult = processSourceCodes(runMode, selectedFiles, parallelism);
 
         stopwatch.stop();
         console.emptyLine();
-        console.printLn("Modified @|bold %s|@ source code file(s) in @|bold %s|@".formatted(runResult.modifiedSources().size(), stopwatch));
-
-        return ReturnCode.SUCCESS;
-    }
-
-    private RunResult addHeaders(List<SourceCode> sourceCodes) {
-        final List<SourceCode> modifiedSources = new ArrayList<>();
-
-        final Function<SourceCode, String> messageFn =
-            sourceCode -> sourceCode.metadata().header().isEmpty()
-                          ? "Adding header to @|bold %s|@".formatted(sourceCode.resource().uri())
-                          : "Header already present in @|bold %s}|@".formatted(sourceCode.resource().uri());
-
-        for (final SourceCode sourceCode : ProgressBar.concise(sourceCodes, messageFn, console)) {
-            when(sourceCodeProcessor.addHeader(sourceCode).modified(), () -> modifiedSources.add(sourceCode));
+        console.printLn("Processed @|bold %s|@ source code file(s) from @|bold %s|@".formatted(runResult.processedSources(), configuration.sources()));
+        if (incrementalCache.enabled()) {
+            console.printLn("Skipped @|bold %s|@ unchanged source code file(s) known to be compliant".formatted(runResult.skippedSources()));
         }
-
-        return new RunResult(ReturnCode.SUCCESS, Collections.unmodifiableList(modifiedSources));
-    }
-
-    private RunResult dropHeaders(List<SourceCode> sourceCodes) {
-        final List<SourceCode> modifiedSources = new ArrayList<>();
-
-        final Function<SourceCode, String> messageFn =
-            sourceCode -> sourceCode.metadata().header().isPresent()
-                          ? "Dropping header from @|bold %s|@".formatted(sourceCode.resource().uri())
-                          : "No header present in @|bold %s|@".formatted(sourceCode.resource().uri());
-
-        for (final SourceCode sourceCode : ProgressBar.concise(sourceCodes, messageFn, console)) {
-            when(sourceCodeProcessor.dropHeader(sourceCode).modified(), () -> modifiedSources.add(sourceCode));
+        if (sharedResultCache.enabled()) {
+            console.printLn("Reused cached results for @|bold %s|@ source code file(s)".formatted(runResult.cachedSources()));
+        }
+        if (runMode == RunMode.CHECK) {
+            runResult.violations().forEach(console::printLn);
+            console.printLn("Found @|bold %s|@ source code file(s) without up-to-date license header in @|bold %s|@"
+                                .formatted(runResult.violations().size(), stopwatch));
+        } else {
+            console.printLn("Modified @|bold %s|@ source code file(s) in @|bold %s|@".formatted(runResult.modifiedSources(), stopwatch));
         }
 
-        return new RunResult(ReturnCode.SUCCESS, Collections.unmodifiableList(modifiedSources));
+        return runResult.returnCode();
     }
 
-    private RunResult updateHeaders(List<SourceCode> sourceCodes) {
-        final List<SourceCode> modifiedSources = new ArrayList<>();
-
-        final Function<SourceCode, String> messageFn =
-            sourceCode -> sourceCode.metadata().header().isPresent()
-                          ? "Updating header in @|bold %s|@".formatted(sourceCode.resource().uri())
-                          : "Adding header to @|bold %s|@".formatted(sourceCode.resource().uri());
-
-        for (final SourceCode sourceCode : ProgressBar.concise(sourceCodes, messageFn, console)) {
-            when(sourceCodeProcessor.updateHeader(sourceCode).modified(), () -> modifiedSources.add(sourceCode));
+    /**
+     * Processes source codes using the {@link BatchProcessor}, results are collected (and progress rendered) on the calling thread. Results come in the order
+     * in which source codes are completed, so with more than one job the order of reported files may differ between runs, while the counts do not.
+     */
+    private RunResult processSourceCodes(RunMode runMode, Optional<Set<Path>> selectedFiles, int parallelism) {
+        int processedSources = 0;
+        int modifiedSources = 0;
+        int cachedSources = 0;
+        final List<String> violations = new ArrayList<>();
+
+        try (final Batch batch = batchProcessor.start(runMode, selectedFiles, parallelism)) {
+            for (final ProcessedSource processed : ProgressBar.conciseUnbounded(batch, ProcessedSource::message, console)) {
+                processedSources++;
+                if (processed.result().modified()) {
+                    modifiedSources++;
+                }
+                if (processed.cached()) {
+                    cachedSources++;
+                }
+                if (processed.violation()) {
+                    violations.add(processed.message());
+                    if (failFast) {
+                        console.clearLine();    // progress bar is cleaned up only once all items are iterated
+                        break;
+                    }
+                }
+            }
+
+            final ReturnCode returnCode = violations.isEmpty() ? ReturnCode.SUCCESS : ReturnCode.NOT_COMPLIANT;
+            return new RunResult(returnCode, processedSources, modifiedSources, batch.skippedSources(), cachedSources, violations);
         }
-
-        return new RunResult(ReturnCode.SUCCESS, Collections.unmodifiableList(modifiedSources));
     }
 
-    private List<SourceCode> loadSourceCodes() {
-        final Set<String> resourceExtensions = sourceCodeExtensions();
-        final Predicate<Resource> filter = resource -> resourceExtensions.contains(resource.extension());
-
-        return configuration.sources().stream()
-            .map(sourcePath -> resourceLoader.resources(sourcePath, filter, true))
-            .flatMap(Collection::stream)
-            .map(Resource::asWritableOrFail)
-            .map(sourceCodeProcessor::process)
-            .toList();
-    }
+    /**
+     * Returns files the run is limited to (either given explicitly or changed since given revision), or empty value if all configured sources should be
+     * processed.
+     */
+    private Optional<Set<Path>> selectedFiles() {
+        if (since == null && files == null) {
+            return Optional.empty();
+        }
 
-    private Set<String> sourceCodeExtensions() {
-        final Set<String> templateNames = templateManager.templates(UserLicenseTemplateSource.TemplateKey.class).keySet().stream()
-            .map(UserLicenseTemplateSource.TemplateKey::languageId)
-            .collect(Collectors.toSet());
+        final Set<Path> selectedFiles = new LinkedHashSet<>();
+        if (files != null) {
+            selectedFiles.addAll(files);
+        }
+        if (since != null) {
+            selectedFiles.addAll(GitChanges.since(Path.of("").toAbsolutePath(), since));
+        }
 
-        return sourceCodeProcessor.sourceCodeSupports().entrySet().stream()
-            .filter(entry -> templateNames.contains(entry.getValue().languageId().value()))
-            .map(Map.Entry::getKey)
-            .collect(Collectors.toSet());
+        console.printLn("Limiting run to @|bold %s|@ selected file(s)".formatted(selectedFiles.size()));
+        return Optional.of(selectedFiles);
     }
 
-    private record RunResult(ReturnCode returnCode, List<SourceCode> modifiedSources) {
+    private record RunResult(ReturnCode returnCode,
+                             int processedSources,
+                             int modifiedSources,
+                             int skippedSources,
+                             int cachedSources,
+                             List<String> violations) {
     }
 }
@@ -0,0 +1,232 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.cli.command;
+
+import com.google.common.base.Stopwatch;
+
+import com.norcane.lysense.cli.ReturnCode;
+import com.norcane.lysense.configuration.ConfigurationManager;
+import com.norcane.lysense.configuration.api.Configuration;
+import com.norcane.lysense.configuration.api.RunMode;
+import com.norcane.lysense.exception.ApplicationException;
+import com.norcane.lysense.meta.RuntimeInfo;
+import com.norcane.lysense.source.batch.Batch;
+import com.norcane.lysense.source.batch.BatchProcessor;
+import com.norcane.lysense.source.batch.ProcessedSource;
+import com.norcane.lysense.source.batch.WatchedRoots;
+import com.norcane.lysense.ui.console.Console;
+import com.norcane.toolkit.io.FileWatcher;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import jakarta.inject.Inject;
+import picocli.CommandLine;
+
+@CommandLine.Command(
+    name = "watch",
+    description = "watch source code files for changes and add, drop or update license headers of changed files",
+    usageHelpAutoWidth = true,
+    headerHeading = "@|bold,underline Usage|@:%n%n",
+    descriptionHeading = "%n@|bold,underline Description|@:%n%n",
+    parameterListHeading = "%n@|bold,underline Parameters|@:%n",
+    optionListHeading = "%n@|bold,underline Options|@:%n"
+)
+public class WatchCommand extends CliCommand {
+
+    private final BatchProcessor batchProcessor;
+    private final Configuration configuration;
+    private final ConfigurationManager configurationManager;
+    private final RuntimeInfo runtimeInfo;
+
+    @CommandLine.Option(
+        names = {"-m", "--mode"},
+        description = "run mode, available values: ${COMPLETION-CANDIDATES}",
+        paramLabel = "MODE"
+    )
+    RunMode cliRunMode;
+
+    @CommandLine.Option(
+        names = {"-j", "--jobs"},
+        description = "number of source code files processed in parallel, 0 means number of available processors; with more than one job, files are reported "
+                      + "in the order they complete rather than the order they are found (default: ${DEFAULT-VALUE})",
+        paramLabel = "N",
+        defaultValue = "1"
+    )
+    int jobs;
+
+    @CommandLine.Option(
+        names = {"--debounce"},
+        description = "milliseconds without any further change after which changed files are processed (default: ${DEFAULT-VALUE})",
+        paramLabel = "MILLIS",
+        defaultValue = "300"
+    )
+    long debounceMillis;
+
+    @CommandLine.Option(
+        names = {"--poll-interval"},
+        description = "milliseconds between scans for changes, if files are polled instead of watched natively (default: ${DEFAULT-VALUE})",
+        paramLabel = "MILLIS",
+        defaultValue = "1000"
+    )
+    long pollIntervalMillis;
+
+    @CommandLine.Option(
+        names = {"--polling"},
+        description = "poll files for changes instead of watching them natively"
+    )
+    boolean polling;
+
+    @Inject
+    public WatchCommand(Console console,
+                        BatchProcessor batchProcessor,
+                        Configuration configuration,
+                        ConfigurationManager configurationManager,
+                        RuntimeInfo runtimeInfo) {
+
+        super(console);
+        this.batchProcessor = batchProcessor;
+        this.configuration = configuration;
+        this.configurationManager = configurationManager;
+        this.runtimeInfo = runtimeInfo;
+    }
+
+    @Override
+    protected ReturnCode execute() {
+        final int parallelism = parallelism(jobs);
+
+        try {
+            while (true) {
+                // all sources are processed on start and after every reload, as changed configuration or templates may affect any of them
+                processSourceCodes(Optional.empty(), parallelism);
+
+                final WatchedRoots watchedRoots = watchedRoots();
+                try (final FileWatcher watcher = openWatcher(watchedRoots)) {
+                    console.printLn("Watching @|bold %s|@ path(s) for changes%s, press @|bold Ctrl+C|@ to stop"
+                                        .formatted(watchedRoots.all().size(), watcher.polling() ? " (polling)" : ""));
+                    processChangesUntilReload(watcher, watchedRoots, parallelism);
+                }
+
+                console.printLn("Configuration or templates changed, reloading");
+                batchProcessor.reload();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ReturnCode.SUCCESS;
+        }
+    }
+
+    /**
+     * Processes changed source code files, returns once configuration or templates changed (or changes might have been lost) and should be reloaded.
+     */
+    private void processChangesUntilReload(FileWatcher watcher, WatchedRoots watchedRoots, int parallelism) throws InterruptedException {
+        while (true) {
+            final FileWatcher.Changes changes = watcher.awaitChanges(Duration.ofMillis(debounceMillis));
+            if (changes.overflow() || changes.paths().stream().anyMatch(watchedRoots::isConfigurationPath)) {
+                return;
+            }
+
+            // deleted files, directories and files not matching configured sources are skipped by the batch processor
+            if (!changes.paths().isEmpty()) {
+                processSourceCodes(Optional.of(changes.paths()), parallelism);
+            }
+        }
+    }
+
+    /**
+     * Processes given (or all) source code files, errors are reported and watching continues, so they can be fixed without restarting the command.
+     */
+    private void processSourceCodes(Optional<Set<Path>> selectedFiles, int parallelism) {
+        final Stopwatch stopwatch = Stopwatch.createStarted();
+        final RunMode runMode = cliRunMode != null ? cliRunMode : configuration.runMode();
+        int processedSources = 0;
+        int modifiedSources = 0;
+        int violations = 0;
+
+        try (final Batch batch = batchProcessor.start(runMode, selectedFiles, parallelism)) {
+            for (final ProcessedSource processed : batch) {
+                processedSources++;
+                if (processed.result().modified()) {
+                    modifiedSources++;
+                }
+                if (processed.violation()) {
+                    violations++;
+                }
+                if (processed.result().modified() || processed.violation()) {
+                    console.printLn(processed.message());
+                }
+            }
+        } catch (ApplicationException e) {
+            handleApplicationException(e);
+            return;
+        }
+
+        // files modified by previous run are reported as changed again, so report only runs that actually did something
+        if (selectedFiles.isEmpty() || modifiedSources > 0 || violations > 0) {
+            console.printLn(runMode == RunMode.CHECK
+                            ? "Checked @|bold %s|@ and found @|bold %s|@ source code file(s) without up-to-date license header in @|bold %s|@"
+                                .formatted(processedSources, violations, stopwatch.stop())
+                            : "Processed @|bold %s|@ and modified @|bold %s|@ source code file(s) in @|bold %s|@"
+                                .formatted(processedSources, modifiedSources, stopwatch.stop()));
+        }
+    }
+
+    private FileWatcher openWatcher(WatchedRoots watchedRoots) {
+        final Duration pollInterval = Duration.ofMillis(pollIntervalMillis);
+
+        return polling
+               ? FileWatcher.polling(watchedRoots.all(), WatchCommand::isWatchedDirectory, pollInterval)
+               : FileWatcher.open(watchedRoots.all(), WatchCommand::isWatchedDirectory, pollInterval);
+    }
+
+    /**
+     * Resolves paths to watch from the configuration, if the configuration cannot be loaded, only the configuration file is watched, so it can be fixed.
+     */
+    private WatchedRoots watchedRoots() {
+        try {
+            final WatchedRoots watchedRoots = batchProcessor.watchedRoots();
+            console.printLn("Loaded configuration from " + configurationManager.configurationRef().resource().uri());
+            return watchedRoots;
+        } catch (ApplicationException e) {
+            return new WatchedRoots(List.of(), List.of(runtimeInfo.userConfigurationPath().toAbsolutePath().normalize()));
+        }
+    }
+
+    /**
+     * Hidden directories (e.g. {@code .git} or the cache directory) are not watched, as they change often and never contain configured sources.
+     */
+    private static boolean isWatchedDirectory(Path directory) {
+        final Path name = directory.getFileName();
+        return name == null || !name.toString().startsWith(".");
+    }
+}
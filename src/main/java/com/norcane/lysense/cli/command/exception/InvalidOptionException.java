@@ -0,0 +1,66 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.cli.command.exception;
+
+import com.norcane.lysense.exception.ApplicationException;
+import com.norcane.lysense.exception.ErrorCode;
+import com.norcane.lysense.exception.ErrorDetail;
+
+import static com.norcane.toolkit.Prelude.nonNull;
+
+/**
+ * Exception thrown when command line option is used in combination it's not applicable to.
+ */
+public class InvalidOptionException extends ApplicationException {
+
+    private final String option;
+    private final String reason;
+
+    /**
+     * Creates new instance of {@link InvalidOptionException}.
+     *
+     * @param option name of the option (e.g. {@code --fail-fast})
+     * @param reason reason why the option cannot be used
+     */
+    public InvalidOptionException(String option, String reason) {
+        super(ErrorCode.INVALID_OPTION, "Invalid option %s: %s".formatted(option, reason));
+
+        this.option = nonNull(option);
+        this.reason = nonNull(reason);
+    }
+
+    @Override
+    public ErrorDetail errorDetail() {
+        return ErrorDetail.builder()
+            .problem("Option @|bold %s|@ cannot be used: %s".formatted(option, reason))
+            .solution("Please remove the option or change other options it depends on, see @|bold --help|@ for details.")
+            .build();
+    }
+}
@@ -35,10 +35,13 @@ import com.norcane.lysense.domain.LanguageId;
 import com.norcane.lysense.resource.Resource;
 import com.norcane.lysense.resource.loader.ResourceLoader;
 import com.norcane.lysense.source.SourceCodeProcessor;
+import com.norcane.lysense.source.support.SourceCodeSupport;
 
 import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -76,13 +79,17 @@ public class S01DetectSourcesStep implements InstallStep {
     }
 
     private Set<LanguageId> detectLanguageIds(String sourcePath) {
-        final Set<String> resourceExtensions = resourceLoader.resources(sourcePath, _ -> true, true).stream()
-            .map(Resource::extension)
-            .collect(Collectors.toSet());
+        final Map<String, SourceCodeSupport> sourceCodeSupports = sourceCodeProcessor.sourceCodeSupports();
 
-        return sourceCodeProcessor.sourceCodeSupports().entrySet().stream()
-            .filter(entry -> resourceExtensions.contains(entry.getKey()))
-            .map(entry -> entry.getValue().languageId())
-            .collect(Collectors.toSet());
+        // stop searching as soon as source code files for all supported languages are found
+        try (final Stream<Resource> resources = resourceLoader.streamResources(sourcePath, _ -> true, true)) {
+            return resources
+                .map(Resource::extension)
+                .filter(sourceCodeSupports::containsKey)
+                .distinct()
+                .limit(sourceCodeSupports.size())
+                .map(extension -> sourceCodeSupports.get(extension).languageId())
+                .collect(Collectors.toSet());
+        }
     }
 }
@@ -53,6 +53,7 @@ import com.norcane.lysense.meta.SemVer;
 import com.norcane.lysense.resource.Resource;
 import com.norcane.lysense.resource.exception.ResourceNotFoundException;
 import com.norcane.lysense.resource.loader.ResourceLoader;
+import com.norcane.lysense.resource.loader.WalkMode;
 import com.norcane.lysense.template.Variables;
 import com.norcane.toolkit.state.Memoized;
 import com.norcane.toolkit.state.Stateful;
@@ -60,6 +61,8 @@ import com.norcane.toolkit.state.Stateful;
 import java.io.Reader;
 import java.util.Set;
 
+import io.quarkus.arc.Arc;
+import io.quarkus.arc.ArcContainer;
 import io.smallrye.config.ConfigMapping;
 import io.smallrye.config.WithName;
 import jakarta.enterprise.context.ApplicationScoped;
@@ -100,7 +103,7 @@ public class ConfigurationManager implements Stateful {
 
     public ConfigurationRef configurationRef() {
         return configurationRef.computeIfAbsent(() -> {
-            final Resource defaultConfigurationResource = resourceLoader.resource(properties.defaultConfiguration());
+            final Resource defaultConfigurationResource = defaultConfigurationResource();
             final Resource userConfigurationResource = switch (findConfigurationResource()) {
                 case ConfigurationLookup.Found(var resource) -> resource;
                 case ConfigurationLookup.NotFound(var uri) -> throw new NoConfigurationFoundException(uri);
@@ -111,6 +114,29 @@ public class ConfigurationManager implements Stateful {
         });
     }
 
+    /**
+     * Drops loaded configuration, so it is loaded again from the configuration resources when requested next time. This also applies to the injected
+     * {@link Configuration} bean, whose instance produced by {@link #configuration()} is destroyed and produced again on next access.
+     */
+    @Override
+    public void resetState() {
+        Stateful.super.resetState();
+
+        final ArcContainer container = Arc.container();
+        if (container != null) {
+            container.getActiveContext(ApplicationScoped.class).destroy(container.instance(Configuration.class).getBean());
+        }
+    }
+
+    /**
+     * Returns resource of the default configuration, which is merged with the user configuration.
+     *
+     * @return default configuration resource
+     */
+    public Resource defaultConfigurationResource() {
+        return resourceLoader.resource(properties.defaultConfiguration());
+    }
+
     /**
      * Finds user configuration resource (if present).
      *
@@ -170,6 +196,7 @@ public class ConfigurationManager implements Stateful {
         final SimpleModule module = new SimpleModule()
             .addDeserializer(HeaderStyle.class, LowerCaseDashSeparatedEnumDeserializer.forEnum(HeaderStyle.class))
             .addDeserializer(RunMode.class, LowerCaseDashSeparatedEnumDeserializer.forEnum(RunMode.class))
+            .addDeserializer(WalkMode.class, LowerCaseDashSeparatedEnumDeserializer.forEnum(WalkMode.class))
             .addDeserializer(SemVer.class, new SemVerDeserializer())
             .addDeserializer(Variables.class, new VariablesDeserializer());
 
@@ -0,0 +1,58 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.configuration.api;
+
+/**
+ * Configuration of the on-disk cache of per-file results, used to skip source code files that are already known to be compliant with the current
+ * configuration and templates.
+ */
+public interface CacheConfig {
+
+    /**
+     * Whether the local cache is enabled. If disabled (and the {@link #shared()} cache as well), every source code file is always loaded and analyzed.
+     *
+     * @return {@code true} if the cache is enabled
+     */
+    Boolean enabled();
+
+    /**
+     * Path to the local cache directory, relative to the current working directory.
+     *
+     * @return cache directory path
+     */
+    String directory();
+
+    /**
+     * Configuration of the shared content-addressed cache, used in addition to the local cache.
+     *
+     * @return shared cache configuration
+     */
+    SharedCacheConfig shared();
+}
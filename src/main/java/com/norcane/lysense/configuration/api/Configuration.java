@@ -72,6 +72,20 @@ public interface Configuration {
      */
     List<String> sources();
 
+    /**
+     * Configuration of how source code files are discovered in {@link #sources()}.
+     *
+     * @return discovery configuration
+     */
+    DiscoveryConfig discovery();
+
+    /**
+     * Configuration of the on-disk cache of per-file results.
+     *
+     * @return cache configuration
+     */
+    CacheConfig cache();
+
     /**
      * Map of header configurations, where key is language ID and value is header configuration.
      *
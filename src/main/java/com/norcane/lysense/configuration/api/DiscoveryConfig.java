@@ -0,0 +1,64 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.configuration.api;
+
+import com.norcane.lysense.resource.loader.WalkMode;
+
+import java.util.List;
+
+/**
+ * Configuration of how source code files are discovered in configured source paths.
+ */
+public interface DiscoveryConfig {
+
+    /**
+     * List of <i>GLOB</i> patterns of paths (relative to the current working directory) that should be skipped when discovering source code files. If a
+     * directory matches any of the patterns, its whole subtree is skipped without being traversed.
+     *
+     * @return list of exclude patterns
+     */
+    List<String> excludes();
+
+    /**
+     * Whether to skip paths ignored by Git, as defined by {@code .gitignore} files (including nested ones) and the {@code .git/info/exclude} file. Ignore
+     * files are read directly, no Git binary is needed.
+     *
+     * @return {@code true} if paths ignored by Git should be skipped
+     */
+    Boolean respectGitIgnore();
+
+    /**
+     * Defines how directory trees of source code paths are walked, either sequentially or in parallel (optionally keeping deterministic order of discovered
+     * source code files), or whether files tracked by Git should be listed directly from the Git index, without walking the directory trees at all.
+     *
+     * @return walk mode
+     */
+    WalkMode walkMode();
+}
@@ -47,5 +47,10 @@ public enum RunMode {
     /**
      * Update license headers in files that have them or add them to files that don't have them.
      */
-    UPDATE
+    UPDATE,
+
+    /**
+     * Check that all files have up-to-date license headers (i.e. {@link #UPDATE} would not modify them), without modifying any file.
+     */
+    CHECK
 }
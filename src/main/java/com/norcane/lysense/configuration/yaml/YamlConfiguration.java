@@ -64,6 +64,18 @@ public class YamlConfiguration implements Configuration {
     @JsonProperty("sources")
     private List<String> sources;
 
+    @JsonMerge
+    @Valid
+    @NotNull
+    @JsonProperty("discovery")
+    private YamlDiscoveryConfig discovery;
+
+    @JsonMerge
+    @Valid
+    @NotNull
+    @JsonProperty("cache")
+    private YamlCacheConfig cache;
+
     @JsonMerge
     @Valid
     @NotEmpty
@@ -94,6 +106,16 @@ public class YamlConfiguration implements Configuration {
         return sources;
     }
 
+    @Override
+    public YamlDiscoveryConfig discovery() {
+        return discovery;
+    }
+
+    @Override
+    public YamlCacheConfig cache() {
+        return cache;
+    }
+
     @Override
     public Map<LanguageId, YamlHeaderConfig> headerConfigs() {
         return headerConfigs;
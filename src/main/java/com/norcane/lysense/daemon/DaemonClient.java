@@ -0,0 +1,171 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.daemon;
+
+import com.norcane.lysense.cli.ReturnCode;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Thin client sending requests to the {@link DaemonServer} and streaming back the results. It depends on nothing but the <i>JDK</i>, so it can be started
+ * directly from the application <i>JAR</i> without booting the whole application, e.g.:
+ * {@snippet lang = "shell":
+ *   java -cp quarkus-app/app/lysense.jar com.norcane.lysense.daemon.DaemonClient run --mode update src/main/java/Foo.java
+ *}
+ *
+ * <p>Unless given explicitly, the socket is searched for in the current directory and all its parent directories, so the client can be used from anywhere
+ * within the project. Exit code of the client is the return code of the request.</p>
+ */
+public final class DaemonClient {
+
+    /**
+     * Fully qualified name of this class, used to start the client.
+     */
+    public static final String CLASS_NAME = "com.norcane.lysense.daemon.DaemonClient";
+
+    private static final String USAGE = """
+        Usage: %1$s [--socket PATH] run [-m MODE] [FILE...]
+               %1$s [--socket PATH] stop""".formatted(CLASS_NAME);
+
+    private DaemonClient() {
+        // entry point only
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args, Path.of("").toAbsolutePath(), System.out, System.err));
+    }
+
+    /**
+     * Sends request given by command line arguments to the daemon and prints the response.
+     *
+     * @param args             command line arguments
+     * @param workingDirectory directory relative file paths and the socket are resolved against
+     * @param out              stream for messages
+     * @param err              stream for errors
+     * @return return code
+     */
+    static int run(String[] args, Path workingDirectory, PrintStream out, PrintStream err) {
+        Path socketPath = null;
+        String command = null;
+        String runMode = null;
+        final List<Path> files = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            final String arg = args[i];
+            if (command == null && arg.equals("--socket") && i + 1 < args.length) {
+                socketPath = workingDirectory.resolve(args[++i]);
+            } else if (command == null && (arg.equals(DaemonProtocol.RUN) || arg.equals(DaemonProtocol.STOP))) {
+                command = arg;
+            } else if (DaemonProtocol.RUN.equals(command) && (arg.equals("-m") || arg.equals("--mode")) && i + 1 < args.length) {
+                runMode = args[++i];
+            } else if (DaemonProtocol.RUN.equals(command) && !arg.startsWith("-")) {
+                files.add(workingDirectory.resolve(arg).normalize());
+            } else {
+                err.println(USAGE);
+                return ReturnCode.ERROR.code();
+            }
+        }
+
+        if (command == null) {
+            err.println(USAGE);
+            return ReturnCode.ERROR.code();
+        }
+
+        final Path socket = socketPath != null ? socketPath : findSocket(workingDirectory);
+        return send(new DaemonProtocol.Request(command, runMode, files), socket, out, err);
+    }
+
+    private static int send(DaemonProtocol.Request request, Path socketPath, PrintStream out, PrintStream err) {
+        try (final SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(shortest(socketPath)))) {
+            final Writer writer = new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8);
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+            request.write(writer);
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final int separator = line.indexOf(' ');
+                final String kind = separator == -1 ? line : line.substring(0, separator);
+                final String text = separator == -1 ? "" : line.substring(separator + 1);
+
+                switch (kind) {
+                    case DaemonProtocol.MESSAGE -> out.println(text);
+                    case DaemonProtocol.ERROR -> err.println(text);
+                    case DaemonProtocol.DONE -> {
+                        return Integer.parseInt(text.strip());
+                    }
+                    default -> err.println(line);
+                }
+            }
+
+            err.println("Connection to the daemon at %s closed unexpectedly".formatted(socketPath));
+            return ReturnCode.ERROR.code();
+        } catch (IOException e) {
+            err.println("Cannot connect to the daemon at %s (%s), start it using 'lysense daemon'".formatted(socketPath, e.getMessage()));
+            return ReturnCode.ERROR.code();
+        }
+    }
+
+    /**
+     * Finds the socket in the given directory or the closest parent directory, returns the socket in the given directory if not found.
+     */
+    private static Path findSocket(Path directory) {
+        for (Path current = directory; current != null; current = current.getParent()) {
+            final Path candidate = current.resolve(DaemonProtocol.DEFAULT_SOCKET);
+            if (Files.exists(candidate)) {
+                return candidate;
+            }
+        }
+
+        return directory.resolve(DaemonProtocol.DEFAULT_SOCKET);
+    }
+
+    /**
+     * Returns the shorter of absolute and relative form of the socket path, as length of the socket path is limited by the operating system.
+     */
+    private static Path shortest(Path socketPath) {
+        final Path absolute = socketPath.toAbsolutePath();
+        final Path relative = Path.of("").toAbsolutePath().relativize(absolute);
+
+        return relative.toString().length() < absolute.toString().length() ? relative : absolute;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.daemon;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Line based text protocol spoken between the {@link DaemonServer} and the {@link DaemonClient} over the Unix domain socket. Every connection carries single
+ * request and its response, both encoded in <i>UTF-8</i>:
+ * <ul>
+ *     <li><b>request</b> - command line ({@code run}, optionally followed by the run mode, or {@code stop}), followed by absolute paths of files to process
+ *     (one per line, none means all configured sources) and terminated by an empty line</li>
+ *     <li><b>response</b> - any number of {@code message} and {@code error} lines streamed as the request is processed, terminated by the {@code done} line
+ *     with the return code</li>
+ * </ul>
+ *
+ * <p>Being plain text, the protocol can be used also by generic tools, e.g. {@code printf 'run\n\n' | socat - UNIX-CONNECT:.lysense/daemon.sock}. This class
+ * is used also by the client, so it must not depend on anything but the <i>JDK</i>.</p>
+ */
+public final class DaemonProtocol {
+
+    /**
+     * Default path of the socket, relative to the directory with the configuration.
+     */
+    public static final String DEFAULT_SOCKET = ".lysense/daemon/daemon.sock";
+
+    static final String RUN = "run";
+    static final String STOP = "stop";
+
+    static final String MESSAGE = "message";
+    static final String ERROR = "error";
+    static final String DONE = "done";
+
+    private DaemonProtocol() {
+        // utility class
+    }
+
+    /**
+     * Writes response line of given kind, text spanning multiple lines is written as multiple lines of the same kind.
+     */
+    static void writeResponse(Writer writer, String kind, String text) throws IOException {
+        for (final String line : text.split("\\R", -1)) {
+            writer.write(kind + " " + line + "\n");
+        }
+        writer.flush();
+    }
+
+    /**
+     * Request sent by the client.
+     *
+     * @param command command to execute, either {@link #RUN} or {@link #STOP}
+     * @param runMode run mode in the configuration format (e.g. {@code update}), {@code null} to use the configured one
+     * @param files   absolute paths of files to process, empty list means all configured sources
+     */
+    record Request(String command, String runMode, List<Path> files) {
+
+        Request {
+            Objects.requireNonNull(command);
+            files = List.copyOf(files);
+        }
+
+        void write(Writer writer) throws IOException {
+            writer.write(runMode == null ? command : command + " " + runMode);
+            writer.write('\n');
+            for (final Path file : files) {
+                writer.write(file.toString());
+                writer.write('\n');
+            }
+            writer.write('\n');
+            writer.flush();
+        }
+
+        /**
+         * Reads the request, returns {@code null} if the connection was closed before the request was complete.
+         */
+        static Request read(BufferedReader reader) throws IOException {
+            final String commandLine = reader.readLine();
+            if (commandLine == null) {
+                return null;
+            }
+
+            final List<Path> files = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null && !line.isEmpty()) {
+                files.add(Path.of(line));
+            }
+
+            if (line == null) {
+                return null;
+            }
+
+            final String[] tokens = commandLine.strip().split("\\s+", 2);
+            return new Request(tokens[0], tokens.length > 1 ? tokens[1] : null, files);
+        }
+    }
+}
@@ -0,0 +1,345 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.daemon;
+
+import com.google.common.base.Stopwatch;
+
+import com.norcane.lysense.cli.ReturnCode;
+import com.norcane.lysense.configuration.api.Configuration;
+import com.norcane.lysense.configuration.api.RunMode;
+import com.norcane.lysense.daemon.exception.CannotStartDaemonException;
+import com.norcane.lysense.source.batch.Batch;
+import com.norcane.lysense.source.batch.BatchProcessor;
+import com.norcane.lysense.source.batch.ProcessedSource;
+import com.norcane.toolkit.io.FileWatcher;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import picocli.CommandLine;
+
+/**
+ * Long-running server processing requests of {@link DaemonClient clients} sent over the Unix domain socket, using the {@link DaemonProtocol}. Configuration,
+ * compiled templates and source code supports are loaded once and kept between requests, until the configuration file or any template changes, in which case
+ * they are reloaded before the next request is processed.
+ *
+ * <p>Requests are processed one by one in order in which clients connected, while files of a single request are processed in parallel using the
+ * {@link BatchProcessor}.</p>
+ *
+ * <p>As any client connected to the socket can modify files with the rights of the daemon owner, the socket is created only in the directory accessible
+ * solely by its owner, which is created if it doesn't exist.</p>
+ */
+@ApplicationScoped
+public class DaemonServer {
+
+    private static final Duration QUIET_PERIOD = Duration.ofMillis(100);
+    private static final Duration POLL_INTERVAL = Duration.ofSeconds(1);
+    private static final Set<PosixFilePermission> OWNER_ONLY_DIRECTORY = PosixFilePermissions.fromString("rwx------");
+    private static final Set<PosixFilePermission> OWNER_ONLY_SOCKET = PosixFilePermissions.fromString("rw-------");
+
+    private final BatchProcessor batchProcessor;
+    private final Configuration configuration;
+
+    @Inject
+    public DaemonServer(BatchProcessor batchProcessor,
+                        Configuration configuration) {
+
+        this.batchProcessor = batchProcessor;
+        this.configuration = configuration;
+    }
+
+    /**
+     * Listens on the given socket and processes requests until the {@code stop} request is received.
+     *
+     * @param socketPath  path of the socket to create
+     * @param parallelism number of source code files processed in parallel
+     * @param log         consumer of log messages about processed requests
+     * @throws CannotStartDaemonException if another daemon listens on the socket, the socket cannot be created or its directory is accessible by other users
+     */
+    public void serve(Path socketPath, int parallelism, Consumer<String> log) {
+        final ServerSocketChannel server = listen(socketPath);
+        final ConfigurationMonitor monitor = new ConfigurationMonitor();
+
+        try (server) {
+            monitor.refresh();
+            log.accept("Listening on @|bold %s|@".formatted(socketPath));
+
+            boolean running = true;
+            while (running) {
+                try (final SocketChannel channel = server.accept()) {
+                    running = handle(channel, parallelism, monitor, log);
+                } catch (IOException | UncheckedIOException e) {
+                    log.accept("Request failed: " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            monitor.close();
+            deleteSocket(socketPath);
+        }
+    }
+
+    /**
+     * Handles single request, returns {@code false} if the daemon should stop.
+     */
+    private boolean handle(SocketChannel channel, int parallelism, ConfigurationMonitor monitor, Consumer<String> log) throws IOException {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+        final Writer writer = new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8);
+
+        final DaemonProtocol.Request request = DaemonProtocol.Request.read(reader);
+        if (request == null) {
+            return true;
+        }
+
+        return switch (request.command()) {
+            case DaemonProtocol.RUN -> {
+                final ReturnCode returnCode = run(request, parallelism, monitor, writer, log);
+                DaemonProtocol.writeResponse(writer, DaemonProtocol.DONE, String.valueOf(returnCode.code()));
+                yield true;
+            }
+            case DaemonProtocol.STOP -> {
+                log.accept("Stopping daemon");
+                DaemonProtocol.writeResponse(writer, DaemonProtocol.DONE, String.valueOf(ReturnCode.SUCCESS.code()));
+                yield false;
+            }
+            default -> {
+                DaemonProtocol.writeResponse(writer, DaemonProtocol.ERROR, "Unknown command '%s'".formatted(request.command()));
+                DaemonProtocol.writeResponse(writer, DaemonProtocol.DONE, String.valueOf(ReturnCode.ERROR.code()));
+                yield true;
+            }
+        };
+    }
+
+    private ReturnCode run(DaemonProtocol.Request request, int parallelism, ConfigurationMonitor monitor, Writer writer, Consumer<String> log)
+        throws IOException {
+
+        final Stopwatch stopwatch = Stopwatch.createStarted();
+        final Optional<Set<Path>> selectedFiles = request.files().isEmpty() ? Optional.empty() : Optional.of(Set.copyOf(request.files()));
+        int processedSources = 0;
+        int modifiedSources = 0;
+        int violations = 0;
+
+        try {
+            monitor.refreshIfStale();
+            final RunMode runMode = request.runMode() != null ? parseRunMode(request.runMode()) : configuration.runMode();
+
+            try (final Batch batch = batchProcessor.start(runMode, selectedFiles, parallelism)) {
+                for (final ProcessedSource processed : batch) {
+                    processedSources++;
+                    if (processed.result().modified()) {
+                        modifiedSources++;
+                    }
+                    if (processed.violation()) {
+                        violations++;
+                    }
+                    DaemonProtocol.writeResponse(writer, DaemonProtocol.MESSAGE, plainText(processed.message()));
+                }
+            }
+        } catch (RuntimeException e) {
+            log.accept("Request failed: " + e.getMessage());
+            DaemonProtocol.writeResponse(writer, DaemonProtocol.ERROR, String.valueOf(e.getMessage()));
+            return ReturnCode.ERROR;
+        }
+
+        final String summary = "Processed @|bold %s|@, modified @|bold %s|@ and found @|bold %s|@ non-compliant source code file(s) in @|bold %s|@"
+            .formatted(processedSources, modifiedSources, violations, stopwatch.stop());
+        log.accept(summary);
+        DaemonProtocol.writeResponse(writer, DaemonProtocol.MESSAGE, plainText(summary));
+        return violations > 0 ? ReturnCode.NOT_COMPLIANT : ReturnCode.SUCCESS;
+    }
+
+    private static RunMode parseRunMode(String runMode) {
+        try {
+            return RunMode.valueOf(runMode.toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown run mode '%s'".formatted(runMode), e);
+        }
+    }
+
+    private static String plainText(String message) {
+        return CommandLine.Help.Ansi.OFF.string(message);
+    }
+
+    private static ServerSocketChannel listen(Path socketPath) {
+        final UnixDomainSocketAddress address = UnixDomainSocketAddress.of(socketPath);
+        if (Files.exists(socketPath) && isListening(address)) {
+            throw CannotStartDaemonException.alreadyRunning(socketPath);
+        }
+
+        ServerSocketChannel server = null;
+        try {
+            // socket is accessible by other users between binding and changing its permissions, unless its directory is not
+            final Path directory = socketPath.toAbsolutePath().getParent();
+            if (!createPrivateDirectory(directory)) {
+                throw CannotStartDaemonException.notPrivate(socketPath, directory);
+            }
+
+            // socket left behind by daemon that didn't stop properly is replaced
+            Files.deleteIfExists(socketPath);
+
+            server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            server.bind(address);
+            Files.setPosixFilePermissions(socketPath, OWNER_ONLY_SOCKET);
+            return server;
+        } catch (IOException | UnsupportedOperationException e) {
+            closeQuietly(server);
+            throw CannotStartDaemonException.cannotListen(socketPath, e);
+        }
+    }
+
+    /**
+     * Creates the directory accessible only by its owner (if it doesn't exist yet), returns {@code false} if existing directory is owned by another user, is
+     * accessible by other users, or its permissions cannot be determined (e.g. the file system doesn't support <i>POSIX</i> permissions).
+     */
+    private static boolean createPrivateDirectory(Path directory) throws IOException {
+        if (directory.getParent() != null) {
+            Files.createDirectories(directory.getParent());
+        }
+
+        try {
+            Files.createDirectory(directory, PosixFilePermissions.asFileAttribute(OWNER_ONLY_DIRECTORY));
+        } catch (FileAlreadyExistsException e) {
+            // existing directory is used only if it's private
+        } catch (UnsupportedOperationException e) {
+            return false;
+        }
+
+        final PosixFileAttributes attributes = Files.readAttributes(directory, PosixFileAttributes.class);
+        final UserPrincipal currentUser = directory.getFileSystem().getUserPrincipalLookupService().lookupPrincipalByName(System.getProperty("user.name"));
+
+        return attributes.isDirectory() && attributes.owner().equals(currentUser) && OWNER_ONLY_DIRECTORY.containsAll(attributes.permissions());
+    }
+
+    private static void closeQuietly(ServerSocketChannel server) {
+        if (server != null) {
+            try {
+                server.close();
+            } catch (IOException e) {
+                // nothing to do, the socket is not used anymore
+            }
+        }
+    }
+
+    private static boolean isListening(UnixDomainSocketAddress address) {
+        try (final SocketChannel _ = SocketChannel.open(address)) {
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void deleteSocket(Path socketPath) {
+        try {
+            Files.deleteIfExists(socketPath);
+        } catch (IOException e) {
+            // left behind, removed by the next daemon listening on the same socket
+        }
+    }
+
+    /**
+     * Watches the configuration file and templates in the background, marking loaded state as stale once any of them changes. State is reloaded on the
+     * thread processing requests, so it's never reloaded while any request is processed.
+     */
+    private final class ConfigurationMonitor implements AutoCloseable {
+
+        private final AtomicBoolean stale = new AtomicBoolean(true);
+        private FileWatcher watcher;
+
+        /**
+         * Reloads the state if marked as stale, if it cannot be loaded (e.g. because of invalid configuration), it stays marked as stale.
+         */
+        void refreshIfStale() {
+            if (stale.get()) {
+                refresh();
+            }
+        }
+
+        void refresh() {
+            close();
+            batchProcessor.reload();
+
+            final FileWatcher newWatcher = FileWatcher.open(batchProcessor.watchedRoots().configurationRoots(), _ -> true, POLL_INTERVAL);
+            try {
+                batchProcessor.warmUp();
+            } catch (RuntimeException e) {
+                newWatcher.close();
+                throw e;
+            }
+
+            watcher = newWatcher;
+            stale.set(false);
+            Thread.ofPlatform().daemon().name("lysense-configuration-monitor").start(() -> awaitChanges(newWatcher));
+        }
+
+        private void awaitChanges(FileWatcher watcher) {
+            try {
+                watcher.awaitChanges(QUIET_PERIOD);
+                stale.set(true);
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                // watcher closed, state is being reloaded or daemon stopped
+            }
+        }
+
+        @Override
+        public void close() {
+            if (watcher != null) {
+                watcher.close();
+                watcher = null;
+            }
+        }
+    }
+}
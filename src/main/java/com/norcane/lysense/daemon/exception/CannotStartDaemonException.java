@@ -0,0 +1,92 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.daemon.exception;
+
+import com.norcane.lysense.exception.ApplicationException;
+import com.norcane.lysense.exception.ErrorCode;
+import com.norcane.lysense.exception.ErrorDetail;
+
+import java.nio.file.Path;
+
+import static com.norcane.toolkit.Prelude.nonNull;
+
+/**
+ * Thrown when the daemon cannot listen on its socket, either because another daemon already listens on it, the socket cannot be created or its directory is
+ * accessible by other users.
+ */
+public class CannotStartDaemonException extends ApplicationException {
+
+    private final Path socketPath;
+    private final Path directory;
+    private final Reason reason;
+
+    private CannotStartDaemonException(Path socketPath, Path directory, Reason reason, Throwable cause) {
+        super(ErrorCode.CANNOT_START_DAEMON, "Cannot start daemon listening on " + socketPath, cause);
+
+        this.socketPath = nonNull(socketPath);
+        this.directory = directory;
+        this.reason = nonNull(reason);
+    }
+
+    public static CannotStartDaemonException alreadyRunning(Path socketPath) {
+        return new CannotStartDaemonException(socketPath, null, Reason.ALREADY_RUNNING, null);
+    }
+
+    public static CannotStartDaemonException cannotListen(Path socketPath, Throwable cause) {
+        return new CannotStartDaemonException(socketPath, null, Reason.CANNOT_LISTEN, cause);
+    }
+
+    public static CannotStartDaemonException notPrivate(Path socketPath, Path directory) {
+        return new CannotStartDaemonException(socketPath, nonNull(directory), Reason.NOT_PRIVATE, null);
+    }
+
+    @Override
+    public ErrorDetail errorDetail() {
+        return switch (reason) {
+            case ALREADY_RUNNING -> ErrorDetail.builder()
+                .problem("Another daemon is already listening on " + socketPath)
+                .solution("Please stop the running daemon first, or use another socket.")
+                .build();
+            case CANNOT_LISTEN -> ErrorDetail.builder()
+                .problem("Cannot listen on socket " + socketPath)
+                .solution("Please check you have write privileges to the socket directory, or use another socket.")
+                .build();
+            case NOT_PRIVATE -> ErrorDetail.builder()
+                .problem("Directory %s of the socket %s is not accessible only by you, so other users could send requests to the daemon"
+                             .formatted(directory, socketPath))
+                .solution("Please restrict access to the directory to its owner (e.g. 'chmod 700'), or use a socket in another directory.")
+                .build();
+        };
+    }
+
+    private enum Reason {
+        ALREADY_RUNNING, CANNOT_LISTEN, NOT_PRIVATE
+    }
+}
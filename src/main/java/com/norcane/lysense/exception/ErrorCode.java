@@ -31,13 +31,18 @@ package com.norcane.lysense.exception;
 
 public enum ErrorCode {
 
+    CANNOT_LIST_CHANGED_FILES(516, "Cannot list changed files"),
     CANNOT_READ_RESOURCE(623, "Cannot read resource"),
+    CANNOT_START_DAEMON(458, "Cannot start daemon"),
+    CANNOT_WRITE_CACHE(684, "Cannot write cache"),
     CANNOT_WRITE_RESOURCE(793, "Cannot write resource"),
     DUPLICATE_TEMPLATES_FOUND(347, "Duplicate templates found"),
     ERROR_PARSING_CONFIGURATION(207, "Error parsing configuration"),
     HEADER_CONFIG_NOT_FOUND(341, "Header configuration not found"),
     INCOMPATIBLE_CONFIGURATION(173, "Incompatible configuration"),
     INVALID_CONFIGURATION(571, "Invalid configuration"),
+    INVALID_GIT_INDEX(418, "Invalid Git index"),
+    INVALID_OPTION(262, "Invalid option"),
     MISSING_BASE_VERSION(222, "Missing base version"),
     MISSING_TEMPLATE_VARIABLE(374, "Missing template variable"),
     NO_CONFIGURATION_FOUND(370, "No configuration found"),
@@ -0,0 +1,148 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.resource.buffered;
+
+import com.norcane.lysense.resource.AbstractResource;
+import com.norcane.lysense.resource.Resource;
+import com.norcane.lysense.resource.WritableResource;
+import com.norcane.lysense.resource.util.LineSeparator;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+
+import static com.norcane.toolkit.Prelude.nonNull;
+
+/**
+ * Resource wrapping another resource, which content is read exactly once and then kept in memory. All reads (including the <i>line separator</i> detection)
+ * are served from the buffered content, while writes go directly to the wrapped resource. This allows to analyze and then modify the resource by opening the
+ * underlying file only once for reading.
+ *
+ * <p>Buffered content can also be just a prefix of the wrapped resource content (see {@link #isComplete()}), in such case reading the whole content falls
+ * back to the wrapped resource.</p>
+ *
+ * <p>Note that the buffered content is a snapshot taken when this resource is created, it is not updated after writing to the resource.</p>
+ */
+public class BufferedResource extends AbstractResource implements WritableResource {
+
+    private final Resource source;
+    private final String content;
+    private final boolean complete;
+    private final LineSeparator lineSeparator;
+
+    private BufferedResource(Resource source, String content, boolean complete) {
+        super(source.name(), source.extension(), source.parent().orElse(null), source.uri());
+
+        this.source = source;
+        this.content = content;
+        this.complete = complete;
+        this.lineSeparator = LineSeparator.detect(content).orElseGet(() -> complete ? LineSeparator.platform() : source.lineSeparator());
+    }
+
+    /**
+     * Reads the content of given resource and returns buffered resource wrapping it. If the resource is already buffered, it is returned as is.
+     *
+     * @param resource resource to buffer
+     * @return buffered resource
+     */
+    public static BufferedResource of(Resource resource) {
+        nonNull(resource);
+
+        return resource instanceof BufferedResource buffered
+               ? buffered
+               : new BufferedResource(resource, resource.readAsString(), true);
+    }
+
+    /**
+     * Returns buffered resource wrapping given resource and its already read content.
+     *
+     * @param resource resource to wrap
+     * @param content  already read content of the resource
+     * @param complete whether the content is complete or just a prefix of the resource content
+     * @return buffered resource
+     */
+    public static BufferedResource of(Resource resource, String content, boolean complete) {
+        return new BufferedResource(nonNull(resource), nonNull(content), complete);
+    }
+
+    /**
+     * Returns the wrapped resource.
+     *
+     * @return wrapped resource
+     */
+    public Resource source() {
+        return source;
+    }
+
+    /**
+     * Returns the buffered content, which is either the complete content of the wrapped resource, or only its prefix (see {@link #isComplete()}).
+     *
+     * @return buffered content
+     */
+    public String bufferedContent() {
+        return content;
+    }
+
+    /**
+     * Returns whether the buffered content is the complete content of the wrapped resource, or only its prefix.
+     *
+     * @return {@code true} if the buffered content is complete
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    @Override
+    public LineSeparator lineSeparator() {
+        return lineSeparator;
+    }
+
+    @Override
+    public Reader reader() {
+        return complete ? new StringReader(content) : source.reader();
+    }
+
+    @Override
+    public String readAsString() {
+        return complete ? content : source.readAsString();
+    }
+
+    @Override
+    public Writer writer() {
+        return source.asWritableOrFail().writer();
+    }
+
+    @Override
+    public WritableResource asWritableOrFail() {
+        // buffered resource is writable only if the wrapped one is
+        source.asWritableOrFail();
+        return this;
+    }
+}
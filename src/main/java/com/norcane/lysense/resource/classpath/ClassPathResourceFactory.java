@@ -31,11 +31,14 @@ package com.norcane.lysense.resource.classpath;
 
 import com.norcane.lysense.resource.Resource;
 import com.norcane.lysense.resource.filesystem.FileSystemResource;
+import com.norcane.lysense.resource.loader.DiscoveryOptions;
 import com.norcane.lysense.resource.loader.IterableResourceFactory;
+import com.norcane.lysense.resource.util.GlobMatcher;
 import com.norcane.lysense.resource.util.PathMatcher;
 import com.norcane.lysense.resource.util.ResourceWalker;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.file.FileSystem;
@@ -90,45 +93,65 @@ public class ClassPathResourceFactory implements IterableResourceFactory {
 
     @Override
     public List<Resource> resources(String locationGlobPattern, Predicate<Resource> filter) {
+        try (final Stream<Resource> stream = streamResources(locationGlobPattern, filter)) {
+            return stream.toList();
+        }
+    }
+
+    @Override
+    public Stream<Resource> streamResources(String locationGlobPattern, Predicate<Resource> filter) {
         final String rootPathString = pathMatcher.resolveRootPath(locationGlobPattern);
-        final String pattern = locationGlobPattern.substring(rootPathString.length());
 
+        // compile the pattern only once, as it's used for every matching class path entry
+        final GlobMatcher pattern = pathMatcher.compile(locationGlobPattern.substring(rootPathString.length()));
+
+        // class path entries are walked one by one, each of them only when the previous one is fully consumed (flatMap closes every inner stream)
         return classPathResources(rootPathString)
-            .flatMap(url -> findResources(url, rootPathString, pattern, filter).stream())
-            .toList();
+            .flatMap(url -> streamResources(url, rootPathString, pattern, filter));
     }
 
-    private List<Resource> findResources(URL url, String rootPathString, String pattern, Predicate<Resource> filter) {
+    private Stream<Resource> streamResources(URL url, String rootPathString, GlobMatcher pattern, Predicate<Resource> filter) {
         return URI_SCHEME_JAR.equals(url.getProtocol())
-               ? findJarResources(url, rootPathString, pattern, filter)
-               : findFileResources(url, pattern, filter);
+               ? streamJarResources(url, rootPathString, pattern, filter)
+               : streamFileResources(url, pattern, filter);
     }
 
-    private List<Resource> findJarResources(URL url, String rootPathString, String pattern, Predicate<Resource> filter) {
-        try (final FileSystem fs = FileSystems.newFileSystem(url.toURI(), Collections.emptyMap())) {
+    private Stream<Resource> streamJarResources(URL url, String rootPathString, GlobMatcher pattern, Predicate<Resource> filter) {
+        try {
+            final FileSystem fs = FileSystems.newFileSystem(url.toURI(), Collections.emptyMap());
             final Path rootPath = fs.getPath(rootPathString);
 
-            return resourceWalker.walk(rootPath, pattern, this::toResource, filter);
+            // JAR file system must stay open until the stream is consumed
+            return resourceWalker.stream(rootPath, pattern, DiscoveryOptions.DEFAULT, descriptor -> toResource(descriptor.path()), filter)
+                .onClose(() -> closeFileSystem(fs));
         } catch (IOException | URISyntaxException e) {
             throw new RuntimeException(e);
         }
     }
 
-    private List<Resource> findFileResources(URL url, String pattern, Predicate<Resource> filter) {
+    private Stream<Resource> streamFileResources(URL url, GlobMatcher pattern, Predicate<Resource> filter) {
         try {
             final Path rootPath = Path.of(url.toURI());
 
             // if root path doesn't exist, don't try to iterate it at all
             if (!Files.exists(rootPath)) {
-                return Collections.emptyList();
+                return Stream.empty();
             }
 
-            return resourceWalker.walk(rootPath, pattern, FileSystemResource::of, filter);
+            return resourceWalker.stream(rootPath, pattern, DiscoveryOptions.DEFAULT, FileSystemResource::of, filter);
         } catch (URISyntaxException e) {
             throw new RuntimeException(e);
         }
     }
 
+    private void closeFileSystem(FileSystem fs) {
+        try {
+            fs.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     private Stream<URL> classPathResources(String name) {
         try {
             return streamOf(getClass().getClassLoader().getResources(name));
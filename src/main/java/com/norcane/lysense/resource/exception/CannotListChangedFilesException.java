@@ -0,0 +1,71 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.resource.exception;
+
+import com.norcane.lysense.exception.ApplicationException;
+import com.norcane.lysense.exception.ErrorCode;
+import com.norcane.lysense.exception.ErrorDetail;
+
+import static com.norcane.toolkit.Prelude.nonNull;
+
+/**
+ * Exception thrown when files changed since the given Git revision cannot be listed.
+ */
+public class CannotListChangedFilesException extends ApplicationException {
+
+    private final String revision;
+    private final String reason;
+
+    /**
+     * Creates new instance of {@link CannotListChangedFilesException}.
+     *
+     * @param revision Git revision the changes were listed for
+     * @param reason   reason why the changed files cannot be listed
+     * @param cause    cause of the exception, might be {@code null}
+     */
+    public CannotListChangedFilesException(String revision, String reason, Throwable cause) {
+        super(ErrorCode.CANNOT_LIST_CHANGED_FILES, "Cannot list files changed since '%s': %s".formatted(revision, reason), cause);
+
+        this.revision = nonNull(revision);
+        this.reason = nonNull(reason);
+    }
+
+    @Override
+    public ErrorDetail errorDetail() {
+        return ErrorDetail.builder()
+            .problem("Cannot list files changed since Git revision '%s': %s".formatted(revision, reason))
+            .solution(
+                """
+                    Please check that the current directory is within a Git repository, the given revision exists in the local repository and the 'git' \
+                    binary is available on the PATH."""
+            )
+            .build();
+    }
+}
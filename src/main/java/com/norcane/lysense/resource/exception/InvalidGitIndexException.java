@@ -0,0 +1,72 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.resource.exception;
+
+import com.norcane.lysense.exception.ApplicationException;
+import com.norcane.lysense.exception.ErrorCode;
+import com.norcane.lysense.exception.ErrorDetail;
+
+import java.nio.file.Path;
+
+import static com.norcane.toolkit.Prelude.nonNull;
+
+/**
+ * Exception thrown when the Git index file cannot be parsed, either because it's corrupted or because it uses unsupported format.
+ */
+public class InvalidGitIndexException extends ApplicationException {
+
+    private final Path indexFile;
+    private final String reason;
+
+    /**
+     * Creates new instance of {@link InvalidGitIndexException}.
+     *
+     * @param indexFile path of the Git index file
+     * @param reason    reason why the index file cannot be parsed
+     */
+    public InvalidGitIndexException(Path indexFile, String reason) {
+        super(ErrorCode.INVALID_GIT_INDEX, "Invalid Git index %s: %s".formatted(indexFile, reason));
+
+        this.indexFile = nonNull(indexFile);
+        this.reason = nonNull(reason);
+    }
+
+    @Override
+    public ErrorDetail errorDetail() {
+        return ErrorDetail.builder()
+            .problem("Cannot read list of tracked files from Git index %s: %s".formatted(indexFile, reason))
+            .solution(
+                """
+                    Git index file is either corrupted or uses format not supported by this version. Please check the repository state using \
+                    'git status', or use other walk mode in the discovery configuration."""
+            )
+            .build();
+    }
+}
@@ -32,9 +32,11 @@ package com.norcane.lysense.resource.filesystem;
 import com.norcane.lysense.resource.AbstractResource;
 import com.norcane.lysense.resource.Resource;
 import com.norcane.lysense.resource.WritableResource;
+import com.norcane.lysense.resource.buffered.BufferedResource;
 import com.norcane.lysense.resource.exception.CannotReadResourceException;
 import com.norcane.lysense.resource.exception.CannotWriteResourceException;
 import com.norcane.lysense.resource.exception.ResourceNotFoundException;
+import com.norcane.lysense.resource.util.PathDescriptor;
 
 import java.io.IOException;
 import java.io.Reader;
@@ -42,20 +44,24 @@ import java.io.Writer;
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Optional;
 
 public class FileSystemResource extends AbstractResource implements WritableResource {
 
     public static final Resource.Scheme SCHEME = new Resource.Scheme("file");
 
     private final Path path;
+    private final FileTime discoveredLastModifiedTime;
 
-    private FileSystemResource(Path path, URI uri) {
+    private FileSystemResource(Path path, URI uri, FileTime discoveredLastModifiedTime) {
         super(com.google.common.io.Files.getNameWithoutExtension(path.toString()),
               com.google.common.io.Files.getFileExtension(path.toString()),
               path.getParent() != null ? path.getParent().toString() : null,
               uri);
 
         this.path = path;
+        this.discoveredLastModifiedTime = discoveredLastModifiedTime;
     }
 
     public static FileSystemResource of(URI uri) {
@@ -65,7 +71,7 @@ public class FileSystemResource extends AbstractResource implements WritableReso
             throw new ResourceNotFoundException(uri);
         }
 
-        return new FileSystemResource(path, uri);
+        return new FileSystemResource(path, uri, null);
     }
 
     public static FileSystemResource of(String path) {
@@ -76,6 +82,51 @@ public class FileSystemResource extends AbstractResource implements WritableReso
         return of(path.toUri());
     }
 
+    /**
+     * Creates resource for the regular file already found (e.g. while walking the file tree), so its existence is not checked again and its last
+     * modification time is known without reading it again.
+     *
+     * @param descriptor descriptor of the regular file
+     * @return file system resource
+     */
+    public static FileSystemResource of(PathDescriptor descriptor) {
+        final Path path = descriptor.path().toAbsolutePath();
+        return new FileSystemResource(path, path.toUri(), descriptor.lastModifiedTime());
+    }
+
+    /**
+     * Returns path of the file backing given resource, if it is a file system resource (possibly wrapped in the {@link BufferedResource}).
+     *
+     * @param resource resource to inspect
+     * @return file path or empty value if the resource is not backed by a file
+     */
+    public static Optional<Path> pathOf(Resource resource) {
+        return switch (resource) {
+            case FileSystemResource fileSystemResource -> Optional.of(fileSystemResource.path());
+            case BufferedResource bufferedResource -> pathOf(bufferedResource.source());
+            default -> Optional.empty();
+        };
+    }
+
+    /**
+     * Returns last modification time of the file as read when the file was found (e.g. while walking the file tree), or empty value if the resource was not
+     * created from the {@link PathDescriptor}. Note that the file might have been modified since then.
+     *
+     * @return last modification time of the file when found
+     */
+    public Optional<FileTime> discoveredLastModifiedTime() {
+        return Optional.ofNullable(discoveredLastModifiedTime);
+    }
+
+    /**
+     * Returns path of the file represented by this resource.
+     *
+     * @return file path
+     */
+    public Path path() {
+        return path;
+    }
+
     @Override
     public Reader reader() {
         try {
@@ -85,6 +136,16 @@ public class FileSystemResource extends AbstractResource implements WritableReso
         }
     }
 
+    @Override
+    public String readAsString() {
+        // specialized implementation, reads the whole file at once instead of going through the buffered reader
+        try {
+            return Files.readString(path);
+        } catch (IOException e) {
+            throw new CannotReadResourceException(this, e);
+        }
+    }
+
     @Override
     public Writer writer() {
         try {
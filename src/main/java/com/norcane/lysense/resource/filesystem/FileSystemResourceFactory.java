@@ -31,15 +31,21 @@ package com.norcane.lysense.resource.filesystem;
 
 import com.norcane.lysense.resource.Resource;
 import com.norcane.lysense.resource.loader.DefaultResourceFactory;
+import com.norcane.lysense.resource.loader.DiscoveryOptions;
 import com.norcane.lysense.resource.loader.IterableResourceFactory;
+import com.norcane.lysense.resource.util.GlobMatcher;
 import com.norcane.lysense.resource.util.PathMatcher;
 import com.norcane.lysense.resource.util.ResourceWalker;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
 import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -48,6 +54,8 @@ import jakarta.inject.Inject;
 @DefaultResourceFactory
 public class FileSystemResourceFactory implements IterableResourceFactory {
 
+    private static final String GLOB_SPECIAL_CHARS = "*?[]{}\\";
+
     private final PathMatcher pathMatcher;
     private final ResourceWalker resourceWalker;
 
@@ -71,14 +79,111 @@ public class FileSystemResourceFactory implements IterableResourceFactory {
 
     @Override
     public List<Resource> resources(String locationGlobPattern, Predicate<Resource> filter) {
+        try (final Stream<Resource> stream = streamResources(locationGlobPattern, filter)) {
+            return stream.toList();
+        }
+    }
+
+    @Override
+    public Stream<Resource> streamResources(String locationGlobPattern, Predicate<Resource> filter) {
+        return streamResources(locationGlobPattern, filter, DiscoveryOptions.DEFAULT);
+    }
+
+    @Override
+    public Stream<Resource> streamResources(String locationGlobPattern, Predicate<Resource> filter, DiscoveryOptions options) {
         final String rootPathString = pathMatcher.resolveRootPath(locationGlobPattern);
         final String pattern = locationGlobPattern.substring(rootPathString.length());
 
         final Path rootPath = Path.of(rootPathString);
         if (!Files.exists(rootPath)) {
-            return Collections.emptyList();
+            return Stream.empty();
+        }
+
+        return resourceWalker.stream(rootPath, pathMatcher.compile(pattern), options, FileSystemResource::of, filter);
+    }
+
+    /**
+     * Loads resources matching any of the given <i>GLOB patterns</i>, walking every directory at most once. Patterns are grouped by their root paths, so that
+     * patterns whose root path lies within root path of another pattern are rewritten relative to the outermost root path and all patterns in the group are
+     * matched during the single walk of that root path. Since root paths of the resulting groups never overlap, every resource is returned only once.
+     */
+    @Override
+    public Stream<Resource> streamResources(List<String> locationGlobPatterns, Predicate<Resource> filter, DiscoveryOptions options) {
+        return walkRoots(locationGlobPatterns).stream()
+            .filter(walkRoot -> Files.exists(walkRoot.rootPath()))
+            .flatMap(walkRoot -> {
+                final List<GlobMatcher> matchers = walkRoot.patterns().stream().map(pathMatcher::compile).toList();
+                return resourceWalker.stream(walkRoot.rootPath(), matchers, options, FileSystemResource::of, filter);
+            });
+    }
+
+    /**
+     * Returns resources for the given files matching any of the given <i>GLOB patterns</i>, without walking any directory. Patterns are grouped by their root
+     * paths in the same way as in {@link #streamResources(List, Predicate, DiscoveryOptions)}, so every resource is returned only once.
+     */
+    @Override
+    public Stream<Resource> streamResources(List<String> locationGlobPatterns,
+                                            Collection<Path> files,
+                                            Predicate<Resource> filter,
+                                            DiscoveryOptions options) {
+
+        return walkRoots(locationGlobPatterns).stream()
+            .filter(walkRoot -> Files.exists(walkRoot.rootPath()))
+            .flatMap(walkRoot -> {
+                final List<GlobMatcher> matchers = walkRoot.patterns().stream().map(pathMatcher::compile).toList();
+                return resourceWalker.streamListed(walkRoot.rootPath(), matchers, files, options, FileSystemResource::of, filter);
+            });
+    }
+
+    private List<WalkRoot> walkRoots(List<String> locationGlobPatterns) {
+        final List<WalkRoot> walkRoots = new ArrayList<>();
+
+        // outermost root paths go first, so every root path is either added to already existing group or starts new one
+        final List<String> sortedPatterns = locationGlobPatterns.stream()
+            .distinct()
+            .sorted(Comparator.comparingInt(pattern -> absoluteRootPath(pattern).getNameCount()))
+            .toList();
+
+        for (final String locationGlobPattern : sortedPatterns) {
+            final String rootPathString = pathMatcher.resolveRootPath(locationGlobPattern);
+            final String pattern = locationGlobPattern.substring(rootPathString.length());
+            final Path absoluteRootPath = absoluteRootPath(locationGlobPattern);
+
+            final Optional<WalkRoot> enclosing = walkRoots.stream().filter(walkRoot -> absoluteRootPath.startsWith(walkRoot.absoluteRootPath())).findFirst();
+            if (enclosing.isPresent()) {
+                final String prefix = escapeGlob(enclosing.get().absoluteRootPath().relativize(absoluteRootPath).toString().replace('\\', '/'));
+                enclosing.get().patterns().add(prefix.isEmpty() ? pattern : prefix + "/" + pattern);
+            } else {
+                walkRoots.add(new WalkRoot(Path.of(rootPathString), absoluteRootPath, new ArrayList<>(List.of(pattern))));
+            }
         }
 
-        return resourceWalker.walk(rootPath, pattern, FileSystemResource::of, filter);
+        return walkRoots;
+    }
+
+    private Path absoluteRootPath(String locationGlobPattern) {
+        return Path.of(pathMatcher.resolveRootPath(locationGlobPattern)).toAbsolutePath().normalize();
+    }
+
+    private static String escapeGlob(String literal) {
+        final StringBuilder escaped = new StringBuilder(literal.length());
+        for (final char ch : literal.toCharArray()) {
+            if (GLOB_SPECIAL_CHARS.indexOf(ch) >= 0) {
+                escaped.append('\\');
+            }
+            escaped.append(ch);
+        }
+
+        return escaped.toString();
+    }
+
+    /**
+     * Group of patterns matched during the single walk of the root path.
+     *
+     * @param rootPath         root path to walk, as specified by the outermost pattern
+     * @param absoluteRootPath absolute and normalized root path, used to detect overlapping root paths
+     * @param patterns         patterns relative to the root path
+     */
+    private record WalkRoot(Path rootPath, Path absoluteRootPath, List<String> patterns) {
     }
 }
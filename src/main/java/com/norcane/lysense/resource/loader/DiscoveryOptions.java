@@ -0,0 +1,60 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.resource.loader;
+
+import java.util.List;
+import java.util.Set;
+
+import static com.norcane.toolkit.Prelude.nonNull;
+
+/**
+ * Options affecting how {@link IterableResourceFactory} discovers resources matching the <i>GLOB pattern</i>. Options not supported by the concrete
+ * implementation are ignored.
+ *
+ * @param excludes         <i>GLOB</i> patterns of paths (relative to the current working directory) to skip during discovery, including whole subtrees of
+ *                         matching directories
+ * @param respectGitIgnore whether to skip paths ignored by Git (using {@code .gitignore} files and {@code .git/info/exclude} file)
+ * @param walkMode         how to walk the directory tree
+ * @param extensions       file extensions (without the leading dot) of resources to discover, checked before the resource is created, empty set means
+ *                         resources with any extension are discovered
+ */
+public record DiscoveryOptions(List<String> excludes, boolean respectGitIgnore, WalkMode walkMode, Set<String> extensions) {
+
+    /**
+     * Default options, no paths are excluded, resources with any extension are discovered and the directory tree is walked sequentially.
+     */
+    public static final DiscoveryOptions DEFAULT = new DiscoveryOptions(List.of(), false, WalkMode.SEQUENTIAL, Set.of());
+
+    public DiscoveryOptions {
+        excludes = List.copyOf(nonNull(excludes));
+        nonNull(walkMode);
+        extensions = Set.copyOf(nonNull(extensions));
+    }
+}
@@ -31,8 +31,11 @@ package com.norcane.lysense.resource.loader;
 
 import com.norcane.lysense.resource.Resource;
 
+import java.nio.file.Path;
+import java.util.Collection;
 import java.util.List;
 import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 /**
  * Extends the capabilities of {@link ResourceFactory} by adding support for loading and filtering multiple resources specified by the <i>GLOB pattern</i>.
@@ -49,4 +52,67 @@ public interface IterableResourceFactory extends ResourceFactory {
      * @throws UnsupportedOperationException if current implementation doesn't support this operation
      */
     List<Resource> resources(String locationGlobPattern, Predicate<Resource> filter);
+
+    /**
+     * Same as {@link #resources(String, Predicate)}, but returns the resources as a stream, which must be closed after use. Implementations should override
+     * this method if they are able to produce resources lazily, the default implementation just streams the loaded list.
+     *
+     * @param locationGlobPattern resource(s) location as <i>GLOB pattern</i>
+     * @param filter              filter to filter resources
+     * @return stream of loaded and filtered resources
+     * @throws UnsupportedOperationException if current implementation doesn't support this operation
+     */
+    default Stream<Resource> streamResources(String locationGlobPattern, Predicate<Resource> filter) {
+        return resources(locationGlobPattern, filter).stream();
+    }
+
+    /**
+     * Same as {@link #streamResources(String, Predicate)}, but allows to further customize the discovery using given {@link DiscoveryOptions}. The default
+     * implementation ignores the options, implementations supporting them should override this method.
+     *
+     * @param locationGlobPattern resource(s) location as <i>GLOB pattern</i>
+     * @param filter              filter to filter resources
+     * @param options             discovery options
+     * @return stream of loaded and filtered resources
+     * @throws UnsupportedOperationException if current implementation doesn't support this operation
+     */
+    default Stream<Resource> streamResources(String locationGlobPattern, Predicate<Resource> filter, DiscoveryOptions options) {
+        return streamResources(locationGlobPattern, filter);
+    }
+
+    /**
+     * Same as {@link #streamResources(String, Predicate, DiscoveryOptions)}, but loads resources matching any of the given <i>GLOB patterns</i>, returning
+     * every resource only once. The default implementation loads resources for every pattern separately and drops the duplicates, implementations able to look
+     * up resources for all patterns at once should override this method.
+     *
+     * @param locationGlobPatterns resource(s) locations as <i>GLOB patterns</i>
+     * @param filter               filter to filter resources
+     * @param options              discovery options
+     * @return stream of loaded and filtered resources
+     * @throws UnsupportedOperationException if current implementation doesn't support this operation
+     */
+    default Stream<Resource> streamResources(List<String> locationGlobPatterns, Predicate<Resource> filter, DiscoveryOptions options) {
+        return locationGlobPatterns.stream()
+            .flatMap(locationGlobPattern -> streamResources(locationGlobPattern, filter, options))
+            .distinct();
+    }
+
+    /**
+     * Same as {@link #streamResources(List, Predicate, DiscoveryOptions)}, but returns only resources for the given {@code files}, without looking up all
+     * resources matching the patterns. Since files are paths in the local file system, the default implementation, suitable for factories not backed by the
+     * local file system, returns no resources.
+     *
+     * @param locationGlobPatterns resource(s) locations as <i>GLOB patterns</i>
+     * @param files                files to return resources for, if matching any of the patterns
+     * @param filter               filter to filter resources
+     * @param options              discovery options
+     * @return stream of loaded and filtered resources
+     */
+    default Stream<Resource> streamResources(List<String> locationGlobPatterns,
+                                             Collection<Path> files,
+                                             Predicate<Resource> filter,
+                                             DiscoveryOptions options) {
+
+        return Stream.empty();
+    }
 }
@@ -33,10 +33,19 @@ import com.norcane.lysense.resource.Resource;
 import com.norcane.lysense.resource.exception.ResourceNotFoundException;
 import com.norcane.lysense.resource.util.PathMatcher;
 
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.inject.Instance;
@@ -111,11 +120,7 @@ public class ResourceLoader {
      */
     public List<Resource> resources(String pattern, Predicate<Resource> filter, boolean listDirectoryRecursively) {
         final ResourceFactory factory = findFactory(pattern);
-
-        // fail fast if the factory doesn't support iterating resources
-        if (!(factory instanceof IterableResourceFactory iterableFactory)) {
-            throw new UnsupportedOperationException("Iterating over resources with scheme '%s' is not supported".formatted(factory.scheme()));
-        }
+        final IterableResourceFactory iterableFactory = iterableFactoryOrFail(factory);
 
         // strip the scheme from the pattern (e.g. 'classpath:' or 'file:')
         final String patternWithoutScheme = dropScheme(pattern);
@@ -125,13 +130,143 @@ public class ResourceLoader {
             return List.of(resource);
         }
 
+        return iterableFactory.resources(patternOrDirectory(patternWithoutScheme, listDirectoryRecursively), filter);
+    }
+
+    /**
+     * Same as {@link #resources(String, Predicate, boolean)}, but returns the resources as a stream. If supported by the underlying {@link ResourceFactory},
+     * the stream is populated lazily, so resources can be processed while the rest is still being looked up. The returned stream must be closed after use.
+     *
+     * @param pattern                  file, directory or <i>GLOB</i> pattern
+     * @param filter                   filter do decide whether to include the resource in the result or not
+     * @param listDirectoryRecursively if the given location is directory, then whether to list all resources in the directory recursively or only the ones in
+     *                                 the top-level directory
+     * @return stream of loaded resources
+     */
+    public Stream<Resource> streamResources(String pattern, Predicate<Resource> filter, boolean listDirectoryRecursively) {
+        return streamResources(pattern, filter, listDirectoryRecursively, DiscoveryOptions.DEFAULT);
+    }
+
+    /**
+     * Same as {@link #streamResources(String, Predicate, boolean)}, but allows to customize the resource discovery using given {@link DiscoveryOptions}. Note
+     * that options are not applied if the pattern points to a single resource.
+     *
+     * @param pattern                  file, directory or <i>GLOB</i> pattern
+     * @param filter                   filter do decide whether to include the resource in the result or not
+     * @param listDirectoryRecursively if the given location is directory, then whether to list all resources in the directory recursively or only the ones in
+     *                                 the top-level directory
+     * @param options                  resource discovery options
+     * @return stream of loaded resources
+     */
+    public Stream<Resource> streamResources(String pattern, Predicate<Resource> filter, boolean listDirectoryRecursively, DiscoveryOptions options) {
+        final ResourceFactory factory = findFactory(pattern);
+        final IterableResourceFactory iterableFactory = iterableFactoryOrFail(factory);
+        final String patternWithoutScheme = dropScheme(pattern);
+
+        final Resource resource = resourceOrNull(factory, patternWithoutScheme);
+        if (resource != null) {
+            return Stream.of(resource);
+        }
+
+        return iterableFactory.streamResources(patternOrDirectory(patternWithoutScheme, listDirectoryRecursively), filter, options);
+    }
+
+    /**
+     * Same as {@link #streamResources(String, Predicate, boolean, DiscoveryOptions)}, but loads resources matching any of the given <i>patterns</i>, returning
+     * every resource only once. Patterns handled by the same {@link IterableResourceFactory} are passed to it all at once, so it can look up resources for all
+     * of them in a single pass (e.g. walk every directory only once, even if multiple patterns overlap).
+     *
+     * @param patterns                 files, directories or <i>GLOB</i> patterns
+     * @param filter                   filter do decide whether to include the resource in the result or not
+     * @param listDirectoryRecursively if the given location is directory, then whether to list all resources in the directory recursively or only the ones in
+     *                                 the top-level directory
+     * @param options                  resource discovery options
+     * @return stream of loaded resources
+     */
+    public Stream<Resource> streamResources(List<String> patterns, Predicate<Resource> filter, boolean listDirectoryRecursively, DiscoveryOptions options) {
+        final Set<Resource> singleResources = new LinkedHashSet<>();
+        final Map<IterableResourceFactory, List<String>> factoryPatterns = new LinkedHashMap<>();
+        resolvePatterns(patterns, listDirectoryRecursively, singleResources, factoryPatterns);
+
+        // resources given explicitly are returned first, so they can be dropped if found again using any pattern
+        final Stream<Resource> patternResources = factoryPatterns.entrySet().stream()
+            .flatMap(entry -> entry.getKey().streamResources(entry.getValue(), filter, options))
+            .filter(resource -> !singleResources.contains(resource));
+
+        return Stream.concat(singleResources.stream(), patternResources);
+    }
+
+    /**
+     * Same as {@link #streamResources(List, Predicate, boolean, DiscoveryOptions)}, but returns only resources for the given {@code files} (paths in the local
+     * file system), if they match any of the given <i>patterns</i>. Resources matching the patterns are not looked up at all, so the cost depends only on the
+     * number of given files, which makes it suitable for processing only a few selected (e.g. changed) files.
+     *
+     * @param patterns                 files, directories or <i>GLOB</i> patterns
+     * @param files                    files to return resources for
+     * @param filter                   filter do decide whether to include the resource in the result or not
+     * @param listDirectoryRecursively if the given location is directory, then whether to list all resources in the directory recursively or only the ones in
+     *                                 the top-level directory
+     * @param options                  resource discovery options
+     * @return stream of loaded resources
+     */
+    public Stream<Resource> streamResources(List<String> patterns,
+                                            Collection<Path> files,
+                                            Predicate<Resource> filter,
+                                            boolean listDirectoryRecursively,
+                                            DiscoveryOptions options) {
+
+        final Set<Resource> singleResources = new LinkedHashSet<>();
+        final Map<IterableResourceFactory, List<String>> factoryPatterns = new LinkedHashMap<>();
+        resolvePatterns(patterns, listDirectoryRecursively, singleResources, factoryPatterns);
+
+        final Set<URI> fileUris = files.stream().map(file -> file.toAbsolutePath().normalize().toUri()).collect(Collectors.toSet());
+        final Stream<Resource> listedSingleResources = singleResources.stream().filter(resource -> fileUris.contains(resource.uri().normalize()));
+
+        final Stream<Resource> patternResources = factoryPatterns.entrySet().stream()
+            .flatMap(entry -> entry.getKey().streamResources(entry.getValue(), files, filter, options))
+            .filter(resource -> !singleResources.contains(resource));
+
+        return Stream.concat(listedSingleResources, patternResources);
+    }
+
+    /**
+     * Splits the given patterns into single resources and patterns that need to be looked up, grouped by the factory able to look them up.
+     */
+    private void resolvePatterns(List<String> patterns,
+                                 boolean listDirectoryRecursively,
+                                 Set<Resource> singleResources,
+                                 Map<IterableResourceFactory, List<String>> factoryPatterns) {
+
+        for (final String pattern : patterns) {
+            final ResourceFactory factory = findFactory(pattern);
+            final IterableResourceFactory iterableFactory = iterableFactoryOrFail(factory);
+            final String patternWithoutScheme = dropScheme(pattern);
+
+            final Resource resource = resourceOrNull(factory, patternWithoutScheme);
+            if (resource != null) {
+                singleResources.add(resource);
+            } else {
+                factoryPatterns.computeIfAbsent(iterableFactory, _ -> new ArrayList<>())
+                    .add(patternOrDirectory(patternWithoutScheme, listDirectoryRecursively));
+            }
+        }
+    }
+
+    private IterableResourceFactory iterableFactoryOrFail(ResourceFactory factory) {
+        // fail fast if the factory doesn't support iterating resources
+        if (!(factory instanceof IterableResourceFactory iterableFactory)) {
+            throw new UnsupportedOperationException("Iterating over resources with scheme '%s' is not supported".formatted(factory.scheme()));
+        }
+
+        return iterableFactory;
+    }
+
+    private String patternOrDirectory(String patternWithoutScheme, boolean listDirectoryRecursively) {
         // if the pattern points to directory, return recursively all resources in it
         final String dirSuffix = listDirectoryRecursively ? GLOB_RECURSIVE_DIR : GLOB_SINGLE_DIR;
-        final String patternOrDirectory = pathMatcher.isPattern(patternWithoutScheme)
-                                          ? patternWithoutScheme
-                                          : patternWithoutScheme + "/" + dirSuffix;
-
-        return iterableFactory.resources(patternOrDirectory, filter);
+        return pathMatcher.isPattern(patternWithoutScheme)
+               ? patternWithoutScheme
+               : patternWithoutScheme + "/" + dirSuffix;
     }
 
     private ResourceFactory findFactory(String path) {
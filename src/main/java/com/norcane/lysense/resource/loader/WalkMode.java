@@ -0,0 +1,58 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.resource.loader;
+
+/**
+ * Defines how is the directory tree walked when discovering resources.
+ */
+public enum WalkMode {
+
+    /**
+     * Directory tree is walked sequentially on the calling thread, in the order directory entries are returned by the file system.
+     */
+    SEQUENTIAL,
+
+    /**
+     * Sibling directories are listed concurrently and resources are returned as soon as they are found, in no particular order.
+     */
+    PARALLEL,
+
+    /**
+     * Sibling directories are listed concurrently, but resources are returned in deterministic order (depth-first, with directory entries sorted by name).
+     */
+    PARALLEL_ORDERED,
+
+    /**
+     * Directory tree is not walked at all, instead files tracked by Git are listed from the Git index file, in the order they're stored in the index. Since
+     * tracked files are never ignored, <i>gitignore</i> rules are not applied. If the discovered location is not within any Git repository, the directory
+     * tree is walked sequentially instead.
+     */
+    GIT_INDEX
+}
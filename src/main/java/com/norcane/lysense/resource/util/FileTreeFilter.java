@@ -0,0 +1,280 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.resource.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Decides, for every entry found while walking the file tree, whether it's a matching file, a directory worth descending into, or whether it should be
+ * skipped, based on the compiled <i>GLOB</i> patterns, <i>exclude patterns</i>, allowed file extensions and optionally <i>gitignore</i> rules. Instance is
+ * immutable and can be shared by multiple threads walking the same tree.
+ *
+ * <p>When walking the tree for multiple patterns at once, every visited directory keeps only the patterns that can match anything within it, so entries deeper
+ * in the tree are checked only against patterns that are still relevant there and file matching any of the patterns is returned only once.</p>
+ */
+final class FileTreeFilter {
+
+    private final Path rootPath;
+    private final List<GlobMatcher> matchers;
+    private final List<GlobMatcher> excludes;
+    private final boolean respectGitIgnore;
+    private final Set<String> extensions;
+
+    FileTreeFilter(Path rootPath, List<GlobMatcher> matchers, List<GlobMatcher> excludes, boolean respectGitIgnore, Set<String> extensions) {
+        this.rootPath = rootPath;
+        this.matchers = List.copyOf(matchers);
+        this.excludes = excludes;
+        this.respectGitIgnore = respectGitIgnore;
+        this.extensions = extensions;
+    }
+
+    /**
+     * Root path of the walked file tree.
+     */
+    Path rootPath() {
+        return rootPath;
+    }
+
+    /**
+     * Visits the root path of the walked file tree, which is never skipped unless it doesn't exist, only matched if it's a file.
+     */
+    Entry visitRoot() {
+        final BasicFileAttributes attributes = readAttributes(rootPath);
+        if (attributes == null) {
+            return Entry.Skip.INSTANCE;
+        }
+
+        if (attributes.isDirectory()) {
+            return new Entry.Directory(rootPath, respectGitIgnore ? GitIgnoreMatcher.forDirectory(rootPath) : null, matchers);
+        }
+
+        final BasicFileAttributes fileAttributes = regularFileAttributes(rootPath, attributes);
+        return fileAttributes != null && matchesAny(matchers, rootPath.relativize(rootPath))
+               ? new Entry.MatchingFile(new PathDescriptor(rootPath, fileAttributes))
+               : Entry.Skip.INSTANCE;
+    }
+
+    /**
+     * Visits the given entry of already visited {@code parent} directory.
+     */
+    Entry visit(Path path, Entry.Directory parent) {
+        final BasicFileAttributes attributes = readAttributes(path);
+        if (attributes == null) {
+            return Entry.Skip.INSTANCE;     // deleted since the parent directory was listed
+        }
+
+        final String name = path.getFileName().toString();
+        final GitIgnoreMatcher parentGitIgnore = parent.gitIgnore();
+
+        if (attributes.isDirectory()) {
+            return visitDirectory(path, name, parent);
+        }
+
+        // cheap checks based only on the file name go first
+        if (!extensions.isEmpty() && !extensions.contains(PathDescriptor.extension(name))) {
+            return Entry.Skip.INSTANCE;
+        }
+
+        final BasicFileAttributes fileAttributes = regularFileAttributes(path, attributes);
+        if (fileAttributes == null || !matchesAny(parent.matchers(), rootPath.relativize(path))) {
+            return Entry.Skip.INSTANCE;
+        }
+
+        if ((parentGitIgnore != null && parentGitIgnore.isIgnored(name, false)) || isFileExcluded(path)) {
+            return Entry.Skip.INSTANCE;
+        }
+
+        return new Entry.MatchingFile(new PathDescriptor(path, fileAttributes));
+    }
+
+    /**
+     * Visits the given entry of already visited {@code parent} directory, which comes from already known list of files instead of directory listing, e.g.
+     * files tracked by Git or files explicitly selected by the user. <i>Gitignore</i> rules are applied only if the {@code parent} directory carries the
+     * <i>gitignore</i> matcher (files tracked by Git are never ignored by Git, so their directories don't). Since directories are not listed, only files are
+     * read from the file system, after all other checks passed, to make sure they still exist.
+     */
+    Entry visitListed(Path path, boolean directory, Entry.Directory parent) {
+        final String name = path.getFileName().toString();
+
+        if (directory) {
+            return visitDirectory(path, name, parent);
+        }
+
+        if (!extensions.isEmpty() && !extensions.contains(PathDescriptor.extension(name))) {
+            return Entry.Skip.INSTANCE;
+        }
+
+        if (!matchesAny(parent.matchers(), rootPath.relativize(path)) || isFileExcluded(path)) {
+            return Entry.Skip.INSTANCE;
+        }
+
+        if (parent.gitIgnore() != null && parent.gitIgnore().isIgnored(name, false)) {
+            return Entry.Skip.INSTANCE;
+        }
+
+        try {
+            final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return attributes.isRegularFile() ? new Entry.MatchingFile(new PathDescriptor(path, attributes)) : Entry.Skip.INSTANCE;
+        } catch (IOException e) {
+            return Entry.Skip.INSTANCE;     // deleted from the working tree, or broken link
+        }
+    }
+
+    private Entry visitDirectory(Path path, String name, Entry.Directory parent) {
+        final List<GlobMatcher> activeMatchers = matchersWithin(parent.matchers(), rootPath.relativize(path));
+        if (activeMatchers.isEmpty()) {
+            return Entry.Skip.INSTANCE;
+        }
+
+        final GitIgnoreMatcher parentGitIgnore = parent.gitIgnore();
+        if ((parentGitIgnore != null && parentGitIgnore.isIgnored(name, true)) || isDirectoryExcluded(path)) {
+            return Entry.Skip.INSTANCE;
+        }
+
+        return new Entry.Directory(path, parentGitIgnore != null ? parentGitIgnore.enter(parentGitIgnore.directory().resolve(name)) : null, activeMatchers);
+    }
+
+    /**
+     * Returns matchers that can match any path within the given directory, the same list instance is returned if all of them can.
+     */
+    private static List<GlobMatcher> matchersWithin(List<GlobMatcher> candidates, Path relativeDirectory) {
+        if (candidates.size() == 1) {
+            return candidates.getFirst().canMatchWithin(relativeDirectory) ? candidates : List.of();
+        }
+
+        final List<GlobMatcher> active = new ArrayList<>(candidates.size());
+        for (final GlobMatcher candidate : candidates) {
+            if (candidate.canMatchWithin(relativeDirectory)) {
+                active.add(candidate);
+            }
+        }
+
+        return active.size() == candidates.size() ? candidates : List.copyOf(active);
+    }
+
+    private static boolean matchesAny(List<GlobMatcher> candidates, Path relativePath) {
+        for (final GlobMatcher candidate : candidates) {
+            if (candidate.matches(relativePath)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean isDirectoryExcluded(Path directory) {
+        if (excludes.isEmpty()) {
+            return false;
+        }
+
+        final Path normalized = directory.normalize();
+        return excludes.stream().anyMatch(exclude -> exclude.matches(normalized) || exclude.matchesAllWithin(normalized));
+    }
+
+    private boolean isFileExcluded(Path file) {
+        if (excludes.isEmpty()) {
+            return false;
+        }
+
+        final Path normalized = file.normalize();
+        return excludes.stream().anyMatch(exclude -> exclude.matches(normalized));
+    }
+
+    /**
+     * Returns attributes of the regular file, or {@code null} if the path is not a regular file. Symbolic links to regular files are included (same as with
+     * {@link Files#walk(Path, java.nio.file.FileVisitOption...)}), with attributes of the target file.
+     */
+    private static BasicFileAttributes regularFileAttributes(Path path, BasicFileAttributes attributes) {
+        if (attributes.isRegularFile()) {
+            return attributes;
+        }
+
+        if (attributes.isSymbolicLink()) {
+            try {
+                final BasicFileAttributes targetAttributes = Files.readAttributes(path, BasicFileAttributes.class);
+                return targetAttributes.isRegularFile() ? targetAttributes : null;
+            } catch (IOException e) {
+                return null;    // broken link
+            }
+        }
+
+        return null;
+    }
+
+    private static BasicFileAttributes readAttributes(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Result of visiting single entry of the file tree.
+     */
+    sealed interface Entry {
+
+        /**
+         * Entry should be skipped, either it doesn't match, or it's a directory that cannot contain any matching file.
+         */
+        enum Skip implements Entry {
+            INSTANCE
+        }
+
+        /**
+         * Entry is a file matching the pattern.
+         *
+         * @param descriptor descriptor of the file
+         */
+        record MatchingFile(PathDescriptor descriptor) implements Entry {
+        }
+
+        /**
+         * Entry is a directory that should be descended into.
+         *
+         * @param path      path of the directory
+         * @param gitIgnore <i>gitignore</i> matcher for the directory, {@code null} if <i>gitignore</i> rules are not respected
+         * @param matchers  patterns that can match any path within the directory
+         */
+        record Directory(Path path, GitIgnoreMatcher gitIgnore, List<GlobMatcher> matchers) implements Entry {
+        }
+    }
+}
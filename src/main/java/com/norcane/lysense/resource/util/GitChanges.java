@@ -0,0 +1,138 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.resource.util;
+
+import com.norcane.lysense.resource.exception.CannotListChangedFilesException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.norcane.toolkit.Prelude.nonNull;
+
+/**
+ * Lists files changed in the working tree of the local Git repository, using the {@code git} binary. Only the local repository is queried, no remote
+ * repositories are ever contacted.
+ */
+public final class GitChanges {
+
+    private GitChanges() {
+        // utility class
+    }
+
+    /**
+     * Lists files within the given directory changed since the given {@code revision}. This includes files changed by commits made since the revision, staged
+     * and unstaged changes in the working tree, and untracked files not ignored by Git. Deleted files are not listed, since there's nothing to process.
+     *
+     * @param directory directory within the Git repository to list changed files in, also used as working directory of the {@code git} binary
+     * @param revision  Git revision (e.g. commit hash, branch or tag name) to list changes since
+     * @return paths of changed files, resolved against the given directory
+     * @throws CannotListChangedFilesException if changed files cannot be listed (e.g. unknown revision, or directory not within Git repository)
+     */
+    public static List<Path> since(Path directory, String revision) {
+        nonNull(directory);
+        nonNull(revision);
+
+        // revision is passed as a command line argument, so it must not be mistaken for an option
+        if (revision.isBlank() || revision.startsWith("-")) {
+            throw new CannotListChangedFilesException(revision, "invalid revision", null);
+        }
+
+        final Set<String> changedPaths = new LinkedHashSet<>();
+        changedPaths.addAll(git(directory, revision, "diff", "--name-only", "-z", "--relative", "--no-renames", "--diff-filter=d", revision, "--"));
+        changedPaths.addAll(git(directory, revision, "ls-files", "-z", "--others", "--exclude-standard"));
+
+        final List<Path> changedFiles = new ArrayList<>(changedPaths.size());
+        for (final String changedPath : changedPaths) {
+            changedFiles.add(directory.resolve(changedPath));
+        }
+
+        return changedFiles;
+    }
+
+    private static List<String> git(Path directory, String revision, String... arguments) {
+        final List<String> command = new ArrayList<>(arguments.length + 1);
+        command.add("git");
+        command.addAll(List.of(arguments));
+
+        try {
+            final Process process = new ProcessBuilder(command).directory(directory.toFile()).start();
+            process.getOutputStream().close();
+
+            // error output is drained concurrently, so git never blocks on full error pipe while its standard output is being read
+            final ByteArrayOutputStream error = new ByteArrayOutputStream();
+            final Thread errorReader = Thread.ofVirtual().start(() -> {
+                try (final InputStream errorStream = process.getErrorStream()) {
+                    errorStream.transferTo(error);
+                } catch (IOException e) {
+                    // error output is used only to describe the failure
+                }
+            });
+
+            final byte[] output;
+            try (final InputStream outputStream = process.getInputStream()) {
+                output = outputStream.readAllBytes();
+            }
+
+            final int exitCode = process.waitFor();
+            errorReader.join();
+
+            if (exitCode != 0) {
+                final String message = error.toString(StandardCharsets.UTF_8).strip();
+                throw new CannotListChangedFilesException(revision, message.isEmpty() ? "git exited with code " + exitCode : message, null);
+            }
+
+            // paths are separated by NUL bytes, so they're never quoted or escaped
+            final List<String> paths = new ArrayList<>();
+            int start = 0;
+            for (int i = 0; i < output.length; i++) {
+                if (output[i] == 0) {
+                    if (i > start) {
+                        paths.add(new String(output, start, i - start, StandardCharsets.UTF_8));
+                    }
+                    start = i + 1;
+                }
+            }
+
+            return paths;
+        } catch (IOException e) {
+            throw new CannotListChangedFilesException(revision, "cannot run git: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CannotListChangedFilesException(revision, "interrupted while waiting for git", e);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.resource.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Helper methods for locating the Git repository and its Git directory in the file system, without the need of the Git binary.
+ */
+final class GitDirectory {
+
+    static final String DOT_GIT = ".git";
+
+    private static final String GIT_DIR_FILE_PREFIX = "gitdir:";
+
+    private GitDirectory() {
+        // utility class
+    }
+
+    /**
+     * Finds root directory of the Git repository the given directory belongs to, by looking for the {@code .git} directory (or file) in the directory itself
+     * and in its parent directories.
+     *
+     * @param absoluteDirectory absolute and normalized path of the directory
+     * @return root directory of the repository, or {@code null} if the directory doesn't belong to any repository
+     */
+    static Path findRepositoryRoot(Path absoluteDirectory) {
+        for (Path current = absoluteDirectory; current != null; current = current.getParent()) {
+            if (Files.exists(current.resolve(DOT_GIT))) {
+                return current;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Resolves the actual Git directory of the repository. Usually it's the {@code .git} directory in the repository root, but in worktrees and submodules,
+     * {@code .git} is a file pointing to the actual Git directory.
+     *
+     * @param repositoryRoot root directory of the repository
+     * @return Git directory, or {@code null} if the {@code .git} file doesn't point to any directory
+     * @throws UncheckedIOException if the {@code .git} file cannot be read
+     */
+    static Path resolveGitDir(Path repositoryRoot) {
+        final Path dotGit = repositoryRoot.resolve(DOT_GIT);
+        if (!Files.isRegularFile(dotGit)) {
+            return dotGit;
+        }
+
+        try {
+            final String content = Files.readString(dotGit).strip();
+            return content.startsWith(GIT_DIR_FILE_PREFIX)
+                   ? dotGit.resolveSibling(content.substring(GIT_DIR_FILE_PREFIX.length()).strip())
+                   : null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.resource.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static com.norcane.toolkit.Prelude.nonNull;
+
+/**
+ * Compiled rules of single <i>gitignore</i> file (e.g. {@code .gitignore} or {@code .git/info/exclude}), following the same syntax and semantics as
+ * <a href="https://git-scm.com/docs/gitignore">Git</a> itself. Rules are matched against paths relative to the directory the <i>gitignore</i> file belongs to,
+ * using {@code /} as a separator. Instance is immutable and can be shared between threads.
+ *
+ * @see GitIgnoreMatcher
+ */
+public final class GitIgnore {
+
+    /**
+     * <i>gitignore</i> without any rules, i.e. not ignoring anything.
+     */
+    public static final GitIgnore EMPTY = new GitIgnore(List.of());
+
+    private final List<Rule> rules;
+
+    private GitIgnore(List<Rule> rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * Parses content of the <i>gitignore</i> file.
+     *
+     * @param content content of the <i>gitignore</i> file
+     * @return compiled rules
+     */
+    public static GitIgnore parse(String content) {
+        nonNull(content);
+
+        final List<Rule> rules = new ArrayList<>();
+        content.lines().map(GitIgnore::parseRule).filter(rule -> rule != null).forEach(rules::add);
+
+        return rules.isEmpty() ? EMPTY : new GitIgnore(List.copyOf(rules));
+    }
+
+    /**
+     * Returns {@code true} if there are no rules.
+     *
+     * @return {@code true} if there are no rules
+     */
+    public boolean isEmpty() {
+        return rules.isEmpty();
+    }
+
+    /**
+     * Matches the given path against the rules. As in Git, the last matching rule decides.
+     *
+     * @param relativePath path relative to the directory of the <i>gitignore</i> file, using {@code /} as a separator
+     * @param directory    whether the path is directory
+     * @return {@link Match#IGNORED} if the path is ignored, {@link Match#NOT_IGNORED} if it's explicitly re-included using negated rule or {@link Match#NONE}
+     *     if no rule matches
+     */
+    public Match match(String relativePath, boolean directory) {
+        final String name = relativePath.substring(relativePath.lastIndexOf('/') + 1);
+
+        for (int i = rules.size() - 1; i >= 0; i--) {
+            final Rule rule = rules.get(i);
+
+            if (rule.matches(relativePath, name, directory)) {
+                return rule.negated() ? Match.NOT_IGNORED : Match.IGNORED;
+            }
+        }
+
+        return Match.NONE;
+    }
+
+    private static Rule parseRule(String line) {
+        String pattern = stripTrailingSpaces(line);
+        if (pattern.isEmpty() || pattern.startsWith("#")) {
+            return null;
+        }
+
+        final boolean negated = pattern.startsWith("!");
+        if (negated) {
+            pattern = pattern.substring(1);
+        }
+
+        final boolean directoryOnly = pattern.endsWith("/") && !pattern.endsWith("\\/");
+        if (directoryOnly) {
+            pattern = pattern.substring(0, pattern.length() - 1);
+        }
+
+        // pattern with separator at the beginning or in the middle is relative to the .gitignore location, otherwise it matches name at any level
+        final boolean anchored = pattern.indexOf('/') != -1;
+        if (pattern.startsWith("/")) {
+            pattern = pattern.substring(1);
+        }
+
+        if (pattern.isEmpty()) {
+            return null;
+        }
+
+        return new Rule(Pattern.compile(toRegex(pattern)), negated, directoryOnly, anchored);
+    }
+
+    private static String stripTrailingSpaces(String line) {
+        int end = line.length();
+        while (end > 0 && line.charAt(end - 1) == ' ' && !(end > 1 && line.charAt(end - 2) == '\\')) {
+            end--;
+        }
+
+        return line.substring(0, end);
+    }
+
+    private static String toRegex(String pattern) {
+        final StringBuilder regex = new StringBuilder();
+
+        int i = 0;
+        while (i < pattern.length()) {
+            final char c = pattern.charAt(i);
+
+            if (pattern.startsWith("**/", i) && i == 0) {
+                regex.append("(?:.*/)?");       // leading '**/' matches in all directories
+                i += 3;
+            } else if (pattern.startsWith("/**/", i)) {
+                regex.append("/(?:.*/)?");      // '/**/' matches zero or more directories
+                i += 4;
+            } else if (pattern.startsWith("/**", i) && i + 3 == pattern.length()) {
+                regex.append("/.*");            // trailing '/**' matches everything inside
+                i += 3;
+            } else if (c == '*') {
+                regex.append("[^/]*");          // any other consecutive asterisks are regular asterisks
+                while (i < pattern.length() && pattern.charAt(i) == '*') {
+                    i++;
+                }
+            } else if (c == '?') {
+                regex.append("[^/]");
+                i++;
+            } else if (c == '[') {
+                i = appendBracketExpression(pattern, i, regex);
+            } else if (c == '\\' && i + 1 < pattern.length()) {
+                regex.append(Pattern.quote(String.valueOf(pattern.charAt(i + 1))));
+                i += 2;
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+                i++;
+            }
+        }
+
+        return regex.toString();
+    }
+
+    private static int appendBracketExpression(String pattern, int start, StringBuilder regex) {
+        int i = start + 1;
+        final StringBuilder expression = new StringBuilder("[");
+
+        if (i < pattern.length() && (pattern.charAt(i) == '!' || pattern.charAt(i) == '^')) {
+            expression.append('^');
+            i++;
+        }
+
+        // closing bracket right after the opening one is a regular character
+        if (i < pattern.length() && pattern.charAt(i) == ']') {
+            expression.append("\\]");
+            i++;
+        }
+
+        while (i < pattern.length()) {
+            final char c = pattern.charAt(i++);
+
+            if (c == ']') {
+                regex.append(expression).append(']');
+                return i;
+            }
+            if (c == '\\' && i < pattern.length()) {
+                expression.append('\\').append(pattern.charAt(i++));
+            } else if (c == '[' || c == '&' || c == '\\') {
+                expression.append('\\').append(c);
+            } else {
+                expression.append(c);
+            }
+        }
+
+        // no closing bracket, treat the opening one as a regular character
+        regex.append("\\[");
+        return start + 1;
+    }
+
+    /**
+     * Result of matching the path against the <i>gitignore</i> rules.
+     */
+    public enum Match {
+        /**
+         * Path is ignored.
+         */
+        IGNORED,
+
+        /**
+         * Path is explicitly re-included by negated rule.
+         */
+        NOT_IGNORED,
+
+        /**
+         * No rule matches the path.
+         */
+        NONE
+    }
+
+    private record Rule(Pattern pattern, boolean negated, boolean directoryOnly, boolean anchored) {
+
+        boolean matches(String relativePath, String name, boolean directory) {
+            if (directoryOnly && !directory) {
+                return false;
+            }
+
+            return pattern.matcher(anchored ? relativePath : name).matches();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.resource.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import static com.norcane.toolkit.Prelude.nonNull;
+
+/**
+ * Hierarchical matcher deciding whether paths are ignored by Git, based on the {@code .gitignore} files in the directory tree and on the
+ * {@code .git/info/exclude} file of the repository, without the need of the Git binary. Matcher represents single directory and is built incrementally while
+ * descending the directory tree using {@link #enter(Path)}, so every {@code .gitignore} file is read and compiled only once.
+ *
+ * <p>Same as in Git, rules in {@code .gitignore} files located deeper in the tree take precedence over the ones located higher, and all of them take
+ * precedence over the {@code .git/info/exclude} file. The {@code .git} directory itself is always ignored.</p>
+ *
+ * @see GitIgnore
+ */
+public final class GitIgnoreMatcher {
+
+    private static final String GITIGNORE_FILE = ".gitignore";
+    private static final Path INFO_EXCLUDE_FILE = Path.of("info", "exclude");
+
+    private final GitIgnoreMatcher parent;
+    private final Path directory;
+    private final GitIgnore gitIgnore;
+
+    private GitIgnoreMatcher(GitIgnoreMatcher parent, Path directory, GitIgnore gitIgnore) {
+        this.parent = parent;
+        this.directory = directory;
+        this.gitIgnore = gitIgnore;
+    }
+
+    /**
+     * Creates matcher for the given {@code directory}. The Git repository the directory belongs to is looked up in the parent directories, and
+     * {@code .git/info/exclude} file and all {@code .gitignore} files between the repository root and the directory are loaded. If the directory is not within
+     * any Git repository, only {@code .gitignore} files in the directory and its subdirectories are used.
+     *
+     * @param directory directory to create matcher for
+     * @return matcher for the given directory
+     * @throws UncheckedIOException if any of the ignore files cannot be read
+     */
+    public static GitIgnoreMatcher forDirectory(Path directory) {
+        final Path absoluteDirectory = nonNull(directory).toAbsolutePath().normalize();
+
+        final Path repositoryRoot = GitDirectory.findRepositoryRoot(absoluteDirectory);
+        if (repositoryRoot == null) {
+            return new GitIgnoreMatcher(null, absoluteDirectory, loadGitIgnore(absoluteDirectory.resolve(GITIGNORE_FILE)));
+        }
+
+        // collect directories from the given one up to the repository root
+        final Deque<Path> directories = new ArrayDeque<>();
+        for (Path current = absoluteDirectory; !current.equals(repositoryRoot); current = current.getParent()) {
+            directories.push(current);
+        }
+        directories.push(repositoryRoot);
+
+        GitIgnoreMatcher matcher = new GitIgnoreMatcher(null, repositoryRoot, loadInfoExclude(repositoryRoot));
+        for (final Path current : directories) {
+            matcher = matcher.enter(current);
+        }
+
+        return matcher;
+    }
+
+    /**
+     * Returns matcher for the given subdirectory of the current directory, taking into account its {@code .gitignore} file (if present).
+     *
+     * @param subdirectory absolute path of the subdirectory
+     * @return matcher for the subdirectory
+     * @throws UncheckedIOException if the {@code .gitignore} file cannot be read
+     */
+    public GitIgnoreMatcher enter(Path subdirectory) {
+        return new GitIgnoreMatcher(this, subdirectory, loadGitIgnore(subdirectory.resolve(GITIGNORE_FILE)));
+    }
+
+    /**
+     * Absolute path of the directory this matcher represents.
+     *
+     * @return absolute path of the directory
+     */
+    public Path directory() {
+        return directory;
+    }
+
+    /**
+     * Checks whether the given entry of the current directory is ignored.
+     *
+     * @param name      name of the file or directory within the current directory
+     * @param directory whether the entry is directory
+     * @return {@code true} if the entry is ignored
+     */
+    public boolean isIgnored(String name, boolean directory) {
+        if (directory && GitDirectory.DOT_GIT.equals(name)) {
+            return true;
+        }
+
+        final Path path = this.directory.resolve(name);
+        for (GitIgnoreMatcher current = this; current != null; current = current.parent) {
+            if (current.gitIgnore.isEmpty()) {
+                continue;
+            }
+
+            final GitIgnore.Match match = current.gitIgnore.match(toUnixString(current.directory.relativize(path)), directory);
+            if (match != GitIgnore.Match.NONE) {
+                return match == GitIgnore.Match.IGNORED;
+            }
+        }
+
+        return false;
+    }
+
+    private static GitIgnore loadInfoExclude(Path repositoryRoot) {
+        final Path gitDir = GitDirectory.resolveGitDir(repositoryRoot);
+        return gitDir != null ? loadGitIgnore(gitDir.resolve(INFO_EXCLUDE_FILE)) : GitIgnore.EMPTY;
+    }
+
+    private static GitIgnore loadGitIgnore(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return GitIgnore.EMPTY;
+        }
+
+        try {
+            // decode leniently, malformed characters can only appear in rules that wouldn't match anyway
+            return GitIgnore.parse(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String toUnixString(Path path) {
+        final String separator = path.getFileSystem().getSeparator();
+        return separator.equals("/") ? path.toString() : path.toString().replace(separator, "/");
+    }
+}
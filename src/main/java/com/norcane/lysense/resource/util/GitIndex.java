@@ -0,0 +1,297 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.resource.util;
+
+import com.norcane.lysense.resource.exception.InvalidGitIndexException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import static com.norcane.toolkit.Prelude.nonNull;
+
+/**
+ * List of files tracked by Git, read directly from the Git index file ({@code .git/index}) without the need of the Git binary. Since the index already
+ * contains paths of all tracked files, it can be used to discover files without walking the working tree.
+ *
+ * <p>Index versions 2, 3 and 4 are supported (including the path prefix compression of version 4), for repositories using both SHA-1 and SHA-256 object
+ * format. Only regular files and symbolic links tracked in the working tree are listed, i.e. submodules, sparse directory entries and entries marked as
+ * <i>skip-worktree</i> are skipped, and every path is listed only once, even if it has multiple entries due to unresolved merge conflict. Index extensions
+ * are not needed to list tracked files, so they're ignored.</p>
+ *
+ * @see <a href="https://git-scm.com/docs/index-format">Git index format</a>
+ */
+public final class GitIndex {
+
+    private static final String INDEX_FILE = "index";
+    private static final String CONFIG_FILE = "config";
+    private static final Pattern SHA256_OBJECT_FORMAT = Pattern.compile("(?im)^\\s*objectformat\\s*=\\s*sha256\\s*$");
+
+    private static final int SIGNATURE = 0x44495243;    // "DIRC"
+    private static final int SHA1_LENGTH = 20;
+    private static final int SHA256_LENGTH = 32;
+
+    // ctime, mtime, dev, ino, mode, uid, gid and size fields preceding the object name in every entry
+    private static final int ENTRY_STAT_LENGTH = 40;
+    private static final int MODE_OFFSET = 24;
+    private static final int MODE_TYPE_MASK = 0xF000;
+    private static final int MODE_TYPE_REGULAR_FILE = 0x8000;
+    private static final int MODE_TYPE_SYMLINK = 0xA000;
+
+    private static final int FLAG_EXTENDED = 0x4000;
+    private static final int FLAG_NAME_LENGTH_MASK = 0x0FFF;
+    private static final int EXTENDED_FLAG_SKIP_WORKTREE = 0x4000;
+
+    private final Path repositoryRoot;
+    private final Path indexFile;
+    private final FileTime lastModifiedTime;
+    private final long size;
+    private final List<String> paths;
+
+    private GitIndex(Path repositoryRoot, Path indexFile, FileTime lastModifiedTime, long size, List<String> paths) {
+        this.repositoryRoot = repositoryRoot;
+        this.indexFile = indexFile;
+        this.lastModifiedTime = lastModifiedTime;
+        this.size = size;
+        this.paths = paths;
+    }
+
+    /**
+     * Reads the Git index of the repository the given directory belongs to. The repository is looked up in the given directory and its parent directories.
+     *
+     * @param directory directory within the Git repository
+     * @return Git index, or empty value if the directory doesn't belong to any Git repository, or the repository has no index yet
+     * @throws InvalidGitIndexException if the index file cannot be parsed
+     * @throws UncheckedIOException     if the index file cannot be read
+     */
+    public static Optional<GitIndex> forDirectory(Path directory) {
+        final Path repositoryRoot = GitDirectory.findRepositoryRoot(nonNull(directory).toAbsolutePath().normalize());
+        if (repositoryRoot == null) {
+            return Optional.empty();
+        }
+
+        final Path gitDir = GitDirectory.resolveGitDir(repositoryRoot);
+        if (gitDir == null || !Files.isRegularFile(gitDir.resolve(INDEX_FILE))) {
+            return Optional.empty();
+        }
+
+        return Optional.of(read(repositoryRoot, gitDir.resolve(INDEX_FILE), objectNameLength(gitDir)));
+    }
+
+    /**
+     * Root directory of the Git repository, all paths listed by {@link #paths()} are relative to it.
+     *
+     * @return absolute path of the repository root directory
+     */
+    public Path repositoryRoot() {
+        return repositoryRoot;
+    }
+
+    /**
+     * Returns paths of all tracked files, relative to the repository root and using {@code /} as a separator, sorted in the same order as in the index.
+     *
+     * @return paths of tracked files
+     */
+    public List<String> paths() {
+        return paths;
+    }
+
+    /**
+     * Checks whether the index file changed since it was read, e.g. because files were added to or removed from the index.
+     *
+     * @return {@code true} if the index file changed since it was read
+     */
+    public boolean isStale() {
+        try {
+            final BasicFileAttributes attributes = Files.readAttributes(indexFile, BasicFileAttributes.class);
+            return !attributes.lastModifiedTime().equals(lastModifiedTime) || attributes.size() != size;
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    private static GitIndex read(Path repositoryRoot, Path indexFile, int objectNameLength) {
+        try (final FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            final BasicFileAttributes attributes = Files.readAttributes(indexFile, BasicFileAttributes.class);
+            final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            return new GitIndex(repositoryRoot, indexFile, attributes.lastModifiedTime(), attributes.size(), parse(indexFile, buffer, objectNameLength));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Parses paths of tracked files from the content of the index file.
+     *
+     * @param indexFile        path of the index file, used only for error reporting
+     * @param buffer           content of the index file
+     * @param objectNameLength length of the object name (hash) in bytes
+     * @return paths of tracked files
+     * @throws InvalidGitIndexException if the content cannot be parsed
+     */
+    static List<String> parse(Path indexFile, ByteBuffer buffer, int objectNameLength) {
+        try {
+            if (buffer.getInt() != SIGNATURE) {
+                throw new InvalidGitIndexException(indexFile, "missing index file signature");
+            }
+
+            final int version = buffer.getInt();
+            if (version < 2 || version > 4) {
+                throw new InvalidGitIndexException(indexFile, "unsupported index version " + version);
+            }
+
+            final int entryCount = buffer.getInt();
+            if (entryCount < 0) {
+                throw new InvalidGitIndexException(indexFile, "invalid number of entries " + Integer.toUnsignedString(entryCount));
+            }
+
+            final List<String> paths = new ArrayList<>(entryCount);
+            byte[] previousName = new byte[0];
+            String previousPath = null;
+
+            for (int i = 0; i < entryCount; i++) {
+                final int entryStart = buffer.position();
+                final int mode = buffer.getInt(entryStart + MODE_OFFSET);
+                buffer.position(entryStart + ENTRY_STAT_LENGTH + objectNameLength);
+
+                final int flags = Short.toUnsignedInt(buffer.getShort());
+                final int extendedFlags = version >= 3 && (flags & FLAG_EXTENDED) != 0 ? Short.toUnsignedInt(buffer.getShort()) : 0;
+
+                final byte[] name = version == 4
+                                    ? readCompressedName(buffer, previousName)
+                                    : readPaddedName(buffer, entryStart, flags & FLAG_NAME_LENGTH_MASK);
+                previousName = name;
+
+                final int type = mode & MODE_TYPE_MASK;
+                if ((type != MODE_TYPE_REGULAR_FILE && type != MODE_TYPE_SYMLINK) || (extendedFlags & EXTENDED_FLAG_SKIP_WORKTREE) != 0) {
+                    continue;
+                }
+
+                // entries are sorted by name and then by stage, so entries of the same conflicting path are next to each other
+                final String path = new String(name, StandardCharsets.UTF_8);
+                if (!path.equals(previousPath)) {
+                    paths.add(path);
+                    previousPath = path;
+                }
+            }
+
+            return Collections.unmodifiableList(paths);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new InvalidGitIndexException(indexFile, "malformed or truncated index entries");
+        }
+    }
+
+    /**
+     * Reads NUL terminated name of the entry, followed by 1-8 NUL bytes padding the whole entry to multiple of eight bytes (index versions 2 and 3).
+     */
+    private static byte[] readPaddedName(ByteBuffer buffer, int entryStart, int nameLength) {
+        final int nameStart = buffer.position();
+
+        // name length is stored in flags only if it fits into 12 bits, longer names must be found by looking for NUL byte
+        int nameEnd = nameStart + nameLength;
+        if (nameLength == FLAG_NAME_LENGTH_MASK) {
+            while (buffer.get(nameEnd) != 0) {
+                nameEnd++;
+            }
+        }
+
+        final byte[] name = new byte[nameEnd - nameStart];
+        buffer.get(name);
+
+        final int entryLength = nameEnd - entryStart;
+        buffer.position(entryStart + ((entryLength + 8) & ~7));
+        return name;
+    }
+
+    /**
+     * Reads name of the entry compressed using the previous entry name (index version 4). Name is encoded as number of bytes to remove from the end of the
+     * previous name, followed by NUL terminated suffix to append, without any padding.
+     */
+    private static byte[] readCompressedName(ByteBuffer buffer, byte[] previousName) {
+        final int removeLength = readOffset(buffer);
+        final int prefixLength = previousName.length - removeLength;
+        if (prefixLength < 0) {
+            throw new IllegalArgumentException("Invalid prefix length " + prefixLength);
+        }
+
+        final int suffixStart = buffer.position();
+        int suffixEnd = suffixStart;
+        while (buffer.get(suffixEnd) != 0) {
+            suffixEnd++;
+        }
+
+        final byte[] name = new byte[prefixLength + suffixEnd - suffixStart];
+        System.arraycopy(previousName, 0, name, 0, prefixLength);
+        buffer.get(name, prefixLength, suffixEnd - suffixStart);
+        buffer.get();   // NUL terminator
+        return name;
+    }
+
+    /**
+     * Reads variable length number, as encoded by Git (7 bits per byte, with one added to every byte but the last one, so every number has unique encoding).
+     */
+    private static int readOffset(ByteBuffer buffer) {
+        int b = Byte.toUnsignedInt(buffer.get());
+        int value = b & 0x7F;
+        while ((b & 0x80) != 0) {
+            b = Byte.toUnsignedInt(buffer.get());
+            value = ((value + 1) << 7) | (b & 0x7F);
+        }
+
+        return value;
+    }
+
+    private static int objectNameLength(Path gitDir) {
+        final Path config = gitDir.resolve(CONFIG_FILE);
+        if (!Files.isRegularFile(config)) {
+            return SHA1_LENGTH;
+        }
+
+        try {
+            return SHA256_OBJECT_FORMAT.matcher(Files.readString(config, StandardCharsets.ISO_8859_1)).find() ? SHA256_LENGTH : SHA1_LENGTH;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
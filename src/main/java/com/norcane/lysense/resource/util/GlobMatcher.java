@@ -0,0 +1,415 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.resource.util;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import static com.norcane.toolkit.Prelude.nonNull;
+
+/**
+ * Compiled <i>GLOB</i> pattern, following the same syntax and semantics as {@link java.nio.file.FileSystem#getPathMatcher(String)} with the {@code glob}
+ * syntax. Pattern is compiled only once and the resulting matcher is immutable, so it can be reused for any number of paths and shared between threads.
+ *
+ * <p>Most patterns are compiled into a sequence of <i>segments</i>, one for every path component (e.g. {@code src/**}{@code /*.java} into {@code src},
+ * {@code **} and {@code *.java}), which are then matched against components of the path in a single pass, tracking all possible positions in the pattern
+ * at once. Literal segments are matched using plain string comparison. Patterns where {@code **} is combined with other characters within single component
+ * (e.g. {@code **.java}) and absolute paths are matched using single regular expression instead.</p>
+ */
+public final class GlobMatcher {
+
+    private static final String ANY_DEPTH = "**";
+    private static final int MAX_SEGMENTS = Long.SIZE - 1;
+    private static final String REGEX_META_CHARS = ".^$+{[]|()";
+    private static final String GLOB_META_CHARS = "\\*?[{";
+
+    private final String pattern;
+    private final Segment[] segments;
+    private final Pattern regex;
+
+    private GlobMatcher(String pattern, Segment[] segments, Pattern regex) {
+        this.pattern = pattern;
+        this.segments = segments;
+        this.regex = regex;
+    }
+
+    /**
+     * Compiles given <i>GLOB</i> pattern into matcher.
+     *
+     * @param pattern <i>GLOB</i> pattern
+     * @return compiled matcher
+     * @throws PatternSyntaxException if the pattern is invalid
+     */
+    public static GlobMatcher compile(String pattern) {
+        nonNull(pattern);
+
+        final Pattern regex = Pattern.compile(toRegex(pattern, pattern));
+        final List<String> rawSegments = splitSegments(pattern);
+        final boolean segmentable = rawSegments != null
+                                    && rawSegments.size() <= MAX_SEGMENTS
+                                    && rawSegments.stream().noneMatch(segment -> segment.contains(ANY_DEPTH) && !segment.equals(ANY_DEPTH));
+
+        final Segment[] segments = segmentable
+                                   ? rawSegments.stream().map(segment -> toSegment(pattern, segment)).toArray(Segment[]::new)
+                                   : null;
+        return new GlobMatcher(pattern, segments, regex);
+    }
+
+    /**
+     * Returns the <i>GLOB</i> pattern this matcher was compiled from.
+     *
+     * @return <i>GLOB</i> pattern
+     */
+    public String pattern() {
+        return pattern;
+    }
+
+    /**
+     * Matches given (usually relative) path against this pattern.
+     *
+     * @param path path to match
+     * @return {@code true} if the path matches the pattern
+     */
+    public boolean matches(Path path) {
+        if (segments == null || path.isAbsolute()) {
+            return regex.matcher(toUnixString(path)).matches();
+        }
+
+        return isAccepting(consume(path));
+    }
+
+    /**
+     * Matches given (usually relative) path, using {@code /} as a separator, against this pattern.
+     *
+     * @param path path to match
+     * @return {@code true} if the path matches the pattern
+     */
+    public boolean matches(String path) {
+        if (segments == null || path.startsWith("/")) {
+            return regex.matcher(path).matches();
+        }
+
+        long states = 1L;
+        int start = 0;
+        while (start <= path.length()) {
+            final int end = nextSeparator(path, start);
+            if (end > start) {
+                states = step(states, path.substring(start, end));
+
+                if (states == 0) {
+                    return false;
+                }
+            }
+            start = end + 1;
+        }
+
+        return isAccepting(states);
+    }
+
+    /**
+     * Checks whether any path within given (relative) {@code directory} can match this pattern, i.e. whether it makes sense to descend into the directory
+     * when looking for matching paths. This check is conservative, so it might return {@code true} even when no path can match.
+     *
+     * @param directory directory to check
+     * @return {@code false} if no path within the directory can match this pattern
+     */
+    public boolean canMatchWithin(Path directory) {
+        if (segments == null || directory.isAbsolute()) {
+            return true;
+        }
+
+        // some path within the directory can match if at least one segment still remains to be matched
+        return (consume(directory) & ~(1L << segments.length)) != 0;
+    }
+
+    /**
+     * Checks whether all paths within given (relative) {@code directory} match this pattern (e.g. {@code src/**} for {@code src/main} directory). This check
+     * is conservative, so it might return {@code false} even when all paths match.
+     *
+     * @param directory directory to check
+     * @return {@code true} if all paths within the directory match this pattern
+     */
+    public boolean matchesAllWithin(Path directory) {
+        if (segments == null || directory.isAbsolute() || !segments[segments.length - 1].anyDepth()) {
+            return false;
+        }
+
+        // everything matches if the last '**' segment was reached
+        return (consume(directory) & (1L << (segments.length - 1))) != 0;
+    }
+
+    @Override
+    public String toString() {
+        return "GlobMatcher[" + pattern + "]";
+    }
+
+    private long consume(Path path) {
+        long states = 1L;   // bit N set means that first N segments were matched
+        for (final Path component : path) {
+            states = step(states, component.toString());
+
+            if (states == 0) {
+                break;
+            }
+        }
+
+        return states;
+    }
+
+    private long step(long states, String component) {
+        long next = 0L;
+
+        for (int i = 0; i < segments.length; i++) {
+            if ((states & (1L << i)) == 0) {
+                continue;
+            }
+
+            final Segment segment = segments[i];
+            if (segment.anyDepth()) {
+                // '**' matches one or more path components, so it can either continue, or finish with this component
+                next |= (1L << i) | (1L << (i + 1));
+            } else if (segment.matches(component)) {
+                next |= 1L << (i + 1);
+            }
+        }
+
+        return next;
+    }
+
+    private boolean isAccepting(long states) {
+        return (states & (1L << segments.length)) != 0;
+    }
+
+    private static int nextSeparator(String path, int from) {
+        final int index = path.indexOf('/', from);
+        return index == -1 ? path.length() : index;
+    }
+
+    private static String toUnixString(Path path) {
+        final String separator = path.getFileSystem().getSeparator();
+        return separator.equals("/") ? path.toString() : path.toString().replace(separator, "/");
+    }
+
+    /**
+     * Splits the pattern into path components, returns {@code null} if the pattern cannot be split (e.g. separator is used within group or bracket
+     * expression, or the pattern is absolute).
+     */
+    private static List<String> splitSegments(String pattern) {
+        if (pattern.isEmpty() || pattern.startsWith("/")) {
+            return null;
+        }
+
+        final List<String> segments = new ArrayList<>();
+        int depth = 0;
+        int start = 0;
+
+        for (int i = 0; i < pattern.length(); i++) {
+            final char c = pattern.charAt(i);
+
+            switch (c) {
+                case '\\' -> i++;
+                case '[', '{' -> depth++;
+                case ']', '}' -> depth = Math.max(0, depth - 1);
+                case '/' -> {
+                    if (depth > 0 || i == start) {
+                        return null;
+                    }
+                    segments.add(pattern.substring(start, i));
+                    start = i + 1;
+                }
+                default -> {
+                    // regular character
+                }
+            }
+        }
+
+        if (start == pattern.length()) {
+            return null;    // trailing separator
+        }
+
+        segments.add(pattern.substring(start));
+        return segments;
+    }
+
+    private static Segment toSegment(String pattern, String segment) {
+        if (segment.equals(ANY_DEPTH)) {
+            return Segment.ANY_DEPTH_SEGMENT;
+        }
+
+        final boolean literal = segment.chars().noneMatch(c -> GLOB_META_CHARS.indexOf(c) != -1);
+        return literal
+               ? new Segment(segment, null, false)
+               : new Segment(null, Pattern.compile(toRegex(pattern, segment)), false);
+    }
+
+    /**
+     * Converts <i>GLOB</i> into regular expression, using the same rules as the default file system.
+     */
+    private static String toRegex(String pattern, String glob) {
+        final StringBuilder regex = new StringBuilder("^");
+        boolean inGroup = false;
+
+        int i = 0;
+        while (i < glob.length()) {
+            final char c = glob.charAt(i++);
+
+            switch (c) {
+                case '\\' -> {
+                    if (i == glob.length()) {
+                        throw new PatternSyntaxException("No character to escape", pattern, i - 1);
+                    }
+                    final char next = glob.charAt(i++);
+                    if (isGlobMeta(next) || isRegexMeta(next)) {
+                        regex.append('\\');
+                    }
+                    regex.append(next);
+                }
+                case '/' -> regex.append(c);
+                case '[' -> i = appendBracketExpression(pattern, glob, i, regex);
+                case '{' -> {
+                    if (inGroup) {
+                        throw new PatternSyntaxException("Cannot nest groups", pattern, i - 1);
+                    }
+                    regex.append("(?:(?:");
+                    inGroup = true;
+                }
+                case '}' -> {
+                    if (inGroup) {
+                        regex.append("))");
+                        inGroup = false;
+                    } else {
+                        regex.append('}');
+                    }
+                }
+                case ',' -> regex.append(inGroup ? ")|(?:" : ",");
+                case '*' -> {
+                    if (i < glob.length() && glob.charAt(i) == '*') {
+                        regex.append(".*");     // crosses directory boundaries
+                        i++;
+                    } else {
+                        regex.append("[^/]*");  // within directory boundary
+                    }
+                }
+                case '?' -> regex.append("[^/]");
+                default -> {
+                    if (isRegexMeta(c)) {
+                        regex.append('\\');
+                    }
+                    regex.append(c);
+                }
+            }
+        }
+
+        if (inGroup) {
+            throw new PatternSyntaxException("Missing '}'", pattern, glob.length() - 1);
+        }
+
+        return regex.append('$').toString();
+    }
+
+    private static int appendBracketExpression(String pattern, String glob, int start, StringBuilder regex) {
+        regex.append("[[^/]&&[");
+
+        int i = start;
+        if (i < glob.length() && glob.charAt(i) == '^') {
+            regex.append("\\^");    // escape '^' to prevent it from being treated as negation
+            i++;
+        } else {
+            if (i < glob.length() && glob.charAt(i) == '!') {
+                regex.append('^');
+                i++;
+            }
+            if (i < glob.length() && glob.charAt(i) == '-') {
+                regex.append('-');
+                i++;
+            }
+        }
+
+        boolean hasRangeStart = false;
+        char last = 0;
+        while (i < glob.length()) {
+            final char c = glob.charAt(i++);
+            if (c == ']') {
+                regex.append("]]");
+                return i;
+            }
+            if (c == '/') {
+                throw new PatternSyntaxException("Explicit 'name separator' in class", pattern, i - 1);
+            }
+            if (c == '\\' || c == '[' || (c == '&' && i < glob.length() && glob.charAt(i) == '&')) {
+                regex.append('\\');     // escape '\', '[' and "&&" for regex class
+            }
+            regex.append(c);
+
+            if (c == '-') {
+                if (!hasRangeStart) {
+                    throw new PatternSyntaxException("Invalid range", pattern, i - 1);
+                }
+                if (i < glob.length() && glob.charAt(i) != ']') {
+                    final char rangeEnd = glob.charAt(i++);
+                    if (rangeEnd < last) {
+                        throw new PatternSyntaxException("Invalid range", pattern, i - 3);
+                    }
+                    regex.append(rangeEnd);
+                }
+                hasRangeStart = false;
+            } else {
+                hasRangeStart = true;
+                last = c;
+            }
+        }
+
+        throw new PatternSyntaxException("Missing ']'", pattern, glob.length() - 1);
+    }
+
+    private static boolean isRegexMeta(char c) {
+        return REGEX_META_CHARS.indexOf(c) != -1;
+    }
+
+    private static boolean isGlobMeta(char c) {
+        return GLOB_META_CHARS.indexOf(c) != -1;
+    }
+
+    /**
+     * Single path component of the pattern, either literal, wildcard (compiled into regular expression) or {@code **}.
+     */
+    private record Segment(String literal, Pattern wildcard, boolean anyDepth) {
+        private static final Segment ANY_DEPTH_SEGMENT = new Segment(null, null, true);
+
+        boolean matches(String component) {
+            return literal != null
+                   ? literal.equals(component)
+                   : wildcard.matcher(component).matches();
+        }
+    }
+}
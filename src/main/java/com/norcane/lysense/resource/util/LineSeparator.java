@@ -98,6 +98,28 @@ public enum LineSeparator {
         }
     }
 
+    /**
+     * Detects {@link LineSeparator} from the first line break found in given, already loaded, content.
+     *
+     * @param content content to detect line separator from
+     * @return detected {@link LineSeparator} or empty optional if the content has no line breaks
+     */
+    public static Optional<LineSeparator> detect(CharSequence content) {
+        final int length = content.length();
+
+        for (int i = 0; i < length; i++) {
+            final char c = content.charAt(i);
+
+            if (c == '\r') {
+                return Optional.of((i + 1 < length && content.charAt(i + 1) == '\n') ? LineSeparator.CRLF : LineSeparator.CR);
+            } else if (c == '\n') {
+                return Optional.of(LineSeparator.LF);
+            }
+        }
+
+        return Optional.empty();
+    }
+
     public static LineSeparator platform() {
         final String sep = System.lineSeparator();
         return LineSeparator.from(sep)
@@ -0,0 +1,378 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.resource.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Walks the file tree using work-stealing thread pool, where each directory is listed by separate task and subdirectories are forked as soon as they are
+ * found, so sibling directories are listed concurrently. This helps mainly on a cold page cache or network file systems, where each directory listing and
+ * file attributes lookup is slow. Matching files are streamed to the caller while the rest of the tree is still being walked, either in the order they were
+ * found ({@link #unordered(FileTreeFilter, int)}), or in deterministic depth-first order, with entries of every directory sorted by name
+ * ({@link #ordered(FileTreeFilter, int)}).
+ *
+ * <p>Returned iterators must be closed after use, closing the iterator cancels the walk and shuts down the thread pool. If listing of any directory fails,
+ * the walk is cancelled and the failure is rethrown to the caller.</p>
+ */
+final class ParallelFileTreeWalker {
+
+    private static final Comparator<Path> BY_NAME = Comparator.comparing(path -> path.getFileName().toString());
+
+    private final FileTreeFilter treeFilter;
+    private final ForkJoinPool pool;
+    private final boolean sorted;
+
+    private volatile boolean cancelled;
+
+    private ParallelFileTreeWalker(FileTreeFilter treeFilter, int parallelism, boolean sorted) {
+        this.treeFilter = treeFilter;
+        this.pool = new ForkJoinPool(parallelism);
+        this.sorted = sorted;
+    }
+
+    /**
+     * Walks the file tree concurrently, returning matching files in the order they were found.
+     *
+     * @param treeFilter  filter deciding which entries to return or descend into
+     * @param parallelism number of threads used to walk the tree
+     * @return iterator over matching files
+     */
+    static ResourceWalker.CloseableIterator<PathDescriptor> unordered(FileTreeFilter treeFilter, int parallelism) {
+        return new ParallelFileTreeWalker(treeFilter, parallelism, false).new UnorderedIterator();
+    }
+
+    /**
+     * Walks the file tree concurrently, returning matching files in deterministic depth-first order, with entries of every directory sorted by name.
+     *
+     * @param treeFilter  filter deciding which entries to return or descend into
+     * @param parallelism number of threads used to walk the tree
+     * @return iterator over matching files
+     */
+    static ResourceWalker.CloseableIterator<PathDescriptor> ordered(FileTreeFilter treeFilter, int parallelism) {
+        return new ParallelFileTreeWalker(treeFilter, parallelism, true).new OrderedIterator();
+    }
+
+    private void cancel() {
+        cancelled = true;
+        pool.shutdownNow();
+    }
+
+    /**
+     * Lists the directory and visits all its entries, skipping the ones that should not be returned or descended into.
+     */
+    private List<FileTreeFilter.Entry> list(FileTreeFilter.Entry.Directory directory) {
+        final List<Path> paths = new ArrayList<>();
+        try (final DirectoryStream<Path> stream = Files.newDirectoryStream(directory.path())) {
+            stream.forEach(paths::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (DirectoryIteratorException e) {
+            throw new UncheckedIOException(e.getCause());
+        }
+
+        if (sorted) {
+            paths.sort(BY_NAME);
+        }
+
+        final List<FileTreeFilter.Entry> entries = new ArrayList<>(paths.size());
+        for (final Path path : paths) {
+            final FileTreeFilter.Entry entry = treeFilter.visit(path, directory);
+            if (!(entry instanceof FileTreeFilter.Entry.Skip)) {
+                entries.add(entry);
+            }
+        }
+
+        return entries;
+    }
+
+    /**
+     * Returns matching files as soon as they are found. Every directory task pushes found files into the queue and forks tasks for subdirectories, the last
+     * finished task marks the end of the walk.
+     */
+    private final class UnorderedIterator implements ResourceWalker.CloseableIterator<PathDescriptor> {
+
+        // marks the end of the walk, the queue otherwise contains only matching files
+        private static final FileTreeFilter.Entry END = FileTreeFilter.Entry.Skip.INSTANCE;
+
+        private final BlockingQueue<FileTreeFilter.Entry> queue = new LinkedBlockingQueue<>();
+        private final AtomicInteger pendingDirectories = new AtomicInteger();
+        private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+        private boolean started;
+        private boolean finished;
+        private PathDescriptor next;
+
+        @Override
+        public boolean hasNext() {
+            if (!started) {
+                started = true;
+                start();
+            }
+
+            if (next == null && !finished) {
+                final FileTreeFilter.Entry entry = take();
+
+                if (entry instanceof FileTreeFilter.Entry.MatchingFile file) {
+                    next = file.descriptor();
+                } else {
+                    finished = true;
+                    pool.shutdown();
+
+                    if (failure.get() != null) {
+                        throw failure.get();
+                    }
+                }
+            }
+
+            return next != null;
+        }
+
+        @Override
+        public PathDescriptor next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            final PathDescriptor result = next;
+            next = null;
+            return result;
+        }
+
+        @Override
+        public void close() {
+            cancel();
+        }
+
+        private void start() {
+            switch (treeFilter.visitRoot()) {
+                case FileTreeFilter.Entry.MatchingFile file -> {
+                    queue.add(file);
+                    queue.add(END);
+                }
+                case FileTreeFilter.Entry.Directory directory -> {
+                    pendingDirectories.incrementAndGet();
+                    pool.execute(new DirectoryTask(directory));
+                }
+                case FileTreeFilter.Entry.Skip _ -> queue.add(END);
+            }
+        }
+
+        private FileTreeFilter.Entry take() {
+            try {
+                return queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancel();
+                throw new IllegalStateException("Interrupted while waiting for walked paths", e);
+            }
+        }
+
+        private final class DirectoryTask extends RecursiveAction {
+
+            private final FileTreeFilter.Entry.Directory directory;
+
+            private DirectoryTask(FileTreeFilter.Entry.Directory directory) {
+                this.directory = directory;
+            }
+
+            @Override
+            protected void compute() {
+                try {
+                    if (cancelled) {
+                        return;
+                    }
+
+                    for (final FileTreeFilter.Entry entry : list(directory)) {
+                        switch (entry) {
+                            case FileTreeFilter.Entry.MatchingFile file -> queue.add(file);
+                            case FileTreeFilter.Entry.Directory subdirectory -> {
+                                pendingDirectories.incrementAndGet();
+                                new DirectoryTask(subdirectory).fork();
+                            }
+                            case FileTreeFilter.Entry.Skip _ -> {
+                                // already filtered out
+                            }
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                    cancelled = true;
+                } finally {
+                    if (pendingDirectories.decrementAndGet() == 0) {
+                        queue.add(END);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns matching files in deterministic order. Every directory task returns sorted entries of the directory, with tasks for subdirectories already
+     * forked, so the iterator only needs to traverse this tree of (possibly still running) tasks in depth-first order.
+     */
+    private final class OrderedIterator implements ResourceWalker.CloseableIterator<PathDescriptor> {
+
+        private final Deque<Iterator<Listed>> stack = new ArrayDeque<>();
+
+        private boolean started;
+        private PathDescriptor next;
+
+        @Override
+        public boolean hasNext() {
+            if (!started) {
+                started = true;
+                start();
+            }
+
+            while (next == null && !stack.isEmpty()) {
+                final Iterator<Listed> entries = stack.peek();
+
+                if (!entries.hasNext()) {
+                    stack.pop();
+                    continue;
+                }
+
+                switch (entries.next()) {
+                    case Listed.File file -> next = file.descriptor();
+                    case Listed.Directory directory -> stack.push(join(directory.task()).iterator());
+                }
+            }
+
+            if (next == null) {
+                pool.shutdown();
+            }
+
+            return next != null;
+        }
+
+        @Override
+        public PathDescriptor next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            final PathDescriptor result = next;
+            next = null;
+            return result;
+        }
+
+        @Override
+        public void close() {
+            cancel();
+        }
+
+        private void start() {
+            switch (treeFilter.visitRoot()) {
+                case FileTreeFilter.Entry.MatchingFile file -> stack.push(List.<Listed>of(new Listed.File(file.descriptor())).iterator());
+                case FileTreeFilter.Entry.Directory directory -> {
+                    final ForkJoinTask<List<Listed>> task = pool.submit(new DirectoryTask(directory));
+                    stack.push(List.<Listed>of(new Listed.Directory(task)).iterator());
+                }
+                case FileTreeFilter.Entry.Skip _ -> {
+                    // nothing to walk
+                }
+            }
+        }
+
+        private List<Listed> join(ForkJoinTask<List<Listed>> task) {
+            try {
+                return task.join();
+            } catch (RuntimeException e) {
+                cancel();
+                throw e;
+            }
+        }
+
+        private final class DirectoryTask extends RecursiveTask<List<Listed>> {
+
+            private final FileTreeFilter.Entry.Directory directory;
+
+            private DirectoryTask(FileTreeFilter.Entry.Directory directory) {
+                this.directory = directory;
+            }
+
+            @Override
+            protected List<Listed> compute() {
+                if (cancelled) {
+                    return List.of();
+                }
+
+                final List<Listed> listed = new ArrayList<>();
+                for (final FileTreeFilter.Entry entry : list(directory)) {
+                    switch (entry) {
+                        case FileTreeFilter.Entry.MatchingFile file -> listed.add(new Listed.File(file.descriptor()));
+                        case FileTreeFilter.Entry.Directory subdirectory -> {
+                            final DirectoryTask task = new DirectoryTask(subdirectory);
+                            task.fork();
+                            listed.add(new Listed.Directory(task));
+                        }
+                        case FileTreeFilter.Entry.Skip _ -> {
+                            // already filtered out
+                        }
+                    }
+                }
+
+                return listed;
+            }
+        }
+    }
+
+    /**
+     * Entry of the listed directory, either matching file, or subdirectory represented by the (possibly still running) task listing it.
+     */
+    private sealed interface Listed {
+
+        record File(PathDescriptor descriptor) implements Listed {
+        }
+
+        record Directory(ForkJoinTask<List<Listed>> task) implements Listed {
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.resource.util;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+
+import static com.norcane.toolkit.Prelude.nonNull;
+
+/**
+ * Lightweight descriptor of a file found while walking the file tree, holding its path and file attributes already read by the walker. Unlike the full
+ * {@link com.norcane.lysense.resource.Resource}, creating the descriptor requires no additional system calls or conversions, so it can be used to cheaply
+ * filter out files before the resource is created.
+ *
+ * @param path       path of the file
+ * @param attributes file attributes, as read by the walker
+ */
+public record PathDescriptor(Path path, BasicFileAttributes attributes) {
+
+    public PathDescriptor {
+        nonNull(path);
+        nonNull(attributes);
+    }
+
+    /**
+     * Returns file name of the path (e.g. {@code Foo.java}).
+     *
+     * @return file name
+     */
+    public String fileName() {
+        final Path fileName = path.getFileName();
+        return fileName != null ? fileName.toString() : "";
+    }
+
+    /**
+     * Returns extension of the file (e.g. {@code java} for {@code Foo.java}), or empty string if there's no extension.
+     *
+     * @return file extension
+     */
+    public String extension() {
+        return extension(fileName());
+    }
+
+    /**
+     * Returns size of the file in bytes.
+     *
+     * @return size of the file
+     */
+    public long size() {
+        return attributes.size();
+    }
+
+    /**
+     * Returns time of the last modification of the file.
+     *
+     * @return last modification time
+     */
+    public FileTime lastModifiedTime() {
+        return attributes.lastModifiedTime();
+    }
+
+    /**
+     * Returns extension of the given file name, or empty string if there's no extension.
+     *
+     * @param fileName file name
+     * @return file extension
+     */
+    static String extension(String fileName) {
+        final int dotIndex = fileName.lastIndexOf('.');
+        return dotIndex == -1 ? "" : fileName.substring(dotIndex + 1);
+    }
+}
@@ -29,20 +29,39 @@
  */
 package com.norcane.lysense.resource.util;
 
-import java.nio.file.FileSystems;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 import java.nio.file.Path;
 import java.util.List;
 
 import jakarta.enterprise.context.ApplicationScoped;
 
 /**
- * Utility class for matching paths against <i>GLOB</i> patterns.
+ * Utility class for matching paths against <i>GLOB</i> patterns. Patterns are compiled only once into {@link GlobMatcher} and cached, same as results of
+ * {@link #isPattern(String)} and {@link #resolveRootPath(String)}, so repeated matching against the same pattern is cheap. Caches are bounded, as the
+ * matcher lives as long as the long-running daemon or watch process, which may see any number of different patterns over time.
  */
 @ApplicationScoped
 public class PathMatcher {
 
-    private static final String PATH_MATCHER_SYNTAX = "glob";
     private static final List<Character> SPECIAL_CHARS = List.of('*', '?', '[');
+    private static final int CACHE_SIZE = 1024;
+
+    private final Cache<String, GlobMatcher> compiledPatterns = CacheBuilder.newBuilder().maximumSize(CACHE_SIZE).build();
+    private final Cache<String, Boolean> patternFlags = CacheBuilder.newBuilder().maximumSize(CACHE_SIZE).build();
+    private final Cache<String, String> rootPaths = CacheBuilder.newBuilder().maximumSize(CACHE_SIZE).build();
+
+    /**
+     * Returns compiled matcher for the given <i>GLOB</i> {@code pattern}. Pattern is compiled only once and the matcher is cached for further use, unless
+     * evicted.
+     *
+     * @param pattern pattern to compile
+     * @return compiled matcher
+     */
+    public GlobMatcher compile(String pattern) {
+        return compiledPatterns.asMap().computeIfAbsent(pattern, GlobMatcher::compile);
+    }
 
     /**
      * Matches given {@code path} against <i>GLOB</i> {@code pattern}.
@@ -52,8 +71,7 @@ public class PathMatcher {
      * @return {@code true} if {@code path} matches {@code pattern}
      */
     public boolean matches(String pattern, Path path) {
-        final String syntaxAndPattern = PATH_MATCHER_SYNTAX + ":" + pattern;
-        return FileSystems.getDefault().getPathMatcher(syntaxAndPattern).matches(path);
+        return compile(pattern).matches(path);
     }
 
     /**
@@ -74,7 +92,7 @@ public class PathMatcher {
      * @return {@code true} if {@code input} is a <i>GLOB</i> input
      */
     public boolean isPattern(String input) {
-        return input.chars().mapToObj(i -> (char) i).anyMatch(SPECIAL_CHARS::contains);
+        return patternFlags.asMap().computeIfAbsent(input, key -> key.chars().mapToObj(i -> (char) i).anyMatch(SPECIAL_CHARS::contains));
     }
 
     /**
@@ -91,6 +109,10 @@ public class PathMatcher {
      * @return root path of the given {@code location}
      */
     public String resolveRootPath(String location) {
+        return rootPaths.asMap().computeIfAbsent(location, this::findRootPath);
+    }
+
+    private String findRootPath(String location) {
         int rootDirEnd = location.length();
 
         while (isPattern(location.substring(0, rootDirEnd))) {
@@ -31,27 +31,52 @@ package com.norcane.lysense.resource.util;
 
 
 import com.norcane.lysense.resource.Resource;
+import com.norcane.lysense.resource.loader.DiscoveryOptions;
+import com.norcane.lysense.resource.loader.WalkMode;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 
 /**
  * Utility class for walking through the NIO file system and finding resources.
+ *
+ * <p>Directories are traversed lazily in depth-first order and the compiled <i>GLOB</i> pattern is used to decide, before entering any directory, whether any
+ * path within it can ever match. If not, the whole subtree is skipped, same as subtrees matching any of the <i>exclude patterns</i>, so walk time depends on
+ * the matching portion of the tree, not on the whole tree. Optionally, subtrees ignored by Git can be skipped the same way.</p>
  */
 @ApplicationScoped
 public class ResourceWalker {
 
+    // listing directories is IO bound, so it makes sense to use more threads than available processors
+    private static final int WALK_PARALLELISM = Runtime.getRuntime().availableProcessors() * 2;
+
     private final PathMatcher pathMatcher;
 
+    private volatile GitIndex cachedGitIndex;
+
     @Inject
     public ResourceWalker(PathMatcher pathMatcher) {
         this.pathMatcher = pathMatcher;
@@ -68,15 +93,398 @@ public class ResourceWalker {
      * @throws UncheckedIOException if unexpected IO error occurs
      */
     public List<Resource> walk(Path rootPath, String pattern, Function<Path, Resource> toResource, Predicate<Resource> filter) {
-        try (final Stream<Path> stream = Files.walk(rootPath)) {
-            return stream
-                .filter(Files::isRegularFile)
-                .filter(path -> pathMatcher.matches(pattern, rootPath.relativize(path)))
-                .map(toResource)
-                .filter(filter)
-                .toList();
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
+        return walk(rootPath, pathMatcher.compile(pattern), toResource, filter);
+    }
+
+    /**
+     * Same as {@link #walk(Path, String, Function, Predicate)}, but uses already compiled pattern, which is useful when walking multiple root paths using the
+     * same pattern.
+     *
+     * @param rootPath   root path to walk through
+     * @param matcher    compiled pattern to match
+     * @param toResource function to convert {@link Path} to {@link Resource}
+     * @param filter     filter to apply on the resulting resources
+     * @return list of resources matching the given {@code matcher}
+     * @throws UncheckedIOException if unexpected IO error occurs
+     */
+    public List<Resource> walk(Path rootPath, GlobMatcher matcher, Function<Path, Resource> toResource, Predicate<Resource> filter) {
+        try (final Stream<Resource> stream = stream(rootPath, matcher, DiscoveryOptions.DEFAULT, descriptor -> toResource.apply(descriptor.path()), filter)) {
+            return stream.toList();
         }
     }
+
+    /**
+     * Same as {@link #walk(Path, String, Function, Predicate)}, but returns lazily populated stream of resources, i.e. resources are available as soon as they
+     * are found and not after the whole {@code rootPath} is walked through. The returned stream must be closed after use to release the underlying directory
+     * handles.
+     *
+     * @param rootPath   root path to walk through
+     * @param pattern    pattern to match
+     * @param toResource function to convert {@link Path} to {@link Resource}
+     * @param filter     filter to apply on the resulting resources
+     * @return stream of resources matching the given {@code pattern}
+     * @throws UncheckedIOException if unexpected IO error occurs
+     */
+    public Stream<Resource> stream(Path rootPath, String pattern, Function<Path, Resource> toResource, Predicate<Resource> filter) {
+        return stream(rootPath, pathMatcher.compile(pattern), DiscoveryOptions.DEFAULT, descriptor -> toResource.apply(descriptor.path()), filter);
+    }
+
+    /**
+     * Same as {@link #stream(Path, String, Function, Predicate)}, but uses already compiled pattern and skips paths based on the given
+     * {@link DiscoveryOptions}:
+     * <ul>
+     *     <li>paths matching any of the <i>exclude patterns</i> are skipped. Unlike the {@code matcher}, which is matched against paths relative to the
+     *     {@code rootPath}, exclude patterns are matched against the whole (normalized) path, including the {@code rootPath} itself. Directory is skipped
+     *     together with its whole subtree if it matches any exclude pattern (e.g. {@code **}{@code /target}), or if every path within it does (e.g.
+     *     {@code src/generated/**}),</li>
+     *     <li>if enabled, paths ignored by Git are skipped, see {@link GitIgnoreMatcher} for more details,</li>
+     *     <li>if any allowed file extensions are given, files with other extensions are skipped before anything else is checked.</li>
+     * </ul>
+     * Matching files are represented by {@link PathDescriptor}, which reuses file attributes already read during the walk, so the {@link Resource} is
+     * created only for files that passed all the checks above.
+     * Based on the {@link WalkMode}, the file tree is either walked sequentially on the calling thread, or sibling directories are listed concurrently using
+     * work-stealing thread pool, while matching resources are streamed to the caller as soon as they are found, either in the order they were found or in the
+     * deterministic (depth-first, sorted by name) order.
+     *
+     * @param rootPath   root path to walk through
+     * @param matcher    compiled pattern to match
+     * @param options    discovery options
+     * @param toResource function to convert {@link PathDescriptor} to {@link Resource}
+     * @param filter     filter to apply on the resulting resources
+     * @return stream of resources matching the given {@code matcher}
+     * @throws UncheckedIOException if unexpected IO error occurs
+     */
+    public Stream<Resource> stream(Path rootPath,
+                                   GlobMatcher matcher,
+                                   DiscoveryOptions options,
+                                   Function<PathDescriptor, Resource> toResource,
+                                   Predicate<Resource> filter) {
+
+        return stream(rootPath, List.of(matcher), options, toResource, filter);
+    }
+
+    /**
+     * Same as {@link #stream(Path, GlobMatcher, DiscoveryOptions, Function, Predicate)}, but finds paths matching any of the given compiled patterns during a
+     * single walk. Every directory is listed at most once and is descended into only if any of the patterns can match anything within it, and every matching
+     * file is returned only once, even if it matches multiple patterns.
+     *
+     * @param rootPath   root path to walk through
+     * @param matchers   compiled patterns to match
+     * @param options    discovery options
+     * @param toResource function to convert {@link PathDescriptor} to {@link Resource}
+     * @param filter     filter to apply on the resulting resources
+     * @return stream of resources matching any of the given {@code matchers}
+     * @throws UncheckedIOException if unexpected IO error occurs
+     */
+    public Stream<Resource> stream(Path rootPath,
+                                   List<GlobMatcher> matchers,
+                                   DiscoveryOptions options,
+                                   Function<PathDescriptor, Resource> toResource,
+                                   Predicate<Resource> filter) {
+
+        final List<GlobMatcher> excludes = options.excludes().stream().map(pathMatcher::compile).toList();
+        final FileTreeFilter treeFilter = new FileTreeFilter(rootPath, matchers, excludes, options.respectGitIgnore(), options.extensions());
+
+        final CloseableIterator<PathDescriptor> iterator = switch (options.walkMode()) {
+            case SEQUENTIAL -> new PruningFileIterator(treeFilter);
+            case PARALLEL -> ParallelFileTreeWalker.unordered(treeFilter, WALK_PARALLELISM);
+            case PARALLEL_ORDERED -> ParallelFileTreeWalker.ordered(treeFilter, WALK_PARALLELISM);
+            case GIT_INDEX -> gitIndex(rootPath)
+                .<CloseableIterator<PathDescriptor>>map(gitIndex -> new ListedFileIterator(treeFilter, gitIndex.repositoryRoot(), gitIndex.paths(), false))
+                .orElseGet(() -> new PruningFileIterator(treeFilter));
+        };
+
+        return toStream(iterator, toResource, filter);
+    }
+
+    /**
+     * Same as {@link #stream(Path, List, DiscoveryOptions, Function, Predicate)}, but instead of walking the directory tree, only the given {@code files} are
+     * checked, so the cost depends only on the number of given files. Files outside the {@code rootPath} are ignored, and since the files are explicitly
+     * selected, the {@link WalkMode} is not applied. <i>Gitignore</i> rules are applied (if enabled) the same way as when walking the directory tree, so the
+     * <i>gitignore</i> files are read only for directories containing the given files and their parents.
+     *
+     * @param rootPath   root path the patterns are relative to
+     * @param matchers   compiled patterns to match
+     * @param files      files to check
+     * @param options    discovery options
+     * @param toResource function to convert {@link PathDescriptor} to {@link Resource}
+     * @param filter     filter to apply on the resulting resources
+     * @return stream of resources for the given {@code files} matching any of the given {@code matchers}
+     */
+    public Stream<Resource> streamListed(Path rootPath,
+                                         List<GlobMatcher> matchers,
+                                         Collection<Path> files,
+                                         DiscoveryOptions options,
+                                         Function<PathDescriptor, Resource> toResource,
+                                         Predicate<Resource> filter) {
+
+        final Path absoluteRootPath = rootPath.toAbsolutePath().normalize();
+        final List<Path> absoluteFiles = files.stream().map(file -> file.toAbsolutePath().normalize()).toList();
+
+        // root path itself is always visited, so if it's a file, it must be listed
+        if (!Files.isDirectory(absoluteRootPath) && !absoluteFiles.contains(absoluteRootPath)) {
+            return Stream.empty();
+        }
+
+        final List<String> listedPaths = absoluteFiles.stream()
+            .filter(file -> file.startsWith(absoluteRootPath) && !file.equals(absoluteRootPath))
+            .map(file -> absoluteRootPath.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/"))
+            .distinct()
+            .sorted()
+            .toList();
+
+        final List<GlobMatcher> excludes = options.excludes().stream().map(pathMatcher::compile).toList();
+        final FileTreeFilter treeFilter = new FileTreeFilter(rootPath, matchers, excludes, options.respectGitIgnore(), options.extensions());
+
+        return toStream(new ListedFileIterator(treeFilter, absoluteRootPath, listedPaths, options.respectGitIgnore()), toResource, filter);
+    }
+
+    private static Stream<Resource> toStream(CloseableIterator<PathDescriptor> iterator,
+                                             Function<PathDescriptor, Resource> toResource,
+                                             Predicate<Resource> filter) {
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+            .onClose(iterator::close)
+            .map(toResource)
+            .filter(filter);
+    }
+
+    /**
+     * Returns Git index of the repository the given path belongs to. Parsed index is cached and read again only if the index file changes, so multiple walks
+     * within the same repository don't need to parse it again.
+     */
+    private Optional<GitIndex> gitIndex(Path rootPath) {
+        final Path directory = (Files.isDirectory(rootPath) ? rootPath.toAbsolutePath() : rootPath.toAbsolutePath().getParent()).normalize();
+        final GitIndex cached = cachedGitIndex;
+        if (cached != null && cached.repositoryRoot().equals(GitDirectory.findRepositoryRoot(directory)) && !cached.isStale()) {
+            return Optional.of(cached);
+        }
+
+        final Optional<GitIndex> gitIndex = GitIndex.forDirectory(directory);
+        gitIndex.ifPresent(index -> cachedGitIndex = index);
+        return gitIndex;
+    }
+
+    /**
+     * Iterator over walked paths, which must be closed to release all underlying resources.
+     */
+    interface CloseableIterator<T> extends Iterator<T>, AutoCloseable {
+
+        @Override
+        void close();
+    }
+
+    /**
+     * Depth-first file tree iterator that returns matching regular files and skips directories that cannot contain any matching file. Same as
+     * {@link Files#walk(Path, java.nio.file.FileVisitOption...)}, symbolic links to directories are not followed.
+     */
+    private static final class PruningFileIterator implements CloseableIterator<PathDescriptor> {
+
+        private final FileTreeFilter treeFilter;
+        private final Deque<DirectoryEntries> openDirectories = new ArrayDeque<>();
+
+        private boolean rootVisited;
+        private PathDescriptor next;
+
+        private PruningFileIterator(FileTreeFilter treeFilter) {
+            this.treeFilter = treeFilter;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                next = findNext();
+            }
+
+            return next != null;
+        }
+
+        @Override
+        public PathDescriptor next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            final PathDescriptor result = next;
+            next = null;
+            return result;
+        }
+
+        @Override
+        public void close() {
+            while (!openDirectories.isEmpty()) {
+                closeQuietly(openDirectories.pop().stream());
+            }
+        }
+
+        private PathDescriptor findNext() {
+            if (!rootVisited) {
+                rootVisited = true;
+
+                final PathDescriptor found = accept(treeFilter.visitRoot());
+                if (found != null) {
+                    return found;
+                }
+            }
+
+            while (!openDirectories.isEmpty()) {
+                final DirectoryEntries directory = openDirectories.peek();
+
+                final Path entry;
+                try {
+                    entry = directory.entries().hasNext() ? directory.entries().next() : null;
+                } catch (DirectoryIteratorException e) {
+                    throw new UncheckedIOException(e.getCause());
+                }
+
+                if (entry == null) {
+                    closeQuietly(openDirectories.pop().stream());
+                    continue;
+                }
+
+                final PathDescriptor found = accept(treeFilter.visit(entry, directory.directory()));
+                if (found != null) {
+                    return found;
+                }
+            }
+
+            return null;
+        }
+
+        /**
+         * Returns the file descriptor if the entry is matching file, or opens it for iteration if it's directory.
+         */
+        private PathDescriptor accept(FileTreeFilter.Entry entry) {
+            return switch (entry) {
+                case FileTreeFilter.Entry.MatchingFile file -> file.descriptor();
+                case FileTreeFilter.Entry.Directory directory -> {
+                    openDirectory(directory);
+                    yield null;
+                }
+                case FileTreeFilter.Entry.Skip _ -> null;
+            };
+        }
+
+        private void openDirectory(FileTreeFilter.Entry.Directory directory) {
+            try {
+                final DirectoryStream<Path> stream = Files.newDirectoryStream(directory.path());
+                openDirectories.push(new DirectoryEntries(stream, stream.iterator(), directory));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private static void closeQuietly(Closeable closeable) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // nothing useful can be done here, directory stream is not used anymore
+            }
+        }
+    }
+
+    /**
+     * Iterates over already known list of files (e.g. files tracked by Git, as listed in the Git index) without walking the directory tree. Listed files within
+     * the root path are visited in the order of the list and decisions about their parent directories are remembered, so every directory is checked only once,
+     * same as when walking the tree.
+     */
+    private static final class ListedFileIterator implements CloseableIterator<PathDescriptor> {
+
+        private final FileTreeFilter treeFilter;
+        private final Iterator<String> listedPaths;
+        private final Map<Path, FileTreeFilter.Entry> visitedDirectories = new HashMap<>();
+
+        private String prefix;
+        private PathDescriptor next;
+        private boolean finished;
+
+        /**
+         * @param treeFilter       filter deciding which files to return
+         * @param baseDirectory    absolute path of the directory listed paths are relative to
+         * @param listedPaths      paths relative to the base directory, using {@code /} as a separator
+         * @param respectGitIgnore whether to apply <i>gitignore</i> rules (if enabled for the tree filter) on the listed files
+         */
+        private ListedFileIterator(FileTreeFilter treeFilter, Path baseDirectory, Iterable<String> listedPaths, boolean respectGitIgnore) {
+            this.treeFilter = treeFilter;
+            this.listedPaths = listedPaths.iterator();
+
+            switch (treeFilter.visitRoot()) {
+                case FileTreeFilter.Entry.MatchingFile file -> {
+                    next = file.descriptor();
+                    finished = true;
+                }
+                case FileTreeFilter.Entry.Directory directory -> {
+                    final Path relativeRoot = baseDirectory.relativize(directory.path().toAbsolutePath().normalize());
+                    final String relativeRootString = relativeRoot.toString().replace(relativeRoot.getFileSystem().getSeparator(), "/");
+                    prefix = relativeRootString.isEmpty() ? "" : relativeRootString + "/";
+                    // directories derive their gitignore matchers from the root directory, so without it no gitignore rules are applied
+                    visitedDirectories.put(directory.path(),
+                                           respectGitIgnore ? directory : new FileTreeFilter.Entry.Directory(directory.path(), null, directory.matchers()));
+                }
+                case FileTreeFilter.Entry.Skip _ -> finished = true;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && !finished) {
+                if (!listedPaths.hasNext()) {
+                    finished = true;
+                    break;
+                }
+
+                final String listedPath = listedPaths.next();
+                if (!listedPath.startsWith(prefix)) {
+                    continue;
+                }
+
+                final Path path = treeFilter.rootPath().resolve(listedPath.substring(prefix.length()));
+                if (visitDirectory(parentOf(path)) instanceof FileTreeFilter.Entry.Directory parent
+                    && treeFilter.visitListed(path, false, parent) instanceof FileTreeFilter.Entry.MatchingFile file) {
+
+                    next = file.descriptor();
+                }
+            }
+
+            return next != null;
+        }
+
+        @Override
+        public PathDescriptor next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            final PathDescriptor result = next;
+            next = null;
+            return result;
+        }
+
+        @Override
+        public void close() {
+            // nothing to release, the index is already read
+        }
+
+        private FileTreeFilter.Entry visitDirectory(Path directory) {
+            final FileTreeFilter.Entry visited = visitedDirectories.get(directory);
+            if (visited != null) {
+                return visited;
+            }
+
+            final FileTreeFilter.Entry entry = visitDirectory(parentOf(directory)) instanceof FileTreeFilter.Entry.Directory parent
+                                               ? treeFilter.visitListed(directory, true, parent)
+                                               : FileTreeFilter.Entry.Skip.INSTANCE;
+            visitedDirectories.put(directory, entry);
+            return entry;
+        }
+
+        private Path parentOf(Path path) {
+            // root path might be empty path representing the current working directory
+            final Path parent = path.getParent();
+            return parent != null ? parent : treeFilter.rootPath();
+        }
+    }
+
+    private record DirectoryEntries(DirectoryStream<Path> stream, Iterator<Path> entries, FileTreeFilter.Entry.Directory directory) {
+    }
 }
@@ -27,24 +27,23 @@
  * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
  * POSSIBILITY OF SUCH DAMAGE.
  */
-package com.norcane.lysense.splicer.weaving;
+package com.norcane.lysense.source;
 
-import org.junit.jupiter.api.Test;
-
-import io.quarkus.test.junit.QuarkusTest;
-
-import static org.junit.jupiter.api.Assertions.assertEquals;
-
-@QuarkusTest
-class InstructionTest {
+/**
+ * Defines how much of the source code is read and analyzed when loaded.
+ *
+ * @see com.norcane.lysense.source.support.SourceCodeSupport#load
+ */
+public enum AnalysisMode {
 
-    @Test
-    void toString_SkipSourceLine() {
-        assertEquals("SkipSourceLine", Instruction.skipSourceLine().toString());
-    }
+    /**
+     * Whole source code is read and analyzed.
+     */
+    FULL,
 
-    @Test
-    void toString_WriteSourceLine() {
-        assertEquals("WriteSourceLine", Instruction.writeSourceLine().toString());
-    }
+    /**
+     * Source code is read only until the <i>header region</i> (i.e. everything up to the first <i>put before</i> line) and all <i>dynamic variables</i> are
+     * settled, the rest of the source code cannot affect the analysis results and is not read at all.
+     */
+    HEADER
 }
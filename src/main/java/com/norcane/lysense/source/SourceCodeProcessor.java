@@ -29,6 +29,9 @@
  */
 package com.norcane.lysense.source;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 import com.norcane.lysense.configuration.api.Configuration;
 import com.norcane.lysense.configuration.api.HeaderConfig;
 import com.norcane.lysense.domain.LanguageId;
@@ -57,6 +60,8 @@ import jakarta.inject.Inject;
 @ApplicationScoped
 public class SourceCodeProcessor implements Stateful {
 
+    private static final int RENDERED_HEADERS_CACHE_SIZE = 1024;
+
     private final Configuration configuration;
     private final Instance<SourceCodeSupport> sourceCodeSupports;
     private final ResourceSplicer resourceSplicer;
@@ -64,6 +69,11 @@ public class SourceCodeProcessor implements Stateful {
 
     private final Memoized<Map<String, SourceCodeSupport>> languageIdToSupport = Memoized.bindTo(this);
 
+    // most of the source codes share the same variables, so the same rendered header can be reused across them
+    private final Cache<RenderedHeaderKey, String> renderedHeaders = CacheBuilder.newBuilder()
+        .maximumSize(RENDERED_HEADERS_CACHE_SIZE)
+        .build();
+
 
     @Inject
     public SourceCodeProcessor(Configuration configuration,
@@ -96,7 +106,18 @@ public class SourceCodeProcessor implements Stateful {
      * @return processed source code
      */
     public SourceCode process(Resource resource) {
-        return sourceCodeSupports().get(resource.extension()).load(resource);
+        return process(resource, AnalysisMode.FULL);
+    }
+
+    /**
+     * Processes and analyzes {@link SourceCode}, using given {@link AnalysisMode}.
+     *
+     * @param resource     resource to process source code from
+     * @param analysisMode analysis mode
+     * @return processed source code
+     */
+    public SourceCode process(Resource resource, AnalysisMode analysisMode) {
+        return sourceCodeSupports().get(resource.extension()).load(resource, analysisMode);
     }
 
     /**
@@ -163,6 +184,24 @@ public class SourceCodeProcessor implements Stateful {
         }
     }
 
+    /**
+     * Checks whether given {@link SourceCode} has license header present and up to date, i.e. {@link #updateHeader(SourceCode)} would not modify it. The
+     * source code is never modified.
+     *
+     * @param sourceCode source code to check
+     * @return {@code true} if the license header is present and up to date
+     */
+    public boolean isHeaderUpToDate(SourceCode sourceCode) {
+        return sourceCode.metadata().header().isPresent() && !headerUpdateNeeded(renderTemplate(sourceCode), sourceCode);
+    }
+
+    @Override
+    public void resetState() {
+        Stateful.super.resetState();
+
+        renderedHeaders.invalidateAll();
+    }
+
     public Map<String, SourceCodeSupport> sourceCodeSupports() {
         return languageIdToSupport.computeIfAbsent(() -> sourceCodeSupports.stream()
             .flatMap(support -> support.resourceExtensions().stream().map(ext -> Map.entry(ext, support)))
@@ -185,20 +224,25 @@ public class SourceCodeProcessor implements Stateful {
     }
 
     private String renderTemplate(SourceCode sourceCode) {
-        final String templateName = sourceCode.languageId().value();
         final Variables variables = configuration.templateVariables().mergeWith(sourceCode.variables());
         final HeaderConfig headerConfig = configuration.headerConfigOrFail(sourceCode.languageId());
-        final int blankLinesBefore = headerConfig.headerSpacing().blankLinesBefore();
-        final int blankLinesAfter = headerConfig.headerSpacing().blankLinesAfter();
-        final LineSeparator lineSeparator = sourceCode.resource().lineSeparator();
-        final String lineBreaksBefore = lineSeparator.separator().repeat(blankLinesBefore);
-        final String lineBreaksAfter = lineSeparator.separator().repeat(blankLinesAfter);
+        final RenderedHeaderKey key = new RenderedHeaderKey(sourceCode.languageId(),
+                                                            variables,
+                                                            sourceCode.resource().lineSeparator(),
+                                                            headerConfig.headerSpacing().blankLinesBefore(),
+                                                            headerConfig.headerSpacing().blankLinesAfter());
 
-        // always keep at least one EOL at the end of the rendered template
-        final Template template = templateManager.template(new UserLicenseTemplateSource.TemplateKey(templateName));
-        final String rendered = template.render(variables).trim() + lineSeparator.separator();
+        return renderedHeaders.asMap().computeIfAbsent(key, this::renderHeader);
+    }
 
-        return lineBreaksBefore + rendered.trim() + lineSeparator.separator() + lineBreaksAfter;
+    private String renderHeader(RenderedHeaderKey key) {
+        final String separator = key.lineSeparator().separator();
+        final String lineBreaksBefore = separator.repeat(key.blankLinesBefore());
+        final String lineBreaksAfter = separator.repeat(key.blankLinesAfter());
+
+        // always keep at least one EOL at the end of the rendered template
+        final Template template = templateManager.template(new UserLicenseTemplateSource.TemplateKey(key.languageId().value()));
+        return lineBreaksBefore + template.render(key.variables()).trim() + separator + lineBreaksAfter;
     }
 
     private Operation operationForHeaderCandidate(HeaderCandidate candidate, String renderedHeader) {
@@ -209,4 +253,14 @@ public class SourceCodeProcessor implements Stateful {
                ? Operation.addSection(startLine, renderedHeader)
                : Operation.replaceSection(startLine, endLine - 1, renderedHeader);
     }
+
+    /**
+     * Identifies the rendered license header - the same template rendered with the same variables and spacing always yields the same header.
+     */
+    private record RenderedHeaderKey(LanguageId languageId,
+                                     Variables variables,
+                                     LineSeparator lineSeparator,
+                                     int blankLinesBefore,
+                                     int blankLinesAfter) {
+    }
 }
@@ -0,0 +1,75 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.source.batch;
+
+import com.norcane.toolkit.concurrent.Pipeline;
+
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.annotation.Nonnull;
+
+/**
+ * Running batch of source codes being processed, started by {@link BatchProcessor}. Processed source codes are obtained by iterating over the batch, in the
+ * order in which they are completed. Batch must be closed once iterated, which also persists the caches.
+ */
+public class Batch implements Iterable<ProcessedSource>, AutoCloseable {
+
+    private final Pipeline<ProcessedSource> pipeline;
+    private final AtomicInteger skippedSources;
+    private final Runnable onClose;
+
+    Batch(Pipeline<ProcessedSource> pipeline, AtomicInteger skippedSources, Runnable onClose) {
+        this.pipeline = pipeline;
+        this.skippedSources = skippedSources;
+        this.onClose = onClose;
+    }
+
+    /**
+     * Returns number of source codes skipped so far, because they are known to be compliant.
+     *
+     * @return number of skipped source codes
+     */
+    public int skippedSources() {
+        return skippedSources.get();
+    }
+
+    @Nonnull
+    @Override
+    public Iterator<ProcessedSource> iterator() {
+        return pipeline.iterator();
+    }
+
+    @Override
+    public void close() {
+        pipeline.close();
+        onClose.run();
+    }
+}
@@ -0,0 +1,363 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.source.batch;
+
+import com.norcane.lysense.configuration.api.Configuration;
+import com.norcane.lysense.configuration.api.DiscoveryConfig;
+import com.norcane.lysense.configuration.api.RunMode;
+import com.norcane.lysense.domain.LanguageId;
+import com.norcane.lysense.meta.RuntimeInfo;
+import com.norcane.lysense.resource.Resource;
+import com.norcane.lysense.resource.buffered.BufferedResource;
+import com.norcane.lysense.resource.exception.CannotWriteResourceException;
+import com.norcane.lysense.resource.filesystem.FileSystemResource;
+import com.norcane.lysense.resource.loader.DiscoveryOptions;
+import com.norcane.lysense.resource.loader.ResourceLoader;
+import com.norcane.lysense.resource.util.PathMatcher;
+import com.norcane.lysense.source.AnalysisMode;
+import com.norcane.lysense.source.SourceCode;
+import com.norcane.lysense.source.SourceCodeProcessor;
+import com.norcane.lysense.source.SourceModificationResult;
+import com.norcane.lysense.source.cache.IncrementalCache;
+import com.norcane.lysense.source.cache.SharedResultCache;
+import com.norcane.lysense.splicer.writer.AtomicWriter;
+import com.norcane.lysense.splicer.writer.AtomicWriterFactory;
+import com.norcane.lysense.template.TemplateManager;
+import com.norcane.lysense.template.source.UserLicenseTemplateSource;
+import com.norcane.toolkit.concurrent.Pipeline;
+import com.norcane.toolkit.state.Stateful;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+
+/**
+ * Discovers, loads and modifies source codes from configured sources in a streaming pipeline, where each step runs concurrently and steps are connected using
+ * bounded queues. This way only a limited number of source codes is held in memory at any time and first files are modified while the rest is still being
+ * discovered. Source codes known by the {@link IncrementalCache} to be compliant are skipped before being loaded, source codes with content known by the
+ * {@link SharedResultCache} are not analyzed at all.
+ */
+@ApplicationScoped
+public class BatchProcessor {
+
+    private static final int QUEUE_CAPACITY_PER_JOB = 8;
+
+    private final AtomicWriterFactory atomicWriterFactory;
+    private final Configuration configuration;
+    private final IncrementalCache incrementalCache;
+    private final PathMatcher pathMatcher;
+    private final ResourceLoader resourceLoader;
+    private final RuntimeInfo runtimeInfo;
+    private final SharedResultCache sharedResultCache;
+    private final SourceCodeProcessor sourceCodeProcessor;
+    private final Instance<Stateful> statefulComponents;
+    private final TemplateManager templateManager;
+
+    @Inject
+    public BatchProcessor(AtomicWriterFactory atomicWriterFactory,
+                          Configuration configuration,
+                          IncrementalCache incrementalCache,
+                          PathMatcher pathMatcher,
+                          ResourceLoader resourceLoader,
+                          RuntimeInfo runtimeInfo,
+                          SharedResultCache sharedResultCache,
+                          SourceCodeProcessor sourceCodeProcessor,
+                          Instance<Stateful> statefulComponents,
+                          TemplateManager templateManager) {
+
+        this.atomicWriterFactory = atomicWriterFactory;
+        this.configuration = configuration;
+        this.incrementalCache = incrementalCache;
+        this.pathMatcher = pathMatcher;
+        this.resourceLoader = resourceLoader;
+        this.runtimeInfo = runtimeInfo;
+        this.sharedResultCache = sharedResultCache;
+        this.sourceCodeProcessor = sourceCodeProcessor;
+        this.statefulComponents = statefulComponents;
+        this.templateManager = templateManager;
+    }
+
+    /**
+     * Starts processing of source codes from configured sources in given run mode. In {@link RunMode#CHECK} mode, source codes are never opened for writing,
+     * only their headers are read (the shared cache, which needs the whole content, is not used) and recently modified source codes are processed first, so
+     * that violations are likely reported early.
+     *
+     * @param runMode       run mode
+     * @param selectedFiles files the processing is limited to, or empty value if all configured sources should be processed
+     * @param parallelism   number of source codes processed in parallel
+     * @return running batch, must be closed once iterated
+     */
+    public Batch start(RunMode runMode, Optional<Set<Path>> selectedFiles, int parallelism) {
+        final Set<String> resourceExtensions = sourceCodeExtensions();
+        final AtomicInteger skippedSources = new AtomicInteger();
+
+        final Predicate<Resource> notCompliant = resource -> {
+            if (incrementalCache.isCompliant(resource, runMode)) {
+                skippedSources.incrementAndGet();
+                return false;
+            }
+            return true;
+        };
+
+        final int queueCapacity = parallelism * QUEUE_CAPACITY_PER_JOB;
+        final Pipeline<ProcessedSource> pipeline = Pipeline.source(() -> discoverResources(resourceExtensions, selectedFiles, runMode))
+            .filter(notCompliant, parallelism)
+            .map(resource -> loadSource(resource, runMode), parallelism)
+            .map(loaded -> processSource(loaded, runMode), parallelism)
+            .start(queueCapacity);
+
+        return new Batch(pipeline, skippedSources, () -> {
+            incrementalCache.save();
+            sharedResultCache.evict();
+        });
+    }
+
+    /**
+     * Loads configuration, compiles templates and initializes source code supports ahead of the first batch, so it doesn't have to wait for them.
+     */
+    public void warmUp() {
+        sourceCodeExtensions();
+    }
+
+    /**
+     * Resets state of all stateful components, so configuration, templates and everything derived from them is loaded again when needed next time.
+     */
+    public void reload() {
+        statefulComponents.forEach(Stateful::resetState);
+    }
+
+    /**
+     * Returns paths on the file system whose changes affect batches, i.e. root paths of configured sources, root paths of configured templates and the
+     * configuration file. Locations with other schemes (e.g. class path) are skipped.
+     *
+     * @return watched roots
+     */
+    public WatchedRoots watchedRoots() {
+        final List<Path> configurationRoots = new ArrayList<>(rootPaths(configuration.templates()));
+        configurationRoots.add(runtimeInfo.userConfigurationPath().toAbsolutePath().normalize());
+
+        return new WatchedRoots(rootPaths(configuration.sources()), configurationRoots);
+    }
+
+    private List<Path> rootPaths(List<String> locations) {
+        return locations.stream()
+            .filter(location -> Resource.Scheme.parse(location).orElse(FileSystemResource.SCHEME).equals(FileSystemResource.SCHEME))
+            .map(location -> location.substring(location.indexOf(':') + 1))
+            .map(location -> Path.of(pathMatcher.resolveRootPath(location)).toAbsolutePath().normalize())
+            .distinct()
+            .toList();
+    }
+
+    private LoadedSource loadSource(Resource resource, RunMode runMode) {
+        if (runMode == RunMode.CHECK || !sharedResultCache.enabled()) {
+            return new LoadedSource.Analyzed(resource, sourceCodeProcessor.process(resource, AnalysisMode.HEADER), Optional.empty());
+        }
+
+        // whole content is needed for the content key anyway, so it's read only once and analyzed from memory
+        final String content = resource.readAsString();
+        final LanguageId languageId = sourceCodeProcessor.sourceCodeSupports().get(resource.extension()).languageId();
+        final SharedResultCache.ContentKey contentKey = sharedResultCache.key(content, languageId, runMode);
+
+        return sharedResultCache.lookup(contentKey)
+            .<LoadedSource>map(result -> new LoadedSource.Cached(resource, result))
+            .orElseGet(() -> {
+                final SourceCode sourceCode = sourceCodeProcessor.process(BufferedResource.of(resource, content, true), AnalysisMode.HEADER);
+                return new LoadedSource.Analyzed(resource, sourceCode, Optional.of(contentKey));
+            });
+    }
+
+    private ProcessedSource processSource(LoadedSource loaded, RunMode runMode) {
+        final ProcessedSource processed = switch (loaded) {
+            case LoadedSource.Cached(var resource, SharedResultCache.Result.Compliant _) -> new ProcessedSource(
+                resource, "No changes needed in @|bold %s|@ (cached)".formatted(resource.uri()), SourceModificationResult.NOT_MODIFIED, false, true);
+            case LoadedSource.Cached(var resource, SharedResultCache.Result.Spliced(var output)) -> {
+                writeContent(resource, output);
+                yield new ProcessedSource(
+                    resource, "Applying cached changes to @|bold %s|@".formatted(resource.uri()), SourceModificationResult.MODIFIED, false, true);
+            }
+            case LoadedSource.Analyzed(var resource, var sourceCode, _) when runMode == RunMode.CHECK -> check(resource, sourceCode);
+            case LoadedSource.Analyzed(var resource, var sourceCode, var contentKey) -> {
+                final String message = message(sourceCode, runMode);
+                final SourceModificationResult result = modify(sourceCode, runMode);
+                contentKey.ifPresent(key -> sharedResultCache.publish(key, result.modified()
+                                                                           ? new SharedResultCache.Result.Spliced(resource.readAsString())
+                                                                           : SharedResultCache.Result.Compliant.INSTANCE));
+                yield new ProcessedSource(resource, message, result, false, false);
+            }
+        };
+
+        // violation is not a result worth remembering, the source code is checked again next time
+        if (!processed.violation()) {
+            incrementalCache.record(readResource(loaded), runMode, processed.result());
+        }
+        return processed;
+    }
+
+    /**
+     * Returns the resource with the content read during loading (if buffered), so the incremental cache can hash it without reading the file again.
+     */
+    private static Resource readResource(LoadedSource loaded) {
+        return switch (loaded) {
+            case LoadedSource.Analyzed(_, var sourceCode, _) -> sourceCode.resource();
+            case LoadedSource.Cached(var resource, _) -> resource;
+        };
+    }
+
+    private ProcessedSource check(Resource resource, SourceCode sourceCode) {
+        final String uri = resource.uri().toString();
+
+        if (sourceCodeProcessor.isHeaderUpToDate(sourceCode)) {
+            return new ProcessedSource(resource, "Header up to date in @|bold %s|@".formatted(uri), SourceModificationResult.NOT_MODIFIED, false, false);
+        }
+
+        final String message = sourceCode.metadata().header().isPresent()
+                               ? "Outdated header in @|bold %s|@".formatted(uri)
+                               : "Missing header in @|bold %s|@".formatted(uri);
+        return new ProcessedSource(resource, message, SourceModificationResult.NOT_MODIFIED, true, false);
+    }
+
+    private SourceModificationResult modify(SourceCode sourceCode, RunMode runMode) {
+        return switch (runMode) {
+            case ADD -> sourceCodeProcessor.addHeader(sourceCode);
+            case DROP -> sourceCodeProcessor.dropHeader(sourceCode);
+            case UPDATE -> sourceCodeProcessor.updateHeader(sourceCode);
+            case CHECK -> throw new IllegalStateException("Source code is never modified in check mode");
+        };
+    }
+
+    private static String message(SourceCode sourceCode, RunMode runMode) {
+        final boolean headerPresent = sourceCode.metadata().header().isPresent();
+        final String uri = sourceCode.resource().uri().toString();
+
+        return switch (runMode) {
+            case ADD -> headerPresent
+                        ? "Header already present in @|bold %s|@".formatted(uri)
+                        : "Adding header to @|bold %s|@".formatted(uri);
+            case DROP -> headerPresent
+                         ? "Dropping header from @|bold %s|@".formatted(uri)
+                         : "No header present in @|bold %s|@".formatted(uri);
+            case UPDATE -> headerPresent
+                           ? "Updating header in @|bold %s|@".formatted(uri)
+                           : "Adding header to @|bold %s|@".formatted(uri);
+            case CHECK -> throw new IllegalStateException("Source code is never modified in check mode");
+        };
+    }
+
+    private void writeContent(Resource resource, String content) {
+        // cached content replaces the resource the same way as spliced one, so the resource is never left half-written
+        try (final AtomicWriter writer = atomicWriterFactory.of(resource.asWritableOrFail())) {
+            writer.write(content);
+        } catch (IOException e) {
+            throw new CannotWriteResourceException(resource, e);
+        }
+    }
+
+    private Stream<Resource> discoverResources(Set<String> resourceExtensions, Optional<Set<Path>> selectedFiles, RunMode runMode) {
+        // extensions are checked already during discovery when supported, the filter covers resource factories that don't
+        final Predicate<Resource> filter = resource -> resourceExtensions.contains(resource.extension());
+        final DiscoveryConfig discovery = configuration.discovery();
+        final DiscoveryOptions options =
+            new DiscoveryOptions(discovery.excludes(), discovery.respectGitIgnore(), discovery.walkMode(), resourceExtensions);
+
+        final Stream<Resource> resources = selectedFiles
+            .map(files -> resourceLoader.streamResources(configuration.sources(), files, filter, true, options))
+            .orElseGet(() -> resourceLoader.streamResources(configuration.sources(), filter, true, options));
+
+        // source codes are never written in check mode, so they don't have to be writable
+        return runMode == RunMode.CHECK
+               ? recentlyModifiedFirst(resources)
+               : resources.map(Resource::asWritableOrFail);
+    }
+
+    /**
+     * Orders resources by their last modification time (most recent first). Processing starts once all resources are discovered, but the discovery only walks
+     * the file tree and reuses modification times read by the walker, while reading the source codes (which takes most of the time) is done in this order.
+     */
+    private static Stream<Resource> recentlyModifiedFirst(Stream<Resource> resources) {
+        record Timestamped(Resource resource, long lastModified) {
+        }
+
+        return resources
+            .map(resource -> new Timestamped(resource, lastModified(resource)))
+            .sorted(Comparator.comparingLong(Timestamped::lastModified).reversed())
+            .map(Timestamped::resource);
+    }
+
+    private static long lastModified(Resource resource) {
+        if (resource instanceof FileSystemResource fileSystemResource) {
+            try {
+                final Optional<FileTime> discovered = fileSystemResource.discoveredLastModifiedTime();
+                return (discovered.isPresent() ? discovered.get() : Files.getLastModifiedTime(fileSystemResource.path())).toMillis();
+            } catch (IOException e) {
+                // deleted in the meantime, reported once processed
+            }
+        }
+
+        return Long.MIN_VALUE;
+    }
+
+    private Set<String> sourceCodeExtensions() {
+        final Set<String> templateNames = templateManager.templates(UserLicenseTemplateSource.TemplateKey.class).keySet().stream()
+            .map(UserLicenseTemplateSource.TemplateKey::languageId)
+            .collect(Collectors.toSet());
+
+        return sourceCodeProcessor.sourceCodeSupports().entrySet().stream()
+            .filter(entry -> templateNames.contains(entry.getValue().languageId().value()))
+            .map(Map.Entry::getKey)
+            .collect(Collectors.toSet());
+    }
+
+    /**
+     * Source code either analyzed and ready to be modified, or with the result already known from the {@link SharedResultCache}.
+     */
+    private sealed interface LoadedSource {
+
+        record Analyzed(Resource resource, SourceCode sourceCode, Optional<SharedResultCache.ContentKey> contentKey) implements LoadedSource {
+        }
+
+        record Cached(Resource resource, SharedResultCache.Result result) implements LoadedSource {
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.source.batch;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.norcane.toolkit.Prelude.nonNull;
+
+/**
+ * Paths on the file system whose changes affect batches, split into roots of configured sources and paths whose change requires the configuration (and
+ * templates) to be reloaded.
+ *
+ * @param sourceRoots        absolute root paths of configured sources
+ * @param configurationRoots absolute paths of the configuration file and root paths of configured templates
+ * @see BatchProcessor#watchedRoots()
+ */
+public record WatchedRoots(List<Path> sourceRoots, List<Path> configurationRoots) {
+
+    public WatchedRoots {
+        sourceRoots = List.copyOf(nonNull(sourceRoots));
+        configurationRoots = List.copyOf(nonNull(configurationRoots));
+    }
+
+    /**
+     * Returns all watched roots.
+     *
+     * @return all watched roots
+     */
+    public List<Path> all() {
+        return Stream.concat(sourceRoots.stream(), configurationRoots.stream()).distinct().toList();
+    }
+
+    /**
+     * Returns whether change of the given path requires the configuration to be reloaded.
+     *
+     * @param path absolute path
+     * @return {@code true} if the configuration should be reloaded
+     */
+    public boolean isConfigurationPath(Path path) {
+        return configurationRoots.stream().anyMatch(path::startsWith);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.source.cache;
+
+import com.norcane.toolkit.io.MoreFiles;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Utility methods for working with cache files.
+ */
+final class CacheFiles {
+
+    static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    private CacheFiles() {
+        // utility class - hence the private constructor
+        throw new IllegalStateException("This class is not meant to be instantiated");
+    }
+
+    /**
+     * Writes file atomically - content is written to a temporary sibling file first, which then atomically replaces the target file (if supported by the file
+     * system), so concurrent readers (even other processes) never see partially written file. Parent directories are created if missing.
+     *
+     * @param file    file to write
+     * @param content writes the file content to given output stream
+     * @throws IOException if the file cannot be written
+     */
+    static void writeAtomically(Path file, ContentWriter content) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+
+        // unlike Files.createTempFile, keeps default permissions, so the file is readable by other users of the shared cache
+        final String tempFileName = "%s.%016x%s".formatted(file.getFileName(), ThreadLocalRandom.current().nextLong(), TEMP_FILE_SUFFIX);
+        final Path tempFile = file.resolveSibling(tempFileName);
+        try {
+            try (final OutputStream output = new BufferedOutputStream(Files.newOutputStream(tempFile, StandardOpenOption.CREATE_NEW))) {
+                content.write(output);
+            }
+
+            MoreFiles.replaceAtomically(tempFile, file);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Writes content of the file.
+     */
+    @FunctionalInterface
+    interface ContentWriter {
+        void write(OutputStream output) throws IOException;
+    }
+}
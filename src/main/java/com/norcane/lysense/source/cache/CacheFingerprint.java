@@ -0,0 +1,110 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.source.cache;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import com.norcane.lysense.configuration.ConfigurationManager;
+import com.norcane.lysense.meta.ProductInfo;
+import com.norcane.lysense.source.SourceCodeProcessor;
+import com.norcane.lysense.template.TemplateManager;
+import com.norcane.lysense.template.source.UserLicenseTemplateSource;
+import com.norcane.toolkit.state.Memoized;
+import com.norcane.toolkit.state.Stateful;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.Map;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Fingerprint of everything the cached per-file results depend on, apart from the file content itself - the product version, default and user
+ * configuration, license header templates and supported source code types. Any change of those yields different fingerprint, which invalidates all cached
+ * results. Fingerprint is computed when first needed and kept until {@link #resetState()} is called.
+ */
+@ApplicationScoped
+public class CacheFingerprint implements Stateful {
+
+    private final ConfigurationManager configurationManager;
+    private final SourceCodeProcessor sourceCodeProcessor;
+    private final TemplateManager templateManager;
+
+    private final Memoized<Long> value = Memoized.bindTo(this);
+
+    @Inject
+    public CacheFingerprint(ConfigurationManager configurationManager,
+                            SourceCodeProcessor sourceCodeProcessor,
+                            TemplateManager templateManager) {
+
+        this.configurationManager = configurationManager;
+        this.sourceCodeProcessor = sourceCodeProcessor;
+        this.templateManager = templateManager;
+    }
+
+    /**
+     * Returns the fingerprint value.
+     *
+     * @return fingerprint value
+     */
+    public synchronized long value() {
+        return value.computeIfAbsent(this::compute);
+    }
+
+    private long compute() {
+        final Hasher hasher = Hashing.farmHashFingerprint64().newHasher();
+
+        putString(hasher, ProductInfo.VERSION_STRING);
+        putString(hasher, configurationManager.defaultConfigurationResource().readAsString());
+        putString(hasher, configurationManager.configurationRef().resource().readAsString());
+
+        templateManager.templateResources(UserLicenseTemplateSource.TemplateKey.class).entrySet().stream()
+            .sorted(Map.Entry.comparingByKey(Comparator.comparing(UserLicenseTemplateSource.TemplateKey::languageId)))
+            .forEach(entry -> {
+                putString(hasher, entry.getKey().languageId());
+                putString(hasher, entry.getValue().readAsString());
+            });
+
+        sourceCodeProcessor.sourceCodeSupports().entrySet().stream()
+            .sorted(Map.Entry.comparingByKey())
+            .forEach(entry -> {
+                putString(hasher, entry.getKey());
+                putString(hasher, entry.getValue().languageId().value());
+            });
+
+        return hasher.hash().asLong();
+    }
+
+    private static void putString(Hasher hasher, String value) {
+        hasher.putInt(value.length()).putString(value, StandardCharsets.UTF_8);
+    }
+}
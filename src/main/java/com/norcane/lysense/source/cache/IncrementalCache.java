@@ -0,0 +1,302 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.source.cache;
+
+import com.google.common.hash.Hashing;
+
+import com.norcane.lysense.configuration.api.Configuration;
+import com.norcane.lysense.configuration.api.RunMode;
+import com.norcane.lysense.resource.Resource;
+import com.norcane.lysense.resource.buffered.BufferedResource;
+import com.norcane.lysense.resource.exception.CannotReadResourceException;
+import com.norcane.lysense.resource.filesystem.FileSystemResource;
+import com.norcane.lysense.source.SourceModificationResult;
+import com.norcane.lysense.source.cache.IncrementalCacheFile.Entry;
+import com.norcane.lysense.source.cache.exception.CannotWriteCacheException;
+import com.norcane.toolkit.io.FileSystem;
+import com.norcane.toolkit.state.Memoized;
+import com.norcane.toolkit.state.Stateful;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Persistent cache of per-file results, allowing to skip source code files that are already known to be compliant with the requested {@link RunMode},
+ * without loading and analyzing them again. Each file is identified by its path and described by its size, last modification time and hash of its content.
+ * If the size and last modification time of the file match, the file is skipped without being read at all, if only the last modification time differs (e.g.
+ * after checkout), the content hash decides. Content hash is recorded only if the whole content was already read during processing, files are never read
+ * just to be hashed when recorded; without known content hash, file with changed last modification time is processed again.
+ *
+ * <p>All entries are bound to the {@link CacheFingerprint}, so any change of the configuration, license header templates or supported source code types
+ * invalidates the whole cache. Cache is loaded when first needed and persisted by {@link #save()}, all other public methods are thread safe.</p>
+ *
+ * @see com.norcane.lysense.configuration.api.CacheConfig
+ */
+@ApplicationScoped
+public class IncrementalCache implements Stateful {
+
+    static final String CACHE_FILE = "results.bin";
+
+    // last modification time of files modified just before the cache is saved might not change when modified again, so it cannot be trusted
+    private static final Duration RACY_WINDOW = Duration.ofSeconds(2);
+
+    private final CacheFingerprint cacheFingerprint;
+    private final Configuration configuration;
+    private final FileSystem fileSystem;
+
+    private final Memoized<State> state = Memoized.bindTo(this);
+
+    @Inject
+    public IncrementalCache(CacheFingerprint cacheFingerprint, Configuration configuration, FileSystem fileSystem) {
+        this.cacheFingerprint = cacheFingerprint;
+        this.configuration = configuration;
+        this.fileSystem = fileSystem;
+    }
+
+    /**
+     * Returns whether the cache is enabled in the configuration. If disabled, no resource is ever considered compliant and nothing is recorded or saved.
+     *
+     * @return {@code true} if the cache is enabled
+     */
+    public boolean enabled() {
+        return configuration.cache().enabled();
+    }
+
+    /**
+     * Checks whether given resource is known to be compliant with given run mode, i.e. processing it would not modify it. Only resources backed by files
+     * (possibly wrapped in {@link BufferedResource}) can be cached.
+     *
+     * @param resource resource to check
+     * @param runMode  run mode
+     * @return {@code true} if the resource is known to be compliant and can be skipped
+     */
+    public boolean isCompliant(Resource resource, RunMode runMode) {
+        final Optional<Path> filePath = FileSystemResource.pathOf(resource);
+        if (!enabled() || filePath.isEmpty()) {
+            return false;
+        }
+
+        final State state = state();
+        final Path path = filePath.get();
+        final String key = key(path);
+        state.seen().add(key);
+
+        final Entry entry = state.entries().get(key);
+        if (entry == null || (entry.modes() & modeBit(runMode)) == 0) {
+            return false;
+        }
+
+        try {
+            final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            if (attributes.size() != entry.size()) {
+                return false;
+            }
+
+            final long lastModified = lastModified(attributes);
+            if (lastModified == entry.lastModified()) {
+                return true;
+            }
+
+            // timestamp changed (or cannot be trusted), content decides, if known
+            if (entry.contentHash() == Entry.UNKNOWN_CONTENT_HASH || contentHash(resource.readAsString()) != entry.contentHash()) {
+                return false;
+            }
+
+            state.entries().put(key, new Entry(entry.size(), lastModified, entry.contentHash(), entry.modes()));
+            state.dirty().set(true);
+            return true;
+        } catch (IOException | CannotReadResourceException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Records result of processing given resource in given run mode. If the resource was not modified, it's known to be compliant until its content changes,
+     * otherwise any previous result is forgotten. Content hash is recorded only for {@link BufferedResource} with complete content, the file itself is never
+     * read.
+     *
+     * @param resource resource that was processed
+     * @param runMode  run mode used to process the resource
+     * @param result   result of processing
+     */
+    public void record(Resource resource, RunMode runMode, SourceModificationResult result) {
+        final Optional<Path> filePath = FileSystemResource.pathOf(resource);
+        if (!enabled() || filePath.isEmpty()) {
+            return;
+        }
+
+        final State state = state();
+        final Path path = filePath.get();
+        final String key = key(path);
+        state.seen().add(key);
+
+        if (result.modified()) {
+            forget(state, key);
+            return;
+        }
+
+        try {
+            final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            final long size = attributes.size();
+            final long lastModified = lastModified(attributes);
+            final long contentHash = resource instanceof BufferedResource buffered && buffered.isComplete()
+                                     ? contentHash(buffered.readAsString())
+                                     : Entry.UNKNOWN_CONTENT_HASH;
+
+            state.entries().compute(key, (_, existing) -> {
+                final boolean sameContent = existing != null && existing.size() == size && sameContent(existing, lastModified, contentHash);
+                final int modes = compliantModes(runMode) | (sameContent ? existing.modes() : 0);
+                final long knownContentHash = contentHash == Entry.UNKNOWN_CONTENT_HASH && sameContent ? existing.contentHash() : contentHash;
+
+                return new Entry(size, lastModified, knownContentHash, modes);
+            });
+            state.dirty().set(true);
+        } catch (IOException e) {
+            forget(state, key);
+        }
+    }
+
+    /**
+     * Persists the cache into the configured cache directory, if anything changed since it was loaded. Entries of files that were not seen since the cache
+     * was loaded and no longer exist are dropped.
+     *
+     * @throws CannotWriteCacheException if the cache file cannot be written
+     */
+    public void save() {
+        if (!enabled() || this.state.get().isEmpty()) {
+            return;
+        }
+
+        final State state = state();
+        final Path baseDirectory = baseDirectory();
+        for (final String key : state.entries().keySet()) {
+            if (!state.seen().contains(key) && Files.notExists(baseDirectory.resolve(key))) {
+                forget(state, key);
+            }
+        }
+
+        if (!state.dirty().getAndSet(false)) {
+            return;
+        }
+
+        final long racyThreshold = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()) - RACY_WINDOW.toNanos();
+        final Map<String, Entry> entries = state.entries().entrySet().stream()
+            .collect(Collectors.toMap(Map.Entry::getKey, entry -> withTrustedLastModified(entry.getValue(), racyThreshold)));
+
+        final Path cacheFile = cacheFile();
+        try {
+            IncrementalCacheFile.write(cacheFile, state.fingerprint(), entries);
+        } catch (IOException e) {
+            throw new CannotWriteCacheException(cacheFile, e);
+        }
+    }
+
+    Path cacheFile() {
+        return baseDirectory().resolve(configuration.cache().directory()).resolve(CACHE_FILE);
+    }
+
+    private synchronized State state() {
+        return state.computeIfAbsent(() -> {
+            final long fingerprint = cacheFingerprint.value();
+            final Map<String, Entry> entries = new ConcurrentHashMap<>(IncrementalCacheFile.read(cacheFile(), fingerprint));
+
+            return new State(fingerprint, entries, ConcurrentHashMap.newKeySet(), new AtomicBoolean());
+        });
+    }
+
+    private String key(Path path) {
+        final Path baseDirectory = baseDirectory();
+        final Path absolutePath = path.toAbsolutePath().normalize();
+
+        return absolutePath.startsWith(baseDirectory) ? baseDirectory.relativize(absolutePath).toString() : absolutePath.toString();
+    }
+
+    private Path baseDirectory() {
+        return fileSystem.currentDirectory().toAbsolutePath().normalize();
+    }
+
+    private static void forget(State state, String key) {
+        if (state.entries().remove(key) != null) {
+            state.dirty().set(true);
+        }
+    }
+
+    private static Entry withTrustedLastModified(Entry entry, long racyThreshold) {
+        return entry.lastModified() >= racyThreshold
+               ? new Entry(entry.size(), Entry.UNKNOWN_LAST_MODIFIED, entry.contentHash(), entry.modes())
+               : entry;
+    }
+
+    private static int compliantModes(RunMode runMode) {
+        return switch (runMode) {
+            case ADD -> modeBit(RunMode.ADD);
+            case DROP -> modeBit(RunMode.DROP);
+            // header is present and up to date, so adding the header would not modify the source code either
+            case UPDATE, CHECK -> modeBit(RunMode.UPDATE) | modeBit(RunMode.ADD);
+        };
+    }
+
+    private static int modeBit(RunMode runMode) {
+        // source code passes the check exactly when updating the header would not modify it
+        return 1 << (runMode == RunMode.CHECK ? RunMode.UPDATE : runMode).ordinal();
+    }
+
+    private static long lastModified(BasicFileAttributes attributes) {
+        return attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+    }
+
+    private static boolean sameContent(Entry entry, long lastModified, long contentHash) {
+        // content hash is more reliable, but it's not always known
+        return contentHash != Entry.UNKNOWN_CONTENT_HASH && entry.contentHash() != Entry.UNKNOWN_CONTENT_HASH
+               ? entry.contentHash() == contentHash
+               : entry.lastModified() == lastModified;
+    }
+
+    private static long contentHash(String content) {
+        return Hashing.farmHashFingerprint64().hashString(content, StandardCharsets.UTF_8).asLong();
+    }
+
+    private record State(long fingerprint, Map<String, Entry> entries, Set<String> seen, AtomicBoolean dirty) {
+    }
+}
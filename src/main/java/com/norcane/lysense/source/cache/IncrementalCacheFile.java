@@ -0,0 +1,190 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.source.cache;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads and writes entries of the {@link IncrementalCache} in compact binary format. The file starts with the header (magic number, format version and the
+ * fingerprint of configuration the entries are valid for), followed by entries sorted by their paths. Each path is stored as the length of the prefix shared
+ * with the previous path plus the remaining suffix, other numbers are stored as variable-length integers where suitable, so typical entry takes only a few
+ * bytes more than the unique part of its path.
+ */
+final class IncrementalCacheFile {
+
+    private static final int MAGIC = 0x4C534E43;   // "LSNC"
+    private static final byte FORMAT_VERSION = 1;
+
+    private IncrementalCacheFile() {
+        // utility class - hence the private constructor
+        throw new IllegalStateException("This class is not meant to be instantiated");
+    }
+
+    /**
+     * Reads cache entries from given file. If the file does not exist, is corrupted or was written for a different fingerprint, no entries are returned, as
+     * the cache is only an optimization and can always be rebuilt.
+     *
+     * @param file        cache file
+     * @param fingerprint fingerprint the entries must be valid for
+     * @return cache entries, identified by their paths
+     */
+    static Map<String, Entry> read(Path file, long fingerprint) {
+        try (final DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (input.readInt() != MAGIC || input.readByte() != FORMAT_VERSION || input.readLong() != fingerprint) {
+                return new HashMap<>();
+            }
+
+            final int count = (int) readVarLong(input);
+            final Map<String, Entry> entries = HashMap.newHashMap(count);
+
+            byte[] previousPath = new byte[0];
+            for (int i = 0; i < count; i++) {
+                final int sharedLength = (int) readVarLong(input);
+                final int suffixLength = (int) readVarLong(input);
+                final byte[] path = Arrays.copyOf(previousPath, sharedLength + suffixLength);
+                input.readFully(path, sharedLength, suffixLength);
+
+                final long size = readVarLong(input);
+                final long lastModified = zigZagDecode(readVarLong(input));
+                final long contentHash = input.readLong();
+                final int modes = input.readUnsignedByte();
+
+                entries.put(new String(path, StandardCharsets.UTF_8), new Entry(size, lastModified, contentHash, modes));
+                previousPath = path;
+            }
+
+            return entries;
+        } catch (IOException | RuntimeException e) {
+            // missing, corrupted or truncated cache file, start from scratch
+            return new HashMap<>();
+        }
+    }
+
+    /**
+     * Writes cache entries to given file. Entries are written to a temporary file first, which then atomically replaces the target file (if supported by the
+     * file system), so concurrent readers never see partially written cache.
+     *
+     * @param file        cache file
+     * @param fingerprint fingerprint the entries are valid for
+     * @param entries     cache entries, identified by their paths
+     * @throws IOException if the file cannot be written
+     */
+    static void write(Path file, long fingerprint, Map<String, Entry> entries) throws IOException {
+        CacheFiles.writeAtomically(file, output -> writeEntries(new DataOutputStream(output), fingerprint, entries));
+    }
+
+    private static void writeEntries(DataOutputStream output, long fingerprint, Map<String, Entry> entries) throws IOException {
+        final byte[][] paths = entries.keySet().stream()
+            .map(path -> path.getBytes(StandardCharsets.UTF_8))
+            .sorted(Arrays::compareUnsigned)
+            .toArray(byte[][]::new);
+
+        output.writeInt(MAGIC);
+        output.writeByte(FORMAT_VERSION);
+        output.writeLong(fingerprint);
+        writeVarLong(output, paths.length);
+
+        byte[] previousPath = new byte[0];
+        for (final byte[] path : paths) {
+            final Entry entry = entries.get(new String(path, StandardCharsets.UTF_8));
+            final int mismatch = Arrays.mismatch(previousPath, path);
+            final int sharedLength = mismatch < 0 ? path.length : mismatch;
+
+            writeVarLong(output, sharedLength);
+            writeVarLong(output, path.length - sharedLength);
+            output.write(path, sharedLength, path.length - sharedLength);
+
+            writeVarLong(output, entry.size());
+            writeVarLong(output, zigZagEncode(entry.lastModified()));
+            output.writeLong(entry.contentHash());
+            output.writeByte(entry.modes());
+
+            previousPath = path;
+        }
+    }
+
+    private static void writeVarLong(OutputStream output, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            output.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        output.write((int) value);
+    }
+
+    private static long readVarLong(InputStream input) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            final int b = input.read();
+            if (b < 0) {
+                throw new IOException("Unexpected end of cache file");
+            }
+
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new IOException("Malformed variable-length integer in cache file");
+    }
+
+    private static long zigZagEncode(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long zigZagDecode(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Cached result for single source code file.
+     *
+     * @param size         size of the file (in bytes)
+     * @param lastModified last modification time of the file (in nanoseconds since the epoch), or {@link #UNKNOWN_LAST_MODIFIED} if it cannot be trusted
+     * @param contentHash  hash of the file content, or {@link #UNKNOWN_CONTENT_HASH} if the content was not read when recorded
+     * @param modes        bit set of run modes (by their ordinals) the file is known to be compliant with
+     */
+    record Entry(long size, long lastModified, long contentHash, int modes) {
+
+        static final long UNKNOWN_LAST_MODIFIED = Long.MIN_VALUE;
+        static final long UNKNOWN_CONTENT_HASH = Long.MIN_VALUE;
+    }
+}
@@ -0,0 +1,354 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.source.cache;
+
+import com.google.common.hash.Hashing;
+
+import com.norcane.lysense.configuration.api.Configuration;
+import com.norcane.lysense.configuration.api.RunMode;
+import com.norcane.lysense.configuration.api.SharedCacheConfig;
+import com.norcane.lysense.domain.LanguageId;
+import com.norcane.lysense.source.cache.exception.CannotWriteCacheException;
+import com.norcane.toolkit.io.FileSystem;
+import com.norcane.toolkit.state.Stateful;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import static com.norcane.toolkit.Prelude.nonNull;
+
+/**
+ * Content-addressed cache of per-file results, which can be shared across clones of the same repository (e.g. by CI workers using a shared volume). Each
+ * result is identified only by the {@link ContentKey}, derived from the file content, its language, the {@link RunMode} and the {@link CacheFingerprint},
+ * and tells either that the file is compliant, or what the file content looks like after being modified. This way fresh checkouts can skip analysis of every
+ * file content seen before, no matter where.
+ *
+ * <p>Every result is stored in its own file, published atomically, so the cache can be used by multiple processes at once. Results are never modified once
+ * published, their last modification time is only updated when used, so when the cache exceeds the configured size, least recently used results are evicted
+ * by {@link #evict()}.</p>
+ *
+ * @see SharedCacheConfig
+ */
+@ApplicationScoped
+public class SharedResultCache implements Stateful {
+
+    private static final byte COMPLIANT = 'C';
+    private static final byte SPLICED = 'S';
+
+    // once the maximum size is exceeded, cache is shrunk a bit more, so the eviction doesn't need to run after every publish
+    private static final double EVICTION_LOW_WATERMARK = 0.9;
+
+    // temporary files of interrupted publishes
+    private static final Duration STALE_TEMP_FILE_AGE = Duration.ofHours(1);
+
+    private final CacheFingerprint cacheFingerprint;
+    private final Configuration configuration;
+    private final FileSystem fileSystem;
+
+    private final AtomicLong publishedBytes = new AtomicLong();
+
+    @Inject
+    public SharedResultCache(CacheFingerprint cacheFingerprint, Configuration configuration, FileSystem fileSystem) {
+        this.cacheFingerprint = cacheFingerprint;
+        this.configuration = configuration;
+        this.fileSystem = fileSystem;
+    }
+
+    /**
+     * Returns whether the shared cache is enabled in the configuration.
+     *
+     * @return {@code true} if the shared cache is enabled
+     */
+    public boolean enabled() {
+        return configuration.cache().shared().enabled();
+    }
+
+    /**
+     * Computes key identifying the result of processing given source code content of given language in given run mode. Language is part of the key, as it
+     * determines the license header template and comment syntax, so the same content of different languages yields different results.
+     *
+     * @param content    source code content
+     * @param languageId language of the source code
+     * @param runMode    run mode
+     * @return content key
+     */
+    public ContentKey key(String content, LanguageId languageId, RunMode runMode) {
+        final String hash = Hashing.sha256().newHasher()
+            .putLong(cacheFingerprint.value())
+            .putInt(runMode.ordinal())
+            .putString(languageId.value(), StandardCharsets.UTF_8)
+            .putByte((byte) 0)    // separates language from content, so their boundary is unambiguous
+            .putString(content, StandardCharsets.UTF_8)
+            .hash()
+            .toString();
+
+        return new ContentKey(hash);
+    }
+
+    /**
+     * Looks up result identified by given key.
+     *
+     * @param key content key
+     * @return result, or empty value if no such result is cached
+     */
+    public Optional<Result> lookup(ContentKey key) {
+        if (!enabled()) {
+            return Optional.empty();
+        }
+
+        final Path resultFile = resultFile(key);
+        try {
+            final Optional<Result> result = decode(Files.readAllBytes(resultFile));
+
+            // mark as recently used, so it's not evicted (cache directory might be read-only, which is fine)
+            if (result.isPresent()) {
+                try {
+                    Files.setLastModifiedTime(resultFile, FileTime.fromMillis(System.currentTimeMillis()));
+                } catch (IOException _) {
+                    // keep the previous last modification time
+                }
+            }
+
+            return result;
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Publishes result identified by given key, making it available to other processes using the same cache directory.
+     *
+     * @param key    content key
+     * @param result result to publish
+     * @throws CannotWriteCacheException if the result cannot be written to the cache directory
+     */
+    public void publish(ContentKey key, Result result) {
+        if (!enabled()) {
+            return;
+        }
+
+        final Path resultFile = resultFile(key);
+        final byte[] bytes = encode(result);
+        try {
+            CacheFiles.writeAtomically(resultFile, output -> output.write(bytes));
+            publishedBytes.addAndGet(bytes.length);
+        } catch (IOException e) {
+            throw new CannotWriteCacheException(resultFile, e);
+        }
+    }
+
+    /**
+     * Evicts least recently used results if the cache exceeds the configured maximum size. Does nothing if no result was published since the last eviction,
+     * so the cache directory is not traversed needlessly.
+     *
+     * @throws CannotWriteCacheException if the cache directory cannot be traversed
+     */
+    public void evict() {
+        if (!enabled() || publishedBytes.getAndSet(0) == 0) {
+            return;
+        }
+
+        final SharedCacheConfig config = configuration.cache().shared();
+        final long maxSize = config.maxSizeMb() * 1024L * 1024L;
+        final Path directory = directory();
+
+        final List<ResultFile> resultFiles = new ArrayList<>();
+        long totalSize = 0;
+        try {
+            for (final ResultFile resultFile : listResultFiles(directory)) {
+                if (resultFile.path().getFileName().toString().endsWith(CacheFiles.TEMP_FILE_SUFFIX)) {
+                    deleteIfStale(resultFile);
+                } else {
+                    resultFiles.add(resultFile);
+                    totalSize += resultFile.size();
+                }
+            }
+        } catch (IOException e) {
+            throw new CannotWriteCacheException(directory, e);
+        }
+
+        if (totalSize <= maxSize) {
+            return;
+        }
+
+        resultFiles.sort(Comparator.comparingLong(ResultFile::lastUsed));
+        final long targetSize = (long) (maxSize * EVICTION_LOW_WATERMARK);
+        for (final ResultFile resultFile : resultFiles) {
+            if (totalSize <= targetSize) {
+                break;
+            }
+
+            try {
+                Files.deleteIfExists(resultFile.path());
+            } catch (IOException _) {
+                // might be evicted by another process at the same time
+            }
+            totalSize -= resultFile.size();
+        }
+    }
+
+    /**
+     * Forgets the amount of data published so far.
+     */
+    @Override
+    public void resetState() {
+        Stateful.super.resetState();
+
+        publishedBytes.set(0);
+    }
+
+    Path directory() {
+        return fileSystem.currentDirectory().resolve(configuration.cache().shared().directory());
+    }
+
+    private Path resultFile(ContentKey key) {
+        // first two characters of the hash are used as subdirectory, so no directory contains too many files
+        return directory().resolve(key.hash().substring(0, 2)).resolve(key.hash().substring(2));
+    }
+
+    private static List<ResultFile> listResultFiles(Path directory) throws IOException {
+        final List<ResultFile> resultFiles = new ArrayList<>();
+        if (Files.notExists(directory)) {
+            return resultFiles;
+        }
+
+        Files.walkFileTree(directory, EnumSet.noneOf(FileVisitOption.class), 2, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                if (attributes.isRegularFile()) {
+                    resultFiles.add(new ResultFile(file, attributes.size(), attributes.lastModifiedTime().toMillis()));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) throws IOException {
+                // file might be evicted by another process while walking the directory
+                if (e instanceof NoSuchFileException) {
+                    return FileVisitResult.CONTINUE;
+                }
+                throw e;
+            }
+        });
+
+        return resultFiles;
+    }
+
+    private static void deleteIfStale(ResultFile tempFile) {
+        if (tempFile.lastUsed() < System.currentTimeMillis() - STALE_TEMP_FILE_AGE.toMillis()) {
+            try {
+                Files.deleteIfExists(tempFile.path());
+            } catch (IOException _) {
+                // might be deleted by another process at the same time
+            }
+        }
+    }
+
+    private static byte[] encode(Result result) {
+        return switch (result) {
+            case Result.Compliant _ -> new byte[]{COMPLIANT};
+            case Result.Spliced(var output) -> {
+                final byte[] outputBytes = output.getBytes(StandardCharsets.UTF_8);
+                final byte[] bytes = new byte[outputBytes.length + 1];
+                bytes[0] = SPLICED;
+                System.arraycopy(outputBytes, 0, bytes, 1, outputBytes.length);
+                yield bytes;
+            }
+        };
+    }
+
+    private static Optional<Result> decode(byte[] bytes) {
+        if (bytes.length == 1 && bytes[0] == COMPLIANT) {
+            return Optional.of(Result.Compliant.INSTANCE);
+        } else if (bytes.length > 0 && bytes[0] == SPLICED) {
+            return Optional.of(new Result.Spliced(new String(bytes, 1, bytes.length - 1, StandardCharsets.UTF_8)));
+        } else {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Key identifying the result, derived from the source code content, its language, the run mode and the {@link CacheFingerprint}.
+     *
+     * @param hash hexadecimal representation of the key hash
+     */
+    public record ContentKey(String hash) {
+
+        public ContentKey {
+            nonNull(hash);
+        }
+    }
+
+    /**
+     * Cached result of processing the source code content.
+     */
+    public sealed interface Result permits Result.Compliant, Result.Spliced {
+
+        /**
+         * Source code content is compliant, i.e. processing it doesn't modify it.
+         */
+        record Compliant() implements Result {
+            public static final Compliant INSTANCE = new Compliant();
+        }
+
+        /**
+         * Source code content is modified by processing it.
+         *
+         * @param output source code content after being modified
+         */
+        record Spliced(String output) implements Result {
+
+            public Spliced {
+                nonNull(output);
+            }
+        }
+    }
+
+    private record ResultFile(Path path, long size, long lastUsed) {
+    }
+}
@@ -34,8 +34,7 @@ import com.norcane.lysense.source.comment.CommentDetector;
 import com.norcane.lysense.source.comment.CommentDetectorFactory;
 import com.norcane.toolkit.state.Memoized;
 
-import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -44,15 +43,36 @@ import static com.norcane.toolkit.Prelude.nonNull;
 /**
  * Represents <i>metadata</i> extracted from the source code. Contains details such as position of license header (if found) or possible candidate position for
  * newly generated license header.
+ *
+ * <p>Metadata are stored in compact form - type of every line is stored as single byte and content is kept only for comment lines (the only ones that can
+ * be part of the license header), together with their line indexes. Positions of the <i>put after</i> and <i>put before</i> lines are resolved already when
+ * built, so all queries are proportional to the size of the license header rather than to the size of the source code.</p>
  */
 public class Metadata {
 
-    private final List<Line> lines;
+    private static final byte BLANK = 0;
+    private static final byte COMMENT = 1;
+    private static final byte PUT_AFTER_PATTERN = 2;
+    private static final byte PUT_BEFORE_PATTERN = 3;
+    private static final byte OTHER = 4;
+
+    private static final int NOT_FOUND = -1;
+
+    private final byte[] lineTypes;
+    private final int[] commentLineIndexes;
+    private final String[] comments;
+    private final int putAfterIndex;
+    private final int putBeforeIndex;
+
     private final Memoized<LicenseHeader> header = Memoized.detached();
     private final Memoized<HeaderCandidate> headerCandidate = Memoized.detached();
 
-    private Metadata(List<Line> lines) {
-        this.lines = lines;
+    private Metadata(byte[] lineTypes, int[] commentLineIndexes, String[] comments, int putAfterIndex, int putBeforeIndex) {
+        this.lineTypes = lineTypes;
+        this.commentLineIndexes = commentLineIndexes;
+        this.comments = comments;
+        this.putAfterIndex = putAfterIndex;
+        this.putBeforeIndex = putBeforeIndex;
     }
 
     /**
@@ -73,23 +93,25 @@ public class Metadata {
      */
     public Optional<LicenseHeader> header() {
         return Optional.ofNullable(header.computeIfAbsent(() -> {
-            final int putAfterIndex = putAfterIndex().orElse(0);
-            final int putBeforeIndex = putBeforeIndex().orElse(lines.size());
+            final int regionStart = putAfterIndex != NOT_FOUND ? putAfterIndex : 0;
+            final int regionEnd = putBeforeIndex != NOT_FOUND ? putBeforeIndex : lineTypes.length;
 
-            final List<Line> headerLines = lines.stream()
-                .skip(putAfterIndex)
-                .limit(putBeforeIndex - putAfterIndex)
-                .dropWhile(line -> line.type() != LineType.COMMENT)
-                .takeWhile(line -> line.type() == LineType.COMMENT)
-                .toList();
-
-            if (headerLines.isEmpty()) {
+            // header is the first block of consecutive comment lines within the header region
+            final int first = firstCommentAtOrAfter(regionStart);
+            if (first == commentLineIndexes.length || commentLineIndexes[first] >= regionEnd) {
                 return null;
             }
 
-            final List<String> headerContent = headerLines.stream().map(Line::content).toList();
-            final int startLineIndex = headerLines.getFirst().lineIndex();
-            final int endLineIndex = headerLines.getLast().lineIndex();
+            int last = first;
+            while (last + 1 < commentLineIndexes.length
+                   && commentLineIndexes[last + 1] == commentLineIndexes[last] + 1
+                   && commentLineIndexes[last + 1] < regionEnd) {
+                last++;
+            }
+
+            final List<String> headerContent = List.of(Arrays.copyOfRange(comments, first, last + 1));
+            final int startLineIndex = commentLineIndexes[first];
+            final int endLineIndex = commentLineIndexes[last];
             final int blankLinesAfter = blankLinesAfter(endLineIndex + 1);
             final int blankLinesBefore = blankLinesBefore(startLineIndex);
 
@@ -105,59 +127,65 @@ public class Metadata {
      */
     public HeaderCandidate headerCandidate() {
         return headerCandidate.computeIfAbsent(() -> {
-            final Optional<Integer> putAfterIndex = putAfterIndex();
-            final int blankLinesAfter = blankLinesAfter(putAfterIndex.map(i -> i + 1).orElse(0));
-
-            return new HeaderCandidate(putAfterIndex.map(i -> i + 1).orElse(0), blankLinesAfter);
+            final int candidateLine = putAfterIndex != NOT_FOUND ? putAfterIndex + 1 : 0;
 
+            return new HeaderCandidate(candidateLine, blankLinesAfter(candidateLine));
         });
     }
 
     Optional<Integer> putAfterIndex() {
-        return lines.stream()
-            .filter(line -> line.type() == LineType.PUT_AFTER_PATTERN)
-            .findFirst()
-            .map(Line::lineIndex);
+        return putAfterIndex != NOT_FOUND ? Optional.of(putAfterIndex) : Optional.empty();
     }
 
     Optional<Integer> putBeforeIndex() {
-        return lines.stream()
-            .filter(line -> line.type() == LineType.PUT_BEFORE_PATTERN)
-            .reduce((first, _) -> first)
-            .map(Line::lineIndex);
+        return putBeforeIndex != NOT_FOUND ? Optional.of(putBeforeIndex) : Optional.empty();
+    }
+
+    private int firstCommentAtOrAfter(int lineIndex) {
+        final int found = Arrays.binarySearch(commentLineIndexes, lineIndex);
+        return found >= 0 ? found : -(found + 1);
     }
 
     private int blankLinesAfter(int lineIndex) {
-        return lines.stream()
-            .skip(lineIndex)
-            .takeWhile(line -> line.type() == LineType.BLANK)
-            .toList()
-            .size();
+        int index = lineIndex;
+        while (index < lineTypes.length && lineTypes[index] == BLANK) {
+            index++;
+        }
+
+        return index - lineIndex;
     }
 
     private int blankLinesBefore(int lineIndex) {
-        return lines.stream()
-            .limit(lineIndex)
-            .sorted(Comparator.comparing(Line::lineIndex).reversed())
-            .takeWhile(line -> line.type() == LineType.BLANK)
-            .toList()
-            .size();
+        int index = lineIndex;
+        while (index > 0 && lineTypes[index - 1] == BLANK) {
+            index--;
+        }
+
+        return lineIndex - index;
     }
 
     /**
      * <i>Builder</i> class to construct new instance of {@link Metadata}.
      */
     public static class Builder {
+        private static final int INITIAL_CAPACITY = 64;
+
         private final CommentDetector commentDetector;
         private final HeaderDetectionRules headerDetectionRules;
-        private final List<Line> lines;
+
+        private byte[] lineTypes = new byte[INITIAL_CAPACITY];
+        private int lineCount = 0;
+        private int[] commentLineIndexes = new int[INITIAL_CAPACITY];
+        private String[] comments = new String[INITIAL_CAPACITY];
+        private int commentCount = 0;
+        private int putAfterIndex = NOT_FOUND;
+        private int putBeforeIndex = NOT_FOUND;
 
         public Builder(CommentDetectorFactory commentDetectorFactory,
                        HeaderDetectionRules headerDetectionRules) {
 
             this.commentDetector = nonNull(commentDetectorFactory).create();
             this.headerDetectionRules = nonNull(headerDetectionRules);
-            this.lines = new ArrayList<>();
         }
 
         /**
@@ -169,22 +197,32 @@ public class Metadata {
         public Builder addLine(String line) {
 
             if (line == null || line.isBlank()) {
-                return registerLine(LineType.BLANK, null);
+                return registerLine(BLANK, null);
             }
 
             if (headerDetectionRules.isPutAfter(line)) {
-                return registerLine(LineType.PUT_AFTER_PATTERN, null);
+                return registerLine(PUT_AFTER_PATTERN, null);
             }
 
             if (headerDetectionRules.isPutBefore(line)) {
-                return registerLine(LineType.PUT_BEFORE_PATTERN, null);
+                return registerLine(PUT_BEFORE_PATTERN, null);
             }
 
             if (commentDetector.isComment(line)) {
-                return registerLine(LineType.COMMENT, line);
+                return registerLine(COMMENT, line);
             }
 
-            return registerLine(LineType.OTHER, null);
+            return registerLine(OTHER, null);
+        }
+
+        /**
+         * Returns whether the <i>header region</i> is complete, i.e. whether the first line matching the <i>put before</i> pattern was already added. Any
+         * lines added after that won't change the detected license header or header candidate.
+         *
+         * @return {@code true} if the header region is complete
+         */
+        public boolean isHeaderRegionComplete() {
+            return putBeforeIndex != NOT_FOUND;
         }
 
         /**
@@ -193,23 +231,35 @@ public class Metadata {
          * @return new instance
          */
         public Metadata build() {
-            return new Metadata(lines);
+            return new Metadata(Arrays.copyOf(lineTypes, lineCount),
+                                Arrays.copyOf(commentLineIndexes, commentCount),
+                                Arrays.copyOf(comments, commentCount),
+                                putAfterIndex,
+                                putBeforeIndex);
         }
 
-        private Builder registerLine(LineType lineType, String line) {
-            lines.add(new Line(lines.size(), lineType, line));
-            return this;
-        }
-    }
+        private Builder registerLine(byte lineType, String line) {
+            final int lineIndex = lineCount++;
 
-    private record Line(int lineIndex, LineType type, String content) {
-    }
+            if (lineIndex == lineTypes.length) {
+                lineTypes = Arrays.copyOf(lineTypes, lineTypes.length * 2);
+            }
+            lineTypes[lineIndex] = lineType;
+
+            if (lineType == COMMENT) {
+                if (commentCount == comments.length) {
+                    commentLineIndexes = Arrays.copyOf(commentLineIndexes, commentLineIndexes.length * 2);
+                    comments = Arrays.copyOf(comments, comments.length * 2);
+                }
+                commentLineIndexes[commentCount] = lineIndex;
+                comments[commentCount++] = line;
+            } else if (lineType == PUT_AFTER_PATTERN && putAfterIndex == NOT_FOUND) {
+                putAfterIndex = lineIndex;
+            } else if (lineType == PUT_BEFORE_PATTERN && putBeforeIndex == NOT_FOUND) {
+                putBeforeIndex = lineIndex;
+            }
 
-    private enum LineType {
-        BLANK,
-        COMMENT,
-        PUT_AFTER_PATTERN,
-        PUT_BEFORE_PATTERN,
-        OTHER
+            return this;
+        }
     }
 }
@@ -34,7 +34,9 @@ import com.norcane.lysense.configuration.api.HeaderConfig;
 import com.norcane.lysense.configuration.api.HeaderStyle;
 import com.norcane.lysense.domain.LanguageId;
 import com.norcane.lysense.resource.Resource;
+import com.norcane.lysense.resource.buffered.BufferedResource;
 import com.norcane.lysense.resource.exception.CannotReadResourceException;
+import com.norcane.lysense.source.AnalysisMode;
 import com.norcane.lysense.source.HeaderDetectionRules;
 import com.norcane.lysense.source.SourceCode;
 import com.norcane.lysense.source.comment.CommentDetectorFactory;
@@ -43,9 +45,10 @@ import com.norcane.lysense.source.variables.PatternVariablesExtractor;
 import com.norcane.lysense.source.variables.VariablesExtractor;
 import com.norcane.lysense.template.Variables;
 
-import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.Reader;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -58,6 +61,8 @@ import java.util.regex.Pattern;
  */
 public final class SourceCodeSupport {
 
+    private static final int HEADER_READ_CHUNK_SIZE = 8192;
+
     private final Configuration configuration;
     private final LanguageId languageId;
     private final Set<String> resourceExtensions;
@@ -112,29 +117,87 @@ public final class SourceCodeSupport {
 
     /**
      * Loads and analyzes source code from given resource. <i>Analysis</i> means trying to find any existing <i>license header</i> and extracting all needed
-     * <i>dynamic variables</i>.
+     * <i>dynamic variables</i>. The resource content is read only once and the returned source code holds it as {@link BufferedResource}, so subsequent
+     * operations (e.g. line separator detection or splicing the header) don't need to read the resource again.
      *
      * @param resource resource to load source code from
      * @return loaded and analyzed source code
      * @throws CannotReadResourceException thrown if given resource cannot be read
      */
     public SourceCode load(Resource resource) {
+        return load(resource, AnalysisMode.FULL);
+    }
+
+    /**
+     * Same as {@link #load(Resource)}, but allows to choose how much of the source code is analyzed. When using {@link AnalysisMode#HEADER}, the resource is
+     * read only until the license header region and all dynamic variables are settled, so the amount of read data depends on the header size rather than on
+     * the size of the source code. Small source codes are usually read completely anyway, otherwise the returned {@link BufferedResource} holds only the read
+     * prefix (and falls back to the resource itself if the whole content is needed later).
+     *
+     * @param resource     resource to load source code from
+     * @param analysisMode analysis mode
+     * @return loaded and analyzed source code
+     * @throws CannotReadResourceException thrown if given resource cannot be read
+     */
+    public SourceCode load(Resource resource, AnalysisMode analysisMode) {
         final CommentDetectorFactory commentDetectorFactory = commentDetectorFactoryFn.apply(configuration.headerConfigOrFail(languageId).headerStyle());
+        final LineAnalyzer analyzer = new LineAnalyzer(Metadata.builder(commentDetectorFactory, headerDetectionRules));
+
+        final BufferedResource bufferedResource = switch (analysisMode) {
+            case FULL -> analyzeFully(resource, analyzer);
+            case HEADER -> analyzeHeader(resource, analyzer);
+        };
+
+        return new SourceCode(languageId, bufferedResource, Variables.from(analyzer.variables), analyzer.metadataBuilder.build());
+    }
+
+    private BufferedResource analyzeFully(Resource resource, LineAnalyzer analyzer) {
+        final BufferedResource bufferedResource = BufferedResource.of(resource);
+        bufferedResource.readAsString().lines().forEach(analyzer::analyze);
 
-        final List<Variables.Variable> variables = new ArrayList<>();
-        final Metadata.Builder metadataBuilder = Metadata.builder(commentDetectorFactory, headerDetectionRules);
+        return bufferedResource;
+    }
 
-        try (final BufferedReader reader = new BufferedReader(resource.reader())) {
-            String line;
-            while ((line = (reader.readLine())) != null) {
-                metadataBuilder.addLine(line);
-                variablesExtractor.extract(line).ifPresent(variables::add);
+    private BufferedResource analyzeHeader(Resource resource, LineAnalyzer analyzer) {
+        final StringBuilder content = new StringBuilder();
+        final char[] chunk = new char[HEADER_READ_CHUNK_SIZE];
+
+        try (final Reader reader = resource.reader()) {
+            int lineStart = 0;
+            int position = 0;
+            boolean skipLineFeed = false;
+            boolean settled = false;
+
+            while (!settled) {
+                final int read = reader.read(chunk);
+                if (read == -1) {
+                    // same as String#lines, last line without line separator is still a line
+                    if (lineStart < content.length()) {
+                        analyzer.analyze(content.substring(lineStart));
+                    }
+                    return BufferedResource.of(resource, content.toString(), true);
+                }
+
+                content.append(chunk, 0, read);
+                for (; position < content.length() && !settled; position++) {
+                    final char c = content.charAt(position);
+
+                    if (skipLineFeed && c == '\n') {
+                        lineStart = position + 1;
+                    } else if (c == '\n' || c == '\r') {
+                        settled = analyzer.analyze(content.substring(lineStart, position));
+                        lineStart = position + 1;
+                    }
+
+                    skipLineFeed = c == '\r';
+                }
             }
+
+            // try to read once more, small resources are likely to be read completely by now
+            return BufferedResource.of(resource, content.toString(), reader.read(chunk) == -1);
         } catch (IOException e) {
             throw new CannotReadResourceException(resource, e);
         }
-
-        return new SourceCode(languageId, resource, Variables.from(variables), metadataBuilder.build());
     }
 
     /**
@@ -333,4 +396,30 @@ public final class SourceCodeSupport {
             }
         }
     }
+
+    /**
+     * Analyzes source code line by line and tracks whether the analysis results are already settled.
+     */
+    private final class LineAnalyzer {
+        private final Metadata.Builder metadataBuilder;
+        private final List<Variables.Variable> variables = new ArrayList<>();
+        private final Set<String> pendingVariables = new HashSet<>(variablesExtractor.variableNames());
+
+        private LineAnalyzer(Metadata.Builder metadataBuilder) {
+            this.metadataBuilder = metadataBuilder;
+        }
+
+        /**
+         * Analyzes given line and returns whether the license header region is complete and all dynamic variables were extracted.
+         */
+        private boolean analyze(String line) {
+            metadataBuilder.addLine(line);
+            variablesExtractor.extract(line).ifPresent(variable -> {
+                variables.add(variable);
+                pendingVariables.remove(variable.name());
+            });
+
+            return metadataBuilder.isHeaderRegionComplete() && pendingVariables.isEmpty();
+        }
+    }
 }
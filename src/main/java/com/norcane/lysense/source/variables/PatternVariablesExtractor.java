@@ -33,6 +33,7 @@ import com.norcane.lysense.template.Variables;
 
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -71,4 +72,9 @@ public class PatternVariablesExtractor implements VariablesExtractor {
 
         return Optional.empty();
     }
+
+    @Override
+    public Set<String> variableNames() {
+        return patterns.keySet();
+    }
 }
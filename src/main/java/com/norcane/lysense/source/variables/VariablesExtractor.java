@@ -32,6 +32,7 @@ package com.norcane.lysense.source.variables;
 import com.norcane.lysense.template.Variables;
 
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Extracts {@link Variables} from analyzed source code that will be later used for license header templates pattern variables.
@@ -46,6 +47,15 @@ public interface VariablesExtractor {
      */
     Optional<Variables.Variable> extract(String line);
 
+    /**
+     * Returns names of all variables this extractor is able to extract.
+     *
+     * @return names of extracted variables
+     */
+    default Set<String> variableNames() {
+        return Set.of();
+    }
+
     /**
      * Instance of {@link VariablesExtractor} that doesn't extract anything.
      *
@@ -29,6 +29,10 @@
  */
 package com.norcane.lysense.splicer;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
 /**
  * Represents a <i>splicing operation</i> that can be used to splice a content of given <i>resource</i> with new content.
  *
@@ -38,6 +42,27 @@ public sealed interface Operation permits Operation.AddSection,
                                           Operation.DropSection,
                                           Operation.ReplaceSection {
 
+    /**
+     * Returns the first line affected by the operation. Note that lines are indexed from 1.
+     *
+     * @return starting line
+     */
+    int startLine();
+
+    /**
+     * Returns the line following the last line of the resource affected by the operation, which equals to the {@link #startLine()} if no existing line is
+     * affected (i.e. the section is only added).
+     *
+     * @return ending line (excluding)
+     */
+    default int endLineExclusive() {
+        return switch (this) {
+            case AddSection addSection -> addSection.startLine();
+            case DropSection dropSection -> dropSection.endLine() + 1;
+            case ReplaceSection replaceSection -> replaceSection.endLine() + 1;
+        };
+    }
+
     /**
      * Adds new section to the resource at given starting line and moves the existing content. Note that lines are indexed from 1.
      *
@@ -96,4 +121,29 @@ public sealed interface Operation permits Operation.AddSection,
     static ReplaceSection replaceSection(int startLine, int endLine, String section) {
         return new ReplaceSection(startLine, endLine, section);
     }
+
+    /**
+     * Returns given operations ordered by their position in the resource, so they can be applied in a single pass. Sections added at the same line keep their
+     * relative order and precede any other operation starting at that line.
+     *
+     * @param operations operations to order
+     * @return ordered operations
+     * @throws IllegalArgumentException if any operations overlap
+     */
+    static List<Operation> ordered(List<? extends Operation> operations) {
+        // sorting is stable, so sections added at the same line keep their order
+        final List<Operation> ordered = new ArrayList<>(operations);
+        ordered.sort(Comparator.comparingInt(Operation::startLine).thenComparingInt(Operation::endLineExclusive));
+
+        for (int i = 1; i < ordered.size(); i++) {
+            final Operation previous = ordered.get(i - 1);
+            final Operation current = ordered.get(i);
+
+            if (current.startLine() < previous.endLineExclusive()) {
+                throw new IllegalArgumentException("Splicing operations %s and %s overlap".formatted(previous, current));
+            }
+        }
+
+        return ordered;
+    }
 }
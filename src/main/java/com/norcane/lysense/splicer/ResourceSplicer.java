@@ -31,6 +31,8 @@ package com.norcane.lysense.splicer;
 
 import com.norcane.lysense.resource.WritableResource;
 
+import java.util.List;
+
 /**
  * <i>Splicer</i> allows to splice (e.g. cut a piece off, append) content of given {@link WritableResource} with the content defined by the {@link Operation}.
  * This operation is <b>mutable</b> and the content of the original resource is modified.
@@ -46,5 +48,18 @@ public interface ResourceSplicer {
      * @param resource  resource to be spliced
      * @param operation splicing operation
      */
-    void splice(WritableResource resource, Operation operation);
+    default void splice(WritableResource resource, Operation operation) {
+        splice(resource, List.of(operation));
+    }
+
+    /**
+     * Splices the content of given {@link WritableResource} with the content defined by all given {@link Operation}s, reading and writing the resource only
+     * once. Line numbers of all operations refer to the original content of the resource, operations can be given in any order.
+     *
+     * @param resource   resource to be spliced
+     * @param operations splicing operations
+     * @throws IllegalArgumentException if any operations overlap
+     * @see Operation#ordered(List)
+     */
+    void splice(WritableResource resource, List<? extends Operation> operations);
 }
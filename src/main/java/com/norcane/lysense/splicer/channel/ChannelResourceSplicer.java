@@ -0,0 +1,332 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.splicer.channel;
+
+import com.norcane.lysense.resource.Resource;
+import com.norcane.lysense.resource.WritableResource;
+import com.norcane.lysense.resource.buffered.BufferedResource;
+import com.norcane.lysense.resource.exception.CannotWriteResourceException;
+import com.norcane.lysense.resource.filesystem.FileSystemResource;
+import com.norcane.lysense.splicer.Operation;
+import com.norcane.lysense.splicer.ResourceSplicer;
+import com.norcane.lysense.splicer.weaving.WeavingResourceSplicer;
+import com.norcane.lysense.splicer.writer.FileReplacement;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Alternative;
+import jakarta.inject.Inject;
+
+/**
+ * Implementation of {@link ResourceSplicer} that rewrites files on the byte level using {@link FileChannel}. Only the spliced sections are encoded and
+ * written into the temporary file, all other parts of the file (most importantly the remainder after the license header) are copied using
+ * {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}, which avoids decoding and encoding them and may not even copy them
+ * through the user space. The temporary file then atomically replaces the original one (see {@link FileReplacement}).
+ *
+ * <p>Byte offsets of the spliced sections are found in the content already loaded by the {@link BufferedResource} (if available), and the file is checked
+ * to still contain the same bytes up to the end of the last section, otherwise only as much of the file as needed is scanned. Splicing of resources not
+ * backed by a file, operations pointing beyond the loaded content or files changed since they were loaded is delegated to the
+ * {@link WeavingResourceSplicer}. Both splicers keep line separators of lines outside the spliced sections as they are, spliced sections use the line
+ * separator of the resource.</p>
+ *
+ * <p>Files are expected to be encoded in <i>UTF-8</i> (or any other encoding compatible with <i>ASCII</i> line separators), same as when read by the
+ * {@link FileSystemResource}.</p>
+ */
+@Alternative
+@Priority(1)
+@ApplicationScoped
+public class ChannelResourceSplicer implements ResourceSplicer {
+
+    private static final int SCAN_BUFFER_SIZE = 8192;
+
+    private final WeavingResourceSplicer fallbackSplicer;
+
+    @Inject
+    public ChannelResourceSplicer(WeavingResourceSplicer fallbackSplicer) {
+        this.fallbackSplicer = fallbackSplicer;
+    }
+
+    @Override
+    public void splice(WritableResource resource, List<? extends Operation> operations) {
+        final List<Operation> ordered = Operation.ordered(operations);
+        final Optional<Path> path = FileSystemResource.pathOf(resource);
+
+        if (path.isEmpty() || !splice(path.get(), ordered, resource)) {
+            fallbackSplicer.splice(resource, ordered);
+        }
+    }
+
+    /**
+     * Splices given file, returns {@code false} if the sections to splice cannot be located (and file was not modified).
+     */
+    private boolean splice(Path path, List<Operation> operations, WritableResource resource) {
+        try (final FileReplacement replacement = FileReplacement.of(path)) {
+            // source is closed before the replacement is committed, as replacing an open file is not possible on some platforms
+            try (final FileChannel source = FileChannel.open(replacement.target(), StandardOpenOption.READ)) {
+                final Optional<List<Section>> sections = resource instanceof BufferedResource buffered
+                                                         ? locateLoaded(source, operations, buffered)
+                                                         : locate(source, operations, resource);
+                if (sections.isEmpty()) {
+                    return false;
+                }
+
+                try (final FileChannel target = FileChannel.open(replacement.tempFile(), StandardOpenOption.WRITE)) {
+                    write(source, sections.get(), target);
+                }
+            }
+
+            replacement.commit();
+            return true;
+        } catch (IOException e) {
+            throw new CannotWriteResourceException(resource, e);
+        }
+    }
+
+    /**
+     * Finds byte offsets of sections affected by given (ordered) operations, scanning only as much of the file as needed. Empty value is returned if start
+     * line of any operation is beyond the end of the file.
+     */
+    private Optional<List<Section>> locate(FileChannel channel, List<Operation> operations, Resource resource) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        final LineScanner scanner = new LineScanner(operations);
+
+        long position = 0;
+        while (!scanner.done()) {
+            buffer.clear();
+            final int read = channel.read(buffer, position);
+            if (read < 0) {
+                scanner.endOfFile(position);
+                break;
+            }
+
+            for (int i = 0; i < read && !scanner.done(); i++) {
+                scanner.next(buffer.get(i), position + i);
+            }
+            position += read;
+        }
+
+        return sections(scanner, operations, resource, channel.size());
+    }
+
+    /**
+     * Finds byte offsets of sections affected by given (ordered) operations in the already loaded content. Empty value is returned if any section is not
+     * within the loaded content, or the file no longer starts with the loaded content up to the end of the last section.
+     */
+    private Optional<List<Section>> locateLoaded(FileChannel channel, List<Operation> operations, BufferedResource resource) throws IOException {
+        final byte[] loaded = resource.bufferedContent().getBytes(StandardCharsets.UTF_8);
+        final LineScanner scanner = new LineScanner(operations);
+
+        for (int i = 0; i < loaded.length && !scanner.done(); i++) {
+            scanner.next(loaded[i], i);
+        }
+        if (resource.isComplete()) {
+            scanner.endOfFile(loaded.length);
+        } else if (!scanner.done()) {
+            return Optional.empty();
+        }
+
+        final Optional<List<Section>> sections = sections(scanner, operations, resource, loaded.length);
+        final long splicedLength = sections.map(found -> found.isEmpty() ? 0 : found.getLast().end()).orElse(0L);
+
+        return sections.isPresent() && startsWith(channel, loaded, splicedLength) ? sections : Optional.empty();
+    }
+
+    private static Optional<List<Section>> sections(LineScanner scanner, List<Operation> operations, Resource resource, long size) {
+        final List<Section> sections = new ArrayList<>(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            final long start = scanner.offset(i * 2);
+            final long end = scanner.offset(i * 2 + 1);
+
+            if (start == LineScanner.NOT_FOUND) {
+                return Optional.empty();
+            }
+
+            // section ending beyond the end of the file spans to the end of the file
+            sections.add(new Section(start, end != LineScanner.NOT_FOUND ? end : size, encode(operations.get(i), resource)));
+        }
+
+        return Optional.of(sections);
+    }
+
+    /**
+     * Checks that the file starts with given number of bytes of the expected content, i.e. the spliced sections were not changed since the file was loaded.
+     */
+    private static boolean startsWith(FileChannel channel, byte[] expected, long length) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(length, SCAN_BUFFER_SIZE));
+
+        long position = 0;
+        while (position < length) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), length - position));
+            final int read = channel.read(buffer, position);
+            if (read < 0 || !Arrays.equals(buffer.array(), 0, read, expected, (int) position, (int) position + read)) {
+                return false;
+            }
+            position += read;
+        }
+
+        return true;
+    }
+
+    /**
+     * Writes new content of the sections into the target, copying all bytes of the source between them (and after the last one) as they are.
+     */
+    private static void write(FileChannel source, List<Section> sections, FileChannel target) throws IOException {
+        long position = 0;
+        for (final Section section : sections) {
+            transfer(source, position, section.start() - position, target);
+            writeFully(target, section.content());
+            position = section.end();
+        }
+
+        transfer(source, position, source.size() - position, target);
+    }
+
+    private static void transfer(FileChannel source, long position, long count, FileChannel target) throws IOException {
+        long transferred = 0;
+        while (transferred < count) {
+            final long current = source.transferTo(position + transferred, count - transferred, target);
+            if (current <= 0) {
+                throw new IOException("File has been truncated while being spliced");
+            }
+            transferred += current;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, byte[] content) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(content);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static byte[] encode(Operation operation, Resource resource) {
+        final String content = switch (operation) {
+            case Operation.AddSection(_, var section) -> section;
+            case Operation.DropSection _ -> "";
+            case Operation.ReplaceSection(_, _, var section) -> section;
+        };
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final byte[] separator = resource.lineSeparator().separator().getBytes(StandardCharsets.UTF_8);
+        content.lines().forEach(line -> {
+            output.writeBytes(line.getBytes(StandardCharsets.UTF_8));
+            output.writeBytes(separator);
+        });
+
+        return output.toByteArray();
+    }
+
+    /**
+     * Byte offsets of the spliced section (start including, end excluding) and its new content.
+     */
+    private record Section(long start, long end, byte[] content) {
+    }
+
+    /**
+     * Tracks line numbers while scanning the file byte by byte and records offsets where the requested lines (given in ascending order) begin. New line begins
+     * after the <i>LF</i>, <i>CR</i> or <i>CRLF</i> line separator, the line beginning at the very end of the file exists only if the file ends with line
+     * separator.
+     */
+    private static final class LineScanner {
+
+        static final long NOT_FOUND = -1;
+
+        private final int[] lines;
+        private final long[] offsets;
+        private int resolved = 0;
+
+        private int line = 1;
+        private boolean afterSeparator = false;
+        private byte previous = 0;
+
+        private LineScanner(List<Operation> operations) {
+            this.lines = new int[operations.size() * 2];
+            this.offsets = new long[lines.length];
+
+            for (int i = 0; i < operations.size(); i++) {
+                lines[i * 2] = operations.get(i).startLine();
+                lines[i * 2 + 1] = operations.get(i).endLineExclusive();
+            }
+
+            Arrays.fill(offsets, NOT_FOUND);
+            lineBegins(0);
+        }
+
+        void next(byte current, long position) {
+            if (afterSeparator && !(previous == '\r' && current == '\n')) {
+                line++;
+                lineBegins(position);
+                afterSeparator = false;
+            }
+
+            if (current == '\n' || current == '\r') {
+                afterSeparator = true;
+            }
+            previous = current;
+        }
+
+        void endOfFile(long position) {
+            if (afterSeparator) {
+                line++;
+                lineBegins(position);
+            }
+        }
+
+        boolean done() {
+            return resolved == lines.length;
+        }
+
+        long offset(int index) {
+            return offsets[index];
+        }
+
+        private void lineBegins(long position) {
+            // lines lower than the current one (i.e. invalid) are never found
+            while (resolved < lines.length && lines[resolved] <= line) {
+                if (lines[resolved] == line) {
+                    offsets[resolved] = position;
+                }
+                resolved++;
+            }
+        }
+    }
+}
@@ -29,15 +29,243 @@
  */
 package com.norcane.lysense.splicer.weaving;
 
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.StringJoiner;
+
 /**
- * Represents a single execution plan for the {@link WeavingResourceSplicer} that describes how to splice new content into the resource, using the optimized
- * instruction set.
+ * Represents an <i>execution plan</i> for the {@link WeavingResourceSplicer} that describes how to splice new content into the resource, produced by the
+ * {@link InstructionCompiler}.
+ *
+ * <p>Plan is stored in compact, flat form - a sequence of instructions, each consisting of single byte <i>opcode</i> and run-length <i>count</i>, and a single
+ * <i>text</i> buffer containing all inserted lines (without line separators) together with offsets of these lines. Instructions are executed in order and once
+ * all are executed, the rest of the source resource is copied to the target:</p>
+ * <ul>
+ *     <li>{@link #COPY} - copies next <i>count</i> lines from the source to the target, execution stops if the end of the source is reached,</li>
+ *     <li>{@link #SKIP} - skips next <i>count</i> lines of the source,</li>
+ *     <li>{@link #INSERT} - inserts next <i>count</i> lines from the text buffer into the target.</li>
+ * </ul>
  *
- * @param line        line where the splicing should happen
- * @param instruction instruction that should be executed
- * @see Instruction
  * @see InstructionCompiler
  * @see WeavingResourceSplicer
  */
-public record ExecutionPlan(int line, Instruction instruction) {
+public final class ExecutionPlan {
+
+    public static final byte COPY = 0;
+    public static final byte SKIP = 1;
+    public static final byte INSERT = 2;
+
+    private static final String[] OPCODE_NAMES = {"COPY", "SKIP", "INSERT"};
+
+    private final byte[] opcodes;
+    private final int[] counts;
+    private final String text;
+    private final int[] lineOffsets;
+
+    private ExecutionPlan(byte[] opcodes, int[] counts, String text, int[] lineOffsets) {
+        this.opcodes = opcodes;
+        this.counts = counts;
+        this.text = text;
+        this.lineOffsets = lineOffsets;
+    }
+
+    /**
+     * Returns <i>builder</i> used to construct new instance of {@link ExecutionPlan}.
+     *
+     * @return builder instance
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns number of instructions in this plan.
+     *
+     * @return number of instructions
+     */
+    public int size() {
+        return opcodes.length;
+    }
+
+    /**
+     * Returns opcode of the instruction at given index.
+     *
+     * @param index instruction index
+     * @return opcode
+     */
+    public byte opcode(int index) {
+        return opcodes[index];
+    }
+
+    /**
+     * Returns count of the instruction at given index.
+     *
+     * @param index instruction index
+     * @return count
+     */
+    public int count(int index) {
+        return counts[index];
+    }
+
+    /**
+     * Returns text buffer containing all inserted lines.
+     *
+     * @return text buffer
+     */
+    public String text() {
+        return text;
+    }
+
+    /**
+     * Returns offset of the inserted line with given index within the {@link #text()} buffer.
+     *
+     * @param line line index
+     * @return line offset
+     */
+    public int lineStart(int line) {
+        return lineOffsets[line];
+    }
+
+    /**
+     * Returns length of the inserted line with given index.
+     *
+     * @param line line index
+     * @return line length
+     */
+    public int lineLength(int line) {
+        return lineOffsets[line + 1] - lineOffsets[line];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final ExecutionPlan that = (ExecutionPlan) o;
+        return Arrays.equals(opcodes, that.opcodes)
+               && Arrays.equals(counts, that.counts)
+               && text.equals(that.text)
+               && Arrays.equals(lineOffsets, that.lineOffsets);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(Arrays.hashCode(opcodes), Arrays.hashCode(counts), text, Arrays.hashCode(lineOffsets));
+    }
+
+    @Override
+    public String toString() {
+        final StringJoiner joiner = new StringJoiner(", ", "ExecutionPlan[", "]");
+        for (int i = 0; i < opcodes.length; i++) {
+            joiner.add(OPCODE_NAMES[opcodes[i]] + " " + counts[i]);
+        }
+
+        return joiner.toString();
+    }
+
+    public static class Builder {
+        private static final int INITIAL_CAPACITY = 8;
+
+        private byte[] opcodes = new byte[INITIAL_CAPACITY];
+        private int[] counts = new int[INITIAL_CAPACITY];
+        private int size = 0;
+        private final StringBuilder text = new StringBuilder();
+        private int[] lineOffsets = new int[INITIAL_CAPACITY + 1];
+        private int lineCount = 0;
+
+        private Builder() {
+        }
+
+        /**
+         * Adds instruction copying given number of source lines.
+         *
+         * @param count number of lines
+         * @return builder instance
+         */
+        public Builder copy(int count) {
+            return addInstruction(COPY, count);
+        }
+
+        /**
+         * Adds instruction skipping given number of source lines.
+         *
+         * @param count number of lines
+         * @return builder instance
+         */
+        public Builder skip(int count) {
+            return addInstruction(SKIP, count);
+        }
+
+        /**
+         * Adds instruction inserting all lines of given section. Lines are split the same way as by {@link String#lines()}.
+         *
+         * @param section section to insert
+         * @return builder instance
+         */
+        public Builder insert(String section) {
+            final int length = section.length();
+            int inserted = 0;
+
+            int start = 0;
+            while (start < length) {
+                int end = start;
+                while (end < length && section.charAt(end) != '\n' && section.charAt(end) != '\r') {
+                    end++;
+                }
+
+                addLine(section, start, end);
+                inserted++;
+
+                start = (end + 1 < length && section.charAt(end) == '\r' && section.charAt(end + 1) == '\n') ? end + 2 : end + 1;
+            }
+
+            return addInstruction(INSERT, inserted);
+        }
+
+        /**
+         * Constructs new instance of {@link ExecutionPlan}.
+         *
+         * @return new instance
+         */
+        public ExecutionPlan build() {
+            return new ExecutionPlan(Arrays.copyOf(opcodes, size),
+                                     Arrays.copyOf(counts, size),
+                                     text.toString(),
+                                     Arrays.copyOf(lineOffsets, lineCount + 1));
+        }
+
+        private Builder addInstruction(byte opcode, int count) {
+            if (count <= 0) {
+                return this;
+            }
+
+            // subsequent instructions of the same kind are merged into single one
+            if (size > 0 && opcodes[size - 1] == opcode) {
+                counts[size - 1] += count;
+                return this;
+            }
+
+            if (size == opcodes.length) {
+                opcodes = Arrays.copyOf(opcodes, size * 2);
+                counts = Arrays.copyOf(counts, size * 2);
+            }
+            opcodes[size] = opcode;
+            counts[size] = count;
+            size++;
+
+            return this;
+        }
+
+        private void addLine(String section, int start, int end) {
+            text.append(section, start, end);
+
+            if (lineCount + 1 == lineOffsets.length) {
+                lineOffsets = Arrays.copyOf(lineOffsets, lineOffsets.length * 2);
+            }
+            lineOffsets[++lineCount] = text.length();
+        }
+    }
 }
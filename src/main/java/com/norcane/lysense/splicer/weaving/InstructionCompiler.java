@@ -29,64 +29,53 @@
  */
 package com.norcane.lysense.splicer.weaving;
 
-import com.norcane.lysense.resource.inline.InlineResource;
 import com.norcane.lysense.splicer.Operation;
 
-import java.util.Collections;
 import java.util.List;
-import java.util.stream.Stream;
 
 import jakarta.enterprise.context.ApplicationScoped;
 
 /**
- * Compiler that produces optimized {@link ExecutionPlan} based on given {@link Operation} that allows to execute splicing using {@link WeavingResourceSplicer}
+ * Compiler that produces optimized {@link ExecutionPlan} based on given {@link Operation}s that allows to execute splicing using {@link WeavingResourceSplicer}
  * in the most efficient way.
  *
  * @see ExecutionPlan
- * @see Instruction
  * @see WeavingResourceSplicer
  */
 @ApplicationScoped
 public class InstructionCompiler {
 
     /**
-     * Compiles given {@link Operation} into optimized {@link ExecutionPlan} of {@link Instruction}s that can be executed by the
-     * {@link WeavingResourceSplicer}.
+     * Compiles given {@link Operation} into optimized {@link ExecutionPlan} that can be executed by the {@link WeavingResourceSplicer}.
      *
      * @param operation operation to be compiled
      */
     public ExecutionPlan compile(Operation operation) {
-        return switch (operation) {
-            case Operation.AddSection(var startLine, var endLine) -> compileAddSection(startLine, endLine);
-            case Operation.DropSection(var startLine, var endLine) -> compileDropSection(startLine, endLine);
-            case Operation.ReplaceSection(var startLine, var endLine, var section) -> compileReplaceSection(startLine, endLine, section);
-        };
+        return compile(List.of(operation));
     }
 
-    private ExecutionPlan compileAddSection(int startLine, String section) {
-        final Stream<? extends Instruction> instructions = InlineResource.of(section).readLines().stream()
-            .map(Instruction::insertLine);
-
-        return new ExecutionPlan(
-            startLine,
-            Instruction.composite(Stream.concat(instructions, Stream.of(Instruction.writeSourceLine())).toList()));
-    }
-
-    private ExecutionPlan compileDropSection(int startLine, int endLine) {
-        final Instruction instruction = startLine == endLine
-                                        ? Instruction.skipSourceLine()
-                                        : Instruction.composite(Collections.nCopies((endLine - startLine) + 1, Instruction.skipSourceLine()));
+    /**
+     * Compiles given {@link Operation}s into single optimized {@link ExecutionPlan} that applies all of them in a single pass over the resource.
+     *
+     * @param operations operations to be compiled, in any order
+     * @throws IllegalArgumentException if any operations overlap
+     */
+    public ExecutionPlan compile(List<? extends Operation> operations) {
+        final ExecutionPlan.Builder builder = ExecutionPlan.builder();
 
-        return new ExecutionPlan(startLine, instruction);
-    }
+        int currentLine = 1;
+        for (final Operation operation : Operation.ordered(operations)) {
+            builder.copy(operation.startLine() - currentLine);
 
-    private ExecutionPlan compileReplaceSection(int startLine, int endLine, String section) {
-        final List<String> lines = InlineResource.of(section).readLines();
+            switch (operation) {
+                case Operation.AddSection(_, var section) -> builder.insert(section);
+                case Operation.DropSection(var startLine, var endLine) -> builder.skip((endLine - startLine) + 1);
+                case Operation.ReplaceSection(var startLine, var endLine, var section) -> builder.skip((endLine - startLine) + 1).insert(section);
+            }
 
-        final List<Instruction> skipInstructions = Collections.nCopies((endLine - startLine) + 1, Instruction.skipSourceLine());
-        final List<Instruction.InsertLine> insertInstructions = lines.stream().map(Instruction::insertLine).toList();
-        final Instruction instruction = Instruction.composite(Stream.concat(skipInstructions.stream(), insertInstructions.stream()).toList());
+            currentLine = operation.endLineExclusive();
+        }
 
-        return new ExecutionPlan(startLine, instruction);
+        return builder.build();
     }
 }
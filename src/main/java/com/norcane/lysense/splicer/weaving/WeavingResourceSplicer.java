@@ -36,15 +36,16 @@ import com.norcane.lysense.splicer.ResourceSplicer;
 import com.norcane.lysense.splicer.writer.AtomicWriter;
 import com.norcane.lysense.splicer.writer.AtomicWriterFactory;
 
-import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 
 /**
- * Implementation of {@link ResourceSplicer} that weaves the changes defined by the {@link Operation} into the resource in a single pass. To achieve this, it
- * compiles the <i>splicing operation</i> into the optimized {@link ExecutionPlan}.
+ * Implementation of {@link ResourceSplicer} that weaves the changes defined by the {@link Operation}s into the resource in a single pass. To achieve this, it
+ * compiles the <i>splicing operations</i> into the optimized {@link ExecutionPlan}.
  */
 @ApplicationScoped
 public class WeavingResourceSplicer implements ResourceSplicer {
@@ -59,18 +60,22 @@ public class WeavingResourceSplicer implements ResourceSplicer {
     }
 
     @Override
-    public void splice(WritableResource resource, Operation operation) {
-        final ExecutionPlan executionPlan = compiler.compile(operation);
+    public void splice(WritableResource resource, List<? extends Operation> operations) {
+        final ExecutionPlan executionPlan = compiler.compile(operations);
 
-        try (final BufferedReader reader = new BufferedReader(resource.reader());
-             final AtomicWriter writer = writerFactory.of(resource::writer, resource.lineSeparator())) {
+        // reader is closed before the writer publishes the content, as replacing an open file is not possible on some platforms
+        try (final AtomicWriter writer = writerFactory.of(resource)) {
+            try (final Reader reader = resource.reader()) {
+                final SourceLines source = new SourceLines(reader);
+                execute(executionPlan, source, writer);
 
-            boolean shouldContinue = true;
-            for (int currentLine = 0; shouldContinue; currentLine++) {
-
-                shouldContinue = currentLine == executionPlan.line()
-                                 ? interpretInstruction(executionPlan.instruction(), reader, writer)
-                                 : currentLine <= 0 || copyLine(reader, writer);
+                while (source.copyLine(writer)) {
+                    // copy the rest of the source
+                }
+            } catch (IOException | RuntimeException e) {
+                // partially spliced content must never replace the resource
+                writer.abort();
+                throw e;
             }
 
         } catch (IOException e) {
@@ -78,37 +83,120 @@ public class WeavingResourceSplicer implements ResourceSplicer {
         }
     }
 
-    private boolean interpretInstruction(Instruction instruction, BufferedReader reader, AtomicWriter writer) throws IOException {
-        switch (instruction) {
-            case Instruction.InsertLine insertLine -> {
-                writer.appendLine(insertLine.line());
-                return true;
-            }
-            case Instruction.SkipSourceLine _ -> {
-                return reader.readLine() != null;
-            }
-            case Instruction.WriteSourceLine _ -> {
-                return copyLine(reader, writer);
-            }
-            case Instruction.Composite composite -> {
-                boolean shouldContinue = true;
-                for (final Instruction subInstruction : composite.instructions()) {
-                    final boolean result = interpretInstruction(subInstruction, reader, writer);
-                    shouldContinue = (!shouldContinue || result) && shouldContinue;
+    private void execute(ExecutionPlan plan, SourceLines source, AtomicWriter writer) throws IOException {
+        int insertedLine = 0;
+
+        for (int i = 0; i < plan.size(); i++) {
+            final int count = plan.count(i);
+
+            switch (plan.opcode(i)) {
+                case ExecutionPlan.COPY -> {
+                    for (int n = 0; n < count; n++) {
+                        if (!source.copyLine(writer)) {
+                            return;
+                        }
+                    }
+                }
+                case ExecutionPlan.SKIP -> {
+                    for (int n = 0; n < count; n++) {
+                        source.skipLine();
+                    }
                 }
-                return shouldContinue;
+                case ExecutionPlan.INSERT -> {
+                    if (source.unterminatedLineCopied()) {
+                        // content inserted after the last line without line separator must start on a new line
+                        writer.appendLineSeparator();
+                    }
+                    for (int n = 0; n < count; n++, insertedLine++) {
+                        writer.write(plan.text(), plan.lineStart(insertedLine), plan.lineLength(insertedLine));
+                        writer.appendLineSeparator();
+                    }
+                }
+                default -> throw new IllegalStateException("Unknown opcode: " + plan.opcode(i));
             }
         }
     }
 
-    private boolean copyLine(BufferedReader reader, AtomicWriter writer) throws IOException {
-        final String line = reader.readLine();
+    /**
+     * Reads lines of the source resource into the reusable character buffer, so lines are copied to the target (or skipped) without allocating any objects.
+     * Recognized line separators are the same as for {@link java.io.BufferedReader#readLine()}, copied lines keep their original line separator (or its
+     * absence at the end of the resource).
+     */
+    private static final class SourceLines {
+        private static final int BUFFER_SIZE = 8192;
+
+        private final Reader reader;
+        private final char[] buffer = new char[BUFFER_SIZE];
+        private int position = 0;
+        private int limit = 0;
+        private boolean unterminatedLineCopied = false;
+
+        private SourceLines(Reader reader) {
+            this.reader = reader;
+        }
 
-        if (line == null) {
-            return false;
+        boolean copyLine(AtomicWriter writer) throws IOException {
+            return transferLine(writer);
         }
 
-        writer.appendLine(line);
-        return true;
+        boolean skipLine() throws IOException {
+            return transferLine(null);
+        }
+
+        /**
+         * Returns whether the last copied line was the last line of the source without line separator, which can happen only once.
+         */
+        boolean unterminatedLineCopied() {
+            final boolean copied = unterminatedLineCopied;
+            unterminatedLineCopied = false;
+            return copied;
+        }
+
+        private boolean transferLine(AtomicWriter writer) throws IOException {
+            boolean lineRead = false;
+
+            while (true) {
+                if (position == limit && !fill()) {
+                    // last line without line separator
+                    unterminatedLineCopied = lineRead && writer != null;
+                    return lineRead;
+                }
+
+                final int start = position;
+                while (position < limit && buffer[position] != '\n' && buffer[position] != '\r') {
+                    position++;
+                }
+
+                if (position > start) {
+                    lineRead = true;
+                    if (writer != null) {
+                        writer.write(buffer, start, position - start);
+                    }
+                }
+
+                if (position < limit) {
+                    final char separator = buffer[position++];
+                    final boolean crlf = separator == '\r' && (position < limit || fill()) && buffer[position] == '\n';
+                    if (crlf) {
+                        position++;
+                    }
+                    if (writer != null) {
+                        writer.write(separator);
+                        if (crlf) {
+                            writer.write('\n');
+                        }
+                    }
+                    return true;
+                }
+            }
+        }
+
+        private boolean fill() throws IOException {
+            final int read = reader.read(buffer, 0, buffer.length);
+
+            position = 0;
+            limit = Math.max(read, 0);
+            return read > 0;
+        }
     }
 }
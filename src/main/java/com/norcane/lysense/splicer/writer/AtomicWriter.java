@@ -31,51 +31,64 @@ package com.norcane.lysense.splicer.writer;
 
 import com.norcane.lysense.resource.util.LineSeparator;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.IOException;
-import java.io.Reader;
 import java.io.Writer;
-import java.util.function.Supplier;
 
 import jakarta.annotation.Nonnull;
 
 import static com.norcane.toolkit.Prelude.nonNull;
 
 /**
- * An implementation of {@link Writer} that writes to a temporary buffer and then atomically transfers the contents to the target writer when this writer is
- * closed.
+ * An implementation of {@link Writer} that writes to a temporary buffer and then atomically publishes the contents to the target when this writer is closed.
+ * If any write fails, or the writer is {@link #abort() aborted}, the temporary buffer is discarded on close and the target is left untouched.
+ *
+ * @see AtomicWriterFactory
  */
 public abstract class AtomicWriter extends Writer {
 
-    private final Supplier<Writer> targetWriter;
     private final LineSeparator lineSeparator;
     private Writer tempWriter;
+    private boolean failed = false;
 
     /**
-     * Constructs a new {@link AtomicWriter} with the given target writer and line separator.
+     * Constructs a new {@link AtomicWriter} with the given line separator.
      *
-     * @param targetWriter  the target writer
      * @param lineSeparator the line separator
      */
-    public AtomicWriter(Supplier<Writer> targetWriter, LineSeparator lineSeparator) {
-        this.targetWriter = nonNull(targetWriter);
+    protected AtomicWriter(LineSeparator lineSeparator) {
         this.lineSeparator = nonNull(lineSeparator);
     }
 
     /**
-     * Returns {@link Writer} that should be used to write to the temporary buffer.
+     * Returns {@link Writer} that should be used to write to the temporary buffer. Called only once, when the first content is written.
      *
      * @return the temporary buffer writer
+     * @throws IOException if an I/O error occurs
+     */
+    protected abstract Writer tempWriter() throws IOException;
+
+    /**
+     * Publishes the content of the temporary buffer to the target. Called when this writer is closed, after the temporary buffer writer is closed.
+     *
+     * @throws IOException if an I/O error occurs
      */
-    protected abstract Writer tempWriter();
+    protected abstract void publish() throws IOException;
 
     /**
-     * Returns {@link Reader} that should be used to read from the temporary buffer.
+     * Discards the content of the temporary buffer, without touching the target. Called when this writer is closed after a failure, after the temporary
+     * buffer writer is closed (if it was created).
      *
-     * @return the temporary buffer reader
+     * @throws IOException if an I/O error occurs
      */
-    protected abstract Reader tempReader();
+    protected abstract void discard() throws IOException;
+
+    /**
+     * Marks the written content as incomplete, so it is discarded instead of published when this writer is closed. Should be called if producing the content
+     * failed outside of this writer (e.g. reading of the source failed).
+     */
+    public void abort() {
+        failed = true;
+    }
 
     /**
      * Appends the given line to the writer.
@@ -84,35 +97,90 @@ public abstract class AtomicWriter extends Writer {
      * @throws IOException if an I/O error occurs
      */
     public void appendLine(String line) throws IOException {
-        ensureTempWriter();
-        tempWriter.append(line).append(lineSeparator.separator());
+        try {
+            ensureTempWriter();
+            tempWriter.append(line).append(lineSeparator.separator());
+        } catch (IOException | RuntimeException e) {
+            failed = true;
+            throw e;
+        }
+    }
+
+    /**
+     * Appends the line separator to the writer.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void appendLineSeparator() throws IOException {
+        try {
+            ensureTempWriter();
+            tempWriter.write(lineSeparator.separator());
+        } catch (IOException | RuntimeException e) {
+            failed = true;
+            throw e;
+        }
     }
 
     @Override
     public void write(@Nonnull char[] cbuf, int off, int len) throws IOException {
-        ensureTempWriter();
-        tempWriter.write(cbuf, off, len);
+        try {
+            ensureTempWriter();
+            tempWriter.write(cbuf, off, len);
+        } catch (IOException | RuntimeException e) {
+            failed = true;
+            throw e;
+        }
+    }
+
+    @Override
+    public void write(@Nonnull String str, int off, int len) throws IOException {
+        // overridden to avoid copying the string into intermediate buffer, as done by the default implementation
+        try {
+            ensureTempWriter();
+            tempWriter.write(str, off, len);
+        } catch (IOException | RuntimeException e) {
+            failed = true;
+            throw e;
+        }
     }
 
     @Override
     public void flush() throws IOException {
-        ensureTempWriter();
-        tempWriter.flush();
+        try {
+            ensureTempWriter();
+            tempWriter.flush();
+        } catch (IOException | RuntimeException e) {
+            failed = true;
+            throw e;
+        }
     }
 
     @Override
     public void close() throws IOException {
-        try (final BufferedReader reader = new BufferedReader(tempReader());
-             final BufferedWriter writer = new BufferedWriter(targetWriter.get())) {
+        if (failed) {
+            if (tempWriter != null) {
+                tempWriter.close();
+            }
+            discard();
+            return;
+        }
 
-            reader.transferTo(writer);
+        try {
+            ensureTempWriter();
+            tempWriter.close();
+        } catch (IOException | RuntimeException e) {
+            try {
+                discard();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
         }
 
-        ensureTempWriter();
-        tempWriter.close();
+        publish();
     }
 
-    private void ensureTempWriter() {
+    private void ensureTempWriter() throws IOException {
         tempWriter = (tempWriter == null ? tempWriter() : tempWriter);
     }
 }
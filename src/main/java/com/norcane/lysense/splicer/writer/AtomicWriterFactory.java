@@ -29,19 +29,48 @@
  */
 package com.norcane.lysense.splicer.writer;
 
+import com.norcane.lysense.resource.WritableResource;
+import com.norcane.lysense.resource.exception.CannotReadResourceException;
+import com.norcane.lysense.resource.filesystem.FileSystemResource;
 import com.norcane.lysense.resource.util.LineSeparator;
 
+import java.io.IOException;
 import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
 import java.util.function.Supplier;
 
 import jakarta.enterprise.context.ApplicationScoped;
 
 /**
- * A factory for creating {@link AtomicWriter} instances.
+ * A factory for creating {@link AtomicWriter} instances. Files are always written into a temporary file that replaces the target file on close
+ * ({@link FileAtomicWriter}). Content of small files is buffered in memory until the writer is closed, while files of size at least
+ * {@link #FILE_BUFFER_THRESHOLD} bytes are streamed into the temporary file, so their content is not held in memory. Resources not backed by a file are
+ * buffered in memory and transferred to their writer on close ({@link InMemoryAtomicWriter}).
  */
 @ApplicationScoped
 public class AtomicWriterFactory {
 
+    /**
+     * Size of the target file (in bytes) from which its content is streamed into the temporary file, instead of being buffered in memory.
+     */
+    public static final long FILE_BUFFER_THRESHOLD = 1024 * 1024;
+
+    /**
+     * Constructs a new {@link AtomicWriter} for the given resource, buffering chosen by the size of the resource.
+     *
+     * @param resource the target resource
+     * @return the new {@link AtomicWriter} instance
+     */
+    public AtomicWriter of(WritableResource resource) {
+        final Optional<Path> path = FileSystemResource.pathOf(resource);
+
+        return path.isPresent()
+               ? new FileAtomicWriter(path.get(), resource.lineSeparator(), size(path.get(), resource) < FILE_BUFFER_THRESHOLD)
+               : of(resource::writer, resource.lineSeparator());
+    }
+
     /**
      * Constructs a new {@link AtomicWriter} with the given target writer and line separator.
      *
@@ -52,4 +81,12 @@ public class AtomicWriterFactory {
     public AtomicWriter of(Supplier<Writer> targetWriter, LineSeparator lineSeparator) {
         return new InMemoryAtomicWriter(targetWriter, lineSeparator);
     }
+
+    private static long size(Path path, WritableResource resource) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            throw new CannotReadResourceException(resource, e);
+        }
+    }
 }
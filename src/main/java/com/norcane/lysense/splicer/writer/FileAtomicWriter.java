@@ -0,0 +1,121 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.splicer.writer;
+
+import com.norcane.lysense.resource.util.LineSeparator;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static com.norcane.toolkit.Prelude.nonNull;
+
+/**
+ * An implementation of {@link AtomicWriter} that writes the content into a temporary file created next to the target file, which then replaces the target
+ * file using atomic move (if supported by the file system), see {@link FileReplacement}. Therefore, the target file is never left half-written. The content
+ * is either streamed into the temporary file as it is written, so it is never held in memory as a whole, or buffered in memory and written into the
+ * temporary file on close, so no temporary file exists while the content is being produced.
+ *
+ * @see AtomicWriter
+ */
+public class FileAtomicWriter extends AtomicWriter {
+
+    private final Path target;
+    private final boolean bufferInMemory;
+    private StringWriter memoryBuffer;
+    private FileReplacement replacement;
+
+    /**
+     * Constructs a new {@link FileAtomicWriter} with the given target file and line separator, streaming the content into the temporary file.
+     *
+     * @param target        the target file
+     * @param lineSeparator the line separator
+     */
+    public FileAtomicWriter(Path target, LineSeparator lineSeparator) {
+        this(target, lineSeparator, false);
+    }
+
+    /**
+     * Constructs a new {@link FileAtomicWriter} with the given target file and line separator.
+     *
+     * @param target         the target file
+     * @param lineSeparator  the line separator
+     * @param bufferInMemory whether to buffer the content in memory until this writer is closed, instead of streaming it into the temporary file
+     */
+    public FileAtomicWriter(Path target, LineSeparator lineSeparator, boolean bufferInMemory) {
+        super(lineSeparator);
+
+        this.target = nonNull(target);
+        this.bufferInMemory = bufferInMemory;
+    }
+
+    @Override
+    protected Writer tempWriter() throws IOException {
+        if (bufferInMemory) {
+            memoryBuffer = new StringWriter();
+            return memoryBuffer;
+        }
+
+        return tempFileWriter();
+    }
+
+    @Override
+    protected void publish() throws IOException {
+        try {
+            if (memoryBuffer != null) {
+                try (final Writer writer = tempFileWriter()) {
+                    writer.append(memoryBuffer.getBuffer());
+                }
+            }
+
+            replacement.commit();
+        } finally {
+            discard();
+        }
+    }
+
+    @Override
+    protected void discard() throws IOException {
+        memoryBuffer = null;
+
+        if (replacement != null) {
+            replacement.close();
+        }
+    }
+
+    private Writer tempFileWriter() throws IOException {
+        replacement = FileReplacement.of(target);
+
+        return Files.newBufferedWriter(replacement.tempFile(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.splicer.writer;
+
+import com.norcane.toolkit.io.MoreFiles;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.DosFileAttributeView;
+import java.nio.file.attribute.DosFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+
+import static com.norcane.toolkit.Prelude.nonNull;
+
+/**
+ * Pending replacement of the target file by the temporary file created next to it. The new content is written into the {@link #tempFile() temporary file},
+ * which then replaces the target file on {@link #commit()} using atomic move (if supported by the file system), so the target file is never left
+ * half-written. Permissions (and ownership, if allowed) of the target file are copied to the temporary file before the move. Symbolic links are followed, so
+ * the file they point to is replaced, not the link itself. If not committed, the temporary file is deleted on close and the target file is left untouched.
+ *
+ * <br><br><strong>Example of use</strong>
+ * {@snippet lang = "java":
+ *   try (final FileReplacement replacement = FileReplacement.of(target)) {
+ *       Files.writeString(replacement.tempFile(), "new content");
+ *       replacement.commit();
+ *   }
+ *}
+ *
+ * @see FileAtomicWriter
+ */
+public final class FileReplacement implements Closeable {
+
+    private final Path target;
+    private final Path tempFile;
+
+    private FileReplacement(Path target, Path tempFile) {
+        this.target = target;
+        this.tempFile = tempFile;
+    }
+
+    /**
+     * Creates empty temporary file that will replace the given target file.
+     *
+     * @param target the target file
+     * @return the pending replacement
+     * @throws IOException if the target file does not exist or the temporary file cannot be created
+     */
+    public static FileReplacement of(Path target) throws IOException {
+        final Path realTarget = nonNull(target).toRealPath();
+        final Path tempFile = Files.createTempFile(realTarget.getParent(), "." + realTarget.getFileName() + ".", ".tmp");
+
+        return new FileReplacement(realTarget, tempFile);
+    }
+
+    /**
+     * Returns the target file, with all symbolic links resolved.
+     *
+     * @return the target file
+     */
+    public Path target() {
+        return target;
+    }
+
+    /**
+     * Returns the temporary file the new content should be written to.
+     *
+     * @return the temporary file
+     */
+    public Path tempFile() {
+        return tempFile;
+    }
+
+    /**
+     * Replaces the target file by the temporary file. The temporary file must be closed by then, as replacing a file by an open one is not possible on some
+     * platforms.
+     *
+     * @throws IOException if the target file cannot be replaced
+     */
+    public void commit() throws IOException {
+        copyAttributes(target, tempFile);
+        MoreFiles.replaceAtomically(tempFile, target);
+    }
+
+    /**
+     * Deletes the temporary file, if it was not committed.
+     *
+     * @throws IOException if the temporary file cannot be deleted
+     */
+    @Override
+    public void close() throws IOException {
+        Files.deleteIfExists(tempFile);
+    }
+
+    private static void copyAttributes(Path source, Path target) throws IOException {
+        final PosixFileAttributeView posixView = Files.getFileAttributeView(target, PosixFileAttributeView.class);
+        final DosFileAttributeView dosView = Files.getFileAttributeView(target, DosFileAttributeView.class);
+
+        if (posixView != null) {
+            final PosixFileAttributes attributes = Files.readAttributes(source, PosixFileAttributes.class);
+            posixView.setPermissions(attributes.permissions());
+
+            try {
+                posixView.setOwner(attributes.owner());
+                posixView.setGroup(attributes.group());
+            } catch (IOException _) {
+                // changing ownership usually requires elevated privileges, the temporary file is owned by the current user then
+            }
+        } else if (dosView != null) {
+            final DosFileAttributes attributes = Files.readAttributes(source, DosFileAttributes.class);
+            dosView.setHidden(attributes.isHidden());
+            dosView.setSystem(attributes.isSystem());
+            dosView.setArchive(attributes.isArchive());
+        }
+    }
+}
@@ -31,19 +31,25 @@ package com.norcane.lysense.splicer.writer;
 
 import com.norcane.lysense.resource.util.LineSeparator;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.util.function.Supplier;
 
+import static com.norcane.toolkit.Prelude.nonNull;
+
 /**
- * An implementation of {@link AtomicWriter} that uses in-memory buffer to store the content.
+ * An implementation of {@link AtomicWriter} that uses in-memory buffer to store the content, which is then transferred to the target writer.
  *
  * @see AtomicWriter
  */
 public class InMemoryAtomicWriter extends AtomicWriter {
 
+    private final Supplier<Writer> targetWriter;
     private final StringWriter tempWriter;
 
     /**
@@ -53,8 +59,9 @@ public class InMemoryAtomicWriter extends AtomicWriter {
      * @param lineSeparator the line separator
      */
     public InMemoryAtomicWriter(Supplier<Writer> targetWriter, LineSeparator lineSeparator) {
-        super(targetWriter, lineSeparator);
+        super(lineSeparator);
 
+        this.targetWriter = nonNull(targetWriter);
         this.tempWriter = new StringWriter();
     }
 
@@ -63,8 +70,26 @@ public class InMemoryAtomicWriter extends AtomicWriter {
         return tempWriter;
     }
 
-    @Override
+    /**
+     * Returns {@link Reader} that should be used to read from the temporary buffer.
+     *
+     * @return the temporary buffer reader
+     */
     protected Reader tempReader() {
         return new StringReader(tempWriter.toString());
     }
+
+    @Override
+    protected void publish() throws IOException {
+        try (final BufferedReader reader = new BufferedReader(tempReader());
+             final BufferedWriter writer = new BufferedWriter(targetWriter.get())) {
+
+            reader.transferTo(writer);
+        }
+    }
+
+    @Override
+    protected void discard() {
+        tempWriter.getBuffer().setLength(0);
+    }
 }
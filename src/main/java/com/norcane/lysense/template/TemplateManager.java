@@ -33,11 +33,9 @@ import com.norcane.lysense.resource.Resource;
 import com.norcane.lysense.template.source.TemplateSource;
 import com.norcane.toolkit.state.Stateful;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -53,6 +51,9 @@ import static com.norcane.toolkit.Prelude.toMap;
  * type of its <i>template key</i> and each template within the template source is identified by its <i>template key</i>. This implementation is lazy - template
  * source is loaded only when any template from it is requested and template is compiled only when obtained.
  *
+ * <p>Loaded template sources and compiled templates are cached until {@link #resetState()} is called. All public methods are thread safe and every template
+ * source is loaded (and every template compiled) only once, even if requested concurrently from multiple threads.</p>
+ *
  * @see Template
  * @see TemplateSource
  */
@@ -61,9 +62,8 @@ public class TemplateManager implements Stateful {
 
     private final Map<String, TemplateFactory> templateFactories;
     private final Map<Class<? extends TemplateKey>, TemplateSource<?>> templateSources;
-    private final Set<Class<? extends TemplateKey>> loadedTemplateSources = new HashSet<>();
-    private final Map<TemplateKey, Resource> rawTemplates = new HashMap<>();
-    private final Map<TemplateKey, Template> compiledTemplates = new HashMap<>();
+    private final Map<Class<? extends TemplateKey>, Map<? extends TemplateKey, Resource>> rawTemplates = new ConcurrentHashMap<>();
+    private final Map<TemplateKey, Template> compiledTemplates = new ConcurrentHashMap<>();
 
     @Inject
     public TemplateManager(Instance<TemplateFactory> templateFactories, Instance<TemplateSource<?>> templateSources) {
@@ -80,9 +80,8 @@ public class TemplateManager implements Stateful {
      * @throws IllegalArgumentException if template with given key does not exist
      */
     public Template template(TemplateKey templateKey) {
-        compileTemplate(templateKey);
-
-        return compiledTemplates.get(templateKey);
+        // computeIfAbsent guarantees that concurrent requests for the same template wait for a single compilation
+        return compiledTemplates.computeIfAbsent(templateKey, this::compileTemplate);
     }
 
     /**
@@ -95,9 +94,7 @@ public class TemplateManager implements Stateful {
      * @return map of templates
      */
     public <K extends TemplateKey> Map<K, Template> templates(Class<K> templateKey, Predicate<K> filter) {
-        loadRawTemplates(templateKey);
-
-        return rawTemplates.keySet().stream()
+        return rawTemplates(templateKey).keySet().stream()
             .filter(templateKey::isInstance)
             .map(templateKey::cast)
             .filter(filter)
@@ -116,44 +113,54 @@ public class TemplateManager implements Stateful {
         return templates(templateKey, _ -> true);
     }
 
+    /**
+     * Returns a map of raw (not compiled) template resources available via {@link TemplateSource} identified by its {@link TemplateKey}. If the template
+     * source is not loaded yet, it will be loaded and cached for further use.
+     *
+     * @param templateKey template key class identifying the {@link TemplateSource}
+     * @param <K>         template key type
+     * @return map of raw template resources
+     */
+    public <K extends TemplateKey> Map<K, Resource> templateResources(Class<K> templateKey) {
+        return rawTemplates(templateKey).entrySet().stream()
+            .filter(entry -> templateKey.isInstance(entry.getKey()))
+            .collect(Collectors.toMap(entry -> templateKey.cast(entry.getKey()), Map.Entry::getValue));
+    }
+
     /**
      * Returns a set of all template sources, represented by their {@link TemplateKey} classes, that were dynamically loaded so far.
      *
      * @return set of loaded template sources
      */
     public Set<Class<? extends TemplateKey>> loadedTemplateSources() {
-        return Collections.unmodifiableSet(loadedTemplateSources);
+        return Set.copyOf(rawTemplates.keySet());
     }
 
+    /**
+     * Drops all loaded template sources and compiled templates, so they are loaded and compiled again when requested next time.
+     */
     @Override
     public void resetState() {
         Stateful.super.resetState();
 
-        loadedTemplateSources.clear();
         rawTemplates.clear();
         compiledTemplates.clear();
     }
 
-    private void compileTemplate(TemplateKey templateKey) {
-        loadRawTemplates(templateKey.getClass());
-
-        final Resource rawTemplate = nonNullOrThrow(rawTemplates.get(templateKey), "No raw template found for template key '%s'".formatted(templateKey));
+    private Template compileTemplate(TemplateKey templateKey) {
+        final Resource rawTemplate = nonNullOrThrow(rawTemplates(templateKey.getClass()).get(templateKey),
+                                                    "No raw template found for template key '%s'".formatted(templateKey));
         final TemplateFactory templateFactory = nonNullOrThrow(templateFactories.get(rawTemplate.extension()),
                                                                "No template factory found for template type '%s'".formatted(rawTemplate.extension()));
-        final Template template = templateFactory.compile(rawTemplate);
-
-        compiledTemplates.put(templateKey, template);
+        return templateFactory.compile(rawTemplate);
     }
 
-    private <K extends TemplateKey> void loadRawTemplates(Class<K> templateKey) {
-        if (loadedTemplateSources.contains(templateKey)) {
-            return;
-        }
-
-        final TemplateSource<?> templateSource = nonNullOrThrow(templateSources.get(templateKey),
-                                                                "No template source found for template key: %s".formatted(templateKey));
+    private Map<? extends TemplateKey, Resource> rawTemplates(Class<? extends TemplateKey> templateKey) {
+        return rawTemplates.computeIfAbsent(templateKey, key -> {
+            final TemplateSource<?> templateSource = nonNullOrThrow(templateSources.get(key),
+                                                                    "No template source found for template key: %s".formatted(key));
 
-        loadedTemplateSources.add(templateKey);
-        rawTemplates.putAll(templateSource.templateResources());
+            return Map.copyOf(templateSource.templateResources());
+        });
     }
 }
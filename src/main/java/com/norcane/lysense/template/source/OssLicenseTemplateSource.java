@@ -35,10 +35,10 @@ import com.norcane.lysense.resource.Resource;
 import com.norcane.lysense.resource.loader.ResourceLoader;
 import com.norcane.lysense.template.TemplateFactory;
 
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.inject.Instance;
@@ -89,11 +89,11 @@ public class OssLicenseTemplateSource extends TemplateSource<OssLicenseTemplateS
     }
 
     @Override
-    protected List<Resource> resources() {
+    protected Stream<Resource> resources() {
         final Set<String> templateTypes = templateFactories.keySet();
         final Predicate<Resource> filter = resource -> templateTypes.contains(resource.extension());
 
-        return resourceLoader.resources(OSS_LICENSES_PATH, filter, true);
+        return resourceLoader.streamResources(OSS_LICENSES_PATH, filter, true);
     }
 
     /**
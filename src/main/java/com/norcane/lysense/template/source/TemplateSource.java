@@ -38,6 +38,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Represents a source of template resources, identified by a {@link TemplateKey}, that can be loaded and compiled.
@@ -62,11 +63,12 @@ public abstract class TemplateSource<K extends TemplateKey> {
     protected abstract K templateKey(Resource resource);
 
     /**
-     * Returns resources of all templates available within this template source.
+     * Returns resources of all templates available within this template source. The returned stream might be populated lazily and is always closed after
+     * use.
      *
      * @return template resources
      */
-    protected abstract List<Resource> resources();
+    protected abstract Stream<Resource> resources();
 
     /**
      * Returns resources of all templates available within this template source, grouped by their template key. Also check that there are no templates with
@@ -76,8 +78,10 @@ public abstract class TemplateSource<K extends TemplateKey> {
      * @throws DuplicateTemplatesFoundException if there are multiple templates with same template key
      */
     public final Map<K, Resource> templateResources() {
-        final Map<K, List<Resource>> resourcesByKey = resources().stream()
-            .collect(Collectors.groupingBy(this::templateKey, Collectors.mapping(resource -> resource, Collectors.toList())));
+        final Map<K, List<Resource>> resourcesByKey;
+        try (final Stream<Resource> resources = resources()) {
+            resourcesByKey = resources.collect(Collectors.groupingBy(this::templateKey, Collectors.mapping(resource -> resource, Collectors.toList())));
+        }
 
         return resourcesByKey.entrySet().stream()
             .map(entry -> {
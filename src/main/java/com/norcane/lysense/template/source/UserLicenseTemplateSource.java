@@ -34,11 +34,11 @@ import com.norcane.lysense.resource.Resource;
 import com.norcane.lysense.resource.loader.ResourceLoader;
 import com.norcane.lysense.template.TemplateFactory;
 
-import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.inject.Instance;
@@ -90,16 +90,14 @@ public class UserLicenseTemplateSource extends TemplateSource<UserLicenseTemplat
     }
 
     @Override
-    protected List<Resource> resources() {
+    protected Stream<Resource> resources() {
         final List<String> templatePaths = configuration.templates();
         final Set<String> templateTypes = templateFactories.keySet();
 
         final Predicate<Resource> filter = resource -> templateTypes.contains(resource.extension());
 
         return templatePaths.stream()
-            .map(location -> resourceLoader.resources(location, filter, true))
-            .flatMap(Collection::stream)
-            .toList();
+            .flatMap(location -> resourceLoader.streamResources(location, filter, true));
     }
 
     /**
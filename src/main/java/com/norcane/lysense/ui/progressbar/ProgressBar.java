@@ -72,6 +72,20 @@ public interface ProgressBar extends InteractiveUIComponent {
         return wrap(iterable, messageFn, () -> new ConciseProgressBar(Iterables.size(iterable), "Processing..."), console);
     }
 
+    /**
+     * Same as {@link #concise}, but doesn't require the total number of items to be known in advance, which makes it suitable for lazily populated iterables
+     * (e.g. results of streaming processing). The iterable is iterated over only once.
+     *
+     * @param iterable  iterable to wrap
+     * @param messageFn produces message displayed by progress bar for every item of {@link Iterable}
+     * @param console   console used to render the progress bar
+     * @param <T>       type of the elements in iterable
+     * @return iterable wrapper
+     */
+    static <T> ProgressBarWrappedIterable<T> conciseUnbounded(Iterable<T> iterable, Function<T, String> messageFn, Console console) {
+        return wrap(iterable, messageFn, () -> new ConciseProgressBar(ConciseProgressBar.UNKNOWN_MAXIMUM, "Processing..."), console);
+    }
+
     /**
      * Same as {@link #wrap} but uses the {@link CheckListProgressBar} progress bar implementation.
      *
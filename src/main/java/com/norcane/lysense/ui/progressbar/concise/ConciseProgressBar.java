@@ -49,12 +49,20 @@ import static com.norcane.toolkit.Prelude.nonNull;
  * [2 of 301] Formatting file bar.txt
  * ...
  * </pre>
+ *
+ * If the total number of steps is not known in advance (see {@link #UNKNOWN_MAXIMUM}), only the current step is rendered (e.g. {@code [2] Formatting file
+ * bar.txt}).
  */
 public class ConciseProgressBar implements ProgressBar {
 
     private static final char[] SPINNER_FRAMES = new char[]{'-', '\\', '|', '/'};
     private static final int SPINNER_MODULO = SPINNER_FRAMES.length;
 
+    /**
+     * Value of maximum to be used when the total number of steps is not known in advance.
+     */
+    public static final int UNKNOWN_MAXIMUM = -1;
+
     private final int maximum;
 
     private int current;
@@ -69,11 +77,12 @@ public class ConciseProgressBar implements ProgressBar {
     @Override
     public void render(Console console) {
         final char spinner = SPINNER_FRAMES[current % SPINNER_MODULO];
-        final String currentFormat = "%" + String.valueOf(maximum).length() + "s";
         final boolean interactive = console.isInteractive();
         final String currentSpinner = interactive ? "@|bold,magenta %s|@ ".formatted(spinner) : "";
 
-        final String rendered = "%s@|bold [%s of %d]|@ %s".formatted(currentSpinner, currentFormat.formatted(current), maximum, message);
+        final String rendered = maximum == UNKNOWN_MAXIMUM
+                                ? "%s@|bold [%d]|@ %s".formatted(currentSpinner, current, message)
+                                : "%s@|bold [%s of %d]|@ %s".formatted(currentSpinner, currentFormat().formatted(current), maximum, message);
 
         if (interactive) {
             console.clearLine();
@@ -83,6 +92,10 @@ public class ConciseProgressBar implements ProgressBar {
         }
     }
 
+    private String currentFormat() {
+        return "%" + String.valueOf(maximum).length() + "s";
+    }
+
     @Override
     public int current() {
         return this.current;
@@ -0,0 +1,400 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.toolkit.concurrent;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import jakarta.annotation.Nonnull;
+
+import static com.norcane.toolkit.Prelude.nonNull;
+
+/**
+ * Streaming processing pipeline consisting of the <i>source</i> stage, producing items from a {@link Stream}, followed by any number of <i>map</i> stages.
+ * Every stage runs in its own virtual worker thread(s) and stages are connected by bounded queues, so the number of items being processed at any time is
+ * limited by the queue capacity rather than by the number of items produced by the source. Results of the last stage are consumed by iterating over the
+ * pipeline on the calling thread, in the order in which they are completed. Stages may also drop items using <i>filter</i> stages.
+ *
+ * <p>Workers block on the queues until there is an item (or free space) available, the end of items is signalled by the poison pill passed through all
+ * stages. If any stage fails, the pipeline is cancelled and the failure is rethrown to the consuming thread. Cancellation interrupts only workers waiting for
+ * the queues, items already being processed are always finished.</p>
+ *
+ * <br><b>Example of use</b>
+ * {@snippet lang = "java":
+ *   try (final Pipeline<String> pipeline = Pipeline.source(() -> Stream.of(1, 2, 3))
+ *            .map(number -> number * 2, 4)
+ *            .map(String::valueOf, 1)
+ *            .start(16)) {
+ *
+ *       for (final String result : pipeline) {
+ *           System.out.println(result);
+ *       }
+ *   }
+ *}
+ *
+ * @param <T> type of the pipeline results
+ */
+public final class Pipeline<T> implements Iterable<T>, AutoCloseable {
+
+    private static final Object END = new Object();
+
+    private final BlockingQueue<Object> output;
+    private final State state;
+
+    private Pipeline(BlockingQueue<Object> output, State state) {
+        this.output = output;
+        this.state = state;
+    }
+
+    /**
+     * Creates new pipeline definition, where items are produced by the stream obtained from the given supplier. The stream is consumed (and closed) on its own
+     * thread once the pipeline is started.
+     *
+     * @param source supplier of the source stream
+     * @param <T>    type of the source items
+     * @return pipeline definition
+     */
+    public static <T> Definition<T> source(Supplier<? extends Stream<? extends T>> source) {
+        nonNull(source);
+
+        final List<StageFactory> stages = new ArrayList<>();
+        stages.add((input, output, state, index) -> List.of(sourceWorker(source, output, state, index)));
+        return new Definition<>(stages);
+    }
+
+    /**
+     * Cancels the pipeline (if still running) and waits until all worker threads finish the items they are currently processing.
+     */
+    @Override
+    public void close() {
+        state.cancel();
+
+        boolean interrupted = false;
+        for (final Worker worker : state.workers) {
+            while (worker.thread.isAlive()) {
+                try {
+                    worker.thread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Nonnull
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<>() {
+            private Object next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null) {
+                    next = takeOutput();
+                }
+
+                return next != END;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                final Object current = next;
+                next = null;
+                return (T) current;
+            }
+        };
+    }
+
+    private Object takeOutput() {
+        state.rethrowFailure();
+
+        try {
+            final Object item = output.take();
+            state.rethrowFailure();     // failed stage wakes up the consumer with the poison pill, which must not be mistaken for the end of items
+            return item;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            state.cancel();
+            throw new IllegalStateException("Interrupted while waiting for pipeline results", e);
+        }
+    }
+
+    private static Worker sourceWorker(Supplier<? extends Stream<?>> source, BlockingQueue<Object> output, State state, int stageIndex) {
+        return new Worker("pipeline-%d-source".formatted(stageIndex), state, worker -> {
+            try (final Stream<?> stream = source.get()) {
+                final Iterator<?> iterator = stream.iterator();
+                while (iterator.hasNext()) {
+                    worker.put(output, iterator.next());
+                }
+            }
+
+            worker.put(output, END);
+        });
+    }
+
+    /**
+     * Creates workers of the map (or filter) stage, items for which the given function returns {@code null} are dropped.
+     */
+    private static List<Worker> stageWorkers(Function<Object, Object> function,
+                                           int parallelism,
+                                           BlockingQueue<Object> input,
+                                           BlockingQueue<Object> output,
+                                           State state,
+                                           int stageIndex) {
+
+        final AtomicInteger running = new AtomicInteger(parallelism);
+        final List<Worker> workers = new ArrayList<>(parallelism);
+
+        for (int i = 0; i < parallelism; i++) {
+            workers.add(new Worker("pipeline-%d-map-%d".formatted(stageIndex, i), state, worker -> {
+                Object item;
+                while ((item = worker.take(input)) != END) {
+                    final Object result = function.apply(item);
+                    if (result != null) {
+                        worker.put(output, result);
+                    }
+                }
+
+                worker.put(input, END);     // let the other workers of this stage know there's nothing left
+                if (running.decrementAndGet() == 0) {
+                    worker.put(output, END);
+                }
+            }));
+        }
+
+        return workers;
+    }
+
+    /**
+     * Definition of the pipeline, describing all its stages. Pipeline is not running until {@link #start(int)} is called.
+     *
+     * @param <T> type of the items produced by the last stage
+     */
+    public static final class Definition<T> {
+
+        private final List<StageFactory> stages;
+
+        private Definition(List<StageFactory> stages) {
+            this.stages = stages;
+        }
+
+        /**
+         * Adds new stage that transforms every item produced by the previous stage using the given function.
+         *
+         * @param mapper      function transforming the item, must not return {@code null}
+         * @param parallelism number of worker threads of this stage
+         * @param <R>         type of the transformed items
+         * @return pipeline definition
+         */
+        @SuppressWarnings("unchecked")
+        public <R> Definition<R> map(Function<? super T, ? extends R> mapper, int parallelism) {
+            nonNull(mapper);
+
+            final Function<Object, Object> function = item -> nonNull(((Function<Object, Object>) mapper).apply(item));
+            return withStage(function, parallelism);
+        }
+
+        /**
+         * Adds new stage that passes only items produced by the previous stage that match the given predicate.
+         *
+         * @param predicate   predicate an item must match to be passed to the next stage
+         * @param parallelism number of worker threads of this stage
+         * @return pipeline definition
+         */
+        @SuppressWarnings("unchecked")
+        public Definition<T> filter(Predicate<? super T> predicate, int parallelism) {
+            nonNull(predicate);
+
+            final Function<Object, Object> function = item -> ((Predicate<Object>) predicate).test(item) ? item : null;
+            return withStage(function, parallelism);
+        }
+
+        private <R> Definition<R> withStage(Function<Object, Object> function, int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("Parallelism must be positive, was: " + parallelism);
+            }
+
+            final List<StageFactory> newStages = new ArrayList<>(stages);
+            newStages.add((input, output, state, index) -> stageWorkers(function, parallelism, input, output, state, index));
+            return new Definition<>(newStages);
+        }
+
+        /**
+         * Starts all stages of the pipeline.
+         *
+         * @param queueCapacity capacity of queues connecting the stages
+         * @return running pipeline
+         */
+        public Pipeline<T> start(int queueCapacity) {
+            final List<BlockingQueue<Object>> queues = new ArrayList<>(stages.size());
+            for (int i = 0; i < stages.size(); i++) {
+                queues.add(new ArrayBlockingQueue<>(queueCapacity));
+            }
+
+            final BlockingQueue<Object> output = queues.getLast();
+            final State state = new State(output);
+            for (int i = 0; i < stages.size(); i++) {
+                state.workers.addAll(stages.get(i).create(i > 0 ? queues.get(i - 1) : null, queues.get(i), state, i));
+            }
+
+            state.workers.forEach(worker -> worker.thread.start());
+            return new Pipeline<>(output, state);
+        }
+    }
+
+    @FunctionalInterface
+    private interface StageFactory {
+        List<Worker> create(BlockingQueue<Object> input, BlockingQueue<Object> output, State state, int stageIndex);
+    }
+
+    @FunctionalInterface
+    private interface WorkerBody {
+        void run(Worker worker) throws InterruptedException;
+    }
+
+    /**
+     * Worker thread of a single stage. Worker can be interrupted only while waiting for the queue, so cancellation never interrupts the item being processed
+     * (e.g. in the middle of writing a file).
+     */
+    private static final class Worker {
+        private final State state;
+        private final Thread thread;
+        private boolean waiting;
+
+        Worker(String name, State state, WorkerBody body) {
+            this.state = state;
+            this.thread = Thread.ofVirtual().name(name).unstarted(() -> {
+                try {
+                    body.run(this);
+                } catch (InterruptedException e) {
+                    // pipeline has been cancelled
+                } catch (Throwable t) {
+                    state.fail(t);
+                }
+            });
+        }
+
+        void put(BlockingQueue<Object> queue, Object item) throws InterruptedException {
+            startWaiting();
+            try {
+                queue.put(item);
+            } finally {
+                stopWaiting();
+            }
+        }
+
+        Object take(BlockingQueue<Object> queue) throws InterruptedException {
+            startWaiting();
+            try {
+                return queue.take();
+            } finally {
+                stopWaiting();
+            }
+        }
+
+        synchronized void interruptIfWaiting() {
+            if (waiting) {
+                thread.interrupt();
+            }
+        }
+
+        private synchronized void startWaiting() throws InterruptedException {
+            if (state.cancelled) {
+                throw new InterruptedException();
+            }
+
+            waiting = true;
+        }
+
+        private synchronized void stopWaiting() {
+            waiting = false;
+
+            // pipeline might have been cancelled just after the queue operation succeeded, the worker is stopped before the next one
+            Thread.interrupted();
+        }
+    }
+
+    /**
+     * Shared state of the running pipeline, tracks the cancellation and the first failure of any stage.
+     */
+    private static final class State {
+        private final BlockingQueue<Object> output;
+        private final List<Worker> workers = new ArrayList<>();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private volatile boolean cancelled;
+
+        State(BlockingQueue<Object> output) {
+            this.output = output;
+        }
+
+        void fail(Throwable throwable) {
+            failure.compareAndSet(null, throwable);
+            cancel();
+
+            // output is either full, so the consumer isn't blocked, or there's space to wake it up
+            output.offer(END);
+        }
+
+        void cancel() {
+            cancelled = true;
+            workers.forEach(Worker::interruptIfWaiting);
+        }
+
+        void rethrowFailure() {
+            final Throwable throwable = failure.get();
+            if (throwable instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            } else if (throwable instanceof Error error) {
+                throw error;
+            } else if (throwable != null) {
+                throw new IllegalStateException(throwable);
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.toolkit.io;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static com.norcane.toolkit.Prelude.nonNull;
+
+/**
+ * Watches given <i>roots</i> (files or directories, which are watched recursively) for changes. Changes are reported as a set of paths that were created,
+ * modified or deleted, because content of the changed files has to be read again anyway, no matter what kind of change happened.
+ *
+ * <p>Native implementation uses the {@link java.nio.file.WatchService} of the file system, if it cannot be used (e.g. because system limits of watched
+ * directories are exhausted), the implementation periodically scanning watched roots is used instead, see {@link #open(Collection, Predicate, Duration)}.</p>
+ *
+ * <br><b>Example of use</b>
+ * {@snippet lang = "java":
+ *   try (final FileWatcher watcher = FileWatcher.open(List.of(Path.of("src")), _ -> true, Duration.ofSeconds(1))) {
+ *       while (true) {
+ *           final FileWatcher.Changes changes = watcher.awaitChanges(Duration.ofMillis(300));
+ *           System.out.println("Changed: " + changes.paths());
+ *       }
+ *   }
+ *}
+ */
+public interface FileWatcher extends AutoCloseable {
+
+    /**
+     * Opens the watcher for given roots using the native {@link java.nio.file.WatchService}, falling back to watcher periodically scanning the roots if the
+     * native one cannot be used.
+     *
+     * @param roots           files or directories to watch, roots that don't exist are ignored
+     * @param directoryFilter filter of directories (within the roots) to watch
+     * @param pollInterval    interval of scanning the roots, used only if the native watcher cannot be used
+     * @return file watcher
+     */
+    static FileWatcher open(Collection<Path> roots, Predicate<Path> directoryFilter, Duration pollInterval) {
+        try {
+            return NativeFileWatcher.open(roots, directoryFilter);
+        } catch (IOException e) {
+            return polling(roots, directoryFilter, pollInterval);
+        }
+    }
+
+    /**
+     * Opens the watcher for given roots, periodically scanning the roots for changes.
+     *
+     * @param roots           files or directories to watch, roots that don't exist are ignored
+     * @param directoryFilter filter of directories (within the roots) to watch
+     * @param pollInterval    interval of scanning the roots
+     * @return file watcher
+     */
+    static FileWatcher polling(Collection<Path> roots, Predicate<Path> directoryFilter, Duration pollInterval) {
+        return new PollingFileWatcher(roots, directoryFilter, pollInterval);
+    }
+
+    /**
+     * Waits for changes detected within the given timeout.
+     *
+     * @param timeout maximum time to wait for any change
+     * @return detected changes, empty if no change was detected within the timeout
+     * @throws InterruptedException if interrupted while waiting
+     */
+    Changes poll(Duration timeout) throws InterruptedException;
+
+    /**
+     * Returns whether the roots are periodically scanned for changes, instead of being watched natively.
+     *
+     * @return {@code true} if the roots are periodically scanned
+     */
+    boolean polling();
+
+    @Override
+    void close();
+
+    /**
+     * Waits until any change is detected, then keeps collecting further changes until no change is detected for the given <i>quiet period</i>, so that burst
+     * of changes (e.g. when switching Git branches or when editor saves multiple files) is reported at once.
+     *
+     * @param quietPeriod time without any change after which collected changes are returned
+     * @return collected changes, never empty
+     * @throws InterruptedException if interrupted while waiting
+     */
+    default Changes awaitChanges(Duration quietPeriod) throws InterruptedException {
+        Changes changes = Changes.NONE;
+        while (changes.isEmpty()) {
+            changes = poll(quietPeriod);
+        }
+
+        Changes next;
+        while (!(next = poll(quietPeriod)).isEmpty()) {
+            changes = changes.merge(next);
+        }
+
+        return changes;
+    }
+
+    /**
+     * Changes detected by the watcher.
+     *
+     * @param paths    absolute paths of created, modified or deleted files or directories
+     * @param overflow whether some changes might have been lost (e.g. because the native watcher overflowed), so the watched roots should be processed again
+     *                 as a whole
+     */
+    record Changes(Set<Path> paths, boolean overflow) {
+
+        /**
+         * No changes.
+         */
+        public static final Changes NONE = new Changes(Set.of(), false);
+
+        public Changes {
+            paths = Set.copyOf(nonNull(paths));
+        }
+
+        /**
+         * Returns whether no changes were detected.
+         *
+         * @return {@code true} if no changes were detected
+         */
+        public boolean isEmpty() {
+            return paths.isEmpty() && !overflow;
+        }
+
+        /**
+         * Merges these changes with the given ones.
+         *
+         * @param other other changes
+         * @return merged changes
+         */
+        public Changes merge(Changes other) {
+            final Set<Path> merged = new HashSet<>(paths);
+            merged.addAll(other.paths());
+            return new Changes(merged, overflow || other.overflow());
+        }
+    }
+}
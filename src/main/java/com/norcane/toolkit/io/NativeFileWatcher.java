@@ -0,0 +1,233 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.toolkit.io;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * {@link FileWatcher} using the native {@link WatchService}. Since the watch service watches only single directory, every directory within the watched roots
+ * is registered separately, including directories created while watching. Roots that are files are watched by registering their parent directory, reporting
+ * only changes of the root files.
+ */
+final class NativeFileWatcher implements FileWatcher {
+
+    private static final WatchEvent.Kind<?>[] EVENT_KINDS = {ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE};
+
+    private final WatchService watchService;
+    private final Predicate<Path> directoryFilter;
+    private final Map<WatchKey, Registration> registrations = new HashMap<>();
+
+    private NativeFileWatcher(WatchService watchService, Predicate<Path> directoryFilter) {
+        this.watchService = watchService;
+        this.directoryFilter = directoryFilter;
+    }
+
+    /**
+     * Opens the watcher for given roots.
+     *
+     * @throws IOException if the watch service cannot be created or any directory cannot be registered (e.g. because of system limits)
+     */
+    static NativeFileWatcher open(Collection<Path> roots, Predicate<Path> directoryFilter) throws IOException {
+        final NativeFileWatcher watcher = new NativeFileWatcher(FileSystems.getDefault().newWatchService(), directoryFilter);
+
+        try {
+            for (final Path root : roots) {
+                watcher.registerRoot(root.toAbsolutePath().normalize());
+            }
+        } catch (IOException e) {
+            watcher.close();
+            throw e;
+        }
+
+        return watcher;
+    }
+
+    @Override
+    public Changes poll(Duration timeout) throws InterruptedException {
+        WatchKey key = watchService.poll(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        if (key == null) {
+            return Changes.NONE;
+        }
+
+        final Set<Path> paths = new HashSet<>();
+        boolean overflow = false;
+
+        // drain all keys signalled so far, so the changes are reported together
+        while (key != null) {
+            overflow |= processEvents(key, paths);
+            key = watchService.poll();
+        }
+
+        return new Changes(paths, overflow);
+    }
+
+    @Override
+    public boolean polling() {
+        return false;
+    }
+
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            // nothing to do, the watch service is not used anymore
+        }
+    }
+
+    /**
+     * Adds changed paths from events of given key, returns {@code true} if some events might have been lost.
+     */
+    private boolean processEvents(WatchKey key, Set<Path> paths) {
+        final Registration registration = registrations.get(key);
+        if (registration == null) {
+            key.cancel();
+            return false;
+        }
+
+        boolean overflow = false;
+        for (final WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                overflow = true;
+                continue;
+            }
+
+            final Path path = registration.directory().resolve((Path) event.context());
+            if (!registration.includes(path)) {
+                continue;
+            }
+
+            paths.add(path);
+            if (event.kind() == ENTRY_CREATE
+                && registration.files() == null
+                && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)
+                && directoryFilter.test(path)) {
+                try {
+                    // files might have been created in the new directory before it was registered
+                    registerTree(path, paths);
+                } catch (IOException e) {
+                    overflow = true;
+                }
+            }
+        }
+
+        if (!key.reset()) {
+            registrations.remove(key);
+        }
+
+        return overflow;
+    }
+
+    private void registerRoot(Path root) throws IOException {
+        if (Files.isDirectory(root)) {
+            registerTree(root, null);
+            return;
+        }
+
+        final Path parent = root.getParent();
+        if (parent != null && Files.isDirectory(parent)) {
+            final WatchKey key = parent.register(watchService, EVENT_KINDS);
+            final Registration existing = registrations.get(key);
+
+            if (existing == null) {
+                registrations.put(key, new Registration(parent, new HashSet<>(Set.of(root))));
+            } else if (existing.files() != null) {
+                existing.files().add(root);
+            }
+        }
+    }
+
+    /**
+     * Registers given directory and all its subdirectories, optionally collecting all files found within.
+     */
+    private void registerTree(Path start, Set<Path> foundFiles) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (!dir.equals(start) && !directoryFilter.test(dir)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+
+                // directory registered as parent of root file is now watched as a whole
+                registrations.put(dir.register(watchService, EVENT_KINDS), new Registration(dir, null));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (foundFiles != null) {
+                    foundFiles.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                return FileVisitResult.CONTINUE;    // deleted in the meantime
+            }
+        });
+    }
+
+    /**
+     * Registered directory, either watched as a whole or only for changes of given files.
+     *
+     * @param directory registered directory
+     * @param files     watched files within the directory, {@code null} if the directory is watched as a whole
+     */
+    private record Registration(Path directory, Set<Path> files) {
+
+        boolean includes(Path path) {
+            return files == null || files.contains(path);
+        }
+    }
+}
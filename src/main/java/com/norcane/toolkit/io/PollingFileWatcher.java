@@ -0,0 +1,162 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.toolkit.io;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static com.norcane.toolkit.Prelude.nonNull;
+
+/**
+ * {@link FileWatcher} periodically scanning the watched roots and comparing modification time and size of all files with the previous scan. Doesn't depend on
+ * any system resources, but every scan walks the whole watched trees, so the poll interval should be reasonably long.
+ */
+final class PollingFileWatcher implements FileWatcher {
+
+    private final List<Path> roots;
+    private final Predicate<Path> directoryFilter;
+    private final Duration pollInterval;
+
+    private Map<Path, FileState> snapshot;
+    private volatile boolean closed;
+
+    PollingFileWatcher(Collection<Path> roots, Predicate<Path> directoryFilter, Duration pollInterval) {
+        this.roots = nonNull(roots).stream().map(root -> root.toAbsolutePath().normalize()).toList();
+        this.directoryFilter = nonNull(directoryFilter);
+        this.pollInterval = nonNull(pollInterval);
+
+        if (pollInterval.isNegative() || pollInterval.isZero()) {
+            throw new IllegalArgumentException("Poll interval must be positive, got " + pollInterval);
+        }
+
+        this.snapshot = scan();
+    }
+
+    /**
+     * Scans the roots at least once, after waiting for the poll interval, and then repeatedly until any change is detected or the timeout elapses.
+     */
+    @Override
+    public Changes poll(Duration timeout) throws InterruptedException {
+        final long deadline = System.nanoTime() + timeout.toNanos();
+
+        do {
+            Thread.sleep(pollInterval);
+            if (closed) {
+                throw new ClosedWatchServiceException();
+            }
+
+            final Map<Path, FileState> current = scan();
+            final Set<Path> changed = changedPaths(snapshot, current);
+            snapshot = current;
+
+            if (!changed.isEmpty()) {
+                return new Changes(changed, false);
+            }
+        } while (System.nanoTime() - deadline < 0);
+
+        return Changes.NONE;
+    }
+
+    @Override
+    public boolean polling() {
+        return true;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    private Map<Path, FileState> scan() {
+        final Map<Path, FileState> files = new HashMap<>();
+
+        for (final Path root : roots) {
+            try {
+                Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                        return dir.equals(root) || directoryFilter.test(dir) ? FileVisitResult.CONTINUE : FileVisitResult.SKIP_SUBTREE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        if (attrs.isRegularFile()) {
+                            files.put(file, new FileState(attrs.lastModifiedTime(), attrs.size()));
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                        return FileVisitResult.CONTINUE;    // root doesn't exist or file deleted in the meantime
+                    }
+                });
+            } catch (IOException e) {
+                // root cannot be scanned now, its files are reported as deleted and as created once it can be scanned again
+            }
+        }
+
+        return files;
+    }
+
+    private static Set<Path> changedPaths(Map<Path, FileState> previous, Map<Path, FileState> current) {
+        final Set<Path> changed = new HashSet<>();
+
+        current.forEach((path, state) -> {
+            if (!state.equals(previous.get(path))) {
+                changed.add(path);
+            }
+        });
+        previous.keySet().forEach(path -> {
+            if (!current.containsKey(path)) {
+                changed.add(path);
+            }
+        });
+
+        return changed;
+    }
+
+    private record FileState(FileTime lastModified, long size) {
+    }
+}
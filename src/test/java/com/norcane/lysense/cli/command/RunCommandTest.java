@@ -0,0 +1,171 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.cli.command;
+
+import com.norcane.lysense.cli.ReturnCode;
+import com.norcane.lysense.configuration.ConfigurationManager;
+import com.norcane.lysense.meta.SemVer;
+import com.norcane.lysense.source.batch.BatchProcessor;
+import com.norcane.lysense.test.TestProject;
+import com.norcane.lysense.ui.console.Console;
+import com.norcane.toolkit.io.FileSystem;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import picocli.CommandLine;
+
+import static com.norcane.lysense.test.TestProject.JAVA_HEADER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@QuarkusTest
+class RunCommandTest {
+
+    @Inject
+    BatchProcessor batchProcessor;
+
+    @Inject
+    CommandLine.IFactory factory;
+
+    @InjectMock
+    Console console;
+
+    @InjectMock
+    ConfigurationManager.Properties properties;
+
+    @InjectMock
+    FileSystem fileSystem;
+
+    private TestProject project;
+
+    @BeforeEach
+    void beforeEach() throws IOException {
+        project = TestProject.create();
+
+        when(properties.defaultConfiguration()).thenReturn("classpath:/configuration/test-default-configuration.yaml");
+        when(properties.minBaseVersion()).thenReturn(SemVer.from("0.0.0"));
+        when(fileSystem.currentDirectory()).thenReturn(project.root());
+        batchProcessor.reload();
+    }
+
+    @AfterEach
+    void afterEach() {
+        batchProcessor.reload();
+    }
+
+    @Test
+    void execute_checkMode_compliant() throws IOException {
+        project.source("Foo.java", JAVA_HEADER + "class Foo {}\n");
+
+        assertEquals(ReturnCode.SUCCESS.code(), execute("--mode", "check"));
+        assertPrinted("Found @|bold 0|@ source code file(s) without up-to-date license header");
+    }
+
+    @Test
+    void execute_checkMode_notCompliant() throws IOException {
+        final Path missing = project.source("Foo.java", "class Foo {}\n");
+        project.source("Bar.java", JAVA_HEADER + "class Bar {}\n");
+        project.source("Baz.java", "class Baz {}\n");
+
+        assertEquals(ReturnCode.NOT_COMPLIANT.code(), execute("--mode", "check"));
+        assertPrinted("Found @|bold 2|@ source code file(s) without up-to-date license header");
+        assertEquals("class Foo {}\n", Files.readString(missing));
+    }
+
+    @Test
+    void execute_checkMode_failFast() throws IOException {
+        for (int i = 0; i < 20; i++) {
+            project.source("Foo%d.java".formatted(i), "class Foo%d {}\n".formatted(i));
+        }
+
+        assertEquals(ReturnCode.NOT_COMPLIANT.code(), execute("--mode", "check", "--fail-fast"));
+        assertPrinted("Found @|bold 1|@ source code file(s) without up-to-date license header");
+    }
+
+    @Test
+    void execute_failFast_notCheckMode() throws IOException {
+        final Path source = project.source("Foo.java", "class Foo {}\n");
+
+        assertEquals(ReturnCode.ERROR.code(), execute("--mode", "update", "--fail-fast"));
+        assertEquals("class Foo {}\n", Files.readString(source));
+    }
+
+    @Test
+    void execute_parallelJobs() throws IOException {
+        final List<Path> sources = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            sources.add(project.source("Foo%d.java".formatted(i), "class Foo%d {}\n".formatted(i)));
+        }
+
+        assertEquals(ReturnCode.SUCCESS.code(), execute("--mode", "update", "--jobs", "4"));
+        assertPrinted("Processed @|bold 50|@ source code file(s)");
+        assertPrinted("Modified @|bold 50|@ source code file(s)");
+        for (int i = 0; i < sources.size(); i++) {
+            assertEquals(JAVA_HEADER + "class Foo%d {}\n".formatted(i), Files.readString(sources.get(i)));
+        }
+    }
+
+    @Test
+    void execute_negativeJobs() throws IOException {
+        final Path source = project.source("Foo.java", "class Foo {}\n");
+
+        assertEquals(ReturnCode.ERROR.code(), execute("--mode", "update", "--jobs", "-1"));
+        assertEquals("class Foo {}\n", Files.readString(source));
+    }
+
+    private int execute(String... args) {
+        return new CommandLine(RunCommand.class, factory)
+            .setCaseInsensitiveEnumValuesAllowed(true)
+            .execute(args);
+    }
+
+    private void assertPrinted(String prefix) {
+        final ArgumentCaptor<String> lines = ArgumentCaptor.forClass(String.class);
+        verify(console, atLeastOnce()).printLn(lines.capture());
+
+        final List<String> printed = lines.getAllValues();
+        assertTrue(printed.stream().anyMatch(line -> line.startsWith(prefix)), printed.toString());
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.cli.command;
+
+import com.norcane.lysense.configuration.ConfigurationManager;
+import com.norcane.lysense.meta.SemVer;
+import com.norcane.lysense.source.batch.BatchProcessor;
+import com.norcane.lysense.test.TestProject;
+import com.norcane.lysense.ui.console.Console;
+import com.norcane.toolkit.io.FileSystem;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import picocli.CommandLine;
+
+import static com.norcane.lysense.test.TestProject.JAVA_HEADER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@QuarkusTest
+class WatchCommandTest {
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    @Inject
+    BatchProcessor batchProcessor;
+
+    @Inject
+    CommandLine.IFactory factory;
+
+    @InjectMock
+    Console console;
+
+    @InjectMock
+    ConfigurationManager.Properties properties;
+
+    @InjectMock
+    FileSystem fileSystem;
+
+    private TestProject project;
+
+    @BeforeEach
+    void beforeEach() throws IOException {
+        project = TestProject.create();
+
+        when(properties.defaultConfiguration()).thenReturn("classpath:/configuration/test-default-configuration.yaml");
+        when(properties.minBaseVersion()).thenReturn(SemVer.from("0.0.0"));
+        when(fileSystem.currentDirectory()).thenReturn(project.root());
+        batchProcessor.reload();
+    }
+
+    @AfterEach
+    void afterEach() {
+        batchProcessor.reload();
+    }
+
+    @Test
+    void execute_processesExistingAndChangedFiles() throws Exception {
+        final Path existing = project.source("Foo.java", "class Foo {}\n");
+
+        final CompletableFuture<Integer> returnCode = new CompletableFuture<>();
+        final Thread watch = Thread.ofPlatform().start(() -> returnCode.complete(
+            new CommandLine(WatchCommand.class, factory).execute("--polling", "--poll-interval", "50", "--debounce", "50")));
+
+        try {
+            awaitContent(existing, JAVA_HEADER + "class Foo {}\n");
+
+            // files created before the watcher takes its initial snapshot are not reported as changed
+            verify(console, timeout(TIMEOUT_MILLIS)).printLn(startsWith("Watching"));
+
+            final Path created = project.source("Bar.java", "class Bar {}\n");
+            awaitContent(created, JAVA_HEADER + "class Bar {}\n");
+        } finally {
+            watch.interrupt();
+        }
+
+        assertEquals(0, returnCode.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void execute_skipsDeletedFiles() throws Exception {
+        final Path deleted = project.source("Foo.java", "class Foo {}\n");
+
+        final CompletableFuture<Integer> returnCode = new CompletableFuture<>();
+        final Thread watch = Thread.ofPlatform().start(() -> returnCode.complete(
+            new CommandLine(WatchCommand.class, factory).execute("--polling", "--poll-interval", "50", "--debounce", "50")));
+
+        try {
+            awaitContent(deleted, JAVA_HEADER + "class Foo {}\n");
+            verify(console, timeout(TIMEOUT_MILLIS)).printLn(startsWith("Watching"));
+
+            // deleted file is reported as changed, but skipped, so watching continues with later changes
+            Files.delete(deleted);
+            final Path created = project.source("Bar.java", "class Bar {}\n");
+            awaitContent(created, JAVA_HEADER + "class Bar {}\n");
+        } finally {
+            watch.interrupt();
+        }
+
+        assertEquals(0, returnCode.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        verify(console, never()).render(any());
+    }
+
+    private static void awaitContent(Path path, String expected) throws IOException, InterruptedException {
+        final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            if (expected.equals(Files.readString(path))) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+
+        fail("%s not processed within %s ms, content: %s".formatted(path, TIMEOUT_MILLIS, Files.readString(path)));
+    }
+}
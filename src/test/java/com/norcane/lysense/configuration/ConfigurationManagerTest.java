@@ -35,6 +35,7 @@ import com.norcane.lysense.configuration.api.RunMode;
 import com.norcane.lysense.configuration.exception.IncompatibleConfigurationException;
 import com.norcane.lysense.meta.RuntimeInfo;
 import com.norcane.lysense.meta.SemVer;
+import com.norcane.lysense.resource.loader.WalkMode;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
@@ -51,8 +52,10 @@ import jakarta.inject.Inject;
 
 import static com.norcane.lysense.domain.LanguageId.languageId;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -99,6 +102,14 @@ class ConfigurationManagerTest {
         assertEquals(SemVer.from("1.2.3"), configuration.baseVersion());
         assertEquals(RunMode.UPDATE, configuration.runMode());
         assertEquals(List.of("path/to/templates"), configuration.templates());
+        assertEquals(List.of("**/target"), configuration.discovery().excludes());
+        assertTrue(configuration.discovery().respectGitIgnore());
+        assertEquals(WalkMode.PARALLEL_ORDERED, configuration.discovery().walkMode());
+        assertTrue(configuration.cache().enabled());
+        assertEquals(".lysense/cache", configuration.cache().directory());
+        assertFalse(configuration.cache().shared().enabled());
+        assertEquals("/var/cache/lysense", configuration.cache().shared().directory());
+        assertEquals(256, configuration.cache().shared().maxSizeMb());
         assertEquals(0, configuration.headerConfigs().get(languageId("java")).headerSpacing().blankLinesAfter());
         assertEquals(2, configuration.headerConfigs().get(languageId("java")).headerSpacing().blankLinesBefore());
         assertEquals(2, configuration.templateVariables().size());
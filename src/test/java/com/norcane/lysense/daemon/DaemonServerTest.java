@@ -0,0 +1,183 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.daemon;
+
+import com.norcane.lysense.configuration.api.Configuration;
+import com.norcane.lysense.configuration.api.RunMode;
+import com.norcane.lysense.daemon.exception.CannotStartDaemonException;
+import com.norcane.lysense.resource.Resource;
+import com.norcane.lysense.source.SourceModificationResult;
+import com.norcane.lysense.source.batch.Batch;
+import com.norcane.lysense.source.batch.BatchProcessor;
+import com.norcane.lysense.source.batch.ProcessedSource;
+import com.norcane.lysense.source.batch.WatchedRoots;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@QuarkusTest
+class DaemonServerTest {
+
+    @Inject
+    DaemonServer daemonServer;
+
+    @InjectMock
+    BatchProcessor batchProcessor;
+
+    @InjectMock
+    Configuration configuration;
+
+    private final List<String> log = new CopyOnWriteArrayList<>();
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    private Path tempDir;
+    private Path socket;
+    private Thread server;
+
+    @BeforeEach
+    void beforeEach() throws Exception {
+        tempDir = Files.createTempDirectory(null);
+        socket = tempDir.resolve("daemon/daemon.sock");
+
+        when(batchProcessor.watchedRoots()).thenReturn(new WatchedRoots(List.of(), List.of(tempDir.resolve("lysense.yaml"))));
+        when(configuration.runMode()).thenReturn(RunMode.UPDATE);
+
+        server = Thread.ofPlatform().start(() -> daemonServer.serve(socket, 1, log::add));
+        for (int i = 0; i < 100 && !Files.exists(socket); i++) {
+            Thread.sleep(50);
+        }
+    }
+
+    @AfterEach
+    void afterEach() throws Exception {
+        if (server.isAlive()) {
+            client("stop");
+            server.join(5000);
+        }
+    }
+
+    @Test
+    void createsPrivateSocket() throws IOException {
+        assertEquals(PosixFilePermissions.fromString("rwx------"), Files.getPosixFilePermissions(socket.getParent()));
+        assertEquals(PosixFilePermissions.fromString("rw-------"), Files.getPosixFilePermissions(socket));
+    }
+
+    @Test
+    void rejectsSharedDirectory() throws IOException {
+        final Path sharedDir = Files.createDirectory(tempDir.resolve("shared"));
+        Files.setPosixFilePermissions(sharedDir, PosixFilePermissions.fromString("rwxr-xr-x"));
+        final Path sharedSocket = sharedDir.resolve("daemon.sock");
+
+        final CannotStartDaemonException exception = assertThrows(CannotStartDaemonException.class, () -> daemonServer.serve(sharedSocket, 1, log::add));
+        assertTrue(exception.errorDetail().problem().contains("not accessible only by you"), exception.errorDetail().problem());
+        assertFalse(Files.exists(sharedSocket));
+    }
+
+    @Test
+    void processesRequests() {
+        final Resource resource = mock(Resource.class);
+        final Batch batch = mock(Batch.class);
+        final ProcessedSource processed = new ProcessedSource(resource, "Adding header to @|bold Foo.java|@", SourceModificationResult.MODIFIED, false, false);
+
+        when(batch.iterator()).thenReturn(List.of(processed).iterator());
+        when(batchProcessor.start(any(), any(), anyInt())).thenReturn(batch);
+
+        assertEquals(0, client("run", "-m", "drop", "src/Foo.java"));
+        verify(batchProcessor).start(RunMode.DROP, Optional.of(Set.of(tempDir.resolve("src/Foo.java"))), 1);
+        verify(batch).close();
+
+        final String output = out.toString(StandardCharsets.UTF_8);
+        assertTrue(output.startsWith("Adding header to Foo.java"));
+        assertTrue(output.contains("Processed 1, modified 1 and found 0 non-compliant source code file(s)"));
+        assertEquals(1, log.stream().filter(message -> message.startsWith("Processed")).count());
+    }
+
+    @Test
+    void reportsErrors() {
+        when(batchProcessor.start(any(), any(), anyInt())).thenThrow(new IllegalStateException("broken"));
+
+        assertEquals(1, client("run"));
+        verify(batchProcessor).start(RunMode.UPDATE, Optional.empty(), 1);
+        assertEquals("broken", err.toString(StandardCharsets.UTF_8).strip());
+
+        assertEquals(1, client("run", "-m", "unknown"));
+        assertTrue(err.toString(StandardCharsets.UTF_8).contains("Unknown run mode 'unknown'"));
+    }
+
+    @Test
+    void stops() throws Exception {
+        assertThrows(CannotStartDaemonException.class, () -> daemonServer.serve(socket, 1, log::add));
+
+        assertEquals(0, client("stop"));
+        server.join(5000);
+
+        assertFalse(server.isAlive());
+        assertFalse(Files.exists(socket));
+        assertEquals(1, client("stop"));
+        assertTrue(err.toString(StandardCharsets.UTF_8).contains("Cannot connect to the daemon"));
+    }
+
+    private int client(String... args) {
+        final String[] clientArgs = new String[args.length + 2];
+        clientArgs[0] = "--socket";
+        clientArgs[1] = socket.toString();
+        System.arraycopy(args, 0, clientArgs, 2, args.length);
+
+        return DaemonClient.run(clientArgs, tempDir, new PrintStream(out, true, StandardCharsets.UTF_8), new PrintStream(err, true, StandardCharsets.UTF_8));
+    }
+}
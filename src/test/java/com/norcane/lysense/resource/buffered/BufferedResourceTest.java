@@ -0,0 +1,124 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.resource.buffered;
+
+import com.norcane.lysense.resource.Resource;
+import com.norcane.lysense.resource.exception.ResourceNotWritableException;
+import com.norcane.lysense.resource.inline.InlineResource;
+import com.norcane.lysense.resource.util.LineSeparator;
+import com.norcane.lysense.test.InMemoryWritableResourceWrapper;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+import io.quarkus.test.junit.QuarkusTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@QuarkusTest
+class BufferedResourceTest {
+
+    @Test
+    void readsSourceOnlyOnce() {
+        final Resource source = spy(InlineResource.of("/foo/bar.java", "java", "line1\r\nline2\r\n"));
+        final BufferedResource resource = BufferedResource.of(source);
+
+        assertEquals("bar", resource.name());
+        assertEquals("java", resource.extension());
+        assertEquals(source.uri(), resource.uri());
+        assertSame(source, resource.source());
+
+        assertEquals(LineSeparator.CRLF, resource.lineSeparator());
+        assertEquals("line1\r\nline2\r\n", resource.readAsString());
+        assertEquals(List.of("line1", "line2"), resource.readLines());
+
+        assertTrue(resource.isComplete());
+        verify(source, times(1)).readAsString();
+    }
+
+    @Test
+    void of_partialContent() {
+        final Resource source = spy(InlineResource.of("line1\nline2\nline3"));
+        final BufferedResource resource = BufferedResource.of(source, "line1\n", false);
+
+        assertFalse(resource.isComplete());
+        assertEquals(LineSeparator.LF, resource.lineSeparator());
+        verify(source, never()).readAsString();
+
+        // whole content is read from the wrapped resource
+        assertEquals("line1\nline2\nline3", resource.readAsString());
+        assertEquals(List.of("line1", "line2", "line3"), resource.readLines());
+    }
+
+    @Test
+    void of_partialContentWithoutLineBreak() {
+        final BufferedResource resource = BufferedResource.of(InlineResource.of("line1\r\nline2"), "line", false);
+
+        assertEquals(LineSeparator.CRLF, resource.lineSeparator());
+    }
+
+    @Test
+    void of_alreadyBuffered() {
+        final BufferedResource resource = BufferedResource.of(InlineResource.of("foo"));
+
+        assertSame(resource, BufferedResource.of(resource));
+    }
+
+    @Test
+    void writer() throws IOException {
+        final InMemoryWritableResourceWrapper source = new InMemoryWritableResourceWrapper(InlineResource.of("original"));
+        final BufferedResource resource = BufferedResource.of(source);
+
+        try (final Writer writer = resource.asWritableOrFail().writer()) {
+            writer.write("modified");
+        }
+
+        assertEquals("modified", source.writtenString());
+        assertEquals("original", resource.readAsString());
+    }
+
+    @Test
+    void asWritableOrFail_notWritable() {
+        final BufferedResource resource = BufferedResource.of(InlineResource.of("foo"));
+
+        assertThrows(ResourceNotWritableException.class, resource::asWritableOrFail);
+    }
+}
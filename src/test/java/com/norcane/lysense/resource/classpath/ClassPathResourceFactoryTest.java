@@ -35,6 +35,7 @@ import org.junit.jupiter.api.Test;
 
 import java.net.URI;
 import java.util.List;
+import java.util.stream.Stream;
 
 import io.quarkus.test.junit.QuarkusTest;
 import jakarta.inject.Inject;
@@ -74,4 +75,15 @@ class ClassPathResourceFactoryTest {
         assertEquals(1, resources2.size());
         assertTrue(resources2.stream().anyMatch(resource -> resource.uri().toString().endsWith("a.txt")));
     }
+
+    @Test
+    void streamResources() {
+        try (final Stream<Resource> resources = factory.streamResources("/resources-test/**", resource -> true)) {
+            assertEquals(1, resources.limit(1).count());
+        }
+
+        try (final Stream<Resource> resources = factory.streamResources("/resources-test/**", resource -> resource.name().equals("b"))) {
+            assertEquals(List.of("b"), resources.map(Resource::name).toList());
+        }
+    }
 }
@@ -31,6 +31,7 @@ package com.norcane.lysense.resource.filesystem;
 
 import com.norcane.lysense.resource.Resource;
 import com.norcane.lysense.resource.loader.DefaultResourceFactory;
+import com.norcane.lysense.resource.loader.DiscoveryOptions;
 
 import org.junit.jupiter.api.Test;
 
@@ -39,6 +40,7 @@ import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.stream.Stream;
 
 import io.quarkus.test.junit.QuarkusTest;
 import jakarta.inject.Inject;
@@ -102,4 +104,25 @@ class FileSystemResourceFactoryTest {
         assertTrue(resources3.stream().anyMatch(resource -> resource.uri().toString().endsWith("a.txt")));
         assertTrue(resources3.stream().anyMatch(resource -> resource.uri().toString().endsWith("b.txt")));
     }
+
+    @Test
+    public void streamResources_multiplePatterns() throws Exception {
+        final Path tempDirectory = Files.createTempDirectory(null);
+        for (final String file : List.of("a.java", "src/b.java", "src/main/c.java", "src/main/d.kt", "src/test/e.java", "other/f.java")) {
+            Files.createDirectories(tempDirectory.resolve(file).getParent());
+            Files.createFile(tempDirectory.resolve(file));
+        }
+
+        // overlapping patterns are walked at once, patterns with non-existing root path are ignored
+        final List<String> patterns = List.of(tempDirectory + "/src/main/**",
+                                              tempDirectory + "/src/**.java",
+                                              tempDirectory + "/src/test/*.java",
+                                              tempDirectory + "/not-existing/**",
+                                              tempDirectory + "/other/*.java");
+
+        try (final Stream<Resource> stream = factory.streamResources(patterns, _ -> true, DiscoveryOptions.DEFAULT)) {
+            final List<String> found = stream.map(resource -> tempDirectory.relativize(Path.of(resource.uri())).toString()).sorted().toList();
+            assertEquals(List.of("other/f.java", "src/b.java", "src/main/c.java", "src/main/d.kt", "src/test/e.java"), found);
+        }
+    }
 }
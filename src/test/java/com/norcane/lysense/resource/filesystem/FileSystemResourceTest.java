@@ -34,6 +34,7 @@ import com.google.common.io.CharStreams;
 import com.norcane.lysense.resource.Resource;
 import com.norcane.lysense.resource.exception.ResourceNotFoundException;
 import com.norcane.lysense.resource.util.LineSeparator;
+import com.norcane.lysense.resource.util.PathDescriptor;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -42,6 +43,7 @@ import java.io.Reader;
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 
 import io.quarkus.test.junit.QuarkusTest;
 
@@ -73,6 +75,17 @@ class FileSystemResourceTest {
         assertThrows(ResourceNotFoundException.class, () -> FileSystemResource.of("fo"));
     }
 
+    @Test
+    void of_pathDescriptor() throws Exception {
+        final PathDescriptor descriptor = new PathDescriptor(path, Files.readAttributes(path, BasicFileAttributes.class));
+        final Resource fromDescriptor = FileSystemResource.of(descriptor);
+
+        assertEquals(resource, fromDescriptor);
+        assertEquals(resource.uri(), fromDescriptor.uri());
+        assertEquals(resource.extension(), fromDescriptor.extension());
+        assertEquals(content.length(), descriptor.size());
+    }
+
     @Test
     void reader() throws Exception {
         try (final Reader reader = resource.reader()) {
@@ -39,6 +39,7 @@ import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.stream.Stream;
 
 import io.quarkus.test.junit.QuarkusTest;
 import jakarta.inject.Inject;
@@ -97,4 +98,75 @@ class ResourceLoaderTest {
         assertEquals(1, resources4.size());
         assertTrue(resources4.stream().anyMatch(resource -> resource.uri().toString().endsWith("a.txt")));
     }
+
+    @Test
+    void streamResources() throws IOException {
+        final Path tempDirectory = Files.createTempDirectory(null);
+        final Path fileA = Path.of("a.txt");
+        final Path fileB = Path.of("foo/b.txt");
+        Files.createDirectories(tempDirectory.resolve(fileB.getParent()));
+        Files.createFile(tempDirectory.resolve(fileA));
+        Files.createFile(tempDirectory.resolve(fileB));
+
+        // check that all resources from given directory are recursively streamed
+        try (final Stream<Resource> stream = resourceLoader.streamResources(tempDirectory.toString(), _ -> true, true)) {
+            final List<Resource> resources = stream.toList();
+            assertEquals(2, resources.size());
+            assertTrue(resources.stream().anyMatch(resource -> resource.uri().toString().endsWith("a.txt")));
+            assertTrue(resources.stream().anyMatch(resource -> resource.uri().toString().endsWith("b.txt")));
+        }
+
+        // check that filter is applied
+        try (final Stream<Resource> stream = resourceLoader.streamResources(tempDirectory + "/**", resource -> resource.name().equals("b"), true)) {
+            assertEquals(List.of("b"), stream.map(Resource::name).toList());
+        }
+
+        // check that concrete resource is returned when using absolute path
+        try (final Stream<Resource> stream = resourceLoader.streamResources(tempDirectory.resolve(fileA).toString(), _ -> true, true)) {
+            assertEquals(1, stream.count());
+        }
+    }
+
+    @Test
+    void streamResources_multiplePatterns() throws IOException {
+        final Path tempDirectory = Files.createTempDirectory(null);
+        for (final String file : List.of("a.txt", "foo/b.txt", "foo/bar/c.txt", "foo/bar/d.sh", "baz/e.txt")) {
+            Files.createDirectories(tempDirectory.resolve(file).getParent());
+            Files.createFile(tempDirectory.resolve(file));
+        }
+
+        final List<String> patterns = List.of(tempDirectory + "/foo/**.txt",
+                                              tempDirectory + "/foo/bar",
+                                              tempDirectory.resolve("a.txt").toString(),
+                                              tempDirectory + "/*.txt",
+                                              tempDirectory + "/baz/*.txt");
+
+        // check that every resource is returned only once, even if matching multiple patterns
+        try (final Stream<Resource> stream = resourceLoader.streamResources(patterns, _ -> true, true, DiscoveryOptions.DEFAULT)) {
+            final List<String> found = stream.map(resource -> tempDirectory.relativize(Path.of(resource.uri())).toString()).sorted().toList();
+            assertEquals(List.of("a.txt", "baz/e.txt", "foo/b.txt", "foo/bar/c.txt", "foo/bar/d.sh"), found);
+        }
+    }
+
+    @Test
+    void streamResources_selectedFiles() throws IOException {
+        final Path tempDirectory = Files.createTempDirectory(null);
+        for (final String file : List.of("a.txt", "foo/b.txt", "foo/c.sh", "foo/bar/d.txt", "baz/e.txt")) {
+            Files.createDirectories(tempDirectory.resolve(file).getParent());
+            Files.createFile(tempDirectory.resolve(file));
+        }
+
+        final List<String> patterns = List.of(tempDirectory + "/foo/**.txt", tempDirectory.resolve("a.txt").toString());
+        final List<Path> files = List.of(tempDirectory.resolve("a.txt"),
+                                         tempDirectory.resolve("foo/./bar/d.txt"),
+                                         tempDirectory.resolve("foo/c.sh"),
+                                         tempDirectory.resolve("foo/missing.txt"),
+                                         tempDirectory.resolve("baz/e.txt"));
+
+        // check that only selected files matching the patterns are returned
+        try (final Stream<Resource> stream = resourceLoader.streamResources(patterns, files, _ -> true, true, DiscoveryOptions.DEFAULT)) {
+            final List<String> found = stream.map(resource -> tempDirectory.relativize(Path.of(resource.uri()).normalize()).toString()).sorted().toList();
+            assertEquals(List.of("a.txt", "foo/bar/d.txt"), found);
+        }
+    }
 }
@@ -0,0 +1,100 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.resource.util;
+
+import com.norcane.lysense.resource.exception.CannotListChangedFilesException;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GitChangesTest {
+
+    @Test
+    void since() throws Exception {
+        final Path repository = Files.createTempDirectory(null);
+        for (final String file : List.of("unchanged.txt", "modified.txt", "deleted.txt", "sub/committed.txt")) {
+            Files.createDirectories(repository.resolve(file).getParent());
+            Files.writeString(repository.resolve(file), file);
+        }
+
+        Assumptions.assumeTrue(git(repository, "init", "-q"), "git binary not available");
+        assertTrue(git(repository, "add", "unchanged.txt", "modified.txt", "deleted.txt"));
+        assertTrue(git(repository, "-c", "user.name=test", "-c", "user.email=test@test", "commit", "-q", "-m", "initial"));
+        assertTrue(git(repository, "tag", "base"));
+
+        assertTrue(git(repository, "add", "sub/committed.txt"));
+        assertTrue(git(repository, "-c", "user.name=test", "-c", "user.email=test@test", "commit", "-q", "-m", "second"));
+
+        Files.writeString(repository.resolve("modified.txt"), "changed");
+        Files.delete(repository.resolve("deleted.txt"));
+        Files.writeString(repository.resolve("untracked.txt"), "untracked");
+        Files.writeString(repository.resolve(".gitignore"), "ignored.txt\n");
+        Files.writeString(repository.resolve("ignored.txt"), "ignored");
+
+        final Set<String> changed = GitChanges.since(repository, "base").stream()
+            .map(path -> repository.relativize(path).toString())
+            .collect(Collectors.toSet());
+        assertEquals(Set.of("modified.txt", "sub/committed.txt", "untracked.txt", ".gitignore"), changed);
+
+        // paths are relative to the given directory, changes outside of it are not listed
+        final List<Path> changedInSub = GitChanges.since(repository.resolve("sub"), "base");
+        assertEquals(List.of(repository.resolve("sub/committed.txt")), changedInSub);
+
+        assertThrows(CannotListChangedFilesException.class, () -> GitChanges.since(repository, "not-existing-revision"));
+        assertThrows(CannotListChangedFilesException.class, () -> GitChanges.since(repository, "--output=foo"));
+    }
+
+    private static boolean git(Path directory, String... arguments) {
+        final List<String> command = new ArrayList<>(List.of("git"));
+        command.addAll(List.of(arguments));
+
+        try {
+            final Process process = new ProcessBuilder(command)
+                .directory(directory.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+            return process.waitFor() == 0;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.resource.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GitIgnoreTest {
+
+    @ParameterizedTest
+    @CsvSource(
+        delimiter = '|',
+        value = {
+            "IGNORED    |*.log          |a.log          |false",
+            "IGNORED    |*.log          |dir/a.log      |false",
+            "NONE       |/*.log         |dir/a.log      |false",
+            "IGNORED    |/*.log         |a.log          |false",
+            "IGNORED    |build/         |build          |true",
+            "NONE       |build/         |build          |false",
+            "IGNORED    |build/         |sub/build      |true",
+            "IGNORED    |doc/*.txt      |doc/a.txt      |false",
+            "NONE       |doc/*.txt      |doc/sub/a.txt  |false",
+            "IGNORED    |**/foo         |foo            |true",
+            "IGNORED    |**/foo         |a/b/foo        |false",
+            "IGNORED    |a/**/b         |a/b            |false",
+            "IGNORED    |a/**/b         |a/x/y/b        |false",
+            "IGNORED    |abc/**         |abc/x/y        |false",
+            "NONE       |abc/**         |abc            |true",
+            "IGNORED    |file?.[ch]     |file1.c        |false",
+            "NONE       |file?.[!ch]    |file1.c        |false",
+            "IGNORED    |\\#file        |#file          |false",
+            "NONE       |# comment      |# comment      |false",
+            "IGNORED    |'name\\ '      |'name '        |false",
+            "IGNORED    |'name   '      |name           |false",
+        }
+    )
+    void match(GitIgnore.Match expected, String rules, String path, boolean directory) {
+        assertEquals(expected, GitIgnore.parse(rules).match(path, directory));
+    }
+
+    @Test
+    void match_lastRuleWins() {
+        final GitIgnore gitIgnore = GitIgnore.parse("*.java\n!Keep.java\n\n# comment\n");
+
+        assertEquals(GitIgnore.Match.IGNORED, gitIgnore.match("src/Foo.java", false));
+        assertEquals(GitIgnore.Match.NOT_IGNORED, gitIgnore.match("src/Keep.java", false));
+        assertEquals(GitIgnore.Match.NONE, gitIgnore.match("src/Foo.txt", false));
+    }
+
+    @Test
+    void parse_empty() {
+        assertTrue(GitIgnore.parse("\n# only comment\n").isEmpty());
+    }
+}
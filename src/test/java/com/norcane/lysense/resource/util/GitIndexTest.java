@@ -0,0 +1,203 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.resource.util;
+
+import com.norcane.lysense.resource.exception.InvalidGitIndexException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GitIndexTest {
+
+    private static final int REGULAR_FILE = 0100644;
+    private static final int EXECUTABLE_FILE = 0100755;
+    private static final int SYMLINK = 0120000;
+    private static final int GITLINK = 0160000;
+    private static final int SHA1_LENGTH = 20;
+
+    private static final Path INDEX_FILE = Path.of(".git/index");
+
+    @ParameterizedTest
+    @ValueSource(ints = {2, 3, 4})
+    void parse(int version) {
+        final IndexBuilder builder = new IndexBuilder(version, SHA1_LENGTH)
+            .entry(REGULAR_FILE, 0, false, "README.md")
+            .entry(GITLINK, 0, false, "lib/submodule")
+            .entry(REGULAR_FILE, 1, false, "src/Conflict.java")
+            .entry(REGULAR_FILE, 2, false, "src/Conflict.java")
+            .entry(REGULAR_FILE, 3, false, "src/Conflict.java")
+            .entry(EXECUTABLE_FILE, 0, false, "src/main/run.sh")
+            .entry(REGULAR_FILE, 0, false, "src/main/Žluťoučký.java")
+            .entry(SYMLINK, 0, false, "src/main/link")
+            .entry(REGULAR_FILE, 0, false, "src/" + "long/".repeat(1000) + "Long.java");
+
+        if (version >= 3) {
+            builder.entry(REGULAR_FILE, 0, true, "src/sparse/Skipped.java");
+        }
+
+        final List<String> paths = GitIndex.parse(INDEX_FILE, builder.build(), SHA1_LENGTH);
+        assertEquals(List.of("README.md",
+                             "src/Conflict.java",
+                             "src/main/run.sh",
+                             "src/main/Žluťoučký.java",
+                             "src/main/link",
+                             "src/" + "long/".repeat(1000) + "Long.java"), paths);
+    }
+
+    @Test
+    void parse_sha256() {
+        final ByteBuffer index = new IndexBuilder(2, 32)
+            .entry(REGULAR_FILE, 0, false, "a.txt")
+            .entry(REGULAR_FILE, 0, false, "b.txt")
+            .build();
+
+        assertEquals(List.of("a.txt", "b.txt"), GitIndex.parse(INDEX_FILE, index, 32));
+    }
+
+    @Test
+    void parse_invalid() {
+        final ByteBuffer invalidSignature = ByteBuffer.wrap("NOPE\0\0\0\2\0\0\0\0".getBytes(StandardCharsets.US_ASCII));
+        assertThrows(InvalidGitIndexException.class, () -> GitIndex.parse(INDEX_FILE, invalidSignature, SHA1_LENGTH));
+
+        final ByteBuffer unsupportedVersion = new IndexBuilder(5, SHA1_LENGTH).build();
+        assertThrows(InvalidGitIndexException.class, () -> GitIndex.parse(INDEX_FILE, unsupportedVersion, SHA1_LENGTH));
+
+        final ByteBuffer complete = new IndexBuilder(2, SHA1_LENGTH).entry(REGULAR_FILE, 0, false, "a.txt").build();
+        final ByteBuffer truncated = complete.slice(0, complete.limit() - 30);
+        assertThrows(InvalidGitIndexException.class, () -> GitIndex.parse(INDEX_FILE, truncated, SHA1_LENGTH));
+    }
+
+    @Test
+    void forDirectory() throws Exception {
+        final Path repository = Files.createTempDirectory(null);
+        Files.createDirectories(repository.resolve("src/main"));
+        Files.createDirectories(repository.resolve(".git"));
+
+        // no index yet
+        assertTrue(GitIndex.forDirectory(repository.resolve("src/main")).isEmpty());
+
+        final ByteBuffer index = new IndexBuilder(2, SHA1_LENGTH).entry(REGULAR_FILE, 0, false, "src/main/a.txt").build();
+        Files.write(repository.resolve(".git/index"), toBytes(index));
+
+        final Optional<GitIndex> gitIndex = GitIndex.forDirectory(repository.resolve("src/main"));
+        assertTrue(gitIndex.isPresent());
+        assertEquals(repository.toAbsolutePath().normalize(), gitIndex.get().repositoryRoot());
+        assertEquals(List.of("src/main/a.txt"), gitIndex.get().paths());
+        assertFalse(gitIndex.get().isStale());
+
+        Files.write(repository.resolve(".git/index"), toBytes(new IndexBuilder(2, SHA1_LENGTH).build()));
+        assertTrue(gitIndex.get().isStale());
+    }
+
+    private static byte[] toBytes(ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Builds content of the Git index file in the same way Git does, only with zeroed stat data and object names.
+     */
+    private static final class IndexBuilder {
+
+        private final int version;
+        private final int objectNameLength;
+        private final ByteArrayOutputStream entries = new ByteArrayOutputStream();
+
+        private int entryCount;
+        private byte[] previousName = new byte[0];
+
+        private IndexBuilder(int version, int objectNameLength) {
+            this.version = version;
+            this.objectNameLength = objectNameLength;
+        }
+
+        private IndexBuilder entry(int mode, int stage, boolean skipWorktree, String path) {
+            final byte[] name = path.getBytes(StandardCharsets.UTF_8);
+            final boolean extended = skipWorktree;
+            final ByteBuffer entry = ByteBuffer.allocate(40 + objectNameLength + 4 + name.length + 16);
+
+            entry.position(24).putInt(mode);
+            entry.position(40 + objectNameLength);
+            entry.putShort((short) ((extended ? 0x4000 : 0) | (stage << 12) | Math.min(name.length, 0x0FFF)));
+            if (extended) {
+                entry.putShort((short) 0x4000);
+            }
+
+            if (version == 4) {
+                int common = 0;
+                while (common < Math.min(name.length, previousName.length) && name[common] == previousName[common]) {
+                    common++;
+                }
+                putOffset(entry, previousName.length - common);
+                entry.put(name, common, name.length - common).put((byte) 0);
+            } else {
+                entry.put(name);
+                final int length = entry.position();
+                entry.position((length + 8) & ~7);
+            }
+
+            entries.write(entry.array(), 0, entry.position());
+            previousName = name;
+            entryCount++;
+            return this;
+        }
+
+        private ByteBuffer build() {
+            final ByteBuffer index = ByteBuffer.allocate(12 + entries.size() + objectNameLength);
+            index.putInt(0x44495243).putInt(version).putInt(entryCount).put(entries.toByteArray());
+            return index.rewind();
+        }
+
+        private static void putOffset(ByteBuffer buffer, int value) {
+            final byte[] encoded = new byte[16];
+            int position = encoded.length - 1;
+            encoded[position] = (byte) (value & 0x7F);
+            while ((value >>= 7) != 0) {
+                encoded[--position] = (byte) (0x80 | (--value & 0x7F));
+            }
+            buffer.put(encoded, position, encoded.length - position);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.resource.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.regex.PatternSyntaxException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GlobMatcherTest {
+
+    private static final List<String> PATHS = List.of(
+        "Foo.java", "src/Foo.java", "src/main/Foo.java", "src/main/java/com/Foo.java", "src/main/resources/foo.yaml", "test/Foo.java",
+        "foo.txt", ".hidden", "a/b/c/d.txt", "a.b", "ab", "b/a/b", "[x]", "x,y", "src/{a}.java", "/abs/Foo.java"
+    );
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "*", "**", "*.java", "**/*.java", "**.java", "src/**", "src/**/*.java", "src/*/*.java", "src/**/Foo.java", "src/main/**/*.{java,yaml}",
+        "{src,test}/*.java", "a/**/d.txt", "a/**/**/d.txt", "?b", "[ab]?", "[!a]b", "[a-c]/**", "\\[x\\]", "x,y", "src/\\{a\\}.java", "/abs/*.java",
+        "**/abs/*.java", ".*", "src/main", "*/*/Foo.java"
+    })
+    void matches_sameAsDefaultFileSystem(String pattern) {
+        final java.nio.file.PathMatcher expected = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+        final GlobMatcher matcher = GlobMatcher.compile(pattern);
+
+        for (final String path : PATHS) {
+            assertEquals(expected.matches(Path.of(path)), matcher.matches(Path.of(path)), "pattern: %s, path: %s".formatted(pattern, path));
+            assertEquals(expected.matches(Path.of(path)), matcher.matches(path), "pattern: %s, path: %s".formatted(pattern, path));
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource(
+        delimiter = '|',
+        value = {
+            "true |src/**/*.java|src/main/java/Foo.java",
+            "false|src/**/*.java|src/Foo.java",
+            "true |**|a/b/c",
+            "false|src/main|src/main/Foo.java"
+        }
+    )
+    void matches(boolean result, String pattern, String path) {
+        assertEquals(result, GlobMatcher.compile(pattern).matches(Path.of(path)));
+    }
+
+    @ParameterizedTest
+    @CsvSource(
+        delimiter = '|',
+        value = {
+            "true |src/**/*.java|src",
+            "true |src/**/*.java|src/main",
+            "false|src/**/*.java|test",
+            "false|src/*.java   |src/main",
+            "true |*/main/*.java|src/main",
+            "false|*/main/*.java|src/test",
+            "true |**.java      |anything",
+        }
+    )
+    void canMatchWithin(boolean result, String pattern, String directory) {
+        assertEquals(result, GlobMatcher.compile(pattern).canMatchWithin(Path.of(directory)));
+    }
+
+    @ParameterizedTest
+    @CsvSource(
+        delimiter = '|',
+        value = {
+            "true |src/**     |src",
+            "true |src/**     |src/main",
+            "true |**         |src",
+            "false|src/**     |test",
+            "false|src/*      |src",
+            "false|src/**/*.sh|src",
+        }
+    )
+    void matchesAllWithin(boolean result, String pattern, String directory) {
+        assertEquals(result, GlobMatcher.compile(pattern).matchesAllWithin(Path.of(directory)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"[abc", "{a,b", "{a,{b}}", "foo\\", "[z-a]"})
+    void compile_invalidPattern(String pattern) {
+        assertThrows(PatternSyntaxException.class, () -> GlobMatcher.compile(pattern));
+    }
+
+    @Test
+    void pattern() {
+        assertEquals("src/**", GlobMatcher.compile("src/**").pattern());
+    }
+}
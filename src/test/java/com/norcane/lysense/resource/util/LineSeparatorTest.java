@@ -62,6 +62,12 @@ class LineSeparatorTest {
         assertEquals(expected, LineSeparator.detect(resource).orElse(null));
     }
 
+    @ParameterizedTest
+    @MethodSource("detectArguments")
+    void detect_content(Resource resource, LineSeparator expected) {
+        assertEquals(expected, LineSeparator.detect(resource.readAsString()).orElse(null));
+    }
+
     private static Stream<Arguments> detectArguments() {
         return Stream.of(
             Arguments.of(InlineResource.of("Hello, world!"), null),
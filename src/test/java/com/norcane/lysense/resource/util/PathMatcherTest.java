@@ -29,6 +29,7 @@
  */
 package com.norcane.lysense.resource.util;
 
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 
@@ -36,6 +37,9 @@ import io.quarkus.test.junit.QuarkusTest;
 import jakarta.inject.Inject;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @QuarkusTest
 class PathMatcherTest {
@@ -97,6 +101,25 @@ class PathMatcherTest {
         assertEquals(result, pathMatcher.matches(pattern, path));
     }
 
+    @Test
+    void compile() {
+        final GlobMatcher matcher = pathMatcher.compile("src/**/*.java");
+
+        assertEquals("src/**/*.java", matcher.pattern());
+        assertSame(matcher, pathMatcher.compile("src/**/*.java"));
+    }
+
+    @Test
+    void compile_manyPatterns() {
+        for (int i = 0; i < 5000; i++) {
+            assertTrue(pathMatcher.matches("src/%d/**/*.java".formatted(i), "src/%d/foo/Bar.java".formatted(i)));
+            assertFalse(pathMatcher.matches("src/%d/**/*.java".formatted(i), "src/%d/foo/Bar.java".formatted(i + 1)));
+            assertEquals("src/%d/".formatted(i), pathMatcher.resolveRootPath("src/%d/**/*.java".formatted(i)));
+        }
+
+        assertEquals("src/0/**/*.java", pathMatcher.compile("src/0/**/*.java").pattern());
+    }
+
     @ParameterizedTest
     @CsvSource(
         delimiter = '|',
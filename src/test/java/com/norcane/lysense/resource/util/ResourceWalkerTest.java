@@ -31,17 +31,27 @@ package com.norcane.lysense.resource.util;
 
 import com.norcane.lysense.resource.Resource;
 import com.norcane.lysense.resource.filesystem.FileSystemResource;
+import com.norcane.lysense.resource.loader.DiscoveryOptions;
+import com.norcane.lysense.resource.loader.WalkMode;
 
+import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import io.quarkus.test.junit.QuarkusTest;
 import jakarta.inject.Inject;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @QuarkusTest
@@ -66,4 +76,192 @@ class ResourceWalkerTest {
         assertTrue(resources.stream().anyMatch(resource -> resource.uri().toString().endsWith("a.txt")));
         assertTrue(resources.stream().anyMatch(resource -> resource.uri().toString().endsWith("b.txt")));
     }
+
+    @ParameterizedTest
+    @EnumSource(WalkMode.class)
+    public void stream_prunesSubtrees(WalkMode walkMode) throws Exception {
+        final Path tempDirectory = Files.createTempDirectory(null);
+        for (final String file : List.of("a.sh", "scripts/b.sh", "scripts/sub/c.sh", "scripts/gen/d.sh", "scripts/target/e.sh", "other/f.sh")) {
+            Files.createDirectories(tempDirectory.resolve(file).getParent());
+            Files.createFile(tempDirectory.resolve(file));
+        }
+
+        final DiscoveryOptions options = new DiscoveryOptions(List.of("**/target", tempDirectory + "/scripts/gen/**"), false, walkMode, Set.of());
+
+        try (final Stream<Resource> stream =
+                 resourceWalker.stream(tempDirectory, GlobMatcher.compile("scripts/**"), options, FileSystemResource::of, _ -> true)) {
+            final Set<String> found = stream.map(resource -> tempDirectory.relativize(Path.of(resource.uri())).toString()).collect(Collectors.toSet());
+            assertEquals(Set.of("scripts/b.sh", "scripts/sub/c.sh"), found);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(WalkMode.class)
+    public void stream_respectGitIgnore(WalkMode walkMode) throws Exception {
+        final Path tempDirectory = Files.createTempDirectory(null);
+        for (final String file : List.of("a.java", "b.java", "build/c.java", "src/d.java", "src/gen/e.java", "src/f.java", ".git/config")) {
+            Files.createDirectories(tempDirectory.resolve(file).getParent());
+            Files.createFile(tempDirectory.resolve(file));
+        }
+        Files.createDirectories(tempDirectory.resolve(".git/info"));
+        Files.writeString(tempDirectory.resolve(".git/info/exclude"), "b.java\n");
+        Files.writeString(tempDirectory.resolve(".gitignore"), "/build/\ngen/\n*.java\n!src/*.java\n");
+        Files.writeString(tempDirectory.resolve("src/.gitignore"), "f.java\n");
+
+        final DiscoveryOptions options = new DiscoveryOptions(List.of(), true, walkMode, Set.of());
+
+        try (final Stream<Resource> stream = resourceWalker.stream(tempDirectory, GlobMatcher.compile("**"), options, FileSystemResource::of, _ -> true)) {
+            final Set<String> found = stream.map(resource -> tempDirectory.relativize(Path.of(resource.uri())).toString()).collect(Collectors.toSet());
+            assertEquals(Set.of(".gitignore", "src/.gitignore", "src/d.java"), found);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(WalkMode.class)
+    public void stream_filtersExtensions(WalkMode walkMode) throws Exception {
+        final Path tempDirectory = Files.createTempDirectory(null);
+        for (final String file : List.of("a.java", "b.txt", "sub/c.java", "sub/d", "sub/.java", "sub/e.tar.java")) {
+            Files.createDirectories(tempDirectory.resolve(file).getParent());
+            Files.createFile(tempDirectory.resolve(file));
+        }
+
+        final DiscoveryOptions options = new DiscoveryOptions(List.of(), false, walkMode, Set.of("java"));
+
+        try (final Stream<Resource> stream = resourceWalker.stream(tempDirectory, GlobMatcher.compile("**"), options, FileSystemResource::of, _ -> true)) {
+            final Set<String> found = stream.map(resource -> tempDirectory.relativize(Path.of(resource.uri())).toString()).collect(Collectors.toSet());
+            assertEquals(Set.of("a.java", "sub/c.java", "sub/.java", "sub/e.tar.java"), found);
+        }
+    }
+
+    @Test
+    public void stream_gitIndex() throws Exception {
+        final Path tempDirectory = Files.createTempDirectory(null);
+        for (final String file : List.of("a.java", "untracked.java", "src/b.java", "src/c.txt", "src/gen/d.java", "ignored/e.java")) {
+            Files.createDirectories(tempDirectory.resolve(file).getParent());
+            Files.createFile(tempDirectory.resolve(file));
+        }
+        Files.writeString(tempDirectory.resolve(".gitignore"), "ignored/\n");
+
+        // tracked files include ignored one and one deleted from the working tree
+        Assumptions.assumeTrue(git(tempDirectory, "init", "-q"), "git binary not available");
+        assertTrue(git(tempDirectory, "add", "a.java", "src"));
+        assertTrue(git(tempDirectory, "add", "-f", "ignored/e.java"));
+        Files.delete(tempDirectory.resolve("src/c.txt"));
+
+        final DiscoveryOptions options = new DiscoveryOptions(List.of("**/gen"), true, WalkMode.GIT_INDEX, Set.of());
+
+        try (final Stream<Resource> stream = resourceWalker.stream(tempDirectory, GlobMatcher.compile("**"), options, FileSystemResource::of, _ -> true)) {
+            final List<String> found = stream.map(resource -> tempDirectory.relativize(Path.of(resource.uri())).toString()).toList();
+            assertEquals(List.of("a.java", "ignored/e.java", "src/b.java"), found);
+        }
+
+        // root path within the repository, not in the repository root
+        final Path srcDirectory = tempDirectory.resolve("src");
+        try (final Stream<Resource> stream = resourceWalker.stream(srcDirectory, GlobMatcher.compile("*"), options, FileSystemResource::of, _ -> true)) {
+            final List<String> found = stream.map(resource -> srcDirectory.relativize(Path.of(resource.uri())).toString()).toList();
+            assertEquals(List.of("b.java"), found);
+        }
+    }
+
+    @Test
+    public void streamListed_respectGitIgnore() throws Exception {
+        final Path tempDirectory = Files.createTempDirectory(null);
+        final List<String> files = List.of("a.java", "b.java", "build/c.java", "src/d.java", "src/gen/e.java", "src/f.java", "other/g.java");
+        for (final String file : files) {
+            Files.createDirectories(tempDirectory.resolve(file).getParent());
+            Files.createFile(tempDirectory.resolve(file));
+        }
+        Files.createDirectories(tempDirectory.resolve(".git/info"));
+        Files.writeString(tempDirectory.resolve(".git/info/exclude"), "b.java\n");
+        Files.writeString(tempDirectory.resolve(".gitignore"), "/build/\ngen/\n");
+        Files.writeString(tempDirectory.resolve("src/.gitignore"), "f.java\n");
+
+        final List<Path> listed = files.stream().filter(file -> !file.startsWith("other/")).map(tempDirectory::resolve).toList();
+
+        final DiscoveryOptions respecting = new DiscoveryOptions(List.of(), true, WalkMode.SEQUENTIAL, Set.of());
+        try (final Stream<Resource> stream =
+                 resourceWalker.streamListed(tempDirectory, List.of(GlobMatcher.compile("**")), listed, respecting, FileSystemResource::of, _ -> true)) {
+            final Set<String> found = stream.map(resource -> tempDirectory.relativize(Path.of(resource.uri())).toString()).collect(Collectors.toSet());
+            assertEquals(Set.of("a.java", "src/d.java"), found);
+        }
+
+        final DiscoveryOptions ignoring = new DiscoveryOptions(List.of(), false, WalkMode.SEQUENTIAL, Set.of());
+        try (final Stream<Resource> stream =
+                 resourceWalker.streamListed(tempDirectory, List.of(GlobMatcher.compile("**")), listed, ignoring, FileSystemResource::of, _ -> true)) {
+            final Set<String> found = stream.map(resource -> tempDirectory.relativize(Path.of(resource.uri())).toString()).collect(Collectors.toSet());
+            assertEquals(Set.of("a.java", "b.java", "build/c.java", "src/d.java", "src/gen/e.java", "src/f.java"), found);
+        }
+    }
+
+    @Test
+    public void visit_deletedEntry() throws Exception {
+        final Path tempDirectory = Files.createTempDirectory(null);
+        final FileTreeFilter treeFilter = new FileTreeFilter(tempDirectory, List.of(GlobMatcher.compile("**")), List.of(), false, Set.of());
+
+        // entry listed in the directory, but deleted before visited
+        final FileTreeFilter.Entry root = treeFilter.visitRoot();
+        assertInstanceOf(FileTreeFilter.Entry.Directory.class, root);
+        assertEquals(FileTreeFilter.Entry.Skip.INSTANCE, treeFilter.visit(tempDirectory.resolve("deleted.java"), (FileTreeFilter.Entry.Directory) root));
+
+        final FileTreeFilter missingRoot = new FileTreeFilter(tempDirectory.resolve("missing"), List.of(GlobMatcher.compile("**")), List.of(), false, Set.of());
+        assertEquals(FileTreeFilter.Entry.Skip.INSTANCE, missingRoot.visitRoot());
+    }
+
+    private static boolean git(Path directory, String... arguments) {
+        final List<String> command = new ArrayList<>(List.of("git"));
+        command.addAll(List.of(arguments));
+
+        try {
+            final Process process = new ProcessBuilder(command)
+                .directory(directory.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+            return process.waitFor() == 0;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    @Test
+    public void stream_parallelOrdered() throws Exception {
+        final Path tempDirectory = Files.createTempDirectory(null);
+        final List<String> files = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            for (int j = 0; j < 10; j++) {
+                files.add("dir%d/sub%d/file.txt".formatted(i, j));
+            }
+            files.add("dir%d/file.txt".formatted(i));
+        }
+        files.add("file.txt");
+
+        for (final String file : files) {
+            Files.createDirectories(tempDirectory.resolve(file).getParent());
+            Files.createFile(tempDirectory.resolve(file));
+        }
+
+        final DiscoveryOptions options = new DiscoveryOptions(List.of(), false, WalkMode.PARALLEL_ORDERED, Set.of());
+
+        try (final Stream<Resource> stream = resourceWalker.stream(tempDirectory, GlobMatcher.compile("**"), options, FileSystemResource::of, _ -> true)) {
+            final List<String> found = stream.map(resource -> tempDirectory.relativize(Path.of(resource.uri())).toString()).toList();
+            assertEquals(files.stream().sorted().toList(), found);
+        }
+    }
+
+    @Test
+    public void stream_parallelEarlyClose() throws Exception {
+        final Path tempDirectory = Files.createTempDirectory(null);
+        for (int i = 0; i < 20; i++) {
+            Files.createDirectories(tempDirectory.resolve("dir" + i));
+            Files.createFile(tempDirectory.resolve("dir" + i).resolve("file.txt"));
+        }
+
+        for (final WalkMode walkMode : List.of(WalkMode.PARALLEL, WalkMode.PARALLEL_ORDERED)) {
+            final DiscoveryOptions options = new DiscoveryOptions(List.of(), false, walkMode, Set.of());
+
+            try (final Stream<Resource> stream = resourceWalker.stream(tempDirectory, GlobMatcher.compile("**"), options, FileSystemResource::of, _ -> true)) {
+                assertEquals(3, stream.limit(3).count());
+            }
+        }
+    }
 }
@@ -31,6 +31,7 @@ package com.norcane.lysense.source;
 
 import com.norcane.lysense.configuration.api.Configuration;
 import com.norcane.lysense.configuration.api.HeaderStyle;
+import com.norcane.lysense.resource.Resource;
 import com.norcane.lysense.resource.inline.InlineResource;
 import com.norcane.lysense.template.TemplateManager;
 import com.norcane.lysense.template.Variables;
@@ -52,6 +53,7 @@ import jakarta.inject.Inject;
 import static com.norcane.lysense.domain.LanguageId.languageId;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -120,6 +122,33 @@ class SourceCodeProcessorTest {
         verify(templateManager).template(templateKey);
     }
 
+    @Test
+    void addHeader_renderedHeaderReused() {
+        final Variables variables = Variables.from(Map.of("name", "John Smith"));
+        final UserLicenseTemplateSource.TemplateKey templateKey = new UserLicenseTemplateSource.TemplateKey("java");
+        final InMemoryWritableResourceWrapper resource1 = new InMemoryWritableResourceWrapper(InlineResource.of("test1", "java", "one\n"));
+        final InMemoryWritableResourceWrapper resource2 = new InMemoryWritableResourceWrapper(InlineResource.of("test2", "java", "two\n"));
+        final InMemoryWritableResourceWrapper resource3 = new InMemoryWritableResourceWrapper(InlineResource.of("test3", "java", "three\r\n"));
+
+        // -- mocks
+        when(configuration.headerConfigOrFail(languageId("java"))).thenReturn(new TestHeaderConfig(HeaderStyle.BLOCK_COMMENT));
+        when(configuration.templateVariables()).thenReturn(variables);
+        when(templateManager.template(templateKey))
+            .thenReturn(MustacheTemplate.compile(InlineResource.of("java", "mustache", "this is template from {{name}}")));
+
+        assertEquals(SourceModificationResult.MODIFIED, sourceCodeProcessor.addHeader(sourceCodeProcessor.process(resource1)));
+        assertEquals(SourceModificationResult.MODIFIED, sourceCodeProcessor.addHeader(sourceCodeProcessor.process(resource2)));
+        assertEquals(SourceModificationResult.MODIFIED, sourceCodeProcessor.addHeader(sourceCodeProcessor.process(resource3)));
+        assertEquals("this is template from John Smith\none\n", resource1.writtenString());
+        assertEquals("this is template from John Smith\ntwo\n", resource2.writtenString());
+        assertEquals("this is template from John Smith\r\nthree\r\n", resource3.writtenString());
+
+        // -- verify
+        verify(configuration, times(6)).headerConfigOrFail(languageId("java"));
+        verify(configuration, times(3)).templateVariables();
+        verify(templateManager, times(2)).template(templateKey);  // rendered once per line separator
+    }
+
     @Test
     void addHeader_sourceNotModified() {
         final InMemoryWritableResourceWrapper resource = new InMemoryWritableResourceWrapper(InlineResource.of(
@@ -282,4 +311,29 @@ class SourceCodeProcessorTest {
         verify(configuration).templateVariables();
         verify(templateManager).template(templateKey);
     }
+
+    @Test
+    void isHeaderUpToDate() {
+        final Variables variables = Variables.from(Map.of("name", "John Smith"));
+        final UserLicenseTemplateSource.TemplateKey templateKey = new UserLicenseTemplateSource.TemplateKey("java");
+        final Resource upToDate = InlineResource.of("up-to-date", "java", "/*\n * this is template from John Smith\n */\none\n");
+        final Resource outdated = InlineResource.of("outdated", "java", "/*\n * this is template from Jane Doe\n */\none\n");
+        final Resource missing = InlineResource.of("missing", "java", "one\n");
+
+        // -- mocks
+        when(configuration.headerConfigOrFail(languageId("java"))).thenReturn(new TestHeaderConfig(HeaderStyle.BLOCK_COMMENT));
+        when(configuration.templateVariables()).thenReturn(variables);
+        when(templateManager.template(templateKey))
+            .thenReturn(MustacheTemplate.compile(InlineResource.of("java", "mustache", "/*\n * this is template from {{name}}\n */")));
+
+        // resources are read-only, so any attempt to modify them would fail
+        assertTrue(sourceCodeProcessor.isHeaderUpToDate(sourceCodeProcessor.process(upToDate, AnalysisMode.HEADER)));
+        assertFalse(sourceCodeProcessor.isHeaderUpToDate(sourceCodeProcessor.process(outdated, AnalysisMode.HEADER)));
+        assertFalse(sourceCodeProcessor.isHeaderUpToDate(sourceCodeProcessor.process(missing, AnalysisMode.HEADER)));
+
+        // -- verify
+        verify(configuration, times(5)).headerConfigOrFail(languageId("java"));
+        verify(configuration, times(2)).templateVariables();
+        verify(templateManager).template(templateKey);
+    }
 }
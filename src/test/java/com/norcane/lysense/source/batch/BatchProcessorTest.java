@@ -0,0 +1,258 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.source.batch;
+
+import com.norcane.lysense.configuration.ConfigurationManager;
+import com.norcane.lysense.configuration.api.RunMode;
+import com.norcane.lysense.meta.SemVer;
+import com.norcane.lysense.test.TestProject;
+import com.norcane.toolkit.io.FileSystem;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+
+import static com.norcane.lysense.test.TestProject.JAVA_HEADER;
+import static com.norcane.lysense.test.TestProject.SHELL_HEADER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@QuarkusTest
+class BatchProcessorTest {
+
+    private static final String OUTDATED_JAVA_HEADER = "/*\n * Copyright (c) 2020 lysense\n */\n";
+
+    @Inject
+    BatchProcessor batchProcessor;
+
+    @InjectMock
+    ConfigurationManager.Properties properties;
+
+    @InjectMock
+    FileSystem fileSystem;
+
+    private TestProject project;
+
+    @BeforeEach
+    void beforeEach() throws IOException {
+        project = TestProject.create();
+
+        when(properties.defaultConfiguration()).thenReturn("classpath:/configuration/test-default-configuration.yaml");
+        when(properties.minBaseVersion()).thenReturn(SemVer.from("0.0.0"));
+        when(fileSystem.currentDirectory()).thenReturn(project.root());
+        batchProcessor.reload();
+    }
+
+    @AfterEach
+    void afterEach() {
+        batchProcessor.reload();
+    }
+
+    @Test
+    void start_addMode() throws IOException {
+        final Path missing = project.source("Foo.java", "class Foo {}\n");
+        final Path outdated = project.source("Bar.java", OUTDATED_JAVA_HEADER + "class Bar {}\n");
+
+        final List<ProcessedSource> processed = run(RunMode.ADD, Optional.empty());
+
+        assertEquals(2, processed.size());
+        assertEquals(Set.of(missing.toUri()), modifiedUris(processed));
+        assertEquals(JAVA_HEADER + "class Foo {}\n", Files.readString(missing));
+        assertEquals(OUTDATED_JAVA_HEADER + "class Bar {}\n", Files.readString(outdated));
+    }
+
+    @Test
+    void start_dropMode() throws IOException {
+        final Path present = project.source("Foo.java", JAVA_HEADER + "class Foo {}\n");
+        final Path missing = project.source("Bar.java", "class Bar {}\n");
+
+        final List<ProcessedSource> processed = run(RunMode.DROP, Optional.empty());
+
+        assertEquals(2, processed.size());
+        assertEquals(Set.of(present.toUri()), modifiedUris(processed));
+        assertEquals("class Foo {}\n", Files.readString(present));
+        assertEquals("class Bar {}\n", Files.readString(missing));
+    }
+
+    @Test
+    void start_updateMode() throws IOException {
+        final Path upToDate = project.source("Foo.java", JAVA_HEADER + "class Foo {}\n");
+        final Path outdated = project.source("Bar.java", OUTDATED_JAVA_HEADER + "class Bar {}\n");
+        final Path missing = project.source("baz.sh", "echo baz\n");
+
+        final List<ProcessedSource> processed = run(RunMode.UPDATE, Optional.empty());
+
+        assertEquals(3, processed.size());
+        assertEquals(Set.of(outdated.toUri(), missing.toUri()), modifiedUris(processed));
+        assertTrue(processed.stream().noneMatch(source -> source.violation() || source.cached()));
+        assertEquals(JAVA_HEADER + "class Foo {}\n", Files.readString(upToDate));
+        assertEquals(JAVA_HEADER + "class Bar {}\n", Files.readString(outdated));
+        assertEquals(SHELL_HEADER + "echo baz\n", Files.readString(missing));
+    }
+
+    @Test
+    void start_selectedFiles() throws IOException {
+        final Path selected = project.source("Foo.java", "class Foo {}\n");
+        final Path notSelected = project.source("Bar.java", "class Bar {}\n");
+        final Path outsideSources = Files.writeString(project.root().resolve("Baz.java"), "class Baz {}\n");
+
+        final List<ProcessedSource> processed = run(RunMode.UPDATE, Optional.of(Set.of(selected, outsideSources)));
+
+        assertEquals(Set.of(selected.toUri()), modifiedUris(processed));
+        assertEquals(1, processed.size());
+        assertEquals(JAVA_HEADER + "class Foo {}\n", Files.readString(selected));
+        assertEquals("class Bar {}\n", Files.readString(notSelected));
+        assertEquals("class Baz {}\n", Files.readString(outsideSources));
+    }
+
+    @Test
+    void start_sharedCache_replaysResults() throws IOException {
+        reconfigure(true);
+        final Path first = project.source("Foo.java", "class Foo {}\n");
+        final Path firstCompliant = project.source("Bar.java", JAVA_HEADER + "class Bar {}\n");
+        assertEquals(0, cachedCount(run(RunMode.UPDATE, Optional.empty())));
+
+        // files with the same content are not analyzed again, spliced content is written and compliant one left untouched
+        final Path second = project.source("Foo2.java", "class Foo {}\n");
+        final Path secondCompliant = project.source("Bar2.java", JAVA_HEADER + "class Bar {}\n");
+        final List<ProcessedSource> processed = run(RunMode.UPDATE, Optional.of(Set.of(second, secondCompliant)));
+
+        assertEquals(2, cachedCount(processed));
+        assertEquals(Set.of(second.toUri()), modifiedUris(processed));
+        assertEquals(Files.readString(first), Files.readString(second));
+        assertEquals(Files.readString(firstCompliant), Files.readString(secondCompliant));
+        assertEquals(JAVA_HEADER + "class Foo {}\n", Files.readString(second));
+
+        // cached results are bound to the run mode
+        assertEquals(0, cachedCount(run(RunMode.ADD, Optional.of(Set.of(second, secondCompliant)))));
+    }
+
+    @Test
+    void start_checkMode() throws IOException {
+        final Path compliant = project.source("Foo.java", JAVA_HEADER + "class Foo {}\n");
+        final Path missing = project.source("Bar.java", "class Bar {}\n");
+        final Path outdated = project.source("baz.sh", "#\n# Copyright (c) 2020 lysense\n#\n\necho baz\n");
+
+        final List<ProcessedSource> processed = run(RunMode.CHECK, Optional.empty());
+
+        assertEquals(Set.of(missing.toUri(), outdated.toUri()), processed.stream()
+            .filter(ProcessedSource::violation)
+            .map(source -> source.resource().uri())
+            .collect(Collectors.toSet()));
+        assertEquals(3, processed.size());
+        assertTrue(processed.stream().noneMatch(source -> source.result().modified()));
+        assertEquals(JAVA_HEADER + "class Foo {}\n", Files.readString(compliant));
+        assertEquals("class Bar {}\n", Files.readString(missing));
+    }
+
+    @Test
+    void start_sharedCache_sameContentOfDifferentLanguages() throws IOException {
+        reconfigure(true);
+        final Path javaFile = project.source("Foo.java", "echo hi\n");
+        final Path shellFile = project.source("foo.sh", "echo hi\n");
+
+        // first run publishes the results, second run with the same content replays them
+        assertEquals(0, cachedCount(run(RunMode.UPDATE, Optional.empty())));
+        Files.writeString(javaFile, "echo hi\n");
+        Files.writeString(shellFile, "echo hi\n");
+        assertEquals(2, cachedCount(run(RunMode.UPDATE, Optional.empty())));
+
+        assertEquals(JAVA_HEADER + "echo hi\n", Files.readString(javaFile));
+        assertEquals(SHELL_HEADER + "echo hi\n", Files.readString(shellFile));
+    }
+
+    private List<ProcessedSource> run(RunMode runMode, Optional<Set<Path>> selectedFiles) {
+        return run(runMode, selectedFiles, 2);
+    }
+
+    private List<ProcessedSource> run(RunMode runMode, Optional<Set<Path>> selectedFiles, int parallelism) {
+        final List<ProcessedSource> processed = new ArrayList<>();
+        try (final Batch batch = batchProcessor.start(runMode, selectedFiles, parallelism)) {
+            batch.forEach(processed::add);
+        }
+
+        return processed;
+    }
+
+    private void reconfigure(boolean sharedCache) throws IOException {
+        project.configure(sharedCache);
+        batchProcessor.reload();
+    }
+
+    @Test
+    void start_checkMode_recentlyModifiedFirst() throws IOException {
+        final Instant now = Instant.now();
+        final Map<URI, Integer> ageInMinutes = new HashMap<>();
+        for (int i = 0; i < 20; i++) {
+            final Path source = project.source("Foo%d.java".formatted(i), "class Foo%d {}\n".formatted(i));
+            final int age = (i * 7) % 20;     // discovery order differs from the order by modification time
+            Files.setLastModifiedTime(source, FileTime.from(now.minus(Duration.ofMinutes(age))));
+            ageInMinutes.put(source.toUri(), age);
+        }
+        final List<URI> expected = ageInMinutes.keySet().stream().sorted(Comparator.comparing(ageInMinutes::get)).toList();
+
+        // single job keeps the order, in which source codes are submitted
+        final List<ProcessedSource> processed = run(RunMode.CHECK, Optional.empty(), 1);
+
+        assertEquals(expected, processed.stream().map(source -> source.resource().uri()).toList());
+    }
+
+    private static Set<URI> modifiedUris(List<ProcessedSource> processed) {
+        return processed.stream()
+            .filter(source -> source.result().modified())
+            .map(source -> source.resource().uri())
+            .collect(Collectors.toSet());
+    }
+
+    private static long cachedCount(List<ProcessedSource> processed) {
+        return processed.stream().filter(ProcessedSource::cached).count();
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.source.cache;
+
+import com.norcane.lysense.source.cache.IncrementalCacheFile.Entry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IncrementalCacheFileTest {
+
+    private static final long FINGERPRINT = 0x1234_5678_9ABC_DEF0L;
+
+    private Path tempDir;
+
+    @BeforeEach
+    void beforeEach() throws Exception {
+        tempDir = Files.createTempDirectory(null);
+    }
+
+    @Test
+    void writeAndRead() throws Exception {
+        final Map<String, Entry> entries = new HashMap<>();
+        entries.put("src/main/java/Foo.java", new Entry(1024, 1_700_000_000_123_456_789L, -42L, 0b101));
+        entries.put("src/main/java/FooBar.java", new Entry(0, Entry.UNKNOWN_LAST_MODIFIED, Long.MAX_VALUE, 0b010));
+        entries.put("src/main/java/nested/Bar.java", new Entry(Long.MAX_VALUE, -1_000L, 0L, 0b001));
+        entries.put("src/test/java/čeština.java", new Entry(7, 0L, 1L, 0b111));
+        entries.put("", new Entry(1, 1L, 1L, 0));
+
+        final Path cacheFile = tempDir.resolve("cache").resolve("results.bin");
+        IncrementalCacheFile.write(cacheFile, FINGERPRINT, entries);
+
+        assertEquals(entries, IncrementalCacheFile.read(cacheFile, FINGERPRINT));
+        try (final var files = Files.list(cacheFile.getParent())) {
+            assertEquals(1, files.count());     // no temporary files are left behind
+        }
+    }
+
+    @Test
+    void write_replacesExisting() throws Exception {
+        final Path cacheFile = tempDir.resolve("results.bin");
+        IncrementalCacheFile.write(cacheFile, FINGERPRINT, Map.of("a", new Entry(1, 2, 3, 4)));
+        IncrementalCacheFile.write(cacheFile, FINGERPRINT, Map.of("b", new Entry(5, 6, 7, 1)));
+
+        assertEquals(Map.of("b", new Entry(5, 6, 7, 1)), IncrementalCacheFile.read(cacheFile, FINGERPRINT));
+    }
+
+    @Test
+    void read_fingerprintMismatch() throws Exception {
+        final Path cacheFile = tempDir.resolve("results.bin");
+        IncrementalCacheFile.write(cacheFile, FINGERPRINT, Map.of("a", new Entry(1, 2, 3, 4)));
+
+        assertTrue(IncrementalCacheFile.read(cacheFile, FINGERPRINT + 1).isEmpty());
+    }
+
+    @Test
+    void read_missingFile() {
+        assertTrue(IncrementalCacheFile.read(tempDir.resolve("missing.bin"), FINGERPRINT).isEmpty());
+    }
+
+    @Test
+    void read_corruptedFile() throws Exception {
+        final Path cacheFile = tempDir.resolve("results.bin");
+        IncrementalCacheFile.write(cacheFile, FINGERPRINT, Map.of("some/path", new Entry(1, 2, 3, 4)));
+
+        final byte[] content = Files.readAllBytes(cacheFile);
+        Files.write(cacheFile, Arrays.copyOf(content, content.length - 3));
+
+        assertTrue(IncrementalCacheFile.read(cacheFile, FINGERPRINT).isEmpty());
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.source.cache;
+
+import com.norcane.lysense.configuration.ConfigurationManager;
+import com.norcane.lysense.configuration.api.CacheConfig;
+import com.norcane.lysense.configuration.api.Configuration;
+import com.norcane.lysense.configuration.api.ConfigurationRef;
+import com.norcane.lysense.configuration.api.RunMode;
+import com.norcane.lysense.resource.buffered.BufferedResource;
+import com.norcane.lysense.resource.filesystem.FileSystemResource;
+import com.norcane.lysense.resource.inline.InlineResource;
+import com.norcane.lysense.source.SourceModificationResult;
+import com.norcane.lysense.template.TemplateManager;
+import com.norcane.lysense.template.source.UserLicenseTemplateSource;
+import com.norcane.toolkit.io.FileSystem;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Map;
+
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@QuarkusTest
+class IncrementalCacheTest {
+
+    @Inject
+    IncrementalCache incrementalCache;
+
+    @Inject
+    CacheFingerprint cacheFingerprint;
+
+    @InjectMock
+    Configuration configuration;
+
+    @InjectMock
+    ConfigurationManager configurationManager;
+
+    @InjectMock
+    FileSystem fileSystem;
+
+    @InjectMock
+    TemplateManager templateManager;
+
+    private Path tempDir;
+
+    private final CacheConfig cacheConfig = mock(CacheConfig.class);
+
+    @BeforeEach
+    void beforeEach() throws Exception {
+        incrementalCache.resetState();
+        cacheFingerprint.resetState();
+        tempDir = Files.createTempDirectory(null);
+
+        when(configuration.cache()).thenReturn(cacheConfig);
+        when(cacheConfig.enabled()).thenReturn(true);
+        when(cacheConfig.directory()).thenReturn(".lysense/cache");
+        when(fileSystem.currentDirectory()).thenReturn(tempDir);
+        when(configurationManager.defaultConfigurationResource()).thenReturn(InlineResource.of("default-configuration"));
+        when(configurationManager.configurationRef()).thenReturn(new ConfigurationRef(configuration, InlineResource.of("user-configuration")));
+        mockTemplate("template from {{author}}");
+    }
+
+    @AfterEach
+    void afterEach() {
+        incrementalCache.resetState();
+    }
+
+    @Test
+    void record_notModified() throws Exception {
+        final FileSystemResource resource = sourceFile("Foo.java", "class Foo {}");
+
+        assertFalse(incrementalCache.isCompliant(resource, RunMode.UPDATE));
+        incrementalCache.record(resource, RunMode.UPDATE, SourceModificationResult.NOT_MODIFIED);
+
+        assertTrue(incrementalCache.isCompliant(resource, RunMode.UPDATE));
+        assertTrue(incrementalCache.isCompliant(resource, RunMode.ADD));
+        assertTrue(incrementalCache.isCompliant(resource, RunMode.CHECK));
+        assertFalse(incrementalCache.isCompliant(resource, RunMode.DROP));
+    }
+
+    @Test
+    void record_checked() throws Exception {
+        final FileSystemResource resource = sourceFile("Foo.java", "class Foo {}");
+
+        incrementalCache.record(resource, RunMode.CHECK, SourceModificationResult.NOT_MODIFIED);
+        assertTrue(incrementalCache.isCompliant(resource, RunMode.CHECK));
+        assertTrue(incrementalCache.isCompliant(resource, RunMode.UPDATE));
+        assertTrue(incrementalCache.isCompliant(resource, RunMode.ADD));
+        assertFalse(incrementalCache.isCompliant(resource, RunMode.DROP));
+    }
+
+    @Test
+    void record_bufferedResource() throws Exception {
+        final FileSystemResource resource = sourceFile("Foo.java", "class Foo {}");
+
+        incrementalCache.record(BufferedResource.of(resource), RunMode.DROP, SourceModificationResult.NOT_MODIFIED);
+        assertTrue(incrementalCache.isCompliant(resource, RunMode.DROP));
+    }
+
+    @Test
+    void record_modified() throws Exception {
+        final FileSystemResource resource = sourceFile("Foo.java", "class Foo {}");
+
+        incrementalCache.record(resource, RunMode.ADD, SourceModificationResult.NOT_MODIFIED);
+        assertTrue(incrementalCache.isCompliant(resource, RunMode.ADD));
+
+        incrementalCache.record(resource, RunMode.ADD, SourceModificationResult.MODIFIED);
+        assertFalse(incrementalCache.isCompliant(resource, RunMode.ADD));
+    }
+
+    @Test
+    void isCompliant_contentChanged() throws Exception {
+        final FileSystemResource resource = sourceFile("Foo.java", "class Foo {}");
+        incrementalCache.record(resource, RunMode.UPDATE, SourceModificationResult.NOT_MODIFIED);
+
+        // same size, different content and timestamp
+        Files.writeString(resource.path(), "class Bar {}");
+        Files.setLastModifiedTime(resource.path(), FileTime.from(Instant.now().plusSeconds(60)));
+
+        assertFalse(incrementalCache.isCompliant(resource, RunMode.UPDATE));
+    }
+
+    @Test
+    void isCompliant_onlyTimestampChanged() throws Exception {
+        final FileSystemResource resource = sourceFile("Foo.java", "class Foo {}");
+        incrementalCache.record(BufferedResource.of(resource), RunMode.UPDATE, SourceModificationResult.NOT_MODIFIED);
+
+        Files.setLastModifiedTime(resource.path(), FileTime.from(Instant.now().plusSeconds(60)));
+
+        // content hash still matches
+        assertTrue(incrementalCache.isCompliant(resource, RunMode.UPDATE));
+    }
+
+    @Test
+    void isCompliant_onlyTimestampChanged_contentNotRead() throws Exception {
+        final FileSystemResource resource = sourceFile("Foo.java", "class Foo {}");
+        incrementalCache.record(resource, RunMode.UPDATE, SourceModificationResult.NOT_MODIFIED);
+
+        Files.setLastModifiedTime(resource.path(), FileTime.from(Instant.now().plusSeconds(60)));
+
+        // content was not hashed when recorded, so it cannot be compared
+        assertFalse(incrementalCache.isCompliant(resource, RunMode.UPDATE));
+    }
+
+    @Test
+    void record_keepsKnownContentHash() throws Exception {
+        final FileSystemResource resource = sourceFile("Foo.java", "class Foo {}");
+        incrementalCache.record(BufferedResource.of(resource), RunMode.UPDATE, SourceModificationResult.NOT_MODIFIED);
+        incrementalCache.record(resource, RunMode.DROP, SourceModificationResult.NOT_MODIFIED);
+
+        Files.setLastModifiedTime(resource.path(), FileTime.from(Instant.now().plusSeconds(60)));
+
+        assertTrue(incrementalCache.isCompliant(resource, RunMode.UPDATE));
+        assertTrue(incrementalCache.isCompliant(resource, RunMode.DROP));
+    }
+
+    @Test
+    void save_persistsEntries() throws Exception {
+        final FileSystemResource resource = sourceFile("Foo.java", "class Foo {}");
+        // timestamp of file modified just before the cache is saved cannot be trusted
+        Files.setLastModifiedTime(resource.path(), FileTime.from(Instant.now().minusSeconds(60)));
+        incrementalCache.record(resource, RunMode.UPDATE, SourceModificationResult.NOT_MODIFIED);
+        incrementalCache.save();
+
+        assertTrue(Files.isRegularFile(tempDir.resolve(".lysense/cache").resolve(IncrementalCache.CACHE_FILE)));
+
+        incrementalCache.resetState();
+        assertTrue(incrementalCache.isCompliant(resource, RunMode.UPDATE));
+    }
+
+    @Test
+    void save_templateChanged() throws Exception {
+        final FileSystemResource resource = sourceFile("Foo.java", "class Foo {}");
+        incrementalCache.record(resource, RunMode.UPDATE, SourceModificationResult.NOT_MODIFIED);
+        incrementalCache.save();
+
+        incrementalCache.resetState();
+        cacheFingerprint.resetState();
+        mockTemplate("changed template from {{author}}");
+
+        assertFalse(incrementalCache.isCompliant(resource, RunMode.UPDATE));
+    }
+
+    @Test
+    void disabled() throws Exception {
+        when(cacheConfig.enabled()).thenReturn(false);
+        final FileSystemResource resource = sourceFile("Foo.java", "class Foo {}");
+
+        incrementalCache.record(resource, RunMode.UPDATE, SourceModificationResult.NOT_MODIFIED);
+        incrementalCache.save();
+
+        assertFalse(incrementalCache.isCompliant(resource, RunMode.UPDATE));
+        assertFalse(Files.exists(tempDir.resolve(".lysense")));
+    }
+
+    @Test
+    void isCompliant_notFileSystemResource() {
+        assertFalse(incrementalCache.isCompliant(InlineResource.of("test", "java", "class Foo {}"), RunMode.UPDATE));
+    }
+
+    private void mockTemplate(String content) {
+        when(templateManager.templateResources(UserLicenseTemplateSource.TemplateKey.class))
+            .thenReturn(Map.of(new UserLicenseTemplateSource.TemplateKey("java"), InlineResource.of("java", "mustache", content)));
+    }
+
+    private FileSystemResource sourceFile(String name, String content) throws Exception {
+        final Path file = tempDir.resolve(name);
+        Files.writeString(file, content);
+
+        return FileSystemResource.of(file);
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.source.cache;
+
+import com.norcane.lysense.configuration.api.CacheConfig;
+import com.norcane.lysense.configuration.api.Configuration;
+import com.norcane.lysense.configuration.api.RunMode;
+import com.norcane.lysense.configuration.api.SharedCacheConfig;
+import com.norcane.lysense.domain.LanguageId;
+import com.norcane.toolkit.io.FileSystem;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@QuarkusTest
+class SharedResultCacheTest {
+
+    private static final int MEGABYTE = 1024 * 1024;
+    private static final LanguageId JAVA = new LanguageId("java");
+    private static final LanguageId UNIX_SHELL = new LanguageId("unix-shell");
+
+    @Inject
+    SharedResultCache sharedResultCache;
+
+    @InjectMock
+    CacheFingerprint cacheFingerprint;
+
+    @InjectMock
+    Configuration configuration;
+
+    @InjectMock
+    FileSystem fileSystem;
+
+    private final CacheConfig cacheConfig = mock(CacheConfig.class);
+    private final SharedCacheConfig sharedCacheConfig = mock(SharedCacheConfig.class);
+
+    private Path tempDir;
+
+    @BeforeEach
+    void beforeEach() throws Exception {
+        sharedResultCache.resetState();
+        tempDir = Files.createTempDirectory(null);
+
+        when(configuration.cache()).thenReturn(cacheConfig);
+        when(cacheConfig.shared()).thenReturn(sharedCacheConfig);
+        when(sharedCacheConfig.enabled()).thenReturn(true);
+        when(sharedCacheConfig.directory()).thenReturn("shared-cache");
+        when(sharedCacheConfig.maxSizeMb()).thenReturn(1);
+        when(fileSystem.currentDirectory()).thenReturn(tempDir);
+        when(cacheFingerprint.value()).thenReturn(42L);
+    }
+
+    @AfterEach
+    void afterEach() {
+        sharedResultCache.resetState();
+    }
+
+    @Test
+    void key() {
+        final SharedResultCache.ContentKey key = sharedResultCache.key("class Foo {}", JAVA, RunMode.UPDATE);
+
+        assertEquals(key, sharedResultCache.key("class Foo {}", JAVA, RunMode.UPDATE));
+        assertNotEquals(key, sharedResultCache.key("class Bar {}", JAVA, RunMode.UPDATE));
+        assertNotEquals(key, sharedResultCache.key("class Foo {}", JAVA, RunMode.ADD));
+        assertNotEquals(key, sharedResultCache.key("class Foo {}", UNIX_SHELL, RunMode.UPDATE));
+
+        when(cacheFingerprint.value()).thenReturn(43L);
+        assertNotEquals(key, sharedResultCache.key("class Foo {}", JAVA, RunMode.UPDATE));
+    }
+
+    @Test
+    void publishAndLookup() {
+        final SharedResultCache.ContentKey compliantKey = sharedResultCache.key("compliant", JAVA, RunMode.UPDATE);
+        final SharedResultCache.ContentKey splicedKey = sharedResultCache.key("spliced", JAVA, RunMode.UPDATE);
+
+        assertTrue(sharedResultCache.lookup(compliantKey).isEmpty());
+
+        sharedResultCache.publish(compliantKey, SharedResultCache.Result.Compliant.INSTANCE);
+        sharedResultCache.publish(splicedKey, new SharedResultCache.Result.Spliced("// header\nspliced"));
+
+        assertEquals(Optional.of(SharedResultCache.Result.Compliant.INSTANCE), sharedResultCache.lookup(compliantKey));
+        assertEquals(Optional.of(new SharedResultCache.Result.Spliced("// header\nspliced")), sharedResultCache.lookup(splicedKey));
+    }
+
+    @Test
+    void lookup_corruptedResult() throws Exception {
+        final SharedResultCache.ContentKey key = sharedResultCache.key("content", JAVA, RunMode.UPDATE);
+        sharedResultCache.publish(key, SharedResultCache.Result.Compliant.INSTANCE);
+
+        try (final Stream<Path> files = Files.walk(sharedResultCache.directory())) {
+            for (final Path file : files.filter(Files::isRegularFile).toList()) {
+                Files.writeString(file, "garbage");
+            }
+        }
+
+        assertTrue(sharedResultCache.lookup(key).isEmpty());
+    }
+
+    @Test
+    void disabled() {
+        when(sharedCacheConfig.enabled()).thenReturn(false);
+        final SharedResultCache.ContentKey key = sharedResultCache.key("content", JAVA, RunMode.UPDATE);
+
+        sharedResultCache.publish(key, SharedResultCache.Result.Compliant.INSTANCE);
+
+        assertTrue(sharedResultCache.lookup(key).isEmpty());
+        assertFalse(Files.exists(sharedResultCache.directory()));
+    }
+
+    @Test
+    void evict() throws Exception {
+        final String output = "x".repeat(MEGABYTE / 3);
+        final SharedResultCache.ContentKey oldest = sharedResultCache.key("oldest", JAVA, RunMode.UPDATE);
+        final SharedResultCache.ContentKey older = sharedResultCache.key("older", JAVA, RunMode.UPDATE);
+        final SharedResultCache.ContentKey newer = sharedResultCache.key("newer", JAVA, RunMode.UPDATE);
+        final SharedResultCache.ContentKey newest = sharedResultCache.key("newest", JAVA, RunMode.UPDATE);
+
+        sharedResultCache.publish(oldest, new SharedResultCache.Result.Spliced(output));
+        sharedResultCache.publish(older, new SharedResultCache.Result.Spliced(output));
+        sharedResultCache.publish(newer, new SharedResultCache.Result.Spliced(output));
+        sharedResultCache.publish(newest, new SharedResultCache.Result.Spliced(output));
+        setLastUsed(oldest, 1_000);
+        setLastUsed(older, 2_000);
+        setLastUsed(newer, 3_000);
+        setLastUsed(newest, 4_000);
+
+        sharedResultCache.evict();
+
+        assertTrue(sharedResultCache.lookup(oldest).isEmpty());
+        assertTrue(sharedResultCache.lookup(older).isEmpty());
+        assertTrue(sharedResultCache.lookup(newer).isPresent());
+        assertTrue(sharedResultCache.lookup(newest).isPresent());
+    }
+
+    @Test
+    void evict_underLimit() throws Exception {
+        final SharedResultCache.ContentKey key = sharedResultCache.key("content", JAVA, RunMode.UPDATE);
+        sharedResultCache.publish(key, new SharedResultCache.Result.Spliced("output"));
+        setLastUsed(key, 1_000);
+
+        sharedResultCache.evict();
+
+        assertTrue(sharedResultCache.lookup(key).isPresent());
+    }
+
+    private void setLastUsed(SharedResultCache.ContentKey key, long millis) throws Exception {
+        final Path resultFile = sharedResultCache.directory().resolve(key.hash().substring(0, 2)).resolve(key.hash().substring(2));
+        Files.setLastModifiedTime(resultFile, FileTime.fromMillis(millis));
+    }
+}
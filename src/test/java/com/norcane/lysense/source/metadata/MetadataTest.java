@@ -43,6 +43,8 @@ import io.quarkus.test.junit.QuarkusTest;
 import static com.norcane.lysense.test.Assertions.assertIsPresent;
 import static com.norcane.lysense.test.Assertions.assertNotPresent;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @QuarkusTest
 class MetadataTest {
@@ -176,6 +178,21 @@ class MetadataTest {
         assertIsPresent(3, metadata.putBeforeIndex());
     }
 
+    @Test
+    void builder_isHeaderRegionComplete() {
+        final Metadata.Builder builder = Metadata.builder(commentDetectorFactory, headerDetectionRulesPutAfter);
+
+        builder.addLine("PA");
+        builder.addLine("/* header */");
+        assertFalse(builder.isHeaderRegionComplete());
+
+        builder.addLine("package foo;");
+        assertTrue(builder.isHeaderRegionComplete());
+
+        builder.addLine("class Foo {}");
+        assertTrue(builder.isHeaderRegionComplete());
+    }
+
     private Metadata buildMetadata(String sample) {
         final Metadata.Builder builder = Metadata.builder(commentDetectorFactory, headerDetectionRules);
         Arrays.stream(sample.split("\n")).forEach(builder::addLine);
@@ -34,6 +34,8 @@ import com.norcane.lysense.configuration.api.Configuration;
 import com.norcane.lysense.configuration.api.HeaderStyle;
 import com.norcane.lysense.resource.Resource;
 import com.norcane.lysense.resource.loader.ResourceLoader;
+import com.norcane.lysense.source.AnalysisMode;
+import com.norcane.lysense.source.SourceCode;
 import com.norcane.lysense.source.metadata.HeaderCandidate;
 import com.norcane.lysense.source.metadata.LicenseHeader;
 import com.norcane.lysense.source.metadata.Metadata;
@@ -43,6 +45,7 @@ import com.norcane.toolkit.InstanceFactory;
 import org.junit.jupiter.api.DynamicTest;
 import org.junit.jupiter.api.TestFactory;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Stream;
 
@@ -62,7 +65,7 @@ public abstract class SourceCodeSupportTestKit {
     ResourceLoader resourceLoader;
 
     @InjectMock
-    Configuration configuration;
+    protected Configuration configuration;
 
     protected abstract InstanceFactory<SourceCodeSupport> sourceCodeSupportFactory();
 
@@ -73,17 +76,23 @@ public abstract class SourceCodeSupportTestKit {
         final InstanceFactory<SourceCodeSupport> factory = notNull(sourceCodeSupportFactory(), "Provided source code support factory cannot be null");
         final List<TestSample> samples = notNull(samples(), "Provided collection of test samples cannot be null");
 
-        return samples.stream().map(sample -> testForSample(factory, sample));
+        return samples.stream()
+            .flatMap(sample -> Arrays.stream(AnalysisMode.values()).map(analysisMode -> testForSample(factory, sample, analysisMode)));
     }
 
-    private DynamicTest testForSample(InstanceFactory<SourceCodeSupport> factory, TestSample sample) {
+    private DynamicTest testForSample(InstanceFactory<SourceCodeSupport> factory, TestSample sample, AnalysisMode analysisMode) {
         final Resource resource = resourceLoader.resource(sample.resource());
 
-        return DynamicTest.dynamicTest(sample.resource(), () -> {
+        return DynamicTest.dynamicTest("%s (%s)".formatted(sample.resource(), analysisMode), () -> {
             // -- mocks
             when(configuration.headerConfigOrFail(any())).thenReturn(new TestHeaderConfig(sample.headerStyle));
 
-            final Metadata metadata = factory.instance().load(resource).metadata();
+            final SourceCode sourceCode = factory.instance().load(resource, analysisMode);
+            final Metadata metadata = sourceCode.metadata();
+
+            // analysis mode must not affect the analysis results
+            assertEquals(factory.instance().load(resource).variables(), sourceCode.variables());
+
             if (sample.header() != null) {
                 assertIsPresent(sample.header(), metadata.header());
             } else {
@@ -31,17 +31,31 @@ package com.norcane.lysense.source.support.java;
 
 
 import com.norcane.lysense.configuration.api.HeaderStyle;
+import com.norcane.lysense.resource.Resource;
+import com.norcane.lysense.resource.buffered.BufferedResource;
+import com.norcane.lysense.resource.inline.InlineResource;
+import com.norcane.lysense.source.AnalysisMode;
+import com.norcane.lysense.source.SourceCode;
 import com.norcane.lysense.source.metadata.HeaderCandidate;
 import com.norcane.lysense.source.metadata.LicenseHeader;
 import com.norcane.lysense.source.support.SourceCodeSupport;
 import com.norcane.lysense.source.support.SourceCodeSupportTestKit;
+import com.norcane.lysense.test.TestHeaderConfig;
 import com.norcane.toolkit.InstanceFactory;
 
+import org.junit.jupiter.api.Test;
+
 import java.util.List;
 
 import io.quarkus.test.junit.QuarkusTest;
 import jakarta.inject.Inject;
 
+import static com.norcane.lysense.test.Assertions.assertIsPresent;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
 @QuarkusTest
 public class JavaSupportTest extends SourceCodeSupportTestKit {
 
@@ -70,5 +84,28 @@ public class JavaSupportTest extends SourceCodeSupportTestKit {
             )
         );
     }
-}
 
+    @Test
+    void load_headerAnalysisStopsAfterPackage() {
+        final String content = """
+            /*
+             * This is header
+             */
+
+            package com.example;
+
+            """ + "class Foo {}\n".repeat(20_000);
+        final Resource resource = InlineResource.of("Foo.java", "java", content);
+
+        // -- mocks
+        when(configuration.headerConfigOrFail(any())).thenReturn(new TestHeaderConfig(HeaderStyle.BLOCK_COMMENT));
+
+        final SourceCode sourceCode = javaSupportFactory.instance().load(resource, AnalysisMode.HEADER);
+        final BufferedResource bufferedResource = (BufferedResource) sourceCode.resource();
+
+        assertFalse(bufferedResource.isComplete());
+        assertIsPresent(new LicenseHeader(1, 3, 0, 1, List.of("/*", " * This is header", " */")), sourceCode.metadata().header());
+        assertEquals("com.example", sourceCode.variables().toMap().get("_java.package_name"));
+        assertEquals(content, bufferedResource.readAsString());
+    }
+}
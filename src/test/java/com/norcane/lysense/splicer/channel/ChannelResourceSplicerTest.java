@@ -0,0 +1,234 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.splicer.channel;
+
+import com.norcane.lysense.resource.buffered.BufferedResource;
+import com.norcane.lysense.resource.filesystem.FileSystemResource;
+import com.norcane.lysense.resource.inline.InlineResource;
+import com.norcane.lysense.splicer.Operation;
+import com.norcane.lysense.splicer.weaving.WeavingResourceSplicer;
+import com.norcane.lysense.test.InMemoryWritableResourceWrapper;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@QuarkusTest
+class ChannelResourceSplicerTest {
+
+    @Inject
+    ChannelResourceSplicer splicer;
+
+    @Inject
+    WeavingResourceSplicer fallbackSplicer;
+
+    @Test
+    void splice_addSection_firstLine() throws IOException {
+        assertEquals("INS\none\ntwo\nthree\n", splice("one\ntwo\nthree\n", Operation.addSection(1, "INS")));
+    }
+
+    @Test
+    void splice_addSection_endOfFile() throws IOException {
+        assertEquals("one\nINS\n", splice("one\n", Operation.addSection(2, "INS")));
+        assertEquals("INS\n", splice("", Operation.addSection(1, "INS")));
+    }
+
+    @Test
+    void splice_addSection_beyondEndOfFile() throws IOException {
+        // handled by the fallback splicer
+        assertEquals("one\nINS\n", splice("one", Operation.addSection(2, "INS")));
+    }
+
+    @Test
+    void splice_dropSection() throws IOException {
+        assertEquals("one\nfour\n", splice("one\ntwo\nthree\nfour\n", Operation.dropSection(2, 3)));
+        assertEquals("one\n", splice("one\ntwo\nthree", Operation.dropSection(2, 3)));
+    }
+
+    @Test
+    void splice_replaceSection_sameLength() throws IOException {
+        assertEquals("one\n222\nthree\n", splice("one\ntwo\nthree\n", Operation.replaceSection(2, 2, "222")));
+    }
+
+    @Test
+    void splice_replaceSection_longer() throws IOException {
+        assertEquals("one\n2.1\n2.2\nthree\n", splice("one\ntwo\nthree\n", Operation.replaceSection(2, 2, "2.1\n2.2")));
+    }
+
+    @Test
+    void splice_replaceSection_shorter() throws IOException {
+        assertEquals("one\n2\nfour", splice("one\ntwo\nthree\nfour", Operation.replaceSection(2, 3, "2")));
+    }
+
+    @Test
+    void splice_keepsTailUntouched() throws IOException {
+        final String tail = "tail ř\r\nmixed\nseparators\rno newline at end";
+        assertEquals("// HEADER\r\n" + tail, splice("// header\r\n" + tail, Operation.replaceSection(1, 1, "// HEADER")));
+    }
+
+    @Test
+    void splice_largeFile() throws IOException {
+        final String tail = "x".repeat(100_000) + "\n";
+        assertEquals("new\n" + tail, splice("old\n" + tail, Operation.replaceSection(1, 1, "new")));
+        assertEquals("new header\n" + tail, splice("old\n" + tail, Operation.replaceSection(1, 1, "new header")));
+    }
+
+    @Test
+    void splice_atomicReplace() throws IOException {
+        final Path directory = Files.createTempDirectory(null);
+        final Path file = Files.writeString(directory.resolve("test.txt"), "one\ntwo\n");
+        final Object fileKey = fileKey(file);
+
+        // same length sections are not overwritten in place either, so an interrupted write never leaves a partially updated header
+        splicer.splice(FileSystemResource.of(file), Operation.replaceSection(1, 1, "ONE"));
+
+        assertEquals("ONE\ntwo\n", Files.readString(file));
+        assertNotEquals(fileKey, fileKey(file));
+        try (final var files = Files.list(directory)) {
+            assertEquals(List.of(file), files.toList());
+        }
+    }
+
+    @Test
+    void splice_differentLength() throws IOException {
+        assertEquals("1\r\ntwo\n", splice("one\r\ntwo\n", Operation.replaceSection(1, 1, "1")));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"one\ntwo\nthree\n", "one\r\ntwo\rthree\nfour", "one\rtwo", "one", ""})
+    void splice_sameOutputAsFallback(String content) throws IOException {
+        final List<Operation> operations = List.of(Operation.replaceSection(1, 1, "ONE\nTWO"), Operation.addSection(3, "INS"));
+        final var fallbackResource = new InMemoryWritableResourceWrapper(InlineResource.of(content));
+        fallbackSplicer.splice(fallbackResource, operations);
+
+        assertEquals(fallbackResource.writtenString(), splice(content, operations.toArray(Operation[]::new)));
+    }
+
+    @Test
+    void splice_bufferedResource() throws IOException {
+        final Path file = Files.writeString(Files.createTempDirectory(null).resolve("test.txt"), "one\ntwo\n");
+        splicer.splice(BufferedResource.of(FileSystemResource.of(file)), Operation.dropSection(1, 1));
+
+        assertEquals("two\n", Files.readString(file));
+    }
+
+    @Test
+    void splice_bufferedPrefix() throws IOException {
+        final Path file = Files.writeString(Files.createTempDirectory(null).resolve("test.txt"), "one\ntwo\nthree\n");
+        final FileSystemResource resource = FileSystemResource.of(file);
+
+        splicer.splice(BufferedResource.of(resource, "one\ntwo\n", false), Operation.replaceSection(1, 1, "1"));
+        assertEquals("1\ntwo\nthree\n", Files.readString(file));
+
+        // section beyond the loaded prefix is spliced by the fallback splicer
+        splicer.splice(BufferedResource.of(resource, "1\n", false), Operation.replaceSection(2, 3, "2"));
+        assertEquals("1\n2\n", Files.readString(file));
+    }
+
+    @Test
+    void splice_changedSinceLoaded() throws IOException {
+        final Path file = Files.writeString(Files.createTempDirectory(null).resolve("test.txt"), "// old\nbody\n");
+        final BufferedResource resource = BufferedResource.of(FileSystemResource.of(file));
+        Files.writeString(file, "// OLD\nbody\n");
+
+        // changed bytes are never overwritten as if they were the loaded ones, the loaded content is spliced by the fallback splicer instead
+        splicer.splice(resource, Operation.replaceSection(1, 1, "// new"));
+        assertEquals("// new\nbody\n", Files.readString(file));
+
+        Files.writeString(file, "// new\nbody\nappended\n");
+        final BufferedResource appended = BufferedResource.of(FileSystemResource.of(file), "// new\nbody\n", true);
+        splicer.splice(appended, Operation.replaceSection(1, 1, "// newer"));
+        assertEquals("// newer\nbody\nappended\n", Files.readString(file));
+    }
+
+    @Test
+    void splice_nonFileResource() {
+        final var resource = new InMemoryWritableResourceWrapper(InlineResource.of("one\ntwo\nthree\n"));
+        splicer.splice(resource, Operation.replaceSection(2, 2, "2"));
+
+        assertEquals("one\n2\nthree\n", resource.writtenString());
+    }
+
+    private String splice(String content, Operation... operations) throws IOException {
+        final Path file = Files.writeString(Files.createTempDirectory(null).resolve("test.txt"), content);
+        splicer.splice(FileSystemResource.of(file), List.of(operations));
+
+        return Files.readString(file);
+    }
+
+    private static Object fileKey(Path file) throws IOException {
+        return Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+    }
+
+    @Test
+    void splice_moreOperations_sameLength() throws IOException {
+        assertEquals("ONE\ntwo\nTHREE\n", splice("one\ntwo\nthree\n", Operation.replaceSection(3, 3, "THREE"), Operation.replaceSection(1, 1, "ONE")));
+    }
+
+    @Test
+    void splice_moreOperations_differentLength() throws IOException {
+        // stale header is dropped and duplicated header replaced, line separators of other lines are kept
+        final String content = "#!/bin/sh\n# header\n# header\necho foo\r\n\n# stale\necho bar";
+        final List<Operation> operations = List.of(Operation.dropSection(6, 6),
+                                                   Operation.replaceSection(2, 3, "# new header\n#"),
+                                                   Operation.replaceSection(1, 1, "#!/bin/sh"));
+
+        assertEquals("#!/bin/sh\n# new header\n#\necho foo\r\n\necho bar", splice(content, operations.toArray(Operation[]::new)));
+    }
+
+    @Test
+    void splice_moreOperations_beyondEndOfFile() throws IOException {
+        // handled by the fallback splicer, which applies only operations within the file
+        assertEquals("ONE\ntwo", splice("one\ntwo", Operation.replaceSection(1, 1, "ONE"), Operation.addSection(5, "INS")));
+    }
+
+    @Test
+    void splice_overlappingOperations() throws IOException {
+        final Path file = Files.writeString(Files.createTempDirectory(null).resolve("test.txt"), "one\ntwo\n");
+        final FileSystemResource resource = FileSystemResource.of(file);
+        final List<Operation> operations = List.of(Operation.dropSection(1, 2), Operation.addSection(2, "INS"));
+
+        assertThrows(IllegalArgumentException.class, () -> splicer.splice(resource, operations));
+        assertEquals("one\ntwo\n", Files.readString(file));
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.splicer.weaving;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ExecutionPlanTest {
+
+    @Test
+    void builder_mergesInstructions() {
+        final ExecutionPlan plan = ExecutionPlan.builder().copy(0).copy(2).copy(3).skip(1).skip(1).insert("a").insert("b").build();
+
+        assertEquals("ExecutionPlan[COPY 5, SKIP 2, INSERT 2]", plan.toString());
+        assertEquals(ExecutionPlan.COPY, plan.opcode(0));
+        assertEquals(5, plan.count(0));
+        assertEquals(ExecutionPlan.INSERT, plan.opcode(2));
+        assertEquals(2, plan.count(2));
+    }
+
+    @Test
+    void builder_insert_splitsLines() {
+        final ExecutionPlan plan = ExecutionPlan.builder().insert("first\r\n\nthird\rfourth\n").build();
+
+        assertEquals("ExecutionPlan[INSERT 4]", plan.toString());
+        assertEquals("firstthirdfourth", plan.text());
+        assertEquals("first", line(plan, 0));
+        assertEquals("", line(plan, 1));
+        assertEquals("third", line(plan, 2));
+        assertEquals("fourth", line(plan, 3));
+    }
+
+    @Test
+    void builder_insert_empty() {
+        assertEquals(0, ExecutionPlan.builder().insert("").build().size());
+    }
+
+    private static String line(ExecutionPlan plan, int line) {
+        return plan.text().substring(plan.lineStart(line), plan.lineStart(line) + plan.lineLength(line));
+    }
+}
@@ -33,10 +33,13 @@ import com.norcane.lysense.splicer.Operation;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
 import io.quarkus.test.junit.QuarkusTest;
 import jakarta.inject.Inject;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @QuarkusTest
 class InstructionCompilerTest {
@@ -45,20 +48,16 @@ class InstructionCompilerTest {
     InstructionCompiler compiler;
 
     @Test
-    void compile_addSection_singleLine() {
-        final var expected = new ExecutionPlan(12, Instruction.composite(
-            Instruction.insertLine("hello"), Instruction.writeSourceLine()));
-        final var actual = compiler.compile(Operation.addSection(12, "hello"));
+    void compile_addSection_firstLine() {
+        final var expected = ExecutionPlan.builder().insert("hello").build();
+        final var actual = compiler.compile(Operation.addSection(1, "hello"));
 
         assertEquals(expected, actual);
     }
 
     @Test
     void compile_addSection_moreLines() {
-        final var expected = new ExecutionPlan(12, Instruction.composite(
-            Instruction.insertLine("hello"),
-            Instruction.insertLine("world"),
-            Instruction.writeSourceLine()));
+        final var expected = ExecutionPlan.builder().copy(11).insert("hello\nworld").build();
         final var actual = compiler.compile(Operation.addSection(12, "hello\nworld"));
 
         assertEquals(expected, actual);
@@ -66,7 +65,7 @@ class InstructionCompilerTest {
 
     @Test
     void compile_dropSection_singleLine() {
-        final var expected = new ExecutionPlan(12, Instruction.skipSourceLine());
+        final var expected = ExecutionPlan.builder().copy(11).skip(1).build();
         final var actual = compiler.compile(Operation.dropSection(12, 12));
 
         assertEquals(expected, actual);
@@ -74,53 +73,42 @@ class InstructionCompilerTest {
 
     @Test
     void compile_dropSection_moreLines() {
-        final var expected = new ExecutionPlan(12, Instruction.composite(Instruction.skipSourceLine(), Instruction.skipSourceLine()));
+        final var expected = ExecutionPlan.builder().copy(11).skip(2).build();
         final var actual = compiler.compile(Operation.dropSection(12, 13));
 
         assertEquals(expected, actual);
     }
 
     @Test
-    void compile_replaceSection_singleToSingle() {
-        final var expected = new ExecutionPlan(12, Instruction.composite(
-            Instruction.skipSourceLine(),
-            Instruction.insertLine("hello")));
-        final var actual = compiler.compile(Operation.replaceSection(12, 12, "hello"));
+    void compile_replaceSection_singleToMulti() {
+        final var expected = ExecutionPlan.builder().copy(11).skip(1).insert("hello\nworld").build();
+        final var actual = compiler.compile(Operation.replaceSection(12, 12, "hello\nworld"));
 
         assertEquals(expected, actual);
     }
 
     @Test
-    void compile_replaceSection_singleToMulti() {
-        final var expected = new ExecutionPlan(12, Instruction.composite(
-            Instruction.skipSourceLine(),
-            Instruction.insertLine("hello"),
-            Instruction.insertLine("world")));
-        final var actual = compiler.compile(Operation.replaceSection(12, 12, "hello\nworld"));
+    void compile_replaceSection_multiToSingle() {
+        final var expected = ExecutionPlan.builder().copy(11).skip(2).insert("hello").build();
+        final var actual = compiler.compile(Operation.replaceSection(12, 13, "hello"));
 
         assertEquals(expected, actual);
     }
 
     @Test
-    void compile_replaceSection_multiToMulti() {
-        final var expected = new ExecutionPlan(12, Instruction.composite(
-            Instruction.skipSourceLine(),
-            Instruction.skipSourceLine(),
-            Instruction.insertLine("hello"),
-            Instruction.insertLine("world")));
-        final var actual = compiler.compile(Operation.replaceSection(12, 13, "hello\nworld"));
+    void compile_moreOperations() {
+        final var expected = ExecutionPlan.builder().skip(2).insert("header").copy(3).insert("hello").copy(2).skip(1).build();
+        final var actual = compiler.compile(List.of(Operation.dropSection(8, 8),
+                                                    Operation.addSection(6, "hello"),
+                                                    Operation.replaceSection(1, 2, "header")));
 
         assertEquals(expected, actual);
     }
 
     @Test
-    void compile_replaceSection_multiToSingle() {
-        final var expected = new ExecutionPlan(12, Instruction.composite(
-            Instruction.skipSourceLine(),
-            Instruction.skipSourceLine(),
-            Instruction.insertLine("hello")));
-        final var actual = compiler.compile(Operation.replaceSection(12, 13, "hello"));
+    void compile_overlappingOperations() {
+        final var operations = List.of(Operation.replaceSection(1, 3, "header"), Operation.dropSection(3, 4));
 
-        assertEquals(expected, actual);
+        assertThrows(IllegalArgumentException.class, () -> compiler.compile(operations));
     }
 }
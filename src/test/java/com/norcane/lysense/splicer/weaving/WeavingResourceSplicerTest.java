@@ -29,16 +29,28 @@
  */
 package com.norcane.lysense.splicer.weaving;
 
+import com.norcane.lysense.resource.exception.CannotWriteResourceException;
+import com.norcane.lysense.resource.filesystem.FileSystemResource;
 import com.norcane.lysense.resource.inline.InlineResource;
 import com.norcane.lysense.splicer.Operation;
 import com.norcane.lysense.test.InMemoryWritableResourceWrapper;
 
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
 import io.quarkus.test.junit.QuarkusTest;
 import jakarta.inject.Inject;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
 
 @QuarkusTest
 class WeavingResourceSplicerTest {
@@ -118,4 +130,88 @@ class WeavingResourceSplicerTest {
 
         assertEquals("one\n2and3\nfour\n", resource.writtenString());
     }
+
+    @Test
+    void splice_addSection_beyondEndOfFile() {
+        final var resource = new InMemoryWritableResourceWrapper(InlineResource.of("one\ntwo\n"));
+        splicer.splice(resource, Operation.addSection(4, "INS"));
+
+        assertEquals("one\ntwo\n", resource.writtenString());
+    }
+
+    @Test
+    void splice_keepsLineSeparators() {
+        final var resource = new InMemoryWritableResourceWrapper(InlineResource.of("one\r\ntwo\rthree\nfour"));
+        splicer.splice(resource, Operation.replaceSection(2, 2, "2"));
+
+        assertEquals("one\r\n2\r\nthree\nfour", resource.writtenString());
+    }
+
+    @Test
+    void splice_addSection_afterUnterminatedLine() {
+        final var resource = new InMemoryWritableResourceWrapper(InlineResource.of("one\ntwo"));
+        splicer.splice(resource, Operation.addSection(3, "INS"));
+
+        assertEquals("one\ntwo\nINS\n", resource.writtenString());
+    }
+
+    @Test
+    void splice_longLines() {
+        // line separator of the first line spans the boundary of the internal buffer
+        final String firstLine = "x".repeat(8191);
+        final String longLine = "y".repeat(20_000);
+        final var resource = new InMemoryWritableResourceWrapper(InlineResource.of(firstLine + "\r\n" + longLine + "\r\n" + longLine));
+        splicer.splice(resource, Operation.dropSection(2, 2));
+
+        assertEquals(firstLine + "\r\n" + longLine, resource.writtenString());
+    }
+
+    @Test
+    void splice_moreOperations() {
+        final var resource = new InMemoryWritableResourceWrapper(InlineResource.of("one\ntwo\nthree\nfour\n"));
+        splicer.splice(resource, List.of(Operation.dropSection(3, 3), Operation.replaceSection(1, 1, "1"), Operation.addSection(5, "five")));
+
+        assertEquals("1\ntwo\nfour\nfive\n", resource.writtenString());
+    }
+
+    @Test
+    void splice_readFailure() throws IOException {
+        final Path directory = Files.createTempDirectory(null);
+        final Path file = Files.writeString(directory.resolve("test.txt"), "one\ntwo\nthree\n");
+        final FileSystemResource resource = spy(FileSystemResource.of(file));
+        doReturn(new FailingReader("one\n")).when(resource).reader();
+
+        assertThrows(CannotWriteResourceException.class, () -> splicer.splice(resource, Operation.replaceSection(1, 1, "1")));
+        assertEquals("one\ntwo\nthree\n", Files.readString(file));
+        try (final var files = Files.list(directory)) {
+            assertEquals(List.of(file), files.toList());
+        }
+    }
+
+    /**
+     * Reader that returns the given content and then fails.
+     */
+    private static final class FailingReader extends Reader {
+
+        private final StringReader content;
+
+        private FailingReader(String content) {
+            this.content = new StringReader(content);
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            final int read = content.read(cbuf, off, len);
+            if (read < 0) {
+                throw new IOException("read failed");
+            }
+
+            return read;
+        }
+
+        @Override
+        public void close() {
+            content.close();
+        }
+    }
 }
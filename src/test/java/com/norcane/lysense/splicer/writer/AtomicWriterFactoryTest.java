@@ -0,0 +1,79 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.splicer.writer;
+
+import com.norcane.lysense.resource.buffered.BufferedResource;
+import com.norcane.lysense.resource.filesystem.FileSystemResource;
+import com.norcane.lysense.resource.inline.InlineResource;
+import com.norcane.lysense.test.InMemoryWritableResourceWrapper;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+@QuarkusTest
+class AtomicWriterFactoryTest {
+
+    @Inject
+    AtomicWriterFactory factory;
+
+    @Test
+    void of_smallFile() throws IOException {
+        final Path file = Files.writeString(Files.createTempDirectory(null).resolve("small.txt"), "foo\n");
+
+        try (final AtomicWriter writer = factory.of(FileSystemResource.of(file))) {
+            assertInstanceOf(FileAtomicWriter.class, writer);
+        }
+    }
+
+    @Test
+    void of_largeFile() throws IOException {
+        final Path file = Files.writeString(Files.createTempDirectory(null).resolve("large.txt"),
+                                            "x".repeat((int) AtomicWriterFactory.FILE_BUFFER_THRESHOLD));
+
+        try (final AtomicWriter writer = factory.of(BufferedResource.of(FileSystemResource.of(file)))) {
+            assertInstanceOf(FileAtomicWriter.class, writer);
+        }
+    }
+
+    @Test
+    void of_nonFileResource() throws IOException {
+        try (final AtomicWriter writer = factory.of(new InMemoryWritableResourceWrapper(InlineResource.of("foo\n")))) {
+            assertInstanceOf(InMemoryAtomicWriter.class, writer);
+        }
+    }
+}
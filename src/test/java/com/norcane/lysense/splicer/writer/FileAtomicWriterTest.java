@@ -0,0 +1,126 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.splicer.writer;
+
+import com.norcane.lysense.resource.util.LineSeparator;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+
+import io.quarkus.test.junit.QuarkusTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+class FileAtomicWriterTest {
+
+    @Test
+    void write() throws IOException {
+        final Path directory = Files.createTempDirectory(null);
+        final Path target = Files.writeString(directory.resolve("target.txt"), "old content");
+
+        try (final FileAtomicWriter writer = new FileAtomicWriter(target, LineSeparator.CRLF)) {
+            writer.appendLine("foo");
+            writer.write("bar");
+
+            assertEquals("old content", Files.readString(target));
+        }
+
+        assertEquals("foo\r\nbar", Files.readString(target));
+        try (final var files = Files.list(directory)) {
+            assertEquals(List.of(target), files.toList());
+        }
+    }
+
+    @Test
+    void write_bufferedInMemory() throws IOException {
+        final Path directory = Files.createTempDirectory(null);
+        final Path target = Files.writeString(directory.resolve("target.txt"), "old content");
+
+        try (final FileAtomicWriter writer = new FileAtomicWriter(target, LineSeparator.LF, true)) {
+            writer.appendLine("new content");
+
+            try (final var files = Files.list(directory)) {
+                assertEquals(List.of(target), files.toList());
+            }
+        }
+
+        assertEquals("new content\n", Files.readString(target));
+    }
+
+    @Test
+    void abort() throws IOException {
+        final Path directory = Files.createTempDirectory(null);
+        final Path target = Files.writeString(directory.resolve("target.txt"), "old content");
+
+        try (final FileAtomicWriter writer = new FileAtomicWriter(target, LineSeparator.LF)) {
+            writer.appendLine("partial content");
+            writer.abort();
+        }
+
+        assertEquals("old content", Files.readString(target));
+        try (final var files = Files.list(directory)) {
+            assertEquals(List.of(target), files.toList());
+        }
+    }
+
+    @Test
+    void write_preservesPermissions() throws IOException {
+        final Path target = Files.writeString(Files.createTempDirectory(null).resolve("script.sh"), "old content");
+        Files.setPosixFilePermissions(target, PosixFilePermissions.fromString("rwxr-x---"));
+
+        try (final FileAtomicWriter writer = new FileAtomicWriter(target, LineSeparator.LF)) {
+            writer.appendLine("new content");
+        }
+
+        assertEquals("new content\n", Files.readString(target));
+        assertEquals(PosixFilePermissions.fromString("rwxr-x---"), Files.getPosixFilePermissions(target));
+    }
+
+    @Test
+    void write_followsSymbolicLink() throws IOException {
+        final Path directory = Files.createTempDirectory(null);
+        final Path target = Files.writeString(directory.resolve("target.txt"), "old content");
+        final Path link = Files.createSymbolicLink(directory.resolve("link.txt"), target);
+
+        try (final FileAtomicWriter writer = new FileAtomicWriter(link, LineSeparator.LF)) {
+            writer.appendLine("new content");
+        }
+
+        assertTrue(Files.isSymbolicLink(link));
+        assertEquals("new content\n", Files.readString(target));
+    }
+}
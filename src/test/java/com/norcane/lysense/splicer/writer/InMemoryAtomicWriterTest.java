@@ -40,6 +40,7 @@ import io.quarkus.test.junit.QuarkusTest;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.fail;
 
 @QuarkusTest
 class InMemoryAtomicWriterTest {
@@ -69,4 +70,13 @@ class InMemoryAtomicWriterTest {
 
         assertEquals("foo", targetWriter.toString());
     }
+
+    @Test
+    void abort() throws IOException {
+        final InMemoryAtomicWriter writer = new InMemoryAtomicWriter(() -> fail("target writer must not be opened"), LineSeparator.LF);
+
+        writer.write("foo");
+        writer.abort();
+        writer.close();
+    }
 }
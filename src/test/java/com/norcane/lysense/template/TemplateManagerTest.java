@@ -36,14 +36,22 @@ import com.norcane.lysense.template.source.TemplateSource;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
 
 import io.quarkus.test.junit.QuarkusTest;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @QuarkusTest
@@ -73,6 +81,34 @@ class TemplateManagerTest {
         assertEquals("Goodbye, John!", template2.render(Variables.from(Map.of("name", "John"))));
     }
 
+    @Test
+    void template_compiledOnlyOnce() throws Exception {
+        final TestTemplateSource.TemplateKey templateKey = new TestTemplateSource.TemplateKey("test-template1");
+
+        final List<Callable<Template>> tasks = Collections.nCopies(32, () -> templateManager.template(templateKey));
+        try (final ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            final List<Future<Template>> futures = executor.invokeAll(tasks);
+            final Template template = templateManager.template(templateKey);
+
+            // all concurrent requests got the single compiled instance
+            for (final Future<Template> future : futures) {
+                assertSame(template, future.get());
+            }
+        }
+    }
+
+    @Test
+    void resetState() {
+        final TestTemplateSource.TemplateKey templateKey = new TestTemplateSource.TemplateKey("test-template1");
+        final Template template = templateManager.template(templateKey);
+        assertSame(template, templateManager.template(templateKey));
+
+        templateManager.resetState();
+
+        assertTrue(templateManager.loadedTemplateSources().isEmpty());
+        assertNotSame(template, templateManager.template(templateKey));
+    }
+
     @Test
     void templates() {
         final Map<TestTemplateSource.TemplateKey, Template> templates = templateManager.templates(TestTemplateSource.TemplateKey.class);
@@ -82,6 +118,14 @@ class TemplateManagerTest {
         assertTrue(templates.containsKey(new TestTemplateSource.TemplateKey("test-template2")));
     }
 
+    @Test
+    void templateResources() {
+        final Map<TestTemplateSource.TemplateKey, Resource> templateResources = templateManager.templateResources(TestTemplateSource.TemplateKey.class);
+
+        assertEquals(2, templateResources.size());
+        assertEquals("Hello, {{name}}!", templateResources.get(new TestTemplateSource.TemplateKey("test-template1")).readAsString());
+    }
+
     @Test
     void loadedTemplateSources() {
         // none template source has been dynamically loaded yet
@@ -109,8 +153,8 @@ class TemplateManagerTest {
         }
 
         @Override
-        protected List<Resource> resources() {
-            return List.of(
+        protected Stream<Resource> resources() {
+            return Stream.of(
                 InlineResource.of("test-template1", "mustache", "Hello, {{name}}!"),
                 InlineResource.of("test-template2", "mustache", "Goodbye, {{name}}!")
             );
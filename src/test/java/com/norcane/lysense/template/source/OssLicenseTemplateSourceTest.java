@@ -66,7 +66,7 @@ class OssLicenseTemplateSourceTest {
 
     @Test
     void resources() {
-        final List<Resource> resources = ossLicenseTemplateSource.resources();
+        final List<Resource> resources = ossLicenseTemplateSource.resources().toList();
 
         assertFalse(resources.isEmpty());
         assertEquals(102, resources.size());
@@ -40,6 +40,7 @@ import org.junit.jupiter.api.Test;
 
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 import io.quarkus.test.InjectMock;
 import io.quarkus.test.junit.QuarkusTest;
@@ -91,9 +92,9 @@ class UserLicenseTemplateSourceTest {
 
         // -- mocks
         when(configuration.templates()).thenReturn(List.of(templatesPath));
-        when(resourceManager.resources(eq(templatesPath), any(), eq(true)))
-            .thenReturn(List.of(template1))             // valid state - only one template type for source type
-            .thenReturn(List.of(template1, template2)); // invalid state - two possible templates for one source type
+        when(resourceManager.streamResources(eq(templatesPath), any(), eq(true)))
+            .thenReturn(Stream.of(template1))             // valid state - only one template type for source type
+            .thenReturn(Stream.of(template1, template2)); // invalid state - two possible templates for one source type
 
         final Map<UserLicenseTemplateSource.TemplateKey, Resource> templates = source.templateResources();
         assertTrue(templates.containsKey(new UserLicenseTemplateSource.TemplateKey("test")));
@@ -106,6 +107,6 @@ class UserLicenseTemplateSourceTest {
 
         // -- verify
         verify(configuration, times(2)).templates();
-        verify(resourceManager, times(2)).resources(eq(templatesPath), any(), eq(true));
+        verify(resourceManager, times(2)).streamResources(eq(templatesPath), any(), eq(true));
     }
 }
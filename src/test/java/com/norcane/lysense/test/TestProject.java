@@ -0,0 +1,112 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.lysense.test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Temporary project with user configuration, license header templates for <i>Java</i> and <i>Unix shell</i> and source codes, used to test processing of
+ * source codes end-to-end. User configuration is written into the project root, which is expected to be returned as the current directory by the mocked
+ * {@link com.norcane.toolkit.io.FileSystem}.
+ */
+public final class TestProject {
+
+    public static final String JAVA_HEADER = "/*\n * Copyright (c) 2024 lysense\n */\n";
+    public static final String SHELL_HEADER = "\n#\n# Copyright (c) 2024 lysense\n#\n\n";
+
+    private final Path root;
+    private final Path sources;
+
+    private TestProject(Path root, Path sources) {
+        this.root = root;
+        this.sources = sources;
+    }
+
+    /**
+     * Creates new project in temporary directory, configured with disabled shared cache.
+     *
+     * @return new project
+     * @throws IOException if an I/O error occurs
+     */
+    public static TestProject create() throws IOException {
+        final Path root = Files.createTempDirectory(null);
+        final Path templates = Files.createDirectories(root.resolve("templates"));
+        Files.writeString(templates.resolve("java.mustache"), "/*\n * Copyright (c) {{ year }} lysense\n */");
+        Files.writeString(templates.resolve("unix-shell.mustache"), "#\n# Copyright (c) {{ year }} lysense\n#");
+
+        final TestProject project = new TestProject(root, Files.createDirectories(root.resolve("src")));
+        project.configure(false);
+        return project;
+    }
+
+    public Path root() {
+        return root;
+    }
+
+    public Path sources() {
+        return sources;
+    }
+
+    /**
+     * Writes source code file with given name and content into the sources directory.
+     *
+     * @param name    file name
+     * @param content file content
+     * @return path of the written file
+     * @throws IOException if an I/O error occurs
+     */
+    public Path source(String name, String content) throws IOException {
+        return Files.writeString(sources.resolve(name), content);
+    }
+
+    /**
+     * Writes user configuration of the project. Configuration is not reloaded automatically.
+     *
+     * @param sharedCache whether the shared result cache is enabled
+     * @throws IOException if an I/O error occurs
+     */
+    public void configure(boolean sharedCache) throws IOException {
+        Files.writeString(root.resolve("lysense.yaml"), """
+            base-version: 0.1.0
+            run-mode: update
+            templates:
+              - %s
+            sources:
+              - %s
+            cache:
+              shared:
+                enabled: %s
+            template-variables:
+              year: 2024
+            """.formatted(root.resolve("templates"), sources, sharedCache));
+    }
+}
@@ -86,6 +86,21 @@ class ConciseProgressBarTest {
         verify(console).printLn("@|bold [  0 of 100]|@ test");
     }
 
+    @Test
+    void render_unknownMaximum() {
+        final ProgressBar progressBar = new ConciseProgressBar(ConciseProgressBar.UNKNOWN_MAXIMUM, "test");
+        progressBar.step("Another step");
+
+        // -- mocks
+        when(console.isInteractive()).thenReturn(false);
+
+        progressBar.render(console);
+
+        // -- verify
+        verify(console).isInteractive();
+        verify(console).printLn("@|bold [1]|@ Another step");
+    }
+
     @Test
     void cleanup() {
         final ProgressBar progressBar = new ConciseProgressBar(100, "test");
@@ -0,0 +1,185 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.toolkit.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import io.quarkus.test.junit.QuarkusTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+class PipelineTest {
+
+    @Test
+    void processesAllItems() {
+        final List<String> results = new ArrayList<>();
+
+        try (final Pipeline<String> pipeline = Pipeline.source(() -> IntStream.rangeClosed(1, 1000).boxed())
+            .map(number -> number * 2, 4)
+            .map(String::valueOf, 2)
+            .start(8)) {
+
+            pipeline.forEach(results::add);
+        }
+
+        assertEquals(1000, results.size());
+        assertEquals(IntStream.rangeClosed(1, 1000).map(number -> number * 2).sum(), results.stream().mapToInt(Integer::parseInt).sum());
+    }
+
+    @Test
+    void filtersItems() {
+        final List<Integer> results = new ArrayList<>();
+
+        try (final Pipeline<Integer> pipeline = Pipeline.source(() -> IntStream.rangeClosed(1, 1000).boxed())
+            .filter(number -> number % 10 == 0, 3)
+            .map(number -> number / 10, 2)
+            .start(8)) {
+
+            pipeline.forEach(results::add);
+        }
+
+        assertEquals(100, results.size());
+        assertEquals(IntStream.rangeClosed(1, 100).sum(), results.stream().mapToInt(Integer::intValue).sum());
+    }
+
+    @Test
+    void emptySource() {
+        try (final Pipeline<Integer> pipeline = Pipeline.source(Stream::<Integer>empty).map(number -> number + 1, 2).start(4)) {
+            assertFalse(pipeline.iterator().hasNext());
+        }
+    }
+
+    @Test
+    void sourceIsConsumedLazily() {
+        final AtomicInteger produced = new AtomicInteger();
+        final int queueCapacity = 4;
+
+        try (final Pipeline<Integer> pipeline = Pipeline.source(() -> IntStream.range(0, 10_000).peek(_ -> produced.incrementAndGet()).boxed())
+            .map(number -> number, 1)
+            .start(queueCapacity)) {
+
+            assertTrue(pipeline.iterator().hasNext());
+
+            // source can run ahead only by the capacity of queues between stages (plus items being currently processed)
+            assertTrue(produced.get() <= 3 * queueCapacity, "produced: " + produced.get());
+        }
+    }
+
+    @Test
+    void failureIsPropagated() {
+        final Pipeline<Integer> pipeline = Pipeline.source(() -> IntStream.range(0, 100).boxed())
+            .map(number -> {
+                if (number == 42) {
+                    throw new IllegalArgumentException("failed on " + number);
+                }
+                return number;
+            }, 3)
+            .start(4);
+
+        try (pipeline) {
+            final IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> pipeline.forEach(_ -> {
+            }));
+            assertEquals("failed on 42", exception.getMessage());
+        }
+    }
+
+    @Test
+    void sourceFailureIsPropagated() {
+        try (final Pipeline<Integer> pipeline = Pipeline.source(() -> Stream.<Integer>generate(() -> {
+            throw new IllegalStateException("source failed");
+        })).map(number -> number, 1).start(4)) {
+
+            assertThrows(IllegalStateException.class, () -> pipeline.iterator().hasNext());
+        }
+    }
+
+    @Test
+    void closeCancelsRunningPipeline() throws InterruptedException {
+        final AtomicInteger produced = new AtomicInteger();
+
+        final Pipeline<Integer> pipeline = Pipeline.source(() -> Stream.iterate(0, number -> number + 1).peek(_ -> produced.incrementAndGet()))
+            .map(number -> number, 2)
+            .start(4);
+
+        assertTrue(pipeline.iterator().hasNext());
+        assertTimeoutPreemptively(Duration.ofSeconds(5), pipeline::close);
+
+        // workers blocked on full queues are stopped, so the infinite source doesn't produce any further items
+        final int producedOnClose = produced.get();
+        Thread.sleep(100);
+        assertEquals(producedOnClose, produced.get());
+    }
+
+    @Test
+    void cancellationFinishesItemsInProgress() throws InterruptedException {
+        final CountDownLatch processing = new CountDownLatch(1);
+        final AtomicBoolean interrupted = new AtomicBoolean();
+        final AtomicInteger finished = new AtomicInteger();
+
+        final Pipeline<Integer> pipeline = Pipeline.source(() -> IntStream.range(0, 100).boxed())
+            .map(number -> {
+                processing.countDown();
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    interrupted.set(true);
+                }
+                finished.incrementAndGet();
+                return number;
+            }, 1)
+            .start(4);
+
+        processing.await();
+        pipeline.close();
+
+        assertFalse(interrupted.get());
+        assertEquals(1, finished.get());
+    }
+
+    @Test
+    void invalidParallelism() {
+        assertThrows(IllegalArgumentException.class, () -> Pipeline.source(Stream::empty).map(item -> item, 0));
+        assertThrows(IllegalArgumentException.class, () -> Pipeline.source(Stream::empty).filter(_ -> true, 0));
+    }
+}
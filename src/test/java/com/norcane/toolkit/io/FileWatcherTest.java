@@ -0,0 +1,140 @@
+/*
+ * lysense :: license header manager
+ * Copyright (c) 2023-2024 Vaclav Svejcar
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.norcane.toolkit.io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileWatcherTest {
+
+    private static final Duration QUIET_PERIOD = Duration.ofMillis(300);
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(50);
+
+    @TempDir
+    Path root;
+
+    @Test
+    void detectsChangesByPolling() throws Exception {
+        final Path modified = Files.writeString(root.resolve("modified.txt"), "foo");
+        final Path deleted = Files.writeString(root.resolve("deleted.txt"), "foo");
+
+        try (final FileWatcher watcher = FileWatcher.polling(List.of(root), _ -> true, POLL_INTERVAL)) {
+            assertTrue(watcher.polling());
+
+            Files.writeString(modified, "foo bar");
+            Files.delete(deleted);
+            final Path created = Files.writeString(Files.createDirectories(root.resolve("sub")).resolve("created.txt"), "foo");
+
+            assertEquals(Set.of(modified, deleted, created), watcher.awaitChanges(QUIET_PERIOD).paths());
+        }
+    }
+
+    @Test
+    void detectsChangesNatively() throws Exception {
+        final Path modified = Files.writeString(root.resolve("modified.txt"), "foo");
+
+        try (final FileWatcher watcher = FileWatcher.open(List.of(root), _ -> true, POLL_INTERVAL)) {
+            Files.writeString(modified, "foo bar");
+            final Path directory = Files.createDirectories(root.resolve("sub"));
+            final Path created = Files.writeString(directory.resolve("created.txt"), "foo");
+
+            final FileWatcher.Changes changes = watcher.awaitChanges(QUIET_PERIOD);
+            assertTrue(changes.paths().containsAll(Set.of(modified, created)));
+            assertFalse(changes.overflow());
+
+            // newly created directory is watched as well
+            final Path createdLater = Files.writeString(directory.resolve("later.txt"), "foo");
+            assertTrue(watcher.awaitChanges(QUIET_PERIOD).paths().contains(createdLater));
+        }
+    }
+
+    @Test
+    void reportsBurstOfChangesAtOnce() throws Exception {
+        try (final FileWatcher watcher = FileWatcher.open(List.of(root), _ -> true, POLL_INTERVAL)) {
+            final Thread writer = Thread.ofPlatform().start(() -> {
+                try {
+                    for (int i = 0; i < 5; i++) {
+                        Files.writeString(root.resolve("file-%d.txt".formatted(i)), "foo");
+                        Thread.sleep(50);
+                    }
+                } catch (IOException | InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+
+            final FileWatcher.Changes changes = watcher.awaitChanges(QUIET_PERIOD);
+            writer.join();
+
+            assertEquals(5, changes.paths().size());
+        }
+    }
+
+    @Test
+    void reportsOnlyChangesOfWatchedFilesAndDirectories() throws Exception {
+        final Path watchedFile = Files.writeString(root.resolve("watched.txt"), "foo");
+        final Path otherFile = Files.writeString(root.resolve("other.txt"), "foo");
+        final Path directory = Files.createDirectories(root.resolve("sub"));
+        final Path hiddenDirectory = Files.createDirectories(directory.resolve(".hidden"));
+
+        for (final boolean polling : List.of(false, true)) {
+            try (final FileWatcher watcher = polling
+                                             ? FileWatcher.polling(List.of(watchedFile, directory), path -> !path.endsWith(".hidden"), POLL_INTERVAL)
+                                             : FileWatcher.open(List.of(watchedFile, directory), path -> !path.endsWith(".hidden"), POLL_INTERVAL)) {
+
+                Files.writeString(otherFile, "foo bar " + polling);
+                Files.writeString(hiddenDirectory.resolve("ignored.txt"), "foo bar " + polling);
+                Files.writeString(watchedFile, "foo bar " + polling);
+
+                assertEquals(Set.of(watchedFile), watcher.awaitChanges(QUIET_PERIOD).paths());
+            }
+        }
+    }
+
+    @Test
+    void mergesChanges() {
+        final FileWatcher.Changes first = new FileWatcher.Changes(Set.of(Path.of("a")), false);
+        final FileWatcher.Changes second = new FileWatcher.Changes(Set.of(Path.of("b")), true);
+
+        assertTrue(FileWatcher.Changes.NONE.isEmpty());
+        assertFalse(new FileWatcher.Changes(Set.of(), true).isEmpty());
+        assertEquals(new FileWatcher.Changes(Set.of(Path.of("a"), Path.of("b")), true), first.merge(second));
+    }
+}